@@ -28,10 +28,21 @@ public class Daemon extends Process {
      */
 	private Task currentTask;
 
+    /**
+     * Whether the process is suspended, as far as we know (null if unknown, e.g. after a migration of the VM).
+     * The state is kept on the Java side to skip the redundant native calls (see suspendIfRunning/resumeIfSuspended).
+     */
+    private Boolean suspended = null;
+
+    /**
+     * The bound of the tasks of the daemon (0 if they are not bounded), see setBound()
+     */
+    private double bound = 0;
+
 
     /**
      * Constructor
-     * @param host the name of the host on which the task is running (in our case, the host is a VM)
+     * @param host the name of the host on which the task is running (a VM, or a physical host with the fluid CPU model)
      * @param load the load
      */
     public Daemon(Host host, int load) {
@@ -51,13 +62,73 @@ public class Daemon extends Process {
                 e.printStackTrace();
             } catch (TaskCancelledException e) {
                 e.printStackTrace();
+                suspended = true;
                 suspend(); // Suspend the process
             }
             currentTask = new Task(this.getHost().getName()+"-daemon-"+(i++), this.getHost().getSpeed()*100.0, 0);
+            if (bound > 0) {
+                NativeCalls.count(NativeCalls.Call.SET_BOUND);
+                currentTask.setBound(bound);
+            }
             // TODO test whether the CPU consumption is higher when putting larger tasks (i.e. 1000000000000.0 for instance).
         }
     }
 
+    /**
+     * Suspend the process, unless it is known to be suspended
+     */
+    public void suspendIfRunning() {
+        if (suspended != null && suspended) {
+            NativeCalls.skip(NativeCalls.Call.DAEMON_SUSPEND);
+            return;
+        }
+        NativeCalls.count(NativeCalls.Call.DAEMON_SUSPEND);
+        suspend();
+        suspended = true;
+    }
+
+    /**
+     * Resume the process, unless it is known to be running
+     */
+    public void resumeIfSuspended() {
+        if (suspended != null && !suspended) {
+            NativeCalls.skip(NativeCalls.Call.DAEMON_RESUME);
+            return;
+        }
+        NativeCalls.count(NativeCalls.Call.DAEMON_RESUME);
+        resume();
+        suspended = false;
+    }
+
+    /**
+     * Bound the tasks of the daemon (used when the daemon runs on a physical host, see XHost.syncCPULoad(); the
+     * daemons of the VMs are bounded through their VM)
+     * @param bound the bound in flops per second (0 means no bound)
+     */
+    public void setBound(double bound) {
+        if (bound == this.bound) {
+            NativeCalls.skip(NativeCalls.Call.SET_BOUND);
+            return;
+        }
+        NativeCalls.count(NativeCalls.Call.SET_BOUND);
+        currentTask.setBound(bound);
+        this.bound = bound;
+    }
+
+    /**
+     * @return the bound of the tasks of the daemon, 0 if the daemon is known to be suspended
+     */
+    double getEffectiveBound() {
+        return suspended != null && suspended ? 0 : bound;
+    }
+
+    /**
+     * Forget the state of the process (the next suspension or resumption is performed in any case)
+     */
+    void resetState() {
+        suspended = null;
+    }
+
     public double getRemaining(){
         return this.currentTask.getFlopsAmount();
     }
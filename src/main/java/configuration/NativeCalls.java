@@ -0,0 +1,122 @@
+package configuration;
+
+import org.simgrid.msg.Msg;
+import simulation.SimulationContext;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counters of the calls to the native SimGrid library (JNI) per type of event.
+ * XVM, XHost and Daemon keep the attributes of the MSG objects that do not change on the Java side and skip the
+ * native updates that would not change anything (e.g. setting the same bound twice). The calls that are performed
+ * and the calls that are skipped are both counted, and attributed to the event that is being played by the injector
+ * (see beginEvent()). Please note that the processes that run while an event blocks (e.g. a scheduler during a
+ * suspension) are attributed to that event as well.
+ * The counters belong to the current simulation (see SimulationContext.getNativeCalls()), hence the scenarios that
+ * run back-to-back are counted separately.
+ */
+public class NativeCalls {
+
+    public enum Call {
+        GET_SPEED, SET_BOUND, DAEMON_SUSPEND, DAEMON_RESUME, VM_IS_RUNNING, VM_START, VM_SHUTDOWN, VM_MIGRATE,
+        VM_SUSPEND, VM_RESUME, HOST_ON, HOST_OFF, HOST_GET_BY_NAME, GET_CONSUMED_ENERGY
+    }
+
+    /**
+     * The calls performed outside of the events (initialization, schedulers)
+     */
+    private static final String NO_EVENT = "(none)";
+
+    private static final int NB_OF_CALLS = Call.values().length;
+
+    /**
+     * Per type of event: the number of events, then the number of calls and the number of skipped calls of each kind
+     */
+    private final Map<String, long[]> counters = new TreeMap<String, long[]>();
+
+    /**
+     * The counters of the event that is being played
+     */
+    private long[] current = countersOf(NO_EVENT);
+
+    private long[] countersOf(String eventType) {
+        long[] res = counters.get(eventType);
+        if (res == null) {
+            res = new long[1 + 2 * NB_OF_CALLS];
+            counters.put(eventType, res);
+        }
+        return res;
+    }
+
+    /**
+     * The next calls are attributed to the given type of event (until endEvent())
+     * @param eventType the type of the event (e.g. its class name)
+     * @param nbOfEvents the number of events of this type that are played (e.g. a batch of load events)
+     */
+    public static void beginEvent(String eventType, int nbOfEvents) {
+        NativeCalls calls = SimulationContext.current().getNativeCalls();
+        calls.current = calls.countersOf(eventType);
+        calls.current[0] += nbOfEvents;
+    }
+
+    public static void endEvent() {
+        NativeCalls calls = SimulationContext.current().getNativeCalls();
+        calls.current = calls.countersOf(NO_EVENT);
+    }
+
+    /**
+     * A native call is performed
+     */
+    public static void count(Call call) {
+        SimulationContext.current().getNativeCalls().current[1 + call.ordinal()]++;
+    }
+
+    /**
+     * A native call is avoided (the value is known on the Java side or the update would not change anything)
+     */
+    public static void skip(Call call) {
+        SimulationContext.current().getNativeCalls().current[1 + NB_OF_CALLS + call.ordinal()]++;
+    }
+
+    /**
+     * @return the number of native calls of the given kind performed during the events of the given type
+     */
+    public static long getNbOfCalls(String eventType, Call call) {
+        long[] res = SimulationContext.current().getNativeCalls().counters.get(eventType);
+        return res == null ? 0 : res[1 + call.ordinal()];
+    }
+
+    /**
+     * @return the number of native calls of the given kind that have been avoided during the events of the given type
+     */
+    public static long getNbOfSkippedCalls(String eventType, Call call) {
+        long[] res = SimulationContext.current().getNativeCalls().counters.get(eventType);
+        return res == null ? 0 : res[1 + NB_OF_CALLS + call.ordinal()];
+    }
+
+    /**
+     * Log the number of native calls per event for each type of event
+     */
+    public static void report() {
+        for (Map.Entry<String, long[]> entry : SimulationContext.current().getNativeCalls().counters.entrySet()) {
+            long[] res = entry.getValue();
+            long calls = 0;
+            long skipped = 0;
+            StringBuilder details = new StringBuilder();
+            for (Call call : Call.values()) {
+                long n = res[1 + call.ordinal()];
+                long s = res[1 + NB_OF_CALLS + call.ordinal()];
+                calls += n;
+                skipped += s;
+                if (n + s > 0)
+                    details.append(String.format(" %s=%d/%d", call, n, n + s));
+            }
+            if (calls + skipped == 0)
+                continue;
+            double perEvent = res[0] > 0 ? (double) calls / res[0] : calls;
+            Msg.info(String.format("Native calls for %s: %d events, %d calls (%.2f per event), %d skipped,%s",
+                    entry.getKey(), res[0], calls, perEvent, skipped, details));
+        }
+    }
+}
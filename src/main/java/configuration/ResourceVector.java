@@ -0,0 +1,95 @@
+package configuration;
+
+/**
+ * The resources of the hosts and of the VMs: CPU (same unit as XHost.getCPUCapacity()), memory (MBytes) and network
+ * in/out (MBytes per second).
+ * A resource vector is a plain double[] of SIZE elements indexed by the constants below, hence the demand and the
+ * capacity of each host and the demand of each VM are kept in arrays that are updated in place (see XHost.getDemand(),
+ * XHost.getCapacity() and XVM.getDemand()), and the viability of a host is checked without creating any object.
+ */
+public final class ResourceVector {
+
+    public static final int CPU = 0;
+    public static final int MEM = 1;
+    public static final int NET_IN = 2;
+    public static final int NET_OUT = 3;
+
+    /**
+     * The number of resources
+     */
+    public static final int SIZE = 4;
+
+    private static final String[] NAMES = {"cpu", "mem", "net_in", "net_out"};
+
+    private ResourceVector() {
+    }
+
+    /**
+     * @return a vector whose resources are all 0
+     */
+    public static double[] create() {
+        return new double[SIZE];
+    }
+
+    public static double[] of(double cpu, double mem, double netIn, double netOut) {
+        double[] res = new double[SIZE];
+        res[CPU] = cpu;
+        res[MEM] = mem;
+        res[NET_IN] = netIn;
+        res[NET_OUT] = netOut;
+        return res;
+    }
+
+    /**
+     * @return the name of the resource (e.g. "cpu")
+     */
+    public static String getName(int resource) {
+        return NAMES[resource];
+    }
+
+    /**
+     * to += v
+     */
+    public static void add(double[] to, double[] v) {
+        for (int r = 0; r < SIZE; r++)
+            to[r] += v[r];
+    }
+
+    /**
+     * from -= v
+     */
+    public static void sub(double[] from, double[] v) {
+        for (int r = 0; r < SIZE; r++)
+            from[r] -= v[r];
+    }
+
+    /**
+     * @return the first resource whose demand exceeds the capacity, -1 if the demand fits
+     */
+    public static int firstOverloaded(double[] demand, double[] capacity) {
+        for (int r = 0; r < SIZE; r++) {
+            if (demand[r] > capacity[r])
+                return r;
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether the demand fits in the capacity for all the resources
+     */
+    public static boolean fits(double[] demand, double[] capacity) {
+        return firstOverloaded(demand, capacity) == -1;
+    }
+
+    /**
+     * @return whether demand + extra fits in the capacity for all the resources (e.g. to check whether a VM can be
+     * placed on a host)
+     */
+    public static boolean fits(double[] demand, double[] extra, double[] capacity) {
+        for (int r = 0; r < SIZE; r++) {
+            if (demand[r] + extra[r] > capacity[r])
+                return false;
+        }
+        return true;
+    }
+}
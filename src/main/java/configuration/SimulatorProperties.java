@@ -13,6 +13,8 @@
  */
 package configuration;
 
+import simulation.SimulationContext;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -83,6 +85,9 @@ public class SimulatorProperties extends Properties {
 	public final static String LOAD_PERIOD = "simulator.loadperiod";
     public final static String CRASH_PERIOD = "simulator.crashperiod";
     public final static String CRASH_DURATION = "simulator.crashduration";
+    public final static String RACK_SIZE = "simulator.rack.size";
+    public final static String RACK_CRASH_PERIOD = "simulator.rack.crashperiod";
+    public final static String CLUSTER_CRASH_PERIOD = "simulator.cluster.crashperiod";
 
 	public final static String MEAN_LOAD = "load.mean";
 	public final static String STD_LOAD = "load.std";
@@ -91,7 +96,16 @@ public class SimulatorProperties extends Properties {
 	public final static String SIMULATION = "simulation";
 	public final static String MONITORING = "monitoring";
 	public final static String WAIT_FOR_USER_INPUT = "simulator.waitforuserinput";
+	public final static String CHECK_AGGREGATES = "simulator.checkaggregates";
+	public final static String CHECKPOINT_TIME = "simulator.checkpoint.time";
+	public final static String CHECKPOINT_FILE = "simulator.checkpoint.file";
+	public final static String RESTORE_FILE = "simulator.restore";
+	public final static String CPU_MODEL = "simulator.cpumodel";
+	public final static String ENERGY_PERIOD = "simulator.energy.period";
+	public final static String ENERGY_PER_RACK = "simulator.energy.perrack";
+	public final static String LOAD_HISTORY_SIZE = "simulator.loadhistory.size";
 	public final static String WORKER_NODES_FILE = "simulator.workernodesfile";
+	public final static String TRACE_FILE = "simulator.trace.file";
 	
 	public final static String VIRTUAL_NODES_NAMES_FILE = "configgenerator.virtualnodesnamesfile";
 	
@@ -100,11 +114,29 @@ public class SimulatorProperties extends Properties {
 	public final static String MIN_PERCENTAGE_OF_ACTIVE_VMS = "loadinjector.minimumpercentageactive";
 	public final static String MAX_PERCENTAGE_OF_ACTIVE_VMS = "loadinjector.maximumpercentageactive";
 	public final static String STEP_BY_STEP = "loadinjector.stepbystep";
+	public final static String INJECTOR_MODE = "loadinjector.mode";
+	public final static String INJECTOR_JOURNAL = "loadinjector.journal";
+	public final static String INJECTOR_THREADS = "loadinjector.threads";
+	public final static String INJECTOR_QUANTUM = "loadinjector.quantum";
+	public final static String LOAD_MODEL = "loadinjector.model";
+	public final static String DIURNAL_PERIOD = "loadinjector.diurnal.period";
+	public final static String DIURNAL_AMPLITUDE = "loadinjector.diurnal.amplitude";
+	public final static String MARKOV_HIGH_MEAN = "loadinjector.markov.highmean";
+	public final static String MARKOV_LOW_DURATION = "loadinjector.markov.lowduration";
+	public final static String MARKOV_HIGH_DURATION = "loadinjector.markov.highduration";
+	public final static String BURST_PERIOD = "loadinjector.burst.period";
+	public final static String BURST_MIN_DURATION = "loadinjector.burst.minduration";
+	public final static String BURST_SHAPE = "loadinjector.burst.shape";
+	public final static String ADAPTIVE = "loadinjector.adaptive";
+	public final static String ADAPTIVE_STABLE_RATIO = "loadinjector.adaptive.stableratio";
+	public final static String ADAPTIVE_STABLE_PERIOD = "loadinjector.adaptive.stableperiod";
+	public final static String NETWORK_PERIOD = "loadinjector.network.period";
+	public final static String NETWORK_MEAN_LOAD = "loadinjector.network.mean";
+	public final static String NETWORK_STD_LOAD = "loadinjector.network.std";
 
 	
 	private static final String SIMU_ALGO = "simulator.algorithm";
 	private static final String SIMU_IMPL = "simulator.implementation";
-	private static final String STATIONARY_STATUS = "simulator.gotostationarystatus";
 	private static final String FFD_USE_LOAD = "simulator.implementation.ffd.useload";
 
     private static final String HOSTS_TURN_OFF= "hosts.turn_off";
@@ -114,12 +146,15 @@ public class SimulatorProperties extends Properties {
 	private static final String VMS_SUSPEND = "vms.suspend";
 	public final static String VM_SUSPEND_PERIOD = "simulator.vm.suspendperiod";
 	public final static String VM_SUSPEND_DURATION = "simulator.vm.suspendduration";
+	public final static String VM_ARRIVAL_PERIOD = "simulator.vm.arrivalperiod";
+	public final static String VM_LIFETIME = "simulator.vm.lifetime";
 
 
 	// Keys related to the files that contain the context of the simulation
 	private static final String FILE_PLATFORM = "file.platform";
 	private static final String FILE_INITIAL_CONDITIONS = "file.initialconditions";
 	private static final String FILE_EVENTS = "file.events";
+	private static final String FILE_EVENTS_MAPPING = "file.events.mapping";
 	private static final String FILE_VM_TYPES = "file.vmtypes";
 
 
@@ -132,6 +167,7 @@ public class SimulatorProperties extends Properties {
 	private static final String DEFAULT_FILE_PLATFORM = null;
 	private static final String DEFAULT_FILE_INITIAL_CONDITIONS = null;
 	private static final String DEFAULT_FILE_EVENTS = null;
+	private static final String DEFAULT_FILE_EVENTS_MAPPING = "order";
 	private static final String DEFAULT_FILE_VM_TYPES = null;
 
 	//Default values related to nodes
@@ -157,21 +193,51 @@ public class SimulatorProperties extends Properties {
 	public final static int DEFAULT_LOAD_PERIOD = 180; // in sec
     public final static int DEFAULT_CRASH_PERIOD = 604800;  // in sec => 7 days
     public final static int DEFAULT_CRASH_DURATION = 300; // in sec
+    public final static int DEFAULT_RACK_SIZE = 0; // 0 means one rack per cluster
+    public final static int DEFAULT_RACK_CRASH_PERIOD = 0; // in sec, 0 means no rack outage
+    public final static int DEFAULT_CLUSTER_CRASH_PERIOD = 0; // in sec, 0 means no cluster outage
 
 	public final static String DEFAULT_MEAN_LOAD = "50.0";
 	public final static String DEFAULT_STD_LOAD = "50.0";	
 	
 	public static final long DEFAULT_SEED = 23;
 	public final static boolean DEFAULT_STEP_BY_STEP = false;
+	public final static String DEFAULT_INJECTOR_MODE = "queue";
+	public final static String DEFAULT_INJECTOR_JOURNAL = null;
+	public final static int DEFAULT_INJECTOR_THREADS = 0;
+	public final static String DEFAULT_INJECTOR_QUANTUM = "0";
+	public final static String DEFAULT_LOAD_MODEL = "gaussian";
+	public final static int DEFAULT_DIURNAL_PERIOD = 86400; // in sec => 1 day
+	public final static String DEFAULT_DIURNAL_AMPLITUDE = "30.0";
+	public final static String DEFAULT_MARKOV_HIGH_MEAN = "80.0";
+	public final static int DEFAULT_MARKOV_LOW_DURATION = 3600; // in sec
+	public final static int DEFAULT_MARKOV_HIGH_DURATION = 900; // in sec
+	public final static int DEFAULT_BURST_PERIOD = 3600; // in sec
+	public final static int DEFAULT_BURST_MIN_DURATION = 60; // in sec
+	public final static String DEFAULT_BURST_SHAPE = "1.5";
+	public final static boolean DEFAULT_ADAPTIVE = false;
+	public final static String DEFAULT_ADAPTIVE_STABLE_RATIO = "0.5";
+	public final static int DEFAULT_ADAPTIVE_STABLE_PERIOD = 1800; // in sec
+	public final static int DEFAULT_NETWORK_PERIOD = 0; // in sec, 0 means no network load events
+	public final static String DEFAULT_NETWORK_MEAN_LOAD = "20.0";
+	public final static String DEFAULT_NETWORK_STD_LOAD = "10.0";
 	public final static String DEFAULT_VIRTUAL_NODES_NAMES_FILE = null;
 	public final static boolean DEFAULT_SIMULATION = true;
 	public final static boolean DEFAULT_MONITORING = false;
 	public final static boolean DEFAULT_WAIT_FOR_USER_INPUT = false;
+	public final static boolean DEFAULT_CHECK_AGGREGATES = false;
+	public final static String DEFAULT_CHECKPOINT_TIME = "-1"; // no checkpoint
+	public final static String DEFAULT_CHECKPOINT_FILE = "logs/checkpoint.bin";
+	public final static String DEFAULT_RESTORE_FILE = null;
+	public final static String DEFAULT_CPU_MODEL = "daemon";
+	public final static String DEFAULT_ENERGY_PERIOD = "0"; // 0 means the hosts are traced on each update
+	public final static boolean DEFAULT_ENERGY_PER_RACK = false;
+	public final static int DEFAULT_LOAD_HISTORY_SIZE = 16; // 0 means no history
 	public final static String DEFAULT_WORKER_NODES_FILE = null;
+	public final static String DEFAULT_TRACE_FILE = "events.json";
 
 	private static final String DEFAULT_SIMU_ALGO = "centralized";
     private static final String DEFAULT_SIMU_IMPL = "scheduling.centralized.entropy2.Entropy2RP";
-	private static final boolean DEFAULT_STATIONARY_STATUS = false;
 
 	private static final boolean DEFAULT_FFD_USE_LOAD = false;
 
@@ -179,12 +245,16 @@ public class SimulatorProperties extends Properties {
 	private static final boolean DEFAULT_VMS_SUSPEND = false;
 	public final static int DEFAULT_VM_SUSPEND_PERIOD = 3600;  // in sec => 1 hour
 	public final static int DEFAULT_VM_SUSPEND_DURATION = 3600;  // in sec => 1 hour
+	public final static int DEFAULT_VM_ARRIVAL_PERIOD = 0;  // in sec, 0 means no VM arrival
+	public final static int DEFAULT_VM_LIFETIME = 0;  // in sec, 0 means that VMs never leave
 
 
 	/**
-	 * Singleton
+	 * @return the properties of the current simulation (see simulation.SimulationContext), read by the static getters
 	 */
-	public final static SimulatorProperties INSTANCE = new SimulatorProperties();
+	private static SimulatorProperties current(){
+		return SimulationContext.current().getProperties();
+	}
 
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -226,7 +296,7 @@ public class SimulatorProperties extends Properties {
 	}
 	
 	public static int getPropertyAsInt(String key, int defaultValue){
-		String value = INSTANCE.getProperty(key);
+		String value = current().getProperty(key);
 		if(value != null)
 			return Integer.parseInt(value);
 		else
@@ -234,7 +304,7 @@ public class SimulatorProperties extends Properties {
 	}
 	
 	public static long getPropertyAsLong(String key, long defaultValue){
-		String value = INSTANCE.getProperty(key);
+		String value = current().getProperty(key);
 
 		if(value != null)
 			return Long.parseLong(value);
@@ -244,7 +314,7 @@ public class SimulatorProperties extends Properties {
 	}
 	
 	public static boolean getPropertyAsBoolean(String key, boolean defaultValue){
-		String value = INSTANCE.getProperty(key);
+		String value = current().getProperty(key);
 
 		if(value != null)
 			return Boolean.parseBoolean(value);
@@ -254,7 +324,7 @@ public class SimulatorProperties extends Properties {
 	}
 
 	public static String getPropertyAsString(String key, String defaultValue){
-		String value = INSTANCE.getProperty(key);
+		String value = current().getProperty(key);
 
 		if(value != null)
 			return value;
@@ -269,6 +339,7 @@ public class SimulatorProperties extends Properties {
 	public static String getFilePlatform(){return getPropertyAsString(FILE_PLATFORM, DEFAULT_FILE_PLATFORM); }
 	public static String getFileInitialConditions(){return getPropertyAsString(FILE_INITIAL_CONDITIONS, DEFAULT_FILE_INITIAL_CONDITIONS); }
 	public static String getFileEvents(){return getPropertyAsString(FILE_EVENTS, DEFAULT_FILE_EVENTS); }
+	public static String getFileEventsMapping(){return getPropertyAsString(FILE_EVENTS_MAPPING, DEFAULT_FILE_EVENTS_MAPPING); }
 	public static String getFileVMTypes(){return getPropertyAsString(FILE_VM_TYPES, DEFAULT_FILE_VM_TYPES); }
 
 
@@ -358,6 +429,18 @@ public class SimulatorProperties extends Properties {
         return getPropertyAsInt(CRASH_DURATION, DEFAULT_CRASH_DURATION);
     }
 
+    public static int getRackSize(){
+        return getPropertyAsInt(RACK_SIZE, DEFAULT_RACK_SIZE);
+    }
+
+    public static int getRackCrashPeriod(){
+        return getPropertyAsInt(RACK_CRASH_PERIOD, DEFAULT_RACK_CRASH_PERIOD);
+    }
+
+    public static int getClusterCrashPeriod(){
+        return getPropertyAsInt(CLUSTER_CRASH_PERIOD, DEFAULT_CLUSTER_CRASH_PERIOD);
+    }
+
 	public static long getSeed(){
 		return getPropertyAsLong(SEED, DEFAULT_SEED);
 	}
@@ -366,12 +449,122 @@ public class SimulatorProperties extends Properties {
 		return getPropertyAsBoolean(STEP_BY_STEP, DEFAULT_STEP_BY_STEP);
 	}
 
+	/**
+	 * @return how the injector prepares its events: ''queue'' (all events are generated before the simulation starts),
+	 * ''streaming'' (events are generated on the fly, the memory footprint does not depend on the duration unless the
+	 * per-VM load processes are generated at once, see Injector.generateEventStream()) or
+	 * ''store'' (all events are generated before the simulation starts and kept in a compact EventStore) or
+	 * ''replay'' (events are read from the journal file, see getInjectorJournal())
+	 */
+	public static String getInjectorMode(){
+		return getPropertyAsString(INJECTOR_MODE, DEFAULT_INJECTOR_MODE);
+	}
+
+	/**
+	 * @return the path of the binary event journal: written by the queue/streaming/store modes, read by the replay
+	 * mode (null means no journal)
+	 */
+	public static String getInjectorJournal(){
+		return getPropertyAsString(INJECTOR_JOURNAL, DEFAULT_INJECTOR_JOURNAL);
+	}
+
+	/**
+	 * @return the number of threads generating the load events: 0 means that the load events of all VMs are drawn
+	 * from a single random sequence, otherwise each VM has its own random stream and the VMs are generated in
+	 * parallel (see ParallelLoadGenerator, the result does not depend on the number of threads)
+	 */
+	public static int getInjectorThreads(){
+		return getPropertyAsInt(INJECTOR_THREADS, DEFAULT_INJECTOR_THREADS);
+	}
+
+	/**
+	 * @return the time quantum (in seconds) used to batch the load events: the load events of the same quantum are
+	 * applied at once (0 means that each event is applied on its own)
+	 */
+	public static double getInjectorQuantum(){
+		return Double.parseDouble(current().getProperty(INJECTOR_QUANTUM, DEFAULT_INJECTOR_QUANTUM));
+	}
+
+	/**
+	 * @return the load model of the VMs: ''gaussian'', ''diurnal'', ''markov'', ''bursty'' or the fully qualified name of
+	 * a class implementing injector.LoadModel
+	 */
+	public static String getLoadModel(){
+		return getPropertyAsString(LOAD_MODEL, DEFAULT_LOAD_MODEL);
+	}
+
+	public static int getDiurnalPeriod(){
+		return getPropertyAsInt(DIURNAL_PERIOD, DEFAULT_DIURNAL_PERIOD);
+	}
+
+	public static double getDiurnalAmplitude(){
+		return Double.parseDouble(current().getProperty(DIURNAL_AMPLITUDE, DEFAULT_DIURNAL_AMPLITUDE));
+	}
+
+	public static double getMarkovHighMean(){
+		return Double.parseDouble(current().getProperty(MARKOV_HIGH_MEAN, DEFAULT_MARKOV_HIGH_MEAN));
+	}
+
+	public static int getMarkovLowDuration(){
+		return getPropertyAsInt(MARKOV_LOW_DURATION, DEFAULT_MARKOV_LOW_DURATION);
+	}
+
+	public static int getMarkovHighDuration(){
+		return getPropertyAsInt(MARKOV_HIGH_DURATION, DEFAULT_MARKOV_HIGH_DURATION);
+	}
+
+	public static int getBurstPeriod(){
+		return getPropertyAsInt(BURST_PERIOD, DEFAULT_BURST_PERIOD);
+	}
+
+	public static int getBurstMinDuration(){
+		return getPropertyAsInt(BURST_MIN_DURATION, DEFAULT_BURST_MIN_DURATION);
+	}
+
+	public static double getBurstShape(){
+		return Double.parseDouble(current().getProperty(BURST_SHAPE, DEFAULT_BURST_SHAPE));
+	}
+
+	/**
+	 * @return whether the resolution of the load events depends on the volatility of each VM (see AdaptiveResolution)
+	 */
+	public static boolean getAdaptiveResolution(){
+		return getPropertyAsBoolean(ADAPTIVE, DEFAULT_ADAPTIVE);
+	}
+
+	/**
+	 * @return the fraction of the VMs that are stable with the adaptive resolution (the least volatile ones)
+	 */
+	public static double getAdaptiveStableRatio(){
+		return Double.parseDouble(current().getProperty(ADAPTIVE_STABLE_RATIO, DEFAULT_ADAPTIVE_STABLE_RATIO));
+	}
+
+	public static int getAdaptiveStablePeriod(){
+		return getPropertyAsInt(ADAPTIVE_STABLE_PERIOD, DEFAULT_ADAPTIVE_STABLE_PERIOD);
+	}
+
+	/**
+	 * @return the average time between two changes of the network consumption of a VM or a host (0 means that the
+	 * network consumption does not change)
+	 */
+	public static int getNetworkPeriod(){
+		return getPropertyAsInt(NETWORK_PERIOD, DEFAULT_NETWORK_PERIOD);
+	}
+
+	public static double getNetworkMeanLoad(){
+		return Double.parseDouble(current().getProperty(NETWORK_MEAN_LOAD, DEFAULT_NETWORK_MEAN_LOAD));
+	}
+
+	public static double getNetworkStandardDeviationLoad(){
+		return Double.parseDouble(current().getProperty(NETWORK_STD_LOAD, DEFAULT_NETWORK_STD_LOAD));
+	}
+
 	public static double getMeanLoad(){
-		return Double.parseDouble(INSTANCE.getProperty(MEAN_LOAD, DEFAULT_MEAN_LOAD));
+		return Double.parseDouble(current().getProperty(MEAN_LOAD, DEFAULT_MEAN_LOAD));
 	}
 	
 	public static double getStandardDeviationLoad(){
-		return Double.parseDouble(INSTANCE.getProperty(STD_LOAD, DEFAULT_STD_LOAD));
+		return Double.parseDouble(current().getProperty(STD_LOAD, DEFAULT_STD_LOAD));
 	}
 
 	public static boolean getSuspendVMs() {
@@ -387,34 +580,77 @@ public class SimulatorProperties extends Properties {
 		return getPropertyAsInt(VM_SUSPEND_DURATION, DEFAULT_VM_SUSPEND_DURATION);
 	}
 
+	public static int getVMArrivalPeriod(){
+		return getPropertyAsInt(VM_ARRIVAL_PERIOD, DEFAULT_VM_ARRIVAL_PERIOD);
+	}
+
+	public static int getVMLifetime(){
+		return getPropertyAsInt(VM_LIFETIME, DEFAULT_VM_LIFETIME);
+	}
+
 
 	public static boolean getUseLoad() { return getPropertyAsBoolean(FFD_USE_LOAD, DEFAULT_FFD_USE_LOAD); }
 
     public static boolean getHostsTurnoff() { return getPropertyAsBoolean(HOSTS_TURN_OFF, DEFAULT_HOSTS_TURN_OFF); }
 
 	public static String getEnergyLogFile() {
-		return INSTANCE.getProperty(ENERGY_LOG_FILE, null);
+		return current().getProperty(ENERGY_LOG_FILE, null);
 	}
 
 	public static String getVirtualNodesNamesFile(){
-		return INSTANCE.getProperty(VIRTUAL_NODES_NAMES_FILE, DEFAULT_VIRTUAL_NODES_NAMES_FILE);
+		return current().getProperty(VIRTUAL_NODES_NAMES_FILE, DEFAULT_VIRTUAL_NODES_NAMES_FILE);
 	}
 	
 	public static boolean getSimulation(){
 		return getPropertyAsBoolean(SIMULATION, DEFAULT_SIMULATION);
 	}
 
+	public static boolean getWaitForUserInput(){
+		return getPropertyAsBoolean(WAIT_FOR_USER_INPUT, DEFAULT_WAIT_FOR_USER_INPUT);
+	}
 
+	/**
+	 * @return whether the cluster-wide aggregates of the SimulatorManager are checked against a full scan after each
+	 * change (debug mode, O(n) per change)
+	 */
+	public static boolean getCheckAggregates(){
+		return getPropertyAsBoolean(CHECK_AGGREGATES, DEFAULT_CHECK_AGGREGATES);
+	}
 
-	public static boolean goToStationaryStatus() {
-		return getPropertyAsBoolean(STATIONARY_STATUS, DEFAULT_STATIONARY_STATUS);
+	public static double getCheckpointTime(){
+		return Double.parseDouble(current().getProperty(CHECKPOINT_TIME, DEFAULT_CHECKPOINT_TIME));
 	}
-	public static boolean getWaitForUserInput(){
-		return getPropertyAsBoolean(WAIT_FOR_USER_INPUT, DEFAULT_WAIT_FOR_USER_INPUT);
+
+	public static String getCheckpointFile(){
+		return getPropertyAsString(CHECKPOINT_FILE, DEFAULT_CHECKPOINT_FILE);
+	}
+
+	public static String getRestoreFile(){
+		return getPropertyAsString(RESTORE_FILE, DEFAULT_RESTORE_FILE);
+	}
+
+	public static String getCPUModel(){
+		return getPropertyAsString(CPU_MODEL, DEFAULT_CPU_MODEL);
+	}
+
+	public static double getEnergyPeriod(){
+		return Double.parseDouble(current().getProperty(ENERGY_PERIOD, DEFAULT_ENERGY_PERIOD));
+	}
+
+	public static boolean getEnergyPerRack(){
+		return getPropertyAsBoolean(ENERGY_PER_RACK, DEFAULT_ENERGY_PER_RACK);
+	}
+
+	public static int getLoadHistorySize(){
+		return getPropertyAsInt(LOAD_HISTORY_SIZE, DEFAULT_LOAD_HISTORY_SIZE);
 	}
 	
 	public static String getWorkerNodesFile(){
-		return INSTANCE.getProperty(WORKER_NODES_FILE, DEFAULT_WORKER_NODES_FILE);
+		return current().getProperty(WORKER_NODES_FILE, DEFAULT_WORKER_NODES_FILE);
+	}
+
+	public static String getTraceFile(){
+		return current().getProperty(TRACE_FILE, DEFAULT_TRACE_FILE);
 	}
 	
 	
@@ -423,10 +659,10 @@ public class SimulatorProperties extends Properties {
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
 	public static String getAlgo() {
-        return INSTANCE.getProperty(SIMU_ALGO, DEFAULT_SIMU_ALGO);
+        return current().getProperty(SIMU_ALGO, DEFAULT_SIMU_ALGO);
 	}
     public static String getImplementation() {
-        return INSTANCE.getProperty(SIMU_IMPL, DEFAULT_SIMU_IMPL);
+        return current().getProperty(SIMU_IMPL, DEFAULT_SIMU_IMPL);
     }
 
     /**
@@ -439,7 +675,7 @@ public class SimulatorProperties extends Properties {
 	public static void main(String[] args){
 		String mname;
 		Object mvalue = null;
-		Method[] allMethods = INSTANCE.getClass().getDeclaredMethods();
+		Method[] allMethods = current().getClass().getDeclaredMethods();
 		TreeMap<String, Object> result = new TreeMap();
 
 		System.out.println("Simulation Properties : ");
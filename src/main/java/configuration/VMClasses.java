@@ -46,7 +46,9 @@ public class VMClasses{
                             Integer.parseInt(tokens[2]),
                             Integer.parseInt(tokens[3]),
                             Integer.parseInt(tokens[4]),
-							Integer.parseInt(tokens[5])));
+							Integer.parseInt(tokens[5]),
+							// The memory intensity at full load is optional (constant intensity by default)
+							Integer.parseInt(tokens.length > 6 ? tokens[6].trim() : tokens[5])));
 				}
 			}
 		} catch (FileNotFoundException e) {
@@ -73,6 +75,7 @@ public class VMClasses{
         private final int netBW;
         private final int migNetBW;
         private final int memIntensity;
+        private final int memIntensityAtFullLoad;
 
 
         ///////////////////////////////////////////////////////////////////////////
@@ -83,6 +86,13 @@ public class VMClasses{
 		 * Constructs a new VM class
 		 */
 		public VMClass(String name, int nbOfCPUs, int memSize, int netBW, int migNetBW, int memIntensity) {
+			this(name, nbOfCPUs, memSize, netBW, migNetBW, memIntensity, memIntensity);
+		}
+
+		/**
+		 * Constructs a new VM class whose memory intensity depends on the CPU load
+		 */
+		public VMClass(String name, int nbOfCPUs, int memSize, int netBW, int migNetBW, int memIntensity, int memIntensityAtFullLoad) {
 			super();
 			this.name = name;
 			this.nbOfCPUs = nbOfCPUs;
@@ -90,6 +100,7 @@ public class VMClasses{
             this.netBW = netBW;
             this.migNetBW = migNetBW;
             this.memIntensity = memIntensity;
+            this.memIntensityAtFullLoad = memIntensityAtFullLoad;
 		}
 		
 		
@@ -138,6 +149,13 @@ public class VMClasses{
         public int getMemIntensity() {
             return memIntensity;
         }
+
+        /**
+         * @return the memory intensity when the VM is fully loaded (expressed as a percentage according to MigNetBW)
+         */
+        public int getMemIntensityAtFullLoad() {
+            return memIntensityAtFullLoad;
+        }
 		///////////////////////////////////////////////////////////////////////////
 	    // Other methods
 	    ///////////////////////////////////////////////////////////////////////////
@@ -14,27 +14,36 @@
 package configuration;
 
 import org.simgrid.msg.Host;
+import org.simgrid.msg.HostNotFoundException;
 import org.simgrid.msg.Msg;
 import org.simgrid.trace.Trace;
 import simulation.SimulatorManager;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
 
 public class XHost{
 
     /**
      * The VMs currently hosted on the VMs. Please note that a VM that is currently migrated to the host does not appear
      * in that list (i.e. this list contains only the VMs that are really hosted on the node).
+     * The VMs are indexed by name (O(1) insertion, removal and lookup) and kept in their order of arrival.
      */
-    private List<XVM> hostedVMs = null;
+    private LinkedHashMap<String, XVM> hostedVMs = null;
 
     /**
      * The MSG Host to extend (extension by aggregation)
      */
     private Host sgHost = null;
+    /**
+     * The name of the MSG Host (kept on the Java side, see NativeCalls)
+     */
+    private final String name;
+    /**
+     * The index of the host in SimulatorManager.getSGHostsToArray(), -1 if the host is not registered
+     */
+    private int id = -1;
     /**
      * the size of the host
      */
@@ -51,6 +60,10 @@ public class XHost{
      * the network bandwidth of the host NIC
      */
     private int netBW; //NetBandWidth
+    /**
+     * The network consumption of the host that is not due to its VMs (expressed in MBytes per second)
+     */
+    private double backgroundNetDemand;
     /**
      * IP of the machine
      */
@@ -72,9 +85,27 @@ public class XHost{
     private int nbOfViolations;
 
     /**
-     * current CPU Demand (a simple hack to avoid computing the CPU demand by going throughout all hosting VMs
+     * The capacity of the host for each resource (see ResourceVector), the NIC being full duplex
+     */
+    private final double[] capacity;
+
+    /**
+     * The current demand for each resource, i.e. the sum of the demands of the hosted VMs plus the background network
+     * consumption (a simple hack to avoid computing the demand by going throughout all hosting VMs). The CPU demand is
+     * updated by setCPUDemand(), the other resources each time a VM arrives or leaves or the network consumption changes.
+     */
+    private final double[] demand;
+
+    /**
+     * With the fluid CPU model, the processes that simulate the load of the hosted VMs (one per core, created when the
+     * host is loaded for the first time and dropped when it is turned off), see syncCPULoad()
+     */
+    private final boolean fluidCPUModel;
+    private Daemon[] loadDaemons = null;
+    /**
+     * The speed of one core of the host (read when the load daemons are created)
      */
-    private double currentCPUDemand;
+    private double speed = -1;
 
     /**
      * Stupid boolean to prevent turning off a node that is performing migrations (this is an ugly way to prevent the migration crash bug
@@ -93,19 +124,36 @@ public class XHost{
      * @param ip the ip of the host
      */
     public XHost(Host h, int memSize, int ncores,  int totalCPUCapa, int netBW, String ip) {
+       this(h, h.getName(), memSize, ncores, totalCPUCapa, netBW, ip);
+    }
+
+    /**
+     * A host that is not bound to a SimGrid host: it can be referenced (e.g. by the events of an EventStore) but not
+     * used by a running simulation.
+     * @param name the name of the host
+     */
+    public XHost(String name, int memSize, int ncores,  int totalCPUCapa, int netBW) {
+       this(null, name, memSize, ncores, totalCPUCapa, netBW, null);
+    }
+
+    private XHost(Host h, String name, int memSize, int ncores,  int totalCPUCapa, int netBW, String ip) {
        this.sgHost = h ;
+       this.name = name;
        this.memSize = memSize;
        this.ncores = ncores;
        this.totalCPUCapa = totalCPUCapa;
        this.netBW = netBW;
        this.ip = ip;
-       this.hostedVMs = new ArrayList<XVM>();
+       this.hostedVMs = new LinkedHashMap<String, XVM>();
        this.off = true;
        this.turnOffNb = 0;
        this.nbOfViolations = 0;
-       this.currentCPUDemand = 0;
+       this.capacity = ResourceVector.of(totalCPUCapa, memSize, netBW, netBW);
+       this.demand = ResourceVector.create();
+       this.backgroundNetDemand = 0;
 
        this.onGoingMigration = false ;
+       this.fluidCPUModel = SimulatorProperties.getCPUModel().equals("fluid");
     }
 
     /**
@@ -114,6 +162,17 @@ public class XHost{
     public Host getSGHost(){
         return this.sgHost;
     }
+
+    /**
+     * @return the index of the host in SimulatorManager.getSGHostsToArray(), -1 if it is not registered
+     */
+    public int getId(){
+        return this.id;
+    }
+
+    public void setId(int id){
+        this.id = id;
+    }
     /**
      * @return the size of the memory in MBytes (rigid value)
      */
@@ -142,6 +201,75 @@ public class XHost{
       return this.netBW;
     }
 
+    /**
+     * @param netLoad the network consumption of the host that is not due to its VMs (percentage of its netBW)
+     */
+    public void setBackgroundNetLoad(double netLoad){
+        double newDemand = this.netBW * netLoad / 100;
+        this.demand[ResourceVector.NET_IN] += newDemand - this.backgroundNetDemand;
+        this.demand[ResourceVector.NET_OUT] += newDemand - this.backgroundNetDemand;
+        this.backgroundNetDemand = newDemand;
+    }
+
+    /**
+     * Change the network consumption of a VM and update the demand of the host if the VM is hosted (i.e. running)
+     * @param vm the VM (located on this host)
+     * @param netLoad the network consumption of the VM (percentage of its netBW)
+     */
+    public void setNetLoad(XVM vm, double netLoad){
+        boolean hosted = hostedVMs.get(vm.getName()) == vm;
+        if (hosted)
+            ResourceVector.sub(this.demand, vm.getDemand());
+        vm.setNetLoad(netLoad);
+        if (hosted)
+            ResourceVector.add(this.demand, vm.getDemand());
+    }
+
+    /**
+     * @return the network consumption of the host that is not due to its VMs (percentage of its netBW)
+     */
+    public double getBackgroundNetLoad(){
+        return this.netBW > 0 ? this.backgroundNetDemand * 100 / this.netBW : 0;
+    }
+
+    /**
+     * @return the network consumption of the host (background consumption plus the consumption of the hosted VMs)
+     * in MBytes per second, in the most loaded direction
+     */
+    public double getNetDemand(){
+        return Math.max(this.demand[ResourceVector.NET_IN], this.demand[ResourceVector.NET_OUT]);
+    }
+
+    /**
+     * @param resource see ResourceVector
+     * @return the part of the capacity that is not consumed (e.g. the bandwidth in MBytes per second)
+     */
+    public double getAvailable(int resource){
+        return Math.max(0, this.capacity[resource] - this.demand[resource]);
+    }
+
+    /**
+     * @return the capacity of the host for each resource (see ResourceVector), the array should not be modified
+     */
+    public double[] getCapacity(){
+        return this.capacity;
+    }
+
+    /**
+     * @return the demand for each resource (see ResourceVector), the array should not be modified
+     */
+    public double[] getDemand(){
+        return this.demand;
+    }
+
+    /**
+     * @param extra the demand of a VM (see ResourceVector)
+     * @return whether the host remains viable with the additional demand
+     */
+    public boolean canHost(double[] extra){
+        return ResourceVector.fits(this.demand, extra, this.capacity);
+    }
+
     /**
      * @return the IP of the host
      */
@@ -150,15 +278,23 @@ public class XHost{
     }
 
     /**
-     * check whether a pm is viable or not (currently only for the CPU dimension)
-     * @return boolean true if the PM is non viable (i.e. overloaded from the CPU viewpoint)
+     * check whether a pm is viable or not (CPU, memory and network, see ResourceVector)
+     * @return boolean true if the PM is viable (i.e. none of its resources is overloaded)
      */
      public boolean isViable(){
-        return (this.getCPUDemand()<=this.getCPUCapacity());
+        return ResourceVector.fits(this.demand, this.capacity);
      }
 
     /**
-     * @return the sum of all CPU demands of the hosted VMs
+     * @return the first resource that is overloaded (see ResourceVector), -1 if the host is viable
+     */
+    public int getOverloadedResource(){
+        return ResourceVector.firstOverloaded(this.demand, this.capacity);
+    }
+
+    /**
+     * @return the sum of all CPU demands of the hosted VMs, computed by going throughout all hosted VMs (the same as
+     * getCPUDemand(), which is O(1))
      */
     public double computeCPUDemand(){
         double cons=0;
@@ -168,21 +304,98 @@ public class XHost{
     }
 
     public double getCPUDemand(){
-        return this.currentCPUDemand;
+        return this.demand[ResourceVector.CPU];
     }
 
+    /**
+     * @param newDemand the new CPU demand of the hosted VMs (with the fluid CPU model, syncCPULoad() should be invoked
+     *                  once the VMs have been updated)
+     */
     public void setCPUDemand(double newDemand){
-        this.currentCPUDemand = newDemand;
+        this.demand[ResourceVector.CPU] = newDemand;
     }
 
     /**
      * @return the sum of all memory demands of the hosted VMs
      */
     public int getMemDemand(){
-        int cons=0;
-        for (XVM vm: this.getRunnings())
-            cons+=vm.getMemSize();
-        return cons;
+        return (int) this.demand[ResourceVector.MEM];
+    }
+
+    /**
+     * Add a VM to the hosted VMs and update the demand
+     */
+    private void link(XVM vm) {
+        hostedVMs.put(vm.getName(), vm);
+        ResourceVector.add(this.demand, vm.getDemand());
+        syncCPULoad();
+    }
+
+    /**
+     * Remove a VM from the hosted VMs and update the demand
+     */
+    private void unlink(XVM vm) {
+        if (hostedVMs.remove(vm.getName()) == null)
+            return;
+        ResourceVector.sub(this.demand, vm.getDemand());
+        // The demand is updated incrementally, hence it is reset when the host is empty to avoid rounding errors
+        if (hostedVMs.isEmpty()) {
+            this.demand[ResourceVector.CPU] = 0;
+            this.demand[ResourceVector.MEM] = 0;
+            this.demand[ResourceVector.NET_IN] = this.backgroundNetDemand;
+            this.demand[ResourceVector.NET_OUT] = this.backgroundNetDemand;
+        }
+        syncCPULoad();
+    }
+
+    /**
+     * Fluid CPU model: bound the load daemons of the host according to the CPU demand of the hosted VMs (nothing is
+     * done with the daemon model, where each VM runs its own daemon). The cores are filled one after the other (100
+     * units of demand per core, as for the VMs), hence a change of the demand generally changes the bound of one core.
+     * This method should be invoked once the CPU demand has changed (see setCPUDemand()), the bounds that do not
+     * change are not sent to SimGrid.
+     */
+    public void syncCPULoad() {
+        if (!this.fluidCPUModel || this.off)
+            return;
+        if (this.loadDaemons == null) {
+            if (this.demand[ResourceVector.CPU] <= 0)
+                return;
+            NativeCalls.count(NativeCalls.Call.GET_SPEED);
+            this.speed = this.sgHost.getSpeed();
+            this.loadDaemons = new Daemon[Math.max(1, this.ncores)];
+            for (int i = 0; i < this.loadDaemons.length; i++) {
+                this.loadDaemons[i] = new Daemon(this.sgHost, 100);
+                try {
+                    this.loadDaemons[i].start();
+                } catch (HostNotFoundException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        // Same unit as the bound of the VMs (see XVM.setLoad())
+        for (int i = 0; i < this.loadDaemons.length; i++) {
+            double coreLoad = Math.min(1, this.demand[ResourceVector.CPU] / 100 - i);
+            if (coreLoad > 0) {
+                this.loadDaemons[i].setBound(this.speed * coreLoad);
+                this.loadDaemons[i].resumeIfSuspended();
+            } else {
+                this.loadDaemons[i].suspendIfRunning();
+            }
+        }
+    }
+
+    /**
+     * @return the CPU demand simulated by the load daemons of the host (fluid CPU model), in the unit of the demand of
+     * the VMs (0 if the host has no load daemon)
+     */
+    double getSimulatedCPUDemand() {
+        double res = 0;
+        if (this.loadDaemons != null) {
+            for (Daemon daemon : this.loadDaemons)
+                res += 100 * daemon.getEffectiveBound() / this.speed;
+        }
+        return res;
     }
 
     /**
@@ -190,10 +403,25 @@ public class XHost{
      * @param sgVM
      */
     public void start(XVM sgVM) {
-       hostedVMs.add(sgVM);
+       link(sgVM);
        sgVM.start();
     }
 
+    /**
+     * Unlink a VM that leaves the infrastructure (the VM should have been destroyed)
+     * @param sgVM
+     */
+    public void stop(XVM sgVM) {
+        unlink(sgVM);
+    }
+
+    /**
+     * @return the VM entitled vmName if it is hosted on the host, null otherwise
+     */
+    public XVM getHostedVM(String vmName) {
+        return hostedVMs.get(vmName);
+    }
+
     /**
      * Migrate the vm vmName from this host to the dest one.
      * @param vmName
@@ -206,11 +434,7 @@ public class XHost{
         this.onGoingMigration = true;
         dest.setOnGoingMigration(true);
 
-        XVM vm = null ;
-        for(XVM tmp : getRunnings()){
-            if (tmp.getName().equals(vmName))
-                vm = tmp ;
-        }
+        XVM vm = hostedVMs.get(vmName);
         if (vm == null){
             System.err.println("You are trying to manipulate a wrong  object (VM "+vmName+" is not on node "+this.getName());
             System.exit(-1);
@@ -230,11 +454,9 @@ public class XHost{
             return -1;
         }
         //Msg.info("Migrate going to update hosting VM " + vm);
-        hostedVMs.remove(vm);
-        this.setCPUDemand(computeCPUDemand());
-        dest.hostedVMs.add(vm);
+        this.unlink(vm);
+        dest.link(vm);
         Msg.info("Hosted VM updated");
-        dest.setCPUDemand(dest.computeCPUDemand());
         this.onGoingMigration = false;
         dest.setOnGoingMigration(false);
         return 0;
@@ -248,8 +470,7 @@ public class XHost{
     public int suspendVM(XVM vm) {
         int res = vm.suspend();
         if (res == 0 ) {
-            hostedVMs.remove(vm);
-            this.setCPUDemand(computeCPUDemand());
+            unlink(vm);
         }
         return res;
     }
@@ -262,8 +483,7 @@ public class XHost{
     public int resumeVM(XVM vm) {
         int res = vm.resume();
         if (res == 0) {
-            hostedVMs.add(vm);
-            this.setCPUDemand(computeCPUDemand());
+            link(vm);
         }
         return res;
     }
@@ -272,14 +492,22 @@ public class XHost{
      *  @return the name that has been assigned to the sg Host abstraction
      */
     public String getName() {
-        return this.getSGHost().getName();
+        return this.name;
+    }
+
+    /**
+     * @return the energy consumed by the host since the beginning of the simulation (in Joules)
+     */
+    public double getConsumedEnergy() {
+        NativeCalls.count(NativeCalls.Call.GET_CONSUMED_ENERGY);
+        return this.sgHost.getConsumedEnergy();
     }
 
     /**
      * @return the vm hosted on the host (i.e. the collection of XVMs)
      */
     public Collection<XVM> getRunnings(){
-        return hostedVMs;
+        return hostedVMs.values();
     }
 
     /**
@@ -303,7 +531,12 @@ public class XHost{
          //   Msg.info("Turn off " + this.sgHost.getName());
             this.off=true;
             this.turnOffNb++;
+            NativeCalls.count(NativeCalls.Call.HOST_OFF);
             this.sgHost.off();
+            // The processes of the host have been killed
+            this.loadDaemons = null;
+            for (XVM vm : hostedVMs.values())
+                vm.resetNativeState();
         }
     }
 
@@ -314,7 +547,11 @@ public class XHost{
         if (this.off){
             Msg.info("Turn on "+this.getName());
             this.off=false;
+            NativeCalls.count(NativeCalls.Call.HOST_ON);
             this.sgHost.on();
+            for (XVM vm : hostedVMs.values())
+                vm.resetNativeState();
+            syncCPULoad();
         }
     }
 
@@ -352,6 +589,14 @@ public class XHost{
         nbOfViolations++;
     }
 
+    /**
+     * Restore the counters of the host (see simulation.Checkpoint)
+     */
+    public void restoreCounters(int turnOffNb, int nbOfViolations) {
+        this.turnOffNb = turnOffNb;
+        this.nbOfViolations = nbOfViolations;
+    }
+
     /**
      * Ugly patch to prevent migration crash when a node is switched off
      * TODO this code should be removed and the migration should be robust
@@ -16,6 +16,7 @@ package configuration;
 import org.simgrid.msg.HostFailureException;
 import org.simgrid.msg.HostNotFoundException;
 import org.simgrid.msg.Msg;
+import org.simgrid.msg.Process;
 import org.simgrid.msg.VM;
 
 public class XVM {
@@ -24,16 +25,54 @@ public class XVM {
      * The MSG VM to extend (extension by aggregation)
      */
     private VM vm;
+    /**
+     * The attributes of the MSG VM that do not change (kept on the Java side to avoid native calls, see NativeCalls)
+     */
+    private final String name;
+    private final double coreNumber;
+    /**
+     * The speed of the MSG VM (read again after each migration)
+     */
+    private double speed;
+    /**
+     * The bound given to the MSG VM, -1 if it is unknown (e.g. after a migration)
+     */
+    private double bound = -1;
+    /**
+     * The index of the VM in the SimulatorManager (i.e. vm-id), -1 if the VM is not registered
+     */
+    private int id = -1;
     /**
      * The dirty page intensity of the VM (currently determined by the class of the VM, see the configureHostsAndVMs method).
      * Expressed as a percentage of the netBW (i.e. an integer between 0 and 100)
      * @see simulation.SimulatorManager
      */
     private int dpIntensity;
+    /**
+     * The dirty page intensity given to the MSG VM when it has been created (it cannot be changed afterwards)
+     */
+    private int sgDpIntensity;
+    /**
+     * The dirty page intensity of an idle VM and of a fully loaded VM (dpIntensity is interpolated between both)
+     */
+    private int dpIntensityIdle;
+    private int dpIntensityAtFullLoad;
+    /**
+     * Whether dpIntensity has been set explicitly (see setDPIntensity) instead of being derived from the load
+     */
+    private boolean dpIntensityOverridden;
     /**
      *  The bandwidth network capability of the VM (expressed as MBytes).
      */
     private int netBW;
+    /**
+     * The network bandwidth available for the migration (expressed as MBytes)
+     */
+    private int migNetBW;
+    /**
+     * The current network consumption of the VM (expressed as a percentage of the netBW)
+     */
+    private double currentNetLoad;
     /**
      * The ramsize of the VM
      */
@@ -45,6 +84,12 @@ public class XVM {
      */
     private double currentLoadDemand;
 
+    /**
+     * The demand of the VM for each resource (see ResourceVector), updated with the CPU load and the network
+     * consumption. The network consumption of a VM is symmetric (the same in and out).
+     */
+    private final double[] demand;
+
     /**
      * The number of times the load has been changed during the simulation.
      * This metric is relevant to check whether one particular VM is more affected than the others
@@ -58,7 +103,8 @@ public class XVM {
     private int NbOfMigrations;
 
     /**
-     * The daemon that runs inside the VM in order to simulate the load.
+     * The daemon that runs inside the VM in order to simulate the load (null with the fluid CPU model, the load of the
+     * VM is then simulated by its host, see XHost.syncCPULoad()).
      */
     private Daemon daemon;
     /**
@@ -76,6 +122,11 @@ public class XVM {
 
     private boolean isSuspended;
 
+    /**
+     * Whether the VM has left the infrastructure (see destroy())
+     */
+    private boolean destroyed;
+
     /**
      * Construcor
      * @param host the XHost (i.e. the PM where the VM is currently running)
@@ -101,33 +152,71 @@ public class XVM {
      public XVM(XHost host, String name,
             int nbCores, int ramsize, int netBW, String diskPath, int diskSize, int migNetBW, int dpIntensity){
         // TODO, why should we reduce the migNetBW ? (i.e. interest of multiplying the value by 0.9)
-        this.vm = new VM (host.getSGHost(), name, nbCores, ramsize, netBW, diskPath, diskSize, (int)(migNetBW*0.9), dpIntensity);
+        this(host, new VM (host.getSGHost(), name, nbCores, ramsize, netBW, diskPath, diskSize, (int)(migNetBW*0.9), dpIntensity),
+                name, nbCores, ramsize, netBW, migNetBW, dpIntensity);
+   }
+
+    /**
+     * A VM that is not instantiated in SimGrid: it can be referenced (e.g. by the events of an EventStore or by a load
+     * model) but not started, migrated or suspended.
+     */
+    public XVM(XHost host, String name, int nbCores, int ramsize, int netBW, int migNetBW, int dpIntensity){
+        this(host, null, name, nbCores, ramsize, netBW, migNetBW, dpIntensity);
+    }
+
+    private XVM(XHost host, VM vm, String name, int nbCores, int ramsize, int netBW, int migNetBW, int dpIntensity){
+        this.vm = vm;
+        this.name = name;
+        this.coreNumber = nbCores;
+        if (vm != null) {
+            NativeCalls.count(NativeCalls.Call.GET_SPEED);
+            this.speed = this.vm.getSpeed();
+        }
+        this.migNetBW = (int)(migNetBW*0.9);
         this.currentLoadDemand = 0;
+        this.currentNetLoad = 0;
         this.netBW = netBW ;
         this. dpIntensity = dpIntensity ;
+        this.sgDpIntensity = dpIntensity;
+        this.dpIntensityIdle = dpIntensity;
+        this.dpIntensityAtFullLoad = dpIntensity;
+        this.dpIntensityOverridden = false;
         this.ramsize= ramsize;
-        this.daemon = new Daemon(this.vm, 100);
+        this.demand = ResourceVector.of(0, ramsize, 0, 0);
+        this.daemon = vm == null || SimulatorProperties.getCPUModel().equals("fluid") ? null : new Daemon(this.vm, 100);
         this.host = host;
         this.NbOfLoadChanges = 0;
          this.NbOfMigrations = 0;
         this.isMigrating = false;
          isSuspended = false;
+        this.destroyed = false;
    }
 
+    /**
+     * @return the index of the VM in the SimulatorManager (see SimulatorManager.getXVM()), -1 if it is not registered
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /* Delegation method from MSG VM */
 
     /**
      * @return the name of the VM
      */
     public String getName() {
-        return this.vm.getName();
+        return this.name;
     }
 
     /**
      * @return the number of core of the VM
      */
     public double getCoreNumber() {
-        return this.vm.getCoreNumber();
+        return this.coreNumber;
     }
     /**
      * Change the load of the VM, please remind that the load of the VM is set to 0 at its beginning.
@@ -135,15 +224,116 @@ public class XVM {
      * @param expectedLoad expressed as a percentage (i.e. between 0 and 100)
      */
     public void setLoad(double expectedLoad){
-        if (expectedLoad >0) {
-            this.vm.setBound(this.vm.getSpeed()*expectedLoad/100);
-            daemon.resume();
-        }
-        else{
-            daemon.suspend();
+        // With the fluid CPU model, the load is simulated by the host (the caller should invoke XHost.syncCPULoad())
+        if (daemon != null) {
+            if (expectedLoad >0) {
+                NativeCalls.skip(NativeCalls.Call.GET_SPEED);
+                double newBound = this.speed*expectedLoad/100;
+                if (newBound != this.bound) {
+                    NativeCalls.count(NativeCalls.Call.SET_BOUND);
+                    this.vm.setBound(newBound);
+                    this.bound = newBound;
+                } else {
+                    NativeCalls.skip(NativeCalls.Call.SET_BOUND);
+                }
+                daemon.resumeIfSuspended();
+            }
+            else{
+                daemon.suspendIfRunning();
+            }
         }
         currentLoadDemand = expectedLoad ;
+        demand[ResourceVector.CPU] = expectedLoad;
         NbOfLoadChanges++;
+        if (!dpIntensityOverridden)
+            this.dpIntensity = computeDPIntensity();
+    }
+
+    /**
+     * The dirty page intensity is interpolated between the idle value and the full load value according to the
+     * current CPU load.
+     * @param idle the dirty page intensity of an idle VM
+     * @param fullLoad the dirty page intensity of a fully loaded VM
+     */
+    public void setDPIntensityFunction(int idle, int fullLoad) {
+        this.dpIntensityIdle = idle;
+        this.dpIntensityAtFullLoad = fullLoad;
+        if (!dpIntensityOverridden)
+            this.dpIntensity = computeDPIntensity();
+    }
+
+    /**
+     * Set the dirty page intensity explicitly (the load is not considered anymore)
+     * @param dpIntensity the new dirty page intensity, a negative value restores the load-dependent value
+     */
+    public void setDPIntensity(int dpIntensity) {
+        this.dpIntensityOverridden = dpIntensity >= 0;
+        this.dpIntensity = dpIntensityOverridden ? dpIntensity : computeDPIntensity();
+    }
+
+    /**
+     * @return whether the dirty page intensity has been set explicitly (see setDPIntensity)
+     */
+    public boolean isDPIntensityOverridden() {
+        return this.dpIntensityOverridden;
+    }
+
+    /**
+     * @return the current dirty page intensity (percentage of the migration bandwidth)
+     */
+    public int getDPIntensity() {
+        return this.dpIntensity;
+    }
+
+    private int computeDPIntensity() {
+        double ratio = Math.min(1, this.currentLoadDemand / (SimulatorProperties.getVMMAXCPUConsumption() * this.getCoreNumber()));
+        return (int) Math.round(dpIntensityIdle + (dpIntensityAtFullLoad - dpIntensityIdle) * ratio);
+    }
+
+    /**
+     * Pre-copy model: the pages dirtied during one round are sent during the next one, hence the migration lasts
+     * ramsize/bw * 1/(1 - dirtyRate/bw) (the ratio is capped, as hypervisors stop the pre-copy after a few rounds).
+     * @param bw the bandwidth of the migration
+     * @param dpIntensity the dirty page intensity (percentage of migNetBW)
+     * @return the expected duration of the migration per MByte of memory
+     */
+    private double precopyDuration(double bw, int dpIntensity) {
+        double ratio = Math.min(0.95, this.migNetBW * dpIntensity / 100.0 / bw);
+        return 1 / (bw * (1 - ratio));
+    }
+
+    /**
+     * @return the bandwidth available for a migration between both hosts: the network consumption of both ends reduces
+     * migNetBW (at least 1% of migNetBW remains available)
+     */
+    private double migrationBandwidth(XHost source, XHost destination) {
+        double migBW = Math.min(this.migNetBW, Math.min(source.getAvailable(ResourceVector.NET_OUT), destination.getAvailable(ResourceVector.NET_IN)));
+        return Math.max(migBW, this.migNetBW / 100.0);
+    }
+
+    /**
+     * The MSG VM migrates at migNetBW with the dirty page intensity of its creation (both cannot be changed
+     * afterwards), and with the fluid CPU model it does not run any task, so that it does not dirty any page. Hence
+     * the pre-copy rounds due to a lower bandwidth or to a higher dirty page intensity are simulated before the MSG
+     * migration starts: the current process sends the MBytes that the MSG migration does not account for.
+     * These MBytes are sent in rounds (a round sends the memory once at most), at the rate given by the bandwidth and
+     * the dirty page intensity of the round, so that the load changes and the network load changes that occur during
+     * the migration are taken into account (the MSG migration itself is not slowed down by the network load).
+     * @param source the host of the VM
+     * @param destination the destination of the migration
+     */
+    private void precopy(XHost source, XHost destination) throws HostFailureException {
+        double sgDuration = this.ramsize * precopyDuration(this.migNetBW, this.daemon == null ? 0 : this.sgDpIntensity);
+        double migBW = migrationBandwidth(source, destination);
+        // The MBytes that the MSG migration does not account for, at the rate of the first round
+        double remaining = this.ramsize - sgDuration / precopyDuration(migBW, this.dpIntensity);
+        while (remaining > 0) {
+            double perMByte = precopyDuration(migBW, this.dpIntensity);
+            double round = Math.min(remaining * perMByte, this.ramsize / migBW);
+            Process.getCurrentProcess().waitFor(round);
+            remaining = round < remaining * perMByte ? remaining - round / perMByte : 0;
+            migBW = migrationBandwidth(source, destination);
+        }
     }
 
     // TODO c'est crade
@@ -152,7 +342,8 @@ public class XVM {
     }
 
     /**
-     * @return the daemon process (i.e MSG Process) in charge of simulating the load of the VM
+     * @return the daemon process (i.e MSG Process) in charge of simulating the load of the VM (null with the fluid
+     * CPU model)
      */
     public Daemon getDaemon(){
         return this.daemon;
@@ -172,14 +363,24 @@ public class XVM {
         return NbOfMigrations;
     }
 
+    /**
+     * Restore the counters of the VM (see simulation.Checkpoint)
+     */
+    public void restoreCounters(int nbOfLoadChanges, int nbOfMigrations) {
+        this.NbOfLoadChanges = nbOfLoadChanges;
+        this.NbOfMigrations = nbOfMigrations;
+    }
+
 
     /**
      *  Override start method in order to start the daemon at the same time that should run inside the VM.
      */
     public void start(){
+        NativeCalls.count(NativeCalls.Call.VM_START);
         this.vm.start();
         try {
-            daemon.start();
+            if (daemon != null)
+                daemon.start();
         } catch (HostNotFoundException e) {
             e.printStackTrace();
         }
@@ -187,14 +388,54 @@ public class XVM {
     }
 
     public void shutdown() {
+        NativeCalls.count(NativeCalls.Call.VM_SHUTDOWN);
         this.vm.shutdown();
 
     }
 
     public boolean isRunning() {
+        NativeCalls.count(NativeCalls.Call.VM_IS_RUNNING);
         return this.vm.isRunning() == 1;
     }
 
+    /**
+     * Forget the bound and the state of the daemon kept on the Java side, e.g. when the host is turned off or on (the
+     * next load change is applied in any case)
+     */
+    void resetNativeState() {
+        this.bound = -1;
+        if (this.daemon != null)
+            this.daemon.resetState();
+    }
+
+    /**
+     * Stop the daemon and shut the VM down for good (the VM leaves the infrastructure).
+     * @param hostIsOn whether the hosting node is on (otherwise the MSG VM has already been stopped with its host)
+     */
+    public void destroy(boolean hostIsOn) {
+        if (hostIsOn) {
+            if (daemon != null)
+                daemon.kill();
+            NativeCalls.count(NativeCalls.Call.VM_SHUTDOWN);
+            this.vm.shutdown();
+        }
+        this.destroyed = true;
+    }
+
+    /**
+     * @return whether the VM has left the infrastructure
+     */
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * @return whether the VM has been suspended (and not resumed since)
+     */
+    public boolean isSuspended() {
+        return isSuspended;
+    }
+
     /**
      * Migrate a VM from one XHost to another one.
      * @param host the host where to migrate the VM
@@ -204,10 +445,17 @@ public class XVM {
             this.isMigrating = true;
             //Msg.info("Start migration of VM " + this.getName() + " to " + host.getName());
             //Msg.info("    currentLoadDemand:" + this.currentLoadDemand + "/ramSize:" + this.ramsize + "/dpIntensity:" + this.dpIntensity + "/remaining:" + this.daemon.getRemaining());
+            XHost source = this.host;
             try {
+                // The VM keeps running on the source until the end of the extra pre-copy rounds
+                precopy(source, host);
+                NativeCalls.count(NativeCalls.Call.VM_MIGRATE);
                 this.vm.migrate(host.getSGHost());
                 this.NbOfMigrations++;
                 this.host = host;
+                NativeCalls.count(NativeCalls.Call.GET_SPEED);
+                this.speed = this.vm.getSpeed();
+                this.resetNativeState();
                 this.setLoad(this.currentLoadDemand);   //TODO temporary fixed (setBound is not correctly propagated to the new node at the surf level)
                 //The dummy cpu action is not bounded.
                 Msg.info("End of migration of VM " + this.getName() + " to node " + host.getName());
@@ -240,13 +488,15 @@ public class XVM {
         }
         else {
             Msg.info("VM " + vm.getName() + " is not migrating");
-            if (this.vm.isSuspended() == 0) {
+            if (!this.isSuspended) {
                 try {
                //     Msg.info("Start suspension of VM " + this.getName() + " on " + this.host.getName());
                     //Msg.info("    currentLoadDemand:" + this.currentLoadDemand + "/ramSize:" + this.ramsize + "/dpIntensity:" + this.dpIntensity + "/remaining:" + this.daemon.getRemaining());
+                    NativeCalls.count(NativeCalls.Call.VM_SUSPEND);
                     this.vm.suspend();
                     // VM is suspended - we suspend the daemon simulating CPU demand
-                    this.daemon.suspend();
+                    if (this.daemon != null)
+                        this.daemon.suspendIfRunning();
                     //Msg.info("End of suspension of VM " + this.getName() + " on " + this.host.getName());
                     isSuspended = true;
                     return 0;
@@ -272,9 +522,11 @@ public class XVM {
         if (isSuspended) {
             try {
                 //Msg.info("Start resuming VM " + this.getName() + " on " + this.host.getName());
+                NativeCalls.count(NativeCalls.Call.VM_RESUME);
                 this.vm.resume();
                 // VM is resumed - we resume the daemon simulating CPU demand
-                this.daemon.resume();
+                if (this.daemon != null)
+                    this.daemon.resumeIfSuspended();
                 //Msg.info("    currentLoadDemand:" + this.currentLoadDemand + "/ramSize:" + this.ramsize + "/dpIntensity:" + this.dpIntensity + "/remaining:" + this.daemon.getRemaining());
                 //Msg.info("End of resuming of VM " + this.getName() + " on " + this.host.getName());
                 isSuspended = false;
@@ -329,6 +581,37 @@ public class XVM {
         return this.netBW;
     }
 
+    /**
+     * @return the current network consumption of the VM (percentage of its netBW)
+     */
+    public double getNetLoad() {
+        return this.currentNetLoad;
+    }
+
+    /**
+     * Please note that the demand of the host is not updated, see XHost.setNetLoad()
+     * @param netLoad the network consumption of the VM (percentage of its netBW)
+     */
+    void setNetLoad(double netLoad) {
+        this.currentNetLoad = netLoad;
+        demand[ResourceVector.NET_IN] = getNetDemand();
+        demand[ResourceVector.NET_OUT] = getNetDemand();
+    }
+
+    /**
+     * @return the current network consumption of the VM in MBytes per second
+     */
+    public double getNetDemand() {
+        return this.netBW * this.currentNetLoad / 100;
+    }
+
+    /**
+     * @return the demand of the VM for each resource (see ResourceVector), the array should not be modified
+     */
+    public double[] getDemand() {
+        return this.demand;
+    }
+
     public String toString() {
         return String.format("XVM [name=%s, currentLoad=%.2f, dpIntensity=%d, isMigrating=%b, isRunning=%b]",
                 getName(),
@@ -0,0 +1,81 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Common parameters of the built-in load models: load events occur according to a Poisson process with rate
+ * 1/load.period per VM and loads are drawn from a gaussian law (load.mean, load.std), quantized on
+ * loadinjector.nbcpuconsumptionslots slots.
+ * The draws only rely on StrictMath, so that a seed yields the same processes on every JVM and platform.
+ */
+public abstract class AbstractLoadModel implements LoadModel {
+
+    protected final double lambda;
+    protected final double mean;
+    protected final double sigma;
+    private final int nbOfCPUDemandSlots;
+    private final int cpuConsumptionSlot;
+
+    protected AbstractLoadModel() {
+        this.lambda = 1.0 / SimulatorProperties.getLoadPeriod();
+        this.mean = SimulatorProperties.getMeanLoad();
+        this.sigma = SimulatorProperties.getStandardDeviationLoad();
+        this.nbOfCPUDemandSlots = SimulatorProperties.getNbOfCPUConsumptionSlots();
+        this.cpuConsumptionSlot = SimulatorProperties.getVMMAXCPUConsumption() / nbOfCPUDemandSlots;
+    }
+
+    /**
+     * @param load the expected load (percentage, truncated to [0, 100])
+     * @return the CPU load of the VM, quantized on the CPU consumption slots
+     */
+    protected int quantize(double load, XVM vm) {
+        return quantize(load, vm, nbOfCPUDemandSlots, cpuConsumptionSlot);
+    }
+
+    /**
+     * @param load the expected load (percentage, truncated to [0, 100])
+     * @param nbOfCPUDemandSlots see SimulatorProperties.getNbOfCPUConsumptionSlots()
+     * @param cpuConsumptionSlot the demand of one slot, i.e. SimulatorProperties.getVMMAXCPUConsumption() / nbOfCPUDemandSlots
+     * @return the CPU load of the VM, quantized on the CPU consumption slots
+     */
+    static int quantize(double load, XVM vm, int nbOfCPUDemandSlots, int cpuConsumptionSlot) {
+        int slot = (int) Math.round(Math.min(100, Math.max(load, 0)) * nbOfCPUDemandSlots / 100);
+        return slot * cpuConsumptionSlot * (int) vm.getCoreNumber();
+    }
+
+    /**
+     * @return a quantized load drawn from the gaussian law with the given mean and load.std
+     */
+    protected int drawLoad(SplittableRandom rand, double mean, XVM vm) {
+        return quantize((gaussian(rand) * sigma) + mean, vm);
+    }
+
+    protected static double exponential(SplittableRandom rand, double lambda) {
+        return -StrictMath.log(1 - rand.nextDouble()) / lambda;
+    }
+
+    /**
+     * Standard normal value (polar method, SplittableRandom does not provide nextGaussian)
+     */
+    protected static double gaussian(SplittableRandom rand) {
+        double v1, v2, s;
+        do {
+            v1 = 2 * rand.nextDouble() - 1;
+            v2 = 2 * rand.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+    }
+
+    /**
+     * Pareto value (heavy-tailed)
+     * @param scale the minimal value
+     * @param shape the tail index (the lower, the heavier the tail)
+     */
+    protected static double pareto(SplittableRandom rand, double scale, double shape) {
+        return scale / StrictMath.pow(1 - rand.nextDouble(), 1 / shape);
+    }
+}
@@ -0,0 +1,186 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive resolution of the load processes (see loadinjector.adaptive).
+ * The load changes that do not change the load of the VM are dropped. Then the VMs are classified according to
+ * their volatility, i.e. the standard deviation of their load over time (as a fraction of their maximal load):
+ * volatile VMs keep all their load changes while stable VMs only receive one update per
+ * loadinjector.adaptive.stableperiod seconds, carrying their average load over the period (quantized on the CPU
+ * consumption slots). Hence the CPU demand of stable VMs is preserved on average with a fraction of the events.
+ *
+ * The VMs are classified by rank: the loadinjector.adaptive.stableratio least volatile initial VMs are stable (an
+ * absolute threshold would classify all the VMs in the same way, since they follow the same model). The volatility
+ * threshold is calibrated on the initial VMs (see calibrate()), then the VMs that arrive during the simulation are
+ * compared to it (they keep all their changes if the threshold has not been calibrated, e.g. when the events are
+ * replayed from a journal).
+ *
+ * Apart from calibrate(), the filter only depends on the process of the VM, it is applied concurrently by
+ * ParallelLoadGenerator.
+ */
+public class AdaptiveResolution {
+
+    private final double stableRatio;
+    private final double stablePeriod;
+
+    /**
+     * VMs whose volatility is below this threshold are stable (NaN until calibrate() has been invoked)
+     */
+    private volatile double volatilityThreshold = Double.NaN;
+    private final int cpuConsumptionSlot;
+    private final int maxCPUDemand;
+
+    /**
+     * Statistics (the filter is applied concurrently)
+     */
+    private final AtomicLong nbOfStableVMs = new AtomicLong();
+    private final AtomicLong nbOfVMs = new AtomicLong();
+    private final AtomicLong nbOfInputEvents = new AtomicLong();
+    private final AtomicLong nbOfOutputEvents = new AtomicLong();
+
+    public AdaptiveResolution() {
+        this(SimulatorProperties.getAdaptiveStableRatio(), SimulatorProperties.getAdaptiveStablePeriod());
+    }
+
+    /**
+     * @param stableRatio the fraction of the VMs that are stable (the least volatile ones)
+     * @param stablePeriod the period of the updates of stable VMs in seconds
+     */
+    public AdaptiveResolution(double stableRatio, double stablePeriod) {
+        this.stableRatio = stableRatio;
+        this.stablePeriod = stablePeriod;
+        this.maxCPUDemand = SimulatorProperties.getVMMAXCPUConsumption();
+        this.cpuConsumptionSlot = maxCPUDemand / SimulatorProperties.getNbOfCPUConsumptionSlots();
+    }
+
+    /**
+     * Filter the process of one VM, classified with the calibrated threshold (e.g. a VM that arrives during the
+     * simulation)
+     * @param vm the VM
+     * @param process the load changes of the VM
+     * @param duration duration of the simulated time in second
+     * @return the filtered process (a new one if it has been modified)
+     */
+    public LoadProcess apply(XVM vm, LoadProcess process, long duration) {
+        nbOfInputEvents.addAndGet(process.size());
+        LoadProcess res = dropNoOps(process);
+        return classify(vm, res, volatility(vm, res, duration), duration);
+    }
+
+    /**
+     * First step of the filter of the initial VMs: drop the changes that keep the same load
+     * @return the process to classify (a new one if it has been modified)
+     */
+    LoadProcess prepare(LoadProcess process) {
+        nbOfInputEvents.addAndGet(process.size());
+        return dropNoOps(process);
+    }
+
+    /**
+     * Set the volatility threshold so that the stableRatio least volatile VMs are stable
+     * @param volatilities the volatility of each initial VM (see volatility())
+     */
+    void calibrate(double[] volatilities) {
+        if (volatilities.length == 0)
+            return;
+        double[] sorted = volatilities.clone();
+        Arrays.sort(sorted);
+        int nbOfStableVMs = (int) Math.round(Math.max(0, Math.min(1, stableRatio)) * sorted.length);
+        // The volatility of the first volatile VM (VMs with the same volatility are classified in the same way)
+        volatilityThreshold = nbOfStableVMs < sorted.length ? sorted[nbOfStableVMs] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Last step of the filter: resample the process if the VM is stable
+     * @param process the process returned by prepare()
+     * @param volatility the volatility of the process (see volatility())
+     * @return the filtered process
+     */
+    LoadProcess classify(XVM vm, LoadProcess process, double volatility, long duration) {
+        nbOfVMs.incrementAndGet();
+        LoadProcess res = process;
+        if (process.size() >= 2 && volatility < volatilityThreshold) {
+            res = resample(vm, process, duration);
+            nbOfStableVMs.incrementAndGet();
+        }
+        nbOfOutputEvents.addAndGet(res.size());
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d stable VMs and %d volatile VMs (volatility threshold %.4f), %d load events instead of %d",
+                nbOfStableVMs.get(), nbOfVMs.get() - nbOfStableVMs.get(), volatilityThreshold, nbOfOutputEvents.get(), nbOfInputEvents.get());
+    }
+
+    /**
+     * @return the process without the changes that keep the same load (the first change is always kept)
+     */
+    private static LoadProcess dropNoOps(LoadProcess process) {
+        if (process.size() < 2)
+            return process;
+        LoadProcess res = new LoadProcess(process.size());
+        res.add(process.getTime(0), process.getLoad(0));
+        for (int i = 1; i < process.size(); i++) {
+            if (process.getLoad(i) != process.getLoad(i - 1))
+                res.add(process.getTime(i), process.getLoad(i));
+        }
+        return res;
+    }
+
+    /**
+     * @return the time-weighted standard deviation of the load between the first change and the end of the
+     * simulation, divided by the maximal load of the VM
+     */
+    double volatility(XVM vm, LoadProcess process, long duration) {
+        if (process.size() == 0)
+            return 0;
+        double span = duration - process.getTime(0);
+        if (span <= 0)
+            return 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < process.size(); i++) {
+            double end = i + 1 < process.size() ? process.getTime(i + 1) : duration;
+            double weight = Math.max(0, Math.min(end, duration) - process.getTime(i));
+            sum += weight * process.getLoad(i);
+            sumOfSquares += weight * process.getLoad(i) * (double) process.getLoad(i);
+        }
+        double mean = sum / span;
+        double variance = Math.max(0, sumOfSquares / span - mean * mean);
+        return StrictMath.sqrt(variance) / (maxCPUDemand * vm.getCoreNumber());
+    }
+
+    /**
+     * @return one change per stablePeriod (starting at the first change), carrying the average load over the period
+     */
+    private LoadProcess resample(XVM vm, LoadProcess process, long duration) {
+        LoadProcess res = new LoadProcess((int) Math.min(Integer.MAX_VALUE - 8, duration / stablePeriod + 1));
+        int slot = cpuConsumptionSlot * (int) vm.getCoreNumber();
+        int lastLoad = -1;
+        int cursor = 0;
+        for (double start = process.getTime(0); start < duration; start += stablePeriod) {
+            double end = Math.min(start + stablePeriod, duration);
+            // Time-weighted average of the load over [start, end[
+            double sum = 0;
+            while (cursor + 1 < process.size() && process.getTime(cursor + 1) <= start)
+                cursor++;
+            for (int i = cursor; i < process.size() && process.getTime(i) < end; i++) {
+                double from = Math.max(start, process.getTime(i));
+                double to = i + 1 < process.size() ? Math.min(end, process.getTime(i + 1)) : end;
+                sum += (to - from) * process.getLoad(i);
+            }
+            int load = slot > 0 ? (int) Math.round(sum / (end - start) / slot) * slot : (int) Math.round(sum / (end - start));
+            if (load != lastLoad) {
+                res.add(start, load);
+                lastLoad = load;
+            }
+        }
+        return res;
+    }
+}
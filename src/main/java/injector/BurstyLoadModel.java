@@ -0,0 +1,88 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Bursty load model: on top of the gaussian model, each VM experiences bursts during which it consumes its whole
+ * CPU capacity. Bursts occur according to a Poisson process (rate 1/loadinjector.burst.period) and their duration
+ * follows a Pareto law (heavy-tailed, see loadinjector.burst.*). Load events occurring during a burst are skipped.
+ * The VM may start inside a burst, as it would after a long run (see initialBurst()).
+ */
+public class BurstyLoadModel extends AbstractLoadModel {
+
+    private final double burstLambda;
+    private final double minDuration;
+    private final double shape;
+
+    public BurstyLoadModel() {
+        super();
+        this.burstLambda = 1.0 / SimulatorProperties.getBurstPeriod();
+        this.minDuration = SimulatorProperties.getBurstMinDuration();
+        this.shape = SimulatorProperties.getBurstShape();
+    }
+
+    @Override
+    public void generate(XVM vm, SplittableRandom rand, double start, long duration, LoadProcess process) {
+        int maxLoad = quantize(100, vm);
+        double initialBurst = initialBurst(rand);
+        double currentTime = start + exponential(rand, lambda);
+        double nextBurst;
+        if (initialBurst > 0) {
+            // The initial load of the VM is its maximal load (see sampleStationary())
+            double endOfBurst = start + initialBurst;
+            while (currentTime < Math.min(endOfBurst, duration))
+                currentTime += exponential(rand, lambda);
+            if (endOfBurst < duration)
+                process.add(endOfBurst, drawLoad(rand, mean, vm));
+            nextBurst = endOfBurst + exponential(rand, burstLambda);
+        } else
+            nextBurst = start + exponential(rand, burstLambda);
+
+        while (Math.min(currentTime, nextBurst) < duration) {
+            if (nextBurst <= currentTime) {
+                process.add(nextBurst, maxLoad);
+                double endOfBurst = nextBurst + pareto(rand, minDuration, shape);
+                while (currentTime < endOfBurst)
+                    currentTime += exponential(rand, lambda);
+                if (endOfBurst < duration)
+                    process.add(endOfBurst, drawLoad(rand, mean, vm));
+                nextBurst = endOfBurst + exponential(rand, burstLambda);
+            } else {
+                process.add(currentTime, drawLoad(rand, mean, vm));
+                currentTime += exponential(rand, lambda);
+            }
+        }
+    }
+
+    /**
+     * The maximal load if the VM starts inside a burst, which is the state generate() starts from, a draw around the
+     * mean otherwise
+     */
+    @Override
+    public int sampleStationary(XVM vm, SplittableRandom rand) {
+        return initialBurst(rand) > 0 ? quantize(100, vm) : drawLoad(rand.split(), mean, vm);
+    }
+
+    /**
+     * After a long run, the VM is in a burst with the probability E[burst] / (E[burst] + loadinjector.burst.period),
+     * and the remaining duration of this burst follows the residual law of the Pareto law, whose CDF is x / E[burst]
+     * below the minimal duration and 1 - (minDuration / x)^(shape - 1) / shape above. If the mean duration of the
+     * bursts is infinite (shape <= 1), the VM is always in its burst.
+     * @return the remaining duration of the burst the VM is in when its process starts, 0 if it is not in
+     * a burst
+     */
+    private double initialBurst(SplittableRandom rand) {
+        if (shape <= 1)
+            return Double.POSITIVE_INFINITY;
+        double meanDuration = minDuration * shape / (shape - 1);
+        if (rand.nextDouble() >= meanDuration / (meanDuration + 1 / burstLambda))
+            return 0;
+        double u = rand.nextDouble();
+        if (u < (shape - 1) / shape)
+            return u * meanDuration;
+        return minDuration * StrictMath.pow(shape * (1 - u), -1 / (shape - 1));
+    }
+}
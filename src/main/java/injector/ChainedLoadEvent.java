@@ -0,0 +1,84 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+import simulation.SimulationContext;
+import simulation.SimulatorManager;
+
+import java.util.SplittableRandom;
+
+/**
+ * Load change of a VM that has arrived during the simulation.
+ * Such VMs are not known when the event timeline is generated, hence their load process is generated on their
+ * arrival (with the configured load model, see loadinjector.model) and its events are submitted one after the other:
+ * each event submits the next one when it is played. The chain stops when the VM leaves.
+ * Contrary to LoadEvent, these events are never batched (see loadinjector.quantum).
+ */
+public class ChainedLoadEvent implements InjectorEvent {
+
+    private final XVM vm;
+    private final LoadProcess process;
+    private final int cursor;
+
+    private ChainedLoadEvent(XVM vm, LoadProcess process, int cursor) {
+        this.vm = vm;
+        this.process = process;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Generate the load process of a new VM and submit its first event
+     * @param vm the new VM
+     * @param vmNumber the number of the VM (the random stream of the VM only depends on the seed and on its number, as
+     * the ones of the initial VMs, see ParallelLoadGenerator.seed())
+     * @param arrival the arrival time of the VM (the process starts at this time)
+     * @param now the current time, i.e. the arrival time or the time of the checkpoint the simulation is restored from
+     * (the changes that precede it have already been played)
+     */
+    static void start(XVM vm, int vmNumber, double arrival, double now) {
+        // The model is built for each VM since the properties depend on the current simulation (the models are cheap)
+        LoadModel model = ParallelLoadGenerator.buildModel(SimulatorProperties.getLoadModel());
+        // The arrivals are classified with the threshold calibrated on the initial VMs
+        AdaptiveResolution resolution = SimulationContext.current().getAdaptiveResolution();
+
+        long duration = SimulatorProperties.getDuration();
+        LoadProcess process = new LoadProcess((int) Math.min(Integer.MAX_VALUE - 8, 1.2 * Math.max(0, duration - arrival) / SimulatorProperties.getLoadPeriod() + 16));
+        model.generate(vm, new SplittableRandom(ParallelLoadGenerator.seed(vmNumber)), arrival, duration, process);
+        if (resolution != null)
+            process = resolution.apply(vm, process, duration);
+
+        int cursor = 0;
+        while (cursor < process.size() && process.getTime(cursor) <= now)
+            cursor++;
+        if (cursor < process.size())
+            SimulatorManager.scheduleEvent(new ChainedLoadEvent(vm, process, cursor));
+    }
+
+    public long getId() {
+        return this.cursor;
+    }
+
+    public double getTime() {
+        return this.process.getTime(cursor);
+    }
+
+    public XVM getVm() {
+        return this.vm;
+    }
+
+    public int getCPULoad() {
+        return this.process.getLoad(cursor);
+    }
+
+    public void play() {
+        if (vm.isDestroyed())
+            return;
+        SimulatorManager.updateVM(vm, getCPULoad());
+        if (cursor + 1 < process.size())
+            SimulatorManager.scheduleEvent(new ChainedLoadEvent(vm, process, cursor + 1));
+    }
+
+    public String toString() {
+        return this.getTime() + "/" + this.vm.getName() + "/" + this.getCPULoad();
+    }
+}
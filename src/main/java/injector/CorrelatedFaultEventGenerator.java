@@ -0,0 +1,166 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Lazy generator of topology-correlated faults (see simulator.rack.crashperiod and simulator.cluster.crashperiod).
+ * Three kinds of outages occur according to independent Poisson processes: the crash of one host (as in
+ * FaultEventGenerator, one every simulator.crashperiod seconds per host), the outage of a rack (one every
+ * simulator.rack.crashperiod seconds per rack) and the outage of a cluster switch (one every
+ * simulator.cluster.crashperiod seconds per cluster). An outage turns off all the hosts of its domain at once and
+ * turns them on again simulator.crashduration seconds later. If a host is already off, its recovery is postponed.
+ *
+ * The hosts of a domain are enumerated through the RackIndex, and the state of each host is kept in an array, hence
+ * the cost of an outage is linear in the size of its domain (whatever the size of the infrastructure).
+ */
+public class CorrelatedFaultEventGenerator implements Iterator<FaultEvent> {
+
+    private final XHost[] xhosts;
+    private final RackIndex index;
+    private final long duration;
+    private final double crashDuration;
+
+    /**
+     * Rates of the host, rack and cluster outages (for the whole infrastructure)
+     */
+    private final double hostLambda;
+    private final double rackLambda;
+    private final double lambda;
+
+    private final Random rand;
+
+    /**
+     * Date of the next outage to draw
+     */
+    private double nextOutageTime;
+    private long id;
+
+    /**
+     * Time at which each host is turned on again (infinity if it remains off until the end, 0 if it is on)
+     */
+    private final double[] recoveryTimes;
+
+    /**
+     * The ''on'' events sorted by time. Postponed events are skipped when they reach the head of the queue.
+     */
+    private final PriorityQueue<FaultEvent> recoveries;
+
+    /**
+     * The ''off'' events of the current outage
+     */
+    private final ArrayDeque<FaultEvent> burst;
+
+    private FaultEvent nextEvent;
+
+    /**
+     * @param xhosts the hosts that may crash, indexed by id (see SimulatorManager.getSGHostsToArray())
+     * @param index the racks and clusters of the hosts
+     * @param duration duration of the simulated time in second
+     * @param hostPeriod the average period between two crashes of the same host in second (0 means no host crash)
+     * @param rackPeriod the average period between two outages of the same rack in second (0 means no rack outage)
+     * @param clusterPeriod the average period between two outages of the same cluster in second (0 means no cluster
+     *                      outage)
+     */
+    public CorrelatedFaultEventGenerator(XHost[] xhosts, RackIndex index, long duration, int hostPeriod, int rackPeriod, int clusterPeriod) {
+        this.xhosts = xhosts;
+        this.index = index;
+        this.duration = duration;
+        this.crashDuration = SimulatorProperties.getCrashDuration();
+
+        this.hostLambda = hostPeriod > 0 ? xhosts.length / (double) hostPeriod : 0;
+        this.rackLambda = rackPeriod > 0 ? index.getNbOfRacks() / (double) rackPeriod : 0;
+        double clusterLambda = clusterPeriod > 0 ? index.getNbOfClusters() / (double) clusterPeriod : 0;
+        this.lambda = hostLambda + rackLambda + clusterLambda;
+        // Shifted seed, so that the draws differ from the ones of the other generators
+        this.rand = new Random(SimulatorProperties.getSeed() + 3);
+
+        this.recoveryTimes = new double[xhosts.length];
+        this.recoveries = new PriorityQueue<>(11, new Comparator<FaultEvent>() {
+            @Override
+            public int compare(FaultEvent o1, FaultEvent o2) {
+                int res = Double.compare(o1.getTime(), o2.getTime());
+                return res != 0 ? res : Long.compare(o1.getId(), o2.getId());
+            }
+        });
+        this.burst = new ArrayDeque<>();
+
+        this.id = 0;
+        this.nextOutageTime = lambda > 0 ? Injector.exponentialDis(rand, lambda) : Double.POSITIVE_INFINITY;
+        this.nextEvent = computeNextEvent();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextEvent != null;
+    }
+
+    @Override
+    public FaultEvent next() {
+        if (nextEvent == null)
+            throw new NoSuchElementException();
+        FaultEvent evt = nextEvent;
+        nextEvent = computeNextEvent();
+        return evt;
+    }
+
+    private FaultEvent computeNextEvent() {
+        while (true) {
+            if (!burst.isEmpty())
+                return burst.poll();
+
+            // Skip the ''on'' events that have been postponed
+            while (!recoveries.isEmpty() && recoveryTimes[recoveries.peek().getHost().getId()] != recoveries.peek().getTime())
+                recoveries.poll();
+
+            FaultEvent recovery = recoveries.peek();
+            if (recovery != null && (nextOutageTime >= duration || recovery.getTime() < nextOutageTime)) {
+                recoveries.poll();
+                recoveryTimes[recovery.getHost().getId()] = 0;
+                return recovery;
+            }
+
+            if (nextOutageTime >= duration)
+                return null;
+
+            double currentTime = nextOutageTime;
+            double domain = rand.nextDouble() * lambda;
+            if (domain < hostLambda) {
+                crash(currentTime, rand.nextInt(xhosts.length));
+            } else if (domain < hostLambda + rackLambda) {
+                int rack = rand.nextInt(index.getNbOfRacks());
+                for (int slot = index.getRackFrom(rack); slot < index.getRackTo(rack); slot++)
+                    crash(currentTime, index.getHost(slot));
+            } else {
+                int cluster = rand.nextInt(index.getNbOfClusters());
+                for (int slot = index.getClusterFrom(cluster); slot < index.getClusterTo(cluster); slot++)
+                    crash(currentTime, index.getHost(slot));
+            }
+            nextOutageTime += Injector.exponentialDis(rand, lambda);
+        }
+    }
+
+    /**
+     * Turn off one host (if it is on) and schedule (or postpone) its recovery
+     */
+    private void crash(double currentTime, int host) {
+        if (recoveryTimes[host] == 0)
+            burst.add(new FaultEvent(id++, currentTime, xhosts[host], false));
+
+        if (currentTime + crashDuration < duration) {
+            //For the moment, downtime of a node is arbitrarily set to crashDuration
+            FaultEvent on = new FaultEvent(id++, currentTime + crashDuration, xhosts[host], true);
+            recoveryTimes[host] = on.getTime();
+            recoveries.add(on);
+        } else {
+            recoveryTimes[host] = Double.POSITIVE_INFINITY;
+        }
+    }
+}
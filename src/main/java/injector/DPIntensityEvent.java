@@ -0,0 +1,48 @@
+package injector;
+
+import configuration.XVM;
+import simulation.SimulatorManager;
+
+/**
+ * Change of the dirty page intensity of a VM (i.e. how fast the workload of the VM writes its memory, expressed as a
+ * percentage of the migration bandwidth). A negative value means that the intensity depends again on the CPU load
+ * of the VM (see vm_classes.txt).
+ */
+public class DPIntensityEvent implements InjectorEvent {
+
+    private long id;
+    private double time;
+    private XVM vm;
+    private int dpIntensity;
+
+    public DPIntensityEvent(long id, double time, XVM vm, int dpIntensity) {
+        this.id = id;
+        this.time = time;
+        this.vm = vm;
+        this.dpIntensity = dpIntensity;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public double getTime() {
+        return this.time;
+    }
+
+    public XVM getVM() {
+        return this.vm;
+    }
+
+    public int getDPIntensity() {
+        return this.dpIntensity;
+    }
+
+    public void play() {
+        SimulatorManager.updateVMDPIntensity(this.vm, this.dpIntensity);
+    }
+
+    public String toString() {
+        return this.getTime() + "/" + this.getVM().getName() + "/dp/" + this.dpIntensity;
+    }
+}
@@ -0,0 +1,44 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Diurnal load model: the mean of the gaussian law follows a sinusoid,
+ * mean(t) = load.mean + amplitude * sin(2 * PI * t / period) (see loadinjector.diurnal.*).
+ * All VMs are in phase, so that the whole infrastructure goes through peaks and troughs.
+ */
+public class DiurnalLoadModel extends AbstractLoadModel {
+
+    private final double amplitude;
+    private final double period;
+
+    public DiurnalLoadModel() {
+        super();
+        this.amplitude = SimulatorProperties.getDiurnalAmplitude();
+        this.period = SimulatorProperties.getDiurnalPeriod();
+    }
+
+    @Override
+    public void generate(XVM vm, SplittableRandom rand, double start, long duration, LoadProcess process) {
+        double currentTime = start + exponential(rand, lambda);
+        while (currentTime < duration) {
+            double currentMean = mean + amplitude * StrictMath.sin(2 * StrictMath.PI * currentTime / period);
+            process.add(currentTime, drawLoad(rand, currentMean, vm));
+            currentTime += exponential(rand, lambda);
+        }
+    }
+
+    /**
+     * The load at the beginning of the simulation has been drawn at the last load event of the VM, which occurred an
+     * exponential time before (Poisson process), around the mean of the sinusoid at that time
+     */
+    @Override
+    public int sampleStationary(XVM vm, SplittableRandom rand) {
+        SplittableRandom draws = rand.split();
+        double lastEvent = -exponential(draws, lambda);
+        return drawLoad(draws, mean + amplitude * StrictMath.sin(2 * StrictMath.PI * lastEvent / period), vm);
+    }
+}
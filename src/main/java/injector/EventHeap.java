@@ -0,0 +1,118 @@
+package injector;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary heap of events ordered by time, then by id. Events with the same time and the same id are delivered in
+ * insertion order. Insertion and removal are O(log n).
+ */
+public class EventHeap {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The order of the events: by time, then by id
+     */
+    public static final Comparator<InjectorEvent> ORDER = new Comparator<InjectorEvent>() {
+        @Override
+        public int compare(InjectorEvent o1, InjectorEvent o2) {
+            int res = Double.compare(o1.getTime(), o2.getTime());
+            return res != 0 ? res : Long.compare(o1.getId(), o2.getId());
+        }
+    };
+
+    private InjectorEvent[] events;
+    /**
+     * Insertion rank of each event (last tie-breaker)
+     */
+    private long[] ranks;
+    private int size;
+    private long nextRank;
+
+    public EventHeap() {
+        this.events = new InjectorEvent[DEFAULT_CAPACITY];
+        this.ranks = new long[DEFAULT_CAPACITY];
+        this.size = 0;
+        this.nextRank = 0;
+    }
+
+    public void add(InjectorEvent evt) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+            ranks = Arrays.copyOf(ranks, size * 2);
+        }
+        int i = size++;
+        long rank = nextRank++;
+        // Sift up
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(evt, rank, events[parent], ranks[parent]))
+                break;
+            events[i] = events[parent];
+            ranks[i] = ranks[parent];
+            i = parent;
+        }
+        events[i] = evt;
+        ranks[i] = rank;
+    }
+
+    /**
+     * @return the first event (null if the heap is empty)
+     */
+    public InjectorEvent peek() {
+        return size == 0 ? null : events[0];
+    }
+
+    /**
+     * Remove and return the first event
+     */
+    public InjectorEvent poll() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        InjectorEvent first = events[0];
+        size--;
+        InjectorEvent evt = events[size];
+        long rank = ranks[size];
+        events[size] = null;
+        // Sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(events[child + 1], ranks[child + 1], events[child], ranks[child]))
+                child++;
+            if (!before(events[child], ranks[child], evt, rank))
+                break;
+            events[i] = events[child];
+            ranks[i] = ranks[child];
+            i = child;
+        }
+        if (size > 0) {
+            events[i] = evt;
+            ranks[i] = rank;
+        }
+        return first;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the events of the heap (in no particular order)
+     */
+    public InjectorEvent[] toArray() {
+        return Arrays.copyOf(events, size);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static boolean before(InjectorEvent e1, long rank1, InjectorEvent e2, long rank2) {
+        int res = ORDER.compare(e1, e2);
+        return res < 0 || (res == 0 && rank1 < rank2);
+    }
+}
@@ -0,0 +1,255 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import configuration.XVM;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary journal of the injected events.
+ * The journal enables to replay exactly the same workload (for instance against several schedulers) without
+ * generating it again. It can be shared between machines (the byte order is fixed).
+ *
+ * Format: a 32 bytes header (magic, version, nb of VMs, nb of hosts, seed, nb of events) followed by one 17 bytes
+ * record per event (time, kind, index of the target, payload), see EventStore for the meaning of each field.
+ * Targets are referenced by their position in SimulatorManager.getSGVMsToArray() and getSGHostsToArray(), hence a
+ * journal can only be replayed on an infrastructure with the same number of VMs and hosts.
+ */
+public class EventJournal {
+
+    private static final int MAGIC = 0x564D504A; // "VMPJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 24;
+    private static final int RECORD_SIZE = 17;
+
+    /**
+     * Number of records written at once
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Write a stream of events in the journal file (the previous content of the file is lost)
+     * @return the number of events written
+     */
+    public static long write(File file, Iterator<? extends InjectorEvent> events, XVM[] xvms, XHost[] xhosts) throws IOException {
+        try (Writer writer = new Writer(file, xvms, xhosts)) {
+            while (events.hasNext())
+                writer.append(events.next());
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Write the events one by one in a journal file (the previous content of the file is lost).
+     * The records are buffered and written by batches, the number of events is written in the header on close().
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final EventStore batch;
+        private long count = 0;
+        private boolean closed = false;
+
+        public Writer(File file, XVM[] xvms, XHost[] xhosts) throws IOException {
+            this.channel = open(file, xvms.length, xhosts.length);
+            this.buffer = ByteBuffer.allocateDirect(BATCH_SIZE * RECORD_SIZE);
+            this.batch = new EventStore(xvms, xhosts);
+        }
+
+        public void append(InjectorEvent evt) throws IOException {
+            if (closed)
+                throw new IOException("The event journal is closed");
+            batch.add(evt);
+            if (batch.size() == BATCH_SIZE)
+                flush();
+        }
+
+        private void flush() throws IOException {
+            writeRecords(channel, buffer, batch, 0, batch.size());
+            count += batch.size();
+            batch.clear();
+        }
+
+        /**
+         * @return the number of events written so far
+         */
+        public long getCount() {
+            return count + batch.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                flush();
+                writeCount(channel, count);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Write the content of an event store in the journal file (the previous content of the file is lost)
+     * @return the number of events written
+     */
+    public static long write(File file, EventStore store, int nbOfVMs, int nbOfHosts) throws IOException {
+        try (FileChannel channel = open(file, nbOfVMs, nbOfHosts)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_SIZE * RECORD_SIZE);
+            for (int from = 0; from < store.size(); from += BATCH_SIZE)
+                writeRecords(channel, buffer, store, from, Math.min(store.size(), from + BATCH_SIZE));
+            writeCount(channel, store.size());
+        }
+        return store.size();
+    }
+
+    private static FileChannel open(File file, int nbOfVMs, int nbOfHosts) throws IOException {
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+        FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(nbOfVMs);
+        header.putInt(nbOfHosts);
+        header.putLong(SimulatorProperties.getSeed());
+        header.putLong(0); // Number of events, updated once everything has been written
+        header.flip();
+        while (header.hasRemaining())
+            channel.write(header);
+        return channel;
+    }
+
+    private static void writeRecords(FileChannel channel, ByteBuffer buffer, EventStore store, int from, int to) throws IOException {
+        buffer.clear();
+        for (int i = from; i < to; i++) {
+            buffer.putDouble(store.getTime(i));
+            buffer.put(store.getKind(i));
+            buffer.putInt(store.getTargetIndex(i));
+            buffer.putInt(store.getPayload(i));
+        }
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void writeCount(FileChannel channel, long count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(count);
+        buffer.flip();
+        channel.write(buffer, COUNT_OFFSET);
+    }
+
+    /**
+     * Stream the events of a journal file.
+     * The file is memory-mapped by windows (a MappedByteBuffer cannot exceed 2GB), so that the whole journal is
+     * never loaded in the heap.
+     */
+    public static class Reader implements Iterator<InjectorEvent>, Closeable {
+
+        /**
+         * Size of a mapped window (a multiple of the record size)
+         */
+        private static final long WINDOW_SIZE = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+
+        private final FileChannel channel;
+        private final XVM[] xvms;
+        private final XHost[] xhosts;
+        private final long count;
+
+        private MappedByteBuffer window;
+        private long windowEnd;
+        private long index;
+
+        public Reader(File file, XVM[] xvms, XHost[] xhosts) throws IOException {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.xvms = xvms;
+            this.xhosts = xhosts;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0)
+                    break;
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException(file + " is not an event journal");
+            }
+            int version = header.getInt();
+            int nbOfVMs = header.getInt();
+            int nbOfHosts = header.getInt();
+            long seed = header.getLong();
+            this.count = header.getLong();
+            if (version != VERSION || nbOfVMs != xvms.length || nbOfHosts != xhosts.length) {
+                channel.close();
+                throw new IOException(String.format("%s (version %d, %d VMs, %d hosts) does not match the current simulation (version %d, %d VMs, %d hosts)",
+                        file, version, nbOfVMs, nbOfHosts, VERSION, xvms.length, xhosts.length));
+            }
+            if (seed != SimulatorProperties.getSeed())
+                System.out.println(String.format("Replaying a journal generated with seed %d (current seed is %d)", seed, SimulatorProperties.getSeed()));
+
+            this.index = 0;
+            this.windowEnd = 0;
+        }
+
+        /**
+         * @return the number of events in the journal
+         */
+        public long size() {
+            return count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public InjectorEvent next() {
+            if (index >= count)
+                throw new NoSuchElementException();
+            if (index == windowEnd)
+                map();
+
+            double time = window.getDouble();
+            byte kind = window.get();
+            int target = window.getInt();
+            int payload = window.getInt();
+            return EventStore.materialize(index++, time, kind, target, payload, xvms, xhosts);
+        }
+
+        /**
+         * Map the window starting at the current record
+         */
+        private void map() {
+            long position = HEADER_SIZE + index * RECORD_SIZE;
+            long length = Math.min(WINDOW_SIZE, (count - index) * RECORD_SIZE);
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map the event journal", e);
+            }
+            windowEnd = index + length / RECORD_SIZE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
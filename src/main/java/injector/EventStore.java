@@ -0,0 +1,243 @@
+package injector;
+
+import configuration.XHost;
+import configuration.XVM;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact storage of a pre-generated event timeline.
+ * Instead of keeping one object per event (plus one list node), the events are stored in parallel primitive arrays
+ * (time, kind, index of the target, payload), i.e. 17 bytes per event.
+ * The targets are referenced by their position in SimulatorManager.getSGVMsToArray() (load and suspend/resume events)
+ * and SimulatorManager.getSGHostsToArray() (fault events). VM arrivals and departures reference the index of the VM,
+ * which may not exist yet.
+ * Events are materialized only when they are read. The id of a materialized event is its position in the store.
+ */
+public class EventStore implements Iterable<InjectorEvent> {
+
+    /* Kinds of events */
+    public static final byte LOAD = 0;
+    public static final byte HOST_OFF = 1;
+    public static final byte HOST_ON = 2;
+    public static final byte VM_SUSPEND = 3;
+    public static final byte VM_RESUME = 4;
+    public static final byte VM_NET_LOAD = 5;
+    public static final byte HOST_NET_LOAD = 6;
+    public static final byte VM_DP_INTENSITY = 7;
+    public static final byte VM_ARRIVAL = 8;
+    public static final byte VM_DEPARTURE = 9;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final XVM[] xvms;
+    private final XHost[] xhosts;
+
+    private double[] time;
+    private int[] targetIndex;
+    /**
+     * The new CPU load for load events, the new network load for network load events, the new dirty page intensity
+     * for dirty page intensity events, the index of the class of the VM for arrival events (unused for the other
+     * kinds)
+     */
+    private int[] payload;
+    private byte[] kind;
+
+    private int size;
+
+    /**
+     * @param xvms the VMs referenced by the events, indexed by id (generally SimulatorManager.getSGVMsToArray())
+     * @param xhosts the hosts referenced by the events, indexed by id (generally SimulatorManager.getSGHostsToArray())
+     */
+    public EventStore(XVM[] xvms, XHost[] xhosts) {
+        this.xvms = xvms;
+        this.xhosts = xhosts;
+
+        this.time = new double[DEFAULT_CAPACITY];
+        this.targetIndex = new int[DEFAULT_CAPACITY];
+        this.payload = new int[DEFAULT_CAPACITY];
+        this.kind = new byte[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Append one event at the end of the store (events should be appended in time order).
+     */
+    public void add(double t, byte k, int target, int value) {
+        if (size == time.length) {
+            int capacity = size + (size >> 1);
+            time = Arrays.copyOf(time, capacity);
+            targetIndex = Arrays.copyOf(targetIndex, capacity);
+            payload = Arrays.copyOf(payload, capacity);
+            kind = Arrays.copyOf(kind, capacity);
+        }
+        time[size] = t;
+        kind[size] = k;
+        targetIndex[size] = target;
+        payload[size] = value;
+        size++;
+    }
+
+    /**
+     * @return the index of the VM in xvms (i.e. its id, see XVM.getId())
+     */
+    private int vmIndex(XVM vm) {
+        int id = vm.getId();
+        if (id < 0 || id >= xvms.length || xvms[id] != vm)
+            throw new IllegalArgumentException("The VM " + vm.getName() + " is not referenced by the store");
+        return id;
+    }
+
+    /**
+     * @return the index of the host in xhosts (i.e. its id, see XHost.getId())
+     */
+    private int hostIndex(XHost host) {
+        int id = host.getId();
+        if (id < 0 || id >= xhosts.length || xhosts[id] != host)
+            throw new IllegalArgumentException("The host " + host.getName() + " is not referenced by the store");
+        return id;
+    }
+
+    /**
+     * Append one event at the end of the store (events should be appended in time order).
+     */
+    public void add(InjectorEvent evt) {
+        if (evt instanceof LoadEvent) {
+            LoadEvent e = (LoadEvent) evt;
+            add(e.getTime(), LOAD, vmIndex(e.getVm()), e.getCPULoad());
+        } else if (evt instanceof FaultEvent) {
+            FaultEvent e = (FaultEvent) evt;
+            add(e.getTime(), e.getState() ? HOST_ON : HOST_OFF, hostIndex(e.getHost()), 0);
+        } else if (evt instanceof VMSuspendResumeEvent) {
+            VMSuspendResumeEvent e = (VMSuspendResumeEvent) evt;
+            add(e.getTime(), e.getState() ? VM_RESUME : VM_SUSPEND, vmIndex(e.getVM()), 0);
+        } else if (evt instanceof NetworkLoadEvent) {
+            NetworkLoadEvent e = (NetworkLoadEvent) evt;
+            if (e.getVM() != null)
+                add(e.getTime(), VM_NET_LOAD, vmIndex(e.getVM()), e.getNetLoad());
+            else
+                add(e.getTime(), HOST_NET_LOAD, hostIndex(e.getHost()), e.getNetLoad());
+        } else if (evt instanceof DPIntensityEvent) {
+            DPIntensityEvent e = (DPIntensityEvent) evt;
+            add(e.getTime(), VM_DP_INTENSITY, vmIndex(e.getVM()), e.getDPIntensity());
+        } else if (evt instanceof VMArrivalEvent) {
+            VMArrivalEvent e = (VMArrivalEvent) evt;
+            add(e.getTime(), VM_ARRIVAL, e.getVMNumber(), e.getVMClassIndex());
+        } else if (evt instanceof VMDepartureEvent) {
+            VMDepartureEvent e = (VMDepartureEvent) evt;
+            add(e.getTime(), VM_DEPARTURE, e.getVMNumber(), 0);
+        } else {
+            throw new IllegalArgumentException("Unsupported event " + evt);
+        }
+    }
+
+    /**
+     * Append all events of a time-ordered stream
+     */
+    public void addAll(Iterator<? extends InjectorEvent> events) {
+        while (events.hasNext())
+            add(events.next());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all events (the arrays are kept in order to be reused)
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public double getTime(int i) {
+        return time[i];
+    }
+
+    public byte getKind(int i) {
+        return kind[i];
+    }
+
+    public int getTargetIndex(int i) {
+        return targetIndex[i];
+    }
+
+    public int getPayload(int i) {
+        return payload[i];
+    }
+
+    /**
+     * @return the i-th event (a new object is created at each invocation)
+     */
+    public InjectorEvent get(int i) {
+        return materialize(i, time[i], kind[i], targetIndex[i], payload[i], xvms, xhosts);
+    }
+
+    /**
+     * Create the event object corresponding to one record
+     */
+    public static InjectorEvent materialize(long id, double t, byte k, int target, int value, XVM[] xvms, XHost[] xhosts) {
+        switch (k) {
+            case LOAD:
+                return new LoadEvent(id, t, xvms[target], value);
+            case HOST_OFF:
+                return new FaultEvent(id, t, xhosts[target], false);
+            case HOST_ON:
+                return new FaultEvent(id, t, xhosts[target], true);
+            case VM_SUSPEND:
+                return new VMSuspendResumeEvent(id, t, xvms[target], false);
+            case VM_RESUME:
+                return new VMSuspendResumeEvent(id, t, xvms[target], true);
+            case VM_NET_LOAD:
+                return new NetworkLoadEvent(id, t, xvms[target], value);
+            case HOST_NET_LOAD:
+                return new NetworkLoadEvent(id, t, xhosts[target], value);
+            case VM_DP_INTENSITY:
+                return new DPIntensityEvent(id, t, xvms[target], value);
+            case VM_ARRIVAL:
+                return new VMArrivalEvent(id, t, target, value);
+            case VM_DEPARTURE:
+                return new VMDepartureEvent(id, t, target);
+            default:
+                throw new IllegalStateException("Unknown kind of event " + k);
+        }
+    }
+
+    @Override
+    public Iterator<InjectorEvent> iterator() {
+        return new Iterator<InjectorEvent>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public InjectorEvent next() {
+                if (cursor >= size)
+                    throw new NoSuchElementException();
+                return get(cursor++);
+            }
+        };
+    }
+
+    /**
+     * Dump the store in a text file (one event per line, same format as Injector.writeEventQueue())
+     */
+    public void write(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        BufferedWriter bw = new BufferedWriter(new FileWriter(file));
+        for (int i = 0; i < size; i++) {
+            bw.write(get(i).toString());
+            bw.write("\n");
+        }
+        bw.close();
+    }
+}
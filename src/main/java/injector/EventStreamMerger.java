@@ -0,0 +1,67 @@
+package injector;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of several time-ordered event sources.
+ * Only the head of each source is kept in memory. Events occurring at the same time are delivered by id (as in
+ * EventHeap), then according to the order in which the sources have been given (i.e. load events first, then faults,
+ * then VM suspend/resume events, then network load events, then VM arrivals and departures), which is the order
+ * obtained by Injector.mergeQueues().
+ */
+public class EventStreamMerger implements Iterator<InjectorEvent> {
+
+    /**
+     * The current head of one source
+     */
+    private static class Head {
+        private InjectorEvent evt;
+        private final Iterator<? extends InjectorEvent> source;
+        private final int rank;
+
+        Head(Iterator<? extends InjectorEvent> source, int rank) {
+            this.source = source;
+            this.rank = rank;
+            this.evt = source.next();
+        }
+    }
+
+    private final PriorityQueue<Head> heads;
+
+    @SafeVarargs
+    public EventStreamMerger(Iterator<? extends InjectorEvent>... sources) {
+        this.heads = new PriorityQueue<>(Math.max(1, sources.length), new Comparator<Head>() {
+            @Override
+            public int compare(Head o1, Head o2) {
+                int res = EventHeap.ORDER.compare(o1.evt, o2.evt);
+                return res != 0 ? res : Integer.compare(o1.rank, o2.rank);
+            }
+        });
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].hasNext())
+                heads.add(new Head(sources[i], i));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public InjectorEvent next() {
+        Head head = heads.poll();
+        if (head == null)
+            throw new NoSuchElementException();
+
+        InjectorEvent evt = head.evt;
+        if (head.source.hasNext()) {
+            head.evt = head.source.next();
+            heads.add(head);
+        }
+        return evt;
+    }
+}
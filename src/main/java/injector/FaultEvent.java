@@ -9,7 +9,6 @@ package injector;
  */
 
 import configuration.XHost;
-import org.simgrid.msg.Msg;
 import scheduling.distributed.dvms2.dvms.dvms2.LoggingActor;
 import scheduling.distributed.dvms2.dvms.dvms2.LoggingProtocol;
 import simulation.SimulatorManager;
@@ -45,7 +44,7 @@ public class FaultEvent implements InjectorEvent{
             SimulatorManager.turnOn(this.host);
 
         } else {
-            LoggingActor.write(new LoggingProtocol.HasCrashed(Msg.getClock(), this.host.getName()));
+            LoggingActor.write(new LoggingProtocol.HasCrashed(SimulatorManager.getClock(), this.host.getName()));
             SimulatorManager.turnOff(this.host);
         }
     }
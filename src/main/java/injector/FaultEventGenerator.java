@@ -0,0 +1,130 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Lazy counterpart of Injector.generateFaultQueue().
+ * Crashes are drawn on demand and the corresponding ''on'' events are kept in a small priority queue until they are
+ * due. As in the eager version, if a host crashes while it is still off, its pending ''on'' event is postponed to
+ * currentTime + crashDuration. Only the hosts that are currently off are kept in memory.
+ *
+ * @see injector.Injector#generateFaultQueue(configuration.XHost[], long, int)
+ */
+public class FaultEventGenerator implements Iterator<FaultEvent> {
+
+    private final XHost[] xhosts;
+    private final long duration;
+    private final double crashDuration;
+    private final double lambda;
+
+    private final Random randExpDis;
+    private final Random randHostPicker;
+
+    /**
+     * Date of the next crash to draw
+     */
+    private double nextCrashTime;
+    private long id;
+
+    /**
+     * The pending ''on'' event of each host that is currently off
+     */
+    private final Map<XHost, FaultEvent> pendingRecoveries;
+
+    /**
+     * The ''on'' events sorted by time. Postponed events are not removed from the queue, they are simply skipped
+     * when they reach its head (i.e. when they do not correspond anymore to the pending event of their host).
+     */
+    private final PriorityQueue<FaultEvent> recoveries;
+
+    /**
+     * The next event to deliver (null if there is no more event)
+     */
+    private FaultEvent nextEvent;
+
+    /**
+     * @param xhosts the hosts that may crash
+     * @param duration duration of the simulated time in second
+     * @param faultPeriod the average period between two crashes of the same host in second
+     */
+    public FaultEventGenerator(XHost[] xhosts, long duration, int faultPeriod) {
+        this.xhosts = xhosts;
+        this.duration = duration;
+        this.crashDuration = SimulatorProperties.getCrashDuration();
+        double lambdaPerHost = 1.0 / faultPeriod; // Nb crash per host (average)
+        this.lambda = lambdaPerHost * xhosts.length;
+        this.randExpDis = new Random(SimulatorProperties.getSeed());
+        this.randHostPicker = new Random(SimulatorProperties.getSeed());
+        this.pendingRecoveries = new HashMap<>();
+        this.recoveries = new PriorityQueue<>(11, new Comparator<FaultEvent>() {
+            @Override
+            public int compare(FaultEvent o1, FaultEvent o2) {
+                int res = Double.compare(o1.getTime(), o2.getTime());
+                return res != 0 ? res : Long.compare(o1.getId(), o2.getId());
+            }
+        });
+        this.id = 0;
+        this.nextCrashTime = Injector.exponentialDis(randExpDis, lambda);
+        this.nextEvent = computeNextEvent();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextEvent != null;
+    }
+
+    @Override
+    public FaultEvent next() {
+        if (nextEvent == null)
+            throw new NoSuchElementException();
+        FaultEvent evt = nextEvent;
+        nextEvent = computeNextEvent();
+        return evt;
+    }
+
+    private FaultEvent computeNextEvent() {
+        while (true) {
+            // Skip the ''on'' events that have been postponed
+            while (!recoveries.isEmpty() && pendingRecoveries.get(recoveries.peek().getHost()) != recoveries.peek())
+                recoveries.poll();
+
+            FaultEvent recovery = recoveries.peek();
+            if (recovery != null && (nextCrashTime >= duration || recovery.getTime() < nextCrashTime)) {
+                recoveries.poll();
+                pendingRecoveries.remove(recovery.getHost());
+                return recovery;
+            }
+
+            if (nextCrashTime >= duration)
+                return null;
+
+            double currentTime = nextCrashTime;
+            XHost tempHost = xhosts[randHostPicker.nextInt(xhosts.length)];
+            nextCrashTime += Injector.exponentialDis(randExpDis, lambda);
+
+            // If the node is still off, its pending on event is removed and postponed below
+            FaultEvent crash = null;
+            if (pendingRecoveries.remove(tempHost) == null) {
+                // false = off , on = true
+                crash = new FaultEvent(id++, currentTime, tempHost, false);
+            }
+            if (currentTime + crashDuration < duration) {
+                //For the moment, downtime of a node is arbitrarily set to crashDuration
+                FaultEvent on = new FaultEvent(id++, currentTime + crashDuration, tempHost, true);
+                pendingRecoveries.put(tempHost, on);
+                recoveries.add(on);
+            }
+            if (crash != null)
+                return crash;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package injector;
+
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Default load model: each load event draws a new load from the gaussian law (load.mean, load.std).
+ */
+public class GaussianLoadModel extends AbstractLoadModel {
+
+    @Override
+    public void generate(XVM vm, SplittableRandom rand, double start, long duration, LoadProcess process) {
+        double currentTime = start + exponential(rand, lambda);
+        while (currentTime < duration) {
+            /* Gaussian law for the getCPUDemand assignment */
+            process.add(currentTime, drawLoad(rand, mean, vm));
+            currentTime += exponential(rand, lambda);
+        }
+    }
+
+    /**
+     * Once a VM has received one event, its load follows the distribution of a single draw
+     */
+    @Override
+    public int sampleStationary(XVM vm, SplittableRandom rand) {
+        return drawLoad(rand.split(), mean, vm);
+    }
+}
@@ -1,4 +1,5 @@
 package injector;
+import configuration.NativeCalls;
 import configuration.SimulatorProperties;
 import configuration.XHost;
 import configuration.XVM;
@@ -8,6 +9,8 @@ import org.simgrid.msg.Msg;
 import org.simgrid.msg.MsgException;
 import org.simgrid.msg.NativeException;
 import org.simgrid.msg.Process;
+import org.simgrid.msg.Task;
+import org.simgrid.msg.TimeoutException;
 import scheduling.hierarchical.snooze.SnoozeProperties;
 import trace.Trace;
 
@@ -27,39 +30,189 @@ public class Injector extends Process {
     private Deque<LoadEvent> loadQueue = null ;
     private Deque<FaultEvent> faultQueue = null ;
     private Deque<VMSuspendResumeEvent> vmSuspendResumeQueue = null ;
+    private Deque<NetworkLoadEvent> networkLoadQueue = null ;
+    private Deque<InjectorEvent> vmChurnQueue = null ;
 
+    /**
+     * The events generated on the fly (streaming mode), read from the event store (store mode) or from the event
+     * journal (replay mode). evtQueue is not used in that case.
+     */
+    private Iterator<InjectorEvent> evtStream = null ;
+
+    /**
+     * The journal written in streaming mode as the events are played (null if there is none)
+     */
+    private EventJournal.Writer journalWriter = null ;
+
+    /**
+     * The journal read in replay mode (null if there is none), it is also evtStream
+     */
+    private EventJournal.Reader journalReader = null ;
+
+    /**
+     * The next event of evtQueue/evtStream (null if it has not been read yet)
+     */
+    private InjectorEvent nextPlannedEvent = null ;
+
+    /**
+     * The simulation of the injector
+     */
+    private final SimulationContext context;
+
+    /**
+     * Events submitted during the simulation (see submit()), they belong to the context of the injector
+     */
+    private final EventHeap submittedEvents;
+
+    /**
+     * The time the injector is waiting for (-1 if it is not waiting)
+     */
+    private double wakeUpTime = -1;
+
+    /**
+     * Number of planned events (evtQueue/evtStream) that have been played, i.e. the cursor saved in the checkpoint
+     */
+    private long nbOfPlayedEvents = 0;
+
+    private static final String WAKE_UP_MBOX = "injector-wakeup";
+
+    /**
+     * Delay (in seconds) after which a checkpoint that cannot be captured (e.g. during a migration) is retried
+     */
+    private static final double CHECKPOINT_RETRY_DELAY = 1;
+
+    /**
+     * Constructor used by Msg.deployApplication(): the injector belongs to the current context (see Main)
+     */
     Injector(Host host, String name, String[] args) throws HostNotFoundException, NativeException  {
+        this(host, name, args, SimulationContext.current());
+    }
+
+    Injector(Host host, String name, String[] args, SimulationContext context) throws HostNotFoundException, NativeException  {
         super(host, name, args);
-        // System.out.println("Create the event queues");
-        loadQueue = generateLoadQueue(SimulatorManager.getSGVMs().toArray(new XVM[SimulatorManager.getSGVMs().size()]), SimulatorProperties.getDuration(), SimulatorProperties.getLoadPeriod());
-        //System.out.println("Size of getCPUDemand queue:"+loadQueue.size());
-        // Stupid code to stress Snooze service nodes - Used for the paper submission
-        if(SimulatorProperties.getAlgo().equals("hierarchical") && SnoozeProperties.faultMode())
-            faultQueue = generateSnoozeFaultQueue(SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration());
-        else
-            faultQueue = generateFaultQueue(SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration(), SimulatorProperties.getCrashPeriod());
 
-        if(SimulatorProperties.getSuspendVMs())
-            vmSuspendResumeQueue = generateVMFluctuationQueue(SimulatorManager.getSGVMsToArray(), SimulatorProperties.getDuration(), SimulatorProperties.getVMSuspendPeriod());
-        else // Create an empty list.
-            vmSuspendResumeQueue = new LinkedList<VMSuspendResumeEvent>();
-        System.out.println(String.format("Size of event queues: load: %d, faults: %d, vm suspend: %d", loadQueue.size(), faultQueue.size(), vmSuspendResumeQueue.size()));
-        evtQueue = mergeQueues(loadQueue,faultQueue, vmSuspendResumeQueue);
-        // System.out.println("Size of event queue:"+evtQueue.size());
-
-        // Serialize eventqueue in a file.
-        File f = new File ("injector_queue.txt");
-        try
-        {
-            FileWriter fw = new FileWriter (f);
-
-            for (InjectorEvent evt: evtQueue)
-                fw.write (evt.toString()+"\n");
-            fw.close();
+        this.context = context;
+        context.setInjector(this);
+        this.submittedEvents = context.getSubmittedEvents();
+
+        String mode = SimulatorProperties.getInjectorMode();
+        String journal = SimulatorProperties.getInjectorJournal();
+        XVM[] vms = SimulatorManager.getSGVMs().toArray(new XVM[SimulatorManager.getSGVMs().size()]);
+
+        if(mode.equals("replay")) {
+            if(journal == null) {
+                System.err.println("The replay mode requires an event journal (please define loadinjector.journal)");
+                System.exit(1);
+            }
+            try {
+                journalReader = new EventJournal.Reader(new File(journal), SimulatorManager.getSGVMsToArray(), SimulatorManager.getSGHostsToArray());
+                System.out.println(String.format("Replaying %d events from %s", journalReader.size(), journal));
+                evtStream = journalReader;
+            } catch (IOException e) {
+                System.err.println("Cannot replay the event journal: " + e.getMessage());
+                System.exit(1);
+            }
+        } else if(mode.equals("streaming")) {
+            evtStream = generateEventStream(vms, SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration());
+            System.out.println("Events are generated on the fly (streaming mode)");
+            // The events are written in the journal as they are played
+            if(journal != null) {
+                try {
+                    journalWriter = new EventJournal.Writer(new File(journal), SimulatorManager.getSGVMsToArray(), SimulatorManager.getSGHostsToArray());
+                } catch (IOException e) {
+                    System.err.println("Cannot write the event journal: " + e.getMessage());
+                    System.exit(1);
+                }
+            }
+        } else if(mode.equals("store")) {
+            EventStore store = new EventStore(SimulatorManager.getSGVMsToArray(), SimulatorManager.getSGHostsToArray());
+            store.addAll(generateEventStream(vms, SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration()));
+            System.out.println(String.format("Size of event store: %d", store.size()));
+            try {
+                store.write(new File("logs/events-queue.txt"));
+                if(journal != null)
+                    EventJournal.write(new File(journal), store, SimulatorManager.getSGVMsToArray().length, SimulatorManager.getSGHostsToArray().length);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            evtStream = store.iterator();
+        } else {
+            // System.out.println("Create the event queues");
+            if(SimulatorProperties.getFileEvents() != null || SimulatorProperties.getInjectorThreads() > 0 || !SimulatorProperties.getLoadModel().equals("gaussian")
+                    || SimulatorProperties.getAdaptiveResolution()) {
+                loadQueue = new LinkedList<LoadEvent>();
+                Iterator<LoadEvent> loads = generateLoadEvents(vms, SimulatorProperties.getDuration());
+                while(loads.hasNext())
+                    loadQueue.add(loads.next());
+            } else
+                loadQueue = generateLoadQueue(vms, SimulatorProperties.getDuration(), SimulatorProperties.getLoadPeriod());
+            //System.out.println("Size of getCPUDemand queue:"+loadQueue.size());
+            // Stupid code to stress Snooze service nodes - Used for the paper submission
+            if(SimulatorProperties.getAlgo().equals("hierarchical") && SnoozeProperties.faultMode())
+                faultQueue = generateSnoozeFaultQueue(SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration());
+            else if(correlatedFaults()) {
+                faultQueue = new LinkedList<FaultEvent>();
+                Iterator<FaultEvent> faults = generateCorrelatedFaults(SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration());
+                while(faults.hasNext())
+                    faultQueue.add(faults.next());
+            } else
+                faultQueue = generateFaultQueue(SimulatorManager.getSGHostsToArray(), SimulatorProperties.getDuration(), SimulatorProperties.getCrashPeriod());
+
+            if(SimulatorProperties.getSuspendVMs())
+                vmSuspendResumeQueue = generateVMFluctuationQueue(SimulatorManager.getSGVMsToArray(), SimulatorProperties.getDuration(), SimulatorProperties.getVMSuspendPeriod());
+            else // Create an empty list.
+                vmSuspendResumeQueue = new LinkedList<VMSuspendResumeEvent>();
+
+            networkLoadQueue = new LinkedList<NetworkLoadEvent>();
+            if(SimulatorProperties.getNetworkPeriod() > 0) {
+                Iterator<NetworkLoadEvent> netEvents = new NetworkLoadEventGenerator(SimulatorManager.getSGVMsToArray(), SimulatorManager.getSGHostingHosts().toArray(new XHost[0]),
+                        SimulatorProperties.getDuration(), SimulatorProperties.getNetworkPeriod());
+                while(netEvents.hasNext())
+                    networkLoadQueue.add(netEvents.next());
+            }
+
+            vmChurnQueue = new LinkedList<InjectorEvent>();
+            Iterator<InjectorEvent> churnEvents = generateVMChurn(SimulatorProperties.getDuration());
+            while(churnEvents.hasNext())
+                vmChurnQueue.add(churnEvents.next());
+            System.out.println(String.format("Size of event queues: load: %d, faults: %d, vm suspend: %d, network: %d, vm churn: %d", loadQueue.size(), faultQueue.size(), vmSuspendResumeQueue.size(), networkLoadQueue.size(), vmChurnQueue.size()));
+            // The merged queue is serialized in logs/events-queue.txt
+            evtQueue = mergeQueues(loadQueue,faultQueue, vmSuspendResumeQueue, networkLoadQueue, vmChurnQueue);
+            // System.out.println("Size of event queue:"+evtQueue.size());
+
+            if(journal != null)
+                writeJournal(journal, evtQueue.iterator());
         }
-        catch (IOException exception)
-        {
-            System.out.println ("Erreur lors de la lecture : " + exception.getMessage());
+    }
+
+    /**
+     * Complete the journal written in streaming mode, if any (the events that have not been played are not written),
+     * or release the journal read in replay mode
+     */
+    private void closeJournal() {
+        try {
+            if(journalReader != null)
+                journalReader.close();
+            if(journalWriter != null) {
+                journalWriter.close();
+                System.out.println(String.format("%d events written in the journal %s", journalWriter.getCount(), SimulatorProperties.getInjectorJournal()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Serialize a stream of events in the binary journal (see EventJournal), so that it can be replayed later
+     * @param path the path of the journal file
+     * @param events the time-ordered events
+     */
+    private static void writeJournal(String path, Iterator<InjectorEvent> events) {
+        try {
+            long count = EventJournal.write(new File(path), events, SimulatorManager.getSGVMsToArray(), SimulatorManager.getSGHostsToArray());
+            System.out.println(String.format("%d events written in the journal %s", count, path));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
@@ -123,14 +276,129 @@ public class Injector extends Process {
         return eventQueue;
     }
 
+    /**
+     * Sample the initial load of each VM from the stationary distribution of the load model (see loadinjector.model
+     * and LoadModel.sampleStationary()).
+     * @param vms the VMs
+     * @return the initial load of each VM
+     */
+    public static double[] generateStationaryLoads(XVM[] vms) {
+        return ParallelLoadGenerator.generateStationaryLoads(vms, ParallelLoadGenerator.buildModel(SimulatorProperties.getLoadModel()));
+    }
+
     /* Compute the next exponential value for rand */
-    private static double exponentialDis(Random rand, double lambda) {
+    static double exponentialDis(Random rand, double lambda) {
         return -Math.log(1 - rand.nextDouble()) / lambda;
     }
 
 
+    /**
+     * @param vms, Simgrid VMs that have been instanciated
+     * @param duration, duration of the simulated time in second
+     * @return the time-ordered load events: read from the trace file.events when it is defined, generated otherwise
+     * (see loadinjector.threads and loadinjector.model)
+     */
+    static Iterator<LoadEvent> generateLoadEvents(XVM[] vms, long duration) {
+        String trace = SimulatorProperties.getFileEvents();
+        if(trace != null) {
+            try {
+                return new TraceLoadEventReader(new File(trace), vms, duration);
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Cannot read the load trace " + trace + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        // The per-VM processes are generated at once (in parallel), only the merge is done on the fly
+        if(SimulatorProperties.getInjectorThreads() > 0 || !SimulatorProperties.getLoadModel().equals("gaussian")
+                || SimulatorProperties.getAdaptiveResolution())
+            return ParallelLoadGenerator.generate(vms, duration, ParallelLoadGenerator.buildModel(SimulatorProperties.getLoadModel()),
+                    Math.max(1, SimulatorProperties.getInjectorThreads()),
+                    SimulationContext.current().getAdaptiveResolution());
+        return new LoadEventGenerator(vms, duration, SimulatorProperties.getLoadPeriod());
+    }
+
+    /**
+     * Streaming counterpart of the generate*Queue functions: each kind of event is produced by a lazy generator and
+     * the generators are merged on the fly. The memory footprint does not depend on the duration of the simulation
+     * as long as the load events are generated on the fly too, i.e. with the single-threaded gaussian model or a load
+     * trace: with injector threads, another load model or the adaptive resolution, the load process of every VM is
+     * generated for the whole duration before the simulation starts (see ParallelLoadGenerator).
+     * @param vms, Simgrid VMs that have been instanciated (used for the load events)
+     * @param xhosts, the hosts of the infrastructure
+     * @param duration, duration of the simulated time in second
+     * @return the time-ordered stream of events
+     */
+    public static Iterator<InjectorEvent> generateEventStream(XVM[] vms, XHost[] xhosts, long duration) {
+        Iterator<LoadEvent> loads = generateLoadEvents(vms, duration);
+
+        Iterator<FaultEvent> faults;
+        // The snooze fault queue is periodic and rather small, hence it is still generated at once.
+        if(SimulatorProperties.getAlgo().equals("hierarchical") && SnoozeProperties.faultMode())
+            faults = generateSnoozeFaultQueue(xhosts, duration).iterator();
+        else if(correlatedFaults())
+            faults = generateCorrelatedFaults(xhosts, duration);
+        else
+            faults = new FaultEventGenerator(xhosts, duration, SimulatorProperties.getCrashPeriod());
+
+        Iterator<VMSuspendResumeEvent> vmEvents;
+        if(SimulatorProperties.getSuspendVMs())
+            vmEvents = new VMSuspendResumeEventGenerator(SimulatorManager.getSGVMsToArray(), duration, SimulatorProperties.getVMSuspendPeriod());
+        else
+            vmEvents = Collections.<VMSuspendResumeEvent>emptyIterator();
+
+        Iterator<NetworkLoadEvent> netEvents;
+        if(SimulatorProperties.getNetworkPeriod() > 0)
+            netEvents = new NetworkLoadEventGenerator(SimulatorManager.getSGVMsToArray(), SimulatorManager.getSGHostingHosts().toArray(new XHost[0]),
+                    duration, SimulatorProperties.getNetworkPeriod());
+        else
+            netEvents = Collections.<NetworkLoadEvent>emptyIterator();
+
+        return new EventStreamMerger(loads, faults, vmEvents, netEvents, generateVMChurn(duration));
+    }
+
+    /**
+     * @return whether rack or cluster outages are enabled (see simulator.rack.crashperiod and
+     * simulator.cluster.crashperiod)
+     */
+    private static boolean correlatedFaults() {
+        return SimulatorProperties.getRackCrashPeriod() > 0 || SimulatorProperties.getClusterCrashPeriod() > 0;
+    }
+
+    /**
+     * @param xhosts, the hosts of the infrastructure
+     * @param duration, duration of the simulated time in second
+     * @return the time-ordered host crashes and rack/cluster outages, the racks and clusters being read from the
+     * platform file
+     */
+    static Iterator<FaultEvent> generateCorrelatedFaults(XHost[] xhosts, long duration) {
+        RackIndex racks = null;
+        try {
+            racks = RackIndex.load(new File(SimulatorManager.getPlatformFile()), xhosts, SimulatorProperties.getRackSize());
+        } catch (IOException e) {
+            System.err.println("Cannot read the racks from the platform file: " + e.getMessage());
+            System.exit(1);
+        }
+        Msg.info("Failure domains: " + racks);
+        return new CorrelatedFaultEventGenerator(xhosts, racks, duration, SimulatorProperties.getCrashPeriod(),
+                SimulatorProperties.getRackCrashPeriod(), SimulatorProperties.getClusterCrashPeriod());
+    }
+
+    /**
+     * @param duration, duration of the simulated time in second
+     * @return the time-ordered VM arrivals and departures (see simulator.vm.arrivalperiod and simulator.vm.lifetime)
+     */
+    static Iterator<InjectorEvent> generateVMChurn(long duration) {
+        if(SimulatorProperties.getVMArrivalPeriod() <= 0 && SimulatorProperties.getVMLifetime() <= 0)
+            return Collections.<InjectorEvent>emptyIterator();
+        return new VMChurnEventGenerator(SimulatorManager.getSGVMsToArray().length, duration,
+                SimulatorProperties.getVMArrivalPeriod(), SimulatorProperties.getVMLifetime());
+    }
+
     public static Deque<FaultEvent> generateSnoozeFaultQueue(XHost[] xhosts,  long duration) {
-        LinkedList<FaultEvent> faultQueue = new LinkedList<FaultEvent>();
+        // One index per loop, as the GL faults are generated before the GM ones: a GM crash must not postpone the
+        // recovery of a GL crash (the GM loop only sees its own pending recoveries)
+        PendingEventIndex<XHost, FaultEvent> glFaultEvents = new PendingEventIndex<>();
+        PendingEventIndex<XHost, FaultEvent> gmFaultEvents = new PendingEventIndex<>();
         long id=0;
         XHost tempHost;
         double currentTime = 0;
@@ -146,15 +414,15 @@ public class Injector extends Process {
 
                 tempHost = xhosts[SimulatorManager.getSGHostingHosts().size()];
 
-                if (!ifStillOffUpdate(tempHost, faultQueue, currentTime)) {
+                if (!glFaultEvents.removePendingRecovery(tempHost, currentTime)) {
                     // and change its state
                     // false = off , on = true
                     // Add a new event queue
-                    faultQueue.add(new FaultEvent(id++, currentTime, tempHost, false));
+                    glFaultEvents.add(new FaultEvent(id++, currentTime, tempHost, false));
                 }
                 if (currentTime + crashDuration < duration) {
                     //For the moment, downtime of a node is arbitrarily set to crashDuration
-                    faultQueue.add(new FaultEvent(id++, currentTime + (crashDuration), tempHost, true));
+                    glFaultEvents.addRecovery(tempHost, new FaultEvent(id++, currentTime + (crashDuration), tempHost, true));
                     //        System.err.println(eventQueue.size());
                 }
                 currentTime += GLFaultPeriod;
@@ -175,21 +443,22 @@ public class Injector extends Process {
             // Please remind that node0 hosts VMs, so the first service node is Simulator.Manager.getSGHostingHosts().
             tempHost = xhosts[SimulatorManager.getSGHostingHosts().size()+index];
 
-            if(!ifStillOffUpdate(tempHost, faultQueue, currentTime)) {
+            if(!gmFaultEvents.removePendingRecovery(tempHost, currentTime)) {
                 // and change its state
                 // false = off , on = true
                 // Add a new event queue
-                faultQueue.add(new FaultEvent(id++, currentTime, tempHost, false));
+                gmFaultEvents.add(new FaultEvent(id++, currentTime, tempHost, false));
             }
             if (currentTime + crashDuration < duration) {
                 //For the moment, downtime of a node is arbitrarily set to crashDuration
-                faultQueue.add(new FaultEvent(id++, currentTime + (crashDuration), tempHost, true));
+                gmFaultEvents.addRecovery(tempHost, new FaultEvent(id++, currentTime + (crashDuration), tempHost, true));
                 //        System.err.println(eventQueue.size());
             }
             currentTime += GMFaultPeriod;
         }while(currentTime < duration);
 
-
+        LinkedList<FaultEvent> faultQueue = glFaultEvents.toList();
+        faultQueue.addAll(gmFaultEvents.toList());
         Msg.info("Number of events:"+faultQueue.size());
         for (InjectorEvent evt: faultQueue){
             Msg.info(evt.toString());
@@ -213,7 +482,7 @@ public class Injector extends Process {
     }
 
     public static Deque<FaultEvent> generateFaultQueue(XHost[] xhosts,  long duration, int faultPeriod){
-        LinkedList<FaultEvent> faultQueue = new LinkedList<FaultEvent>();
+        PendingEventIndex<XHost, FaultEvent> faultEvents = new PendingEventIndex<>();
         Random randExpDis=new Random(SimulatorProperties.getSeed());
         double currentTime = 0 ;
         double lambdaPerHost=1.0/faultPeriod ; // Nb crash per host (average)
@@ -233,21 +502,23 @@ public class Injector extends Process {
             int index = randHostPicker.nextInt(nbOfHosts);
             tempHost = xhosts[index];
 
-            if(!ifStillOffUpdate(tempHost, faultQueue, currentTime)) {
+            // if the node is still off, its pending on event is removed and postponed at currentTime + crashDuration
+            if(!faultEvents.removePendingRecovery(tempHost, currentTime)) {
 
                 // and change its state
                 // false = off , on = true
                 // Add a new event queue
-                faultQueue.add(new FaultEvent(id++, currentTime, tempHost, false));
+                faultEvents.add(new FaultEvent(id++, currentTime, tempHost, false));
             }
             if (currentTime + crashDuration < duration) {
                 //For the moment, downtime of a node is arbitrarily set to crashDuration
-                faultQueue.add(new FaultEvent(id++, currentTime + (crashDuration), tempHost, true));
+                faultEvents.addRecovery(tempHost, new FaultEvent(id++, currentTime + (crashDuration), tempHost, true));
                 //        System.err.println(eventQueue.size());
             }
             currentTime += exponentialDis(randExpDis, lambda);
         }
 
+        LinkedList<FaultEvent> faultQueue = faultEvents.toList();
         Msg.info("Number of events:"+faultQueue.size());
         for (InjectorEvent evt: faultQueue){
             Msg.info(evt.toString());
@@ -271,7 +542,7 @@ public class Injector extends Process {
 
 
     public static Deque<VMSuspendResumeEvent> generateVMFluctuationQueue(XVM[] xvms,  long duration, int faultPeriod){
-        LinkedList<VMSuspendResumeEvent> vmQueue = new LinkedList<VMSuspendResumeEvent>();
+        PendingEventIndex<XVM, VMSuspendResumeEvent> vmEvents = new PendingEventIndex<>();
         Random randExpDis=new Random(SimulatorProperties.getSeed());
         double currentTime = 0 ;
         double lambdaPerHost=1.0/faultPeriod ; // Nb crash per host (average)
@@ -291,17 +562,19 @@ public class Injector extends Process {
             int index = randHostPicker.nextInt(nbOfVMs);
             tempVM = xvms[index];
 
-            if(!ifStillSuspendedUpdate(tempVM, vmQueue, currentTime)) {
+            // if the VM is still suspended, its pending resume event is removed and postponed at currentTime + crashDuration
+            if(!vmEvents.removePendingRecovery(tempVM, currentTime)) {
                 // and change its state
                 // false = suspend, true = resume
                 // Add a new event queue
-                vmQueue.add(new VMSuspendResumeEvent(id++, currentTime, tempVM, false));
+                vmEvents.add(new VMSuspendResumeEvent(id++, currentTime, tempVM, false));
             }
 
-            vmQueue.add(new VMSuspendResumeEvent(id++, currentTime + (crashDuration), tempVM, true));
+            vmEvents.addRecovery(tempVM, new VMSuspendResumeEvent(id++, currentTime + (crashDuration), tempVM, true));
             currentTime += exponentialDis(randExpDis, lambda);
         }
 
+        LinkedList<VMSuspendResumeEvent> vmQueue = vmEvents.toList();
         /*
         Msg.info("Number of VM suspend-resume events:" + vmQueue.size());
         for (InjectorEvent evt: vmQueue){
@@ -310,89 +583,26 @@ public class Injector extends Process {
         */
 
         // Sort the list for the merge:
-        Collections.sort(vmQueue, new Comparator<VMSuspendResumeEvent>() {
-            @Override
-            public int compare(VMSuspendResumeEvent o1, VMSuspendResumeEvent o2) {
-                return (int) Math.round(o1.getTime() - o2.getTime());
-            }
-        });
+        Collections.sort(vmQueue, EventHeap.ORDER);
 
         return vmQueue;
     }
 
 
-    public static boolean isStillOff(XHost tmp, LinkedList<FaultEvent> queue, double currentTime, double crashDuration){
-        ListIterator<FaultEvent> iterator = queue.listIterator(queue.size());
-        while(iterator.hasPrevious()){
-            FaultEvent evt = iterator.previous();
-            if(evt.getState() == false){
-                if (evt.getTime() + crashDuration  >= currentTime) {
-                    if (evt.getHost()== tmp)
-                        return true;
-                }
-                else
-                    break;
-            }
-        }
-        return false;
-    }
-
-    // if the node is off, we should remove the next On event and postpone it at currenttime +crashDuration
-    // Note that the update is performed in the upper function.
-    private static boolean ifStillOffUpdate(XHost tmp, LinkedList<FaultEvent> queue, double currentTime){
-        ListIterator<FaultEvent> iterator = queue.listIterator(queue.size());
-        while(iterator.hasPrevious()){
-            FaultEvent evt = iterator.previous();
-            if(evt.getState() == true){
-                if (evt.getTime()  >= currentTime) {
-                    if (evt.getHost()== tmp) {
-                        iterator.remove();
-                        return true;
-                    }
-                }
-                else
-                    break;
-            }
-        }
-        return false;
-    }
-
-    // If the VM is suspended, we should remove the next resume event and postpone it at currenttime +crashDuration
-    // Note that the update is performed in the upper function.
-    private static boolean ifStillSuspendedUpdate(XVM tmp, LinkedList<VMSuspendResumeEvent> queue, double currentTime){
-        ListIterator<VMSuspendResumeEvent> iterator = queue.listIterator(queue.size());
-
-        while(iterator.hasPrevious()) {
-            VMSuspendResumeEvent evt = iterator.previous();
-
-            if(evt.getState() == true){
-                if (evt.getTime()  >= currentTime) {
-                    if (evt.getVM() == tmp) {
-                        iterator.remove();
-                        return true;
-                    }
-                }
-                else
-                    break;
-            }
-        }
-        return false;
-    }
-
     public static Deque<InjectorEvent> mergeQueues(Deque<LoadEvent> loadQueue,
                                                    Deque<FaultEvent> faultQueue,
-                                                   Deque<VMSuspendResumeEvent> vmEvents) {
+                                                   Deque<VMSuspendResumeEvent> vmEvents,
+                                                   Deque<NetworkLoadEvent> networkEvents,
+                                                   Deque<InjectorEvent> vmChurnEvents) {
         LinkedList<InjectorEvent> queue = new LinkedList<InjectorEvent>();
         queue.addAll(loadQueue);
         queue.addAll(faultQueue);
         queue.addAll(vmEvents);
+        queue.addAll(networkEvents);
+        queue.addAll(vmChurnEvents);
 
-        queue.sort(new Comparator<InjectorEvent>() {
-            @Override
-            public int compare(InjectorEvent o1, InjectorEvent o2) {
-                return (int) Math.round(o1.getTime() - o2.getTime());
-            }
-        });
+        // Same order as the event heap, the sort is stable: events with the same time and id keep the order of the queues
+        queue.sort(EventHeap.ORDER);
 
         writeEventQueue(queue);
 
@@ -408,7 +618,6 @@ public class Injector extends Process {
             for (InjectorEvent evt: queue){
                 bw.write(evt.toString());
                 bw.write("\n");
-                bw.flush();
             }
 
             bw.close();
@@ -436,33 +645,83 @@ public class Injector extends Process {
         Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "NB_VM", SimulatorManager.getSGVMsOn().size());
         Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "NB_VM_TRUE", SimulatorManager.getSGVMsOn().size());
 
-        InjectorEvent evt = nextEvent();
-        /*
-        if(SimulatorProperties.goToStationaryStatus()){
-            do {
-                if ((evt instanceof LoadEvent) &&
-                        (!SimulatorManager.willItBeViableWith(((LoadEvent)evt).getVm(),((LoadEvent) evt).getCPULoad()))) {
-                    break;
-                } else {
-                    evt.play();
-                    evt=nextEvent();
-                }
-            } while (true);
-        }
-        */
 
-        // TODO uggly patch to reach a kind of stationary state
-        for(XVM vm: SimulatorManager.getSGVMsOn())
-            SimulatorManager.updateVM(vm, SimulatorProperties.getMeanLoad());
+        Checkpoint checkpoint = context.getRestoredCheckpoint();
+        if(checkpoint != null) {
+            // Resume from the state of the checkpoint (including the loads of the VMs)
+            restore(checkpoint);
+        } else if(SimulatorProperties.getFileEvents() == null) {
+            // Start directly from the stationary state of the load model (the loads of a trace start at t=0)
+            XVM[] vmsOn = SimulatorManager.getSGVMsOn().toArray(new XVM[SimulatorManager.getSGVMsOn().size()]);
+            SimulatorManager.updateVMs(vmsOn, generateStationaryLoads(vmsOn), vmsOn.length);
+        }
 
-        while(evt!=null && evt.getTime() < SimulatorProperties.getDuration()){
-            if(evt.getTime() - Msg.getClock()>0)
-                waitFor(evt.getTime() - Msg.getClock());
+        SimulatorManager.startEnergySampler(getHost());
+
+        double checkpointTime = SimulatorProperties.getCheckpointTime();
+        if(checkpointTime >= SimulatorProperties.getDuration() || checkpointTime <= SimulatorManager.getClock())
+            checkpointTime = -1;
+
+        double quantum = SimulatorProperties.getInjectorQuantum();
+        XVM[] batchVMs = new XVM[16];
+        double[] batchLoads = new double[16];
+
+        while(true){
+            InjectorEvent evt = peekEvent();
+            if(checkpointTime >= 0 && (evt == null || evt.getTime() > checkpointTime)) {
+                // All events up to the checkpoint have been played
+                if(!waitUntil(checkpointTime))
+                    continue;
+                if(writeCheckpoint(checkpointTime))
+                    checkpointTime = -1;
+                else if((checkpointTime += CHECKPOINT_RETRY_DELAY) >= SimulatorProperties.getDuration()) {
+                    Msg.info("No checkpoint has been written before the end of the simulation");
+                    checkpointTime = -1;
+                }
+                continue;
+            }
+            if(evt == null || evt.getTime() >= SimulatorProperties.getDuration()) {
+                // Events may still be submitted until the end of the injection
+                if(waitUntil(SimulatorProperties.getDuration()))
+                    break;
+                continue;
+            }
+            if(quantum > 0 && evt instanceof LoadEvent) {
+                // Gather the consecutive load events of the current quantum and apply them at once
+                double end = Math.min((Math.floor(evt.getTime() / quantum) + 1) * quantum, SimulatorProperties.getDuration());
+                if(checkpointTime >= 0)
+                    end = Math.min(end, Math.nextUp(checkpointTime));
+                double batchTime = evt.getTime();
+                int size = 0;
+                while(evt instanceof LoadEvent && evt.getTime() < end){
+                    if(size == batchVMs.length) {
+                        batchVMs = Arrays.copyOf(batchVMs, size * 2);
+                        batchLoads = Arrays.copyOf(batchLoads, size * 2);
+                    }
+                    nextEvent();
+                    batchVMs[size] = ((LoadEvent) evt).getVm();
+                    batchLoads[size] = ((LoadEvent) evt).getCPULoad();
+                    size++;
+                    batchTime = evt.getTime();
+                    evt=peekEvent();
+                }
+                // Events submitted in the meantime are played after the batch
+                while(!waitUntil(batchTime));
+                NativeCalls.beginEvent(LoadEvent.class.getSimpleName(), size);
+                SimulatorManager.updateVMs(batchVMs, batchLoads, size);
+                NativeCalls.endEvent();
+                continue;
+            }
+            // If an event has been submitted in the meantime, the next event may have changed
+            if(!waitUntil(evt.getTime()))
+                continue;
+            evt = nextEvent();
+            NativeCalls.beginEvent(evt.getClass().getSimpleName(), 1);
             evt.play();
-            evt=nextEvent();
+            NativeCalls.endEvent();
         }
-        waitFor(SimulatorProperties.getDuration() - Msg.getClock());
         Msg.info("End of Injection");
+        closeJournal();
         SimulatorManager.setEndOfInjection();
         if(SimulatorProperties.getEnergyLogFile() != null) {
             Msg.info("Writing energy.dat");
@@ -476,11 +735,139 @@ public class Injector extends Process {
         waitFor(EntropyProperties.getEntropyPlanTimeout());
         Msg.info("Done");
 
-        Msg.info("iSuspend: " + SimulatorManager.iSuspend);
-        Msg.info("iResume: " + SimulatorManager.iResume);
+        NativeCalls.report();
+        Msg.info("iSuspend: " + SimulatorManager.getNbOfSuspensions());
+        Msg.info("iResume: " + SimulatorManager.getNbOfResumes());
     }
 
-    private InjectorEvent nextEvent() {
+    /**
+     * Wait until the given time, unless an event is submitted in the meantime
+     * @return true if the time has been reached, false if the injector has been woken up before
+     */
+    private boolean waitUntil(double time) throws MsgException {
+        if(time - SimulatorManager.getClock() <= 0)
+            return true;
+        wakeUpTime = time;
+        try {
+            Task.receive(WAKE_UP_MBOX, time - SimulatorManager.getClock());
+        } catch (TimeoutException e) {
+            // Nothing to do, the time has been reached
+        } finally {
+            wakeUpTime = -1;
+        }
+        return SimulatorManager.getClock() >= time;
+    }
+
+    /**
+     * Write the state of the simulation in simulator.checkpoint.file (see Checkpoint)
+     * @return false if the state cannot be captured right now (e.g. a VM is migrating), the checkpoint should be
+     * postponed
+     */
+    private boolean writeCheckpoint(double time) {
+        File file = new File(SimulatorProperties.getCheckpointFile());
+        try {
+            Checkpoint.capture(time, nbOfPlayedEvents, submittedEvents.toArray()).write(file);
+            Msg.info(String.format("Checkpoint of time %.2f written in %s", time, file));
+        } catch (IllegalStateException e) {
+            Msg.info(String.format("Checkpoint of time %.2f postponed: %s", time, e.getMessage()));
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    /**
+     * Restore the state of the simulation from a checkpoint: the state of the SimulatorManager is restored, the planned
+     * events that had been played are skipped and the events that had been submitted are submitted again.
+     */
+    private void restore(Checkpoint checkpoint) {
+        checkpoint.apply();
+        for(long i = 0; i < checkpoint.getCursor(); i++) {
+            InjectorEvent evt = readPlannedEvent();
+            if(evt == null || evt.getTime() > checkpoint.getTime()) {
+                System.err.println("The checkpoint does not match the events of the simulation (please check the seed and the parameters of the workload)");
+                System.exit(1);
+            }
+            // They have been played before the checkpoint
+            appendToJournal(evt);
+        }
+        nbOfPlayedEvents = checkpoint.getCursor();
+        // The load changes of the VMs that have arrived are generated again (they only depend on the seed and the VM)
+        for(XVM vm: SimulatorManager.getSGVMs()) {
+            int vmNumber = SimulatorManager.getVMNumber(vm);
+            if(vmNumber >= SimulatorProperties.getNbOfVMs())
+                ChainedLoadEvent.start(vm, vmNumber, SimulatorManager.getVMArrival(vm), checkpoint.getTime());
+        }
+        for(InjectorEvent evt: checkpoint.getPendingEvents())
+            submit(evt);
+    }
+
+    /**
+     * Schedule an event during the simulation (e.g. cascading faults, load spikes after a migration, delayed resume).
+     * Events with the same time are played by increasing id. An event whose time is already over is played as soon
+     * as possible. Please note that submitted events are not written in the event journal.
+     * @param evt the event
+     */
+    public static void submit(InjectorEvent evt) {
+        SimulationContext context = SimulationContext.current();
+        context.getSubmittedEvents().add(evt);
+        // Wake up the injector if it is waiting for a later event
+        Injector injector = context.getInjector();
+        if(injector != null && injector.wakeUpTime >= 0 && evt.getTime() < injector.wakeUpTime) {
+            injector.wakeUpTime = -1;
+            new Task("wakeup", 0, 0).dsend(WAKE_UP_MBOX);
+        }
+    }
+
+    /**
+     * @return the next planned event (from evtStream or evtQueue)
+     */
+    private InjectorEvent readPlannedEvent() {
+        if (this.evtStream != null)
+            return this.evtStream.hasNext() ? this.evtStream.next() : null;
         return this.evtQueue.pollFirst();
     }
+
+    /**
+     * @return the next event (planned or submitted) without removing it, null if there is no more event
+     */
+    private InjectorEvent peekEvent() {
+        if (this.nextPlannedEvent == null)
+            this.nextPlannedEvent = readPlannedEvent();
+        InjectorEvent submitted = submittedEvents.peek();
+        // At the same time, planned events come first
+        if (submitted != null && (this.nextPlannedEvent == null || submitted.getTime() < this.nextPlannedEvent.getTime()))
+            return submitted;
+        return this.nextPlannedEvent;
+    }
+
+    /**
+     * Remove and return the next event (planned or submitted), null if there is no more event
+     */
+    private InjectorEvent nextEvent() {
+        InjectorEvent evt = peekEvent();
+        if (evt != null && evt == this.nextPlannedEvent) {
+            this.nextPlannedEvent = null;
+            this.nbOfPlayedEvents++;
+            appendToJournal(evt);
+        }
+        else if (evt != null)
+            submittedEvents.poll();
+        return evt;
+    }
+
+    /**
+     * Write a planned event in the journal of the streaming mode, if any, when it is played
+     */
+    private void appendToJournal(InjectorEvent evt) {
+        if (this.journalWriter == null)
+            return;
+        try {
+            this.journalWriter.append(evt);
+        } catch (IOException e) {
+            System.err.println("Cannot write the event journal: " + e.getMessage());
+            System.exit(1);
+        }
+    }
 }
\ No newline at end of file
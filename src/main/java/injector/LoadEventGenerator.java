@@ -0,0 +1,86 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Lazy counterpart of Injector.generateLoadQueue().
+ * The load events are computed one by one when they are requested (i.e. nothing is kept in memory but the next event).
+ * Please note that the random generators are seeded and consumed exactly as in Injector.generateLoadQueue(), hence
+ * both approaches lead to the same sequence of events.
+ *
+ * @see injector.Injector#generateLoadQueue(configuration.XVM[], long, int)
+ */
+public class LoadEventGenerator implements Iterator<LoadEvent> {
+
+    private final XVM[] vms;
+    private final long duration;
+
+    private final Random randExpDis;
+    private final Random randGaussian;
+    private final Random randVMPicker;
+
+    /**
+     * Rate of load events for the whole set of VMs
+     */
+    private final double lambda;
+    private final double mean;
+    private final double sigma;
+    private final int nbOfCPUDemandSlots;
+    private final int cpuConsumptionSlot;
+
+    /**
+     * Date of the next event to generate
+     */
+    private double currentTime;
+    private long id;
+
+    /**
+     * @param vms, Simgrid VMs that have been instanciated
+     * @param duration int, duration of the simulated time in second
+     * @param injectionPeriod int,  frequency of event occurrence in seconds
+     */
+    public LoadEventGenerator(XVM[] vms, long duration, int injectionPeriod) {
+        this.vms = vms;
+        this.duration = duration;
+        this.randExpDis = new Random(SimulatorProperties.getSeed());
+        this.randGaussian = new Random(SimulatorProperties.getSeed());
+        this.randVMPicker = new Random(SimulatorProperties.getSeed());
+
+        double lambdaPerVM = 1.0 / injectionPeriod; // Nb Evt per VM (average)
+        this.lambda = lambdaPerVM * vms.length;
+        this.mean = SimulatorProperties.getMeanLoad();
+        this.sigma = SimulatorProperties.getStandardDeviationLoad();
+        this.nbOfCPUDemandSlots = SimulatorProperties.getNbOfCPUConsumptionSlots();
+        this.cpuConsumptionSlot = SimulatorProperties.getVMMAXCPUConsumption() / nbOfCPUDemandSlots;
+
+        this.id = 0;
+        this.currentTime = Injector.exponentialDis(randExpDis, lambda);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return currentTime < duration;
+    }
+
+    @Override
+    public LoadEvent next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        // select a VM
+        XVM tempVM = vms[randVMPicker.nextInt(vms.length)];
+
+        /* Gaussian law for the getCPUDemand assignment */
+        double gLoad = (randGaussian.nextGaussian() * sigma) + mean;
+        int vmCPUDemand = AbstractLoadModel.quantize(gLoad, tempVM, nbOfCPUDemandSlots, cpuConsumptionSlot);
+
+        LoadEvent evt = new LoadEvent(id++, currentTime, tempVM, vmCPUDemand);
+        currentTime += Injector.exponentialDis(randExpDis, lambda);
+        return evt;
+    }
+}
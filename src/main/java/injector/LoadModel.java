@@ -0,0 +1,37 @@
+package injector;
+
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+/**
+ * A load model describes how the CPU load of one VM evolves (see loadinjector.model).
+ * The process of each VM is generated at once, from its own random stream (see ParallelLoadGenerator). The processes
+ * of several VMs are generated concurrently, hence implementations must not modify their state in generate(), and
+ * they should use StrictMath rather than Math so that the processes do not depend on the JVM.
+ * Implementations are instantiated by their default constructor.
+ */
+public interface LoadModel {
+
+    /**
+     * Generate the load process of a VM from the given time, the VM being in the state it would have after a long run
+     * (the same as for sampleStationary())
+     * @param vm the VM
+     * @param rand the random stream of the VM (it should be the only source of randomness)
+     * @param start the time the process starts at in second, i.e. 0 for the initial VMs and the arrival time for the
+     * VMs that arrive during the simulation (no change should occur before)
+     * @param duration duration of the simulated time in second (no change should occur after)
+     * @param process the load changes of the VM, to be appended in time order
+     */
+    void generate(XVM vm, SplittableRandom rand, double start, long duration, LoadProcess process);
+
+    /**
+     * Draw the initial load of a VM from the distribution generate() converges to, i.e. the load the VM would have at
+     * the beginning of the simulation if its process had been running for a long time (no warm-up period)
+     * @param vm the VM
+     * @param rand a copy of the random stream given to generate() for the VM, so that the initial state of the model
+     * (e.g. the state of a Markov chain) can be drawn consistently with the process of the VM
+     * @return the initial load of the VM
+     */
+    int sampleStationary(XVM vm, SplittableRandom rand);
+}
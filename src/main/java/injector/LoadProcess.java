@@ -0,0 +1,57 @@
+package injector;
+
+import java.util.Arrays;
+
+/**
+ * The load process of one VM: the time-ordered list of its load changes, stored in primitive arrays.
+ * It is filled by a LoadModel.
+ */
+public class LoadProcess {
+
+    private double[] times;
+    private int[] loads;
+    private int size;
+
+    LoadProcess(int capacity) {
+        this.times = new double[Math.max(16, capacity)];
+        this.loads = new int[times.length];
+        this.size = 0;
+    }
+
+    /**
+     * Append a load change (load changes should be appended in time order)
+     * @param time the time of the change
+     * @param load the new CPU load of the VM
+     */
+    public void add(double time, int load) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, Math.max(16, size + (size >> 1)));
+            loads = Arrays.copyOf(loads, times.length);
+        }
+        times[size] = time;
+        loads[size] = load;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getTime(int i) {
+        return times[i];
+    }
+
+    public int getLoad(int i) {
+        return loads[i];
+    }
+
+    /**
+     * Release the unused capacity of the arrays (e.g. once the whole process has been generated)
+     */
+    void trimToSize() {
+        if (size < times.length) {
+            times = Arrays.copyOf(times, size);
+            loads = Arrays.copyOf(loads, size);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Two-state Markov-modulated load model: each VM alternates between a low state (mean load.mean) and a high state
+ * (mean loadinjector.markov.highmean). The time spent in each state is exponentially distributed (see
+ * loadinjector.markov.*). Load events occur as in the gaussian model, plus one event at each change of state.
+ */
+public class MarkovLoadModel extends AbstractLoadModel {
+
+    private final double highMean;
+    private final double lowDuration;
+    private final double highDuration;
+
+    public MarkovLoadModel() {
+        super();
+        this.highMean = SimulatorProperties.getMarkovHighMean();
+        this.lowDuration = SimulatorProperties.getMarkovLowDuration();
+        this.highDuration = SimulatorProperties.getMarkovHighDuration();
+    }
+
+    @Override
+    public void generate(XVM vm, SplittableRandom rand, double start, long duration, LoadProcess process) {
+        boolean high = initialState(rand);
+        double nextSwitch = start + exponential(rand, 1 / (high ? highDuration : lowDuration));
+        double currentTime = start + exponential(rand, lambda);
+
+        while (Math.min(currentTime, nextSwitch) < duration) {
+            if (nextSwitch <= currentTime) {
+                high = !high;
+                process.add(nextSwitch, drawLoad(rand, high ? highMean : mean, vm));
+                nextSwitch += exponential(rand, 1 / (high ? highDuration : lowDuration));
+            } else {
+                process.add(currentTime, drawLoad(rand, high ? highMean : mean, vm));
+                currentTime += exponential(rand, lambda);
+            }
+        }
+    }
+
+    /**
+     * A draw around the mean of the initial state of the chain, which is the state generate() starts from
+     */
+    @Override
+    public int sampleStationary(XVM vm, SplittableRandom rand) {
+        boolean high = initialState(rand);
+        return drawLoad(rand.split(), high ? highMean : mean, vm);
+    }
+
+    /**
+     * @return whether the chain starts in the high state (drawn from the stationary distribution of the chain)
+     */
+    private boolean initialState(SplittableRandom rand) {
+        return rand.nextDouble() < highDuration / (lowDuration + highDuration);
+    }
+}
@@ -0,0 +1,70 @@
+package injector;
+
+import configuration.XHost;
+import configuration.XVM;
+import simulation.SimulatorManager;
+
+/**
+ * Change of the network consumption of a VM or of the background network consumption of a host (i.e. the traffic
+ * that is not generated by its VMs). The consumption is expressed as a percentage of the bandwidth of the target.
+ * The network consumption of a host reduces the bandwidth available for the migrations from/to this host.
+ */
+public class NetworkLoadEvent implements InjectorEvent {
+
+    private long id;
+    private double time;
+    private XVM vm;
+    private XHost host;
+    private int netLoad;
+
+    public NetworkLoadEvent(long id, double time, XVM vm, int netLoad) {
+        this.id = id;
+        this.time = time;
+        this.vm = vm;
+        this.netLoad = netLoad;
+    }
+
+    public NetworkLoadEvent(long id, double time, XHost host, int netLoad) {
+        this.id = id;
+        this.time = time;
+        this.host = host;
+        this.netLoad = netLoad;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public double getTime() {
+        return this.time;
+    }
+
+    /**
+     * @return the VM whose consumption changes (null if the event targets a host)
+     */
+    public XVM getVM() {
+        return this.vm;
+    }
+
+    /**
+     * @return the host whose background consumption changes (null if the event targets a VM)
+     */
+    public XHost getHost() {
+        return this.host;
+    }
+
+    public int getNetLoad() {
+        return this.netLoad;
+    }
+
+    public void play() {
+        if (this.vm != null)
+            SimulatorManager.updateVMNetLoad(this.vm, this.netLoad);
+        else
+            SimulatorManager.updateHostNetLoad(this.host, this.netLoad);
+    }
+
+    public String toString() {
+        return this.getTime() + "/" + (this.vm != null ? this.vm.getName() : this.host.getName()) + "/net/" + this.netLoad;
+    }
+}
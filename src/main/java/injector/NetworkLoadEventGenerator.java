@@ -0,0 +1,73 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import configuration.XVM;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Lazy generator of network load events (see loadinjector.network.*).
+ * The targets (the VMs and the hosting hosts) change their network consumption according to a Poisson process of rate
+ * 1/period per target. The new consumption is drawn from a gaussian law (expressed as a percentage of the bandwidth of
+ * the target, truncated to [0, 100]).
+ */
+public class NetworkLoadEventGenerator implements Iterator<NetworkLoadEvent> {
+
+    private final XVM[] vms;
+    private final XHost[] xhosts;
+    private final long duration;
+    private final Random rand;
+
+    private final double lambda;
+    private final double mean;
+    private final double sigma;
+
+    private double currentTime;
+    private long id;
+
+    /**
+     * @param vms the VMs
+     * @param xhosts the hosts that can host VMs
+     * @param duration duration of the simulated time in second
+     * @param period average time between two changes of the same target in seconds
+     */
+    public NetworkLoadEventGenerator(XVM[] vms, XHost[] xhosts, long duration, int period) {
+        this.vms = vms;
+        this.xhosts = xhosts;
+        this.duration = duration;
+        // Shifted seed, so that the draws differ from the ones of the load generators
+        this.rand = new Random(SimulatorProperties.getSeed() + 1);
+
+        this.lambda = (vms.length + xhosts.length) / (double) period;
+        this.mean = SimulatorProperties.getNetworkMeanLoad();
+        this.sigma = SimulatorProperties.getNetworkStandardDeviationLoad();
+
+        this.id = 0;
+        this.currentTime = Injector.exponentialDis(rand, lambda);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return currentTime < duration;
+    }
+
+    @Override
+    public NetworkLoadEvent next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        int target = rand.nextInt(vms.length + xhosts.length);
+        int netLoad = (int) Math.round(Math.min(100, Math.max((rand.nextGaussian() * sigma) + mean, 0)));
+        NetworkLoadEvent evt;
+        if (target < vms.length)
+            evt = new NetworkLoadEvent(id++, currentTime, vms[target], netLoad);
+        else
+            evt = new NetworkLoadEvent(id++, currentTime, xhosts[target - vms.length], netLoad);
+
+        currentTime += Injector.exponentialDis(rand, lambda);
+        return evt;
+    }
+}
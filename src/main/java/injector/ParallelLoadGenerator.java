@@ -0,0 +1,274 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+import org.simgrid.msg.Msg;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Alternative to Injector.generateLoadQueue() where each VM has its own load process, described by a LoadModel
+ * (see loadinjector.model).
+ * Each VM draws its events from an independent random stream whose seed only depends on loadinjector.seed and on the
+ * index of the VM. The processes of the VMs are generated in parallel on a fork-join pool and then merged by time
+ * (ties are broken by VM index). Hence the result is bit-identical whatever the number of threads.
+ *
+ * Please note that the events of the VMs are not correlated anymore, so the gaussian model differs from
+ * Injector.generateLoadQueue() (same rates and same distribution of loads, but different draws).
+ */
+public class ParallelLoadGenerator {
+
+    /**
+     * Number of VMs below which a task is not split anymore
+     */
+    private static final int THRESHOLD = 256;
+
+    /**
+     * @param name gaussian, diurnal, markov, bursty or the fully qualified name of a LoadModel implementation
+     * @return the load model
+     */
+    public static LoadModel buildModel(String name) {
+        switch (name) {
+            case "gaussian":
+                return new GaussianLoadModel();
+            case "diurnal":
+                return new DiurnalLoadModel();
+            case "markov":
+                return new MarkovLoadModel();
+            case "bursty":
+                return new BurstyLoadModel();
+            default:
+                try {
+                    return (LoadModel) Class.forName(name).newInstance();
+                } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+                    Msg.critical("Load model not found. Check the value loadinjector.model in the simulator properties file.");
+                    System.err.println(e);
+                    System.exit(-1);
+                    return null;
+                }
+        }
+    }
+
+    /**
+     * @param vms, Simgrid VMs that have been instanciated
+     * @param duration int, duration of the simulated time in second
+     * @param model the load model of the VMs
+     * @param nbOfThreads the parallelism of the fork-join pool
+     * @return the time-ordered load events
+     */
+    public static Iterator<LoadEvent> generate(XVM[] vms, long duration, LoadModel model, int nbOfThreads) {
+        return generate(vms, duration, model, nbOfThreads, null);
+    }
+
+    /**
+     * @param vms, Simgrid VMs that have been instanciated
+     * @param duration int, duration of the simulated time in second
+     * @param model the load model of the VMs
+     * @param nbOfThreads the parallelism of the fork-join pool
+     * @param resolution the filter applied to the process of each VM, calibrated on these VMs (null means no filter)
+     * @return the time-ordered load events
+     */
+    public static Iterator<LoadEvent> generate(XVM[] vms, long duration, LoadModel model, int nbOfThreads, AdaptiveResolution resolution) {
+        long[] seeds = seeds(vms.length);
+
+        LoadProcess[] processes = new LoadProcess[vms.length];
+
+        ForkJoinPool pool = new ForkJoinPool(nbOfThreads);
+        try {
+            if (resolution == null)
+                pool.invoke(new VMRange(vms, seeds, duration, model, null, processes, null, 0, vms.length));
+            else {
+                // The stable VMs are the least volatile ones, hence all the volatilities are needed to classify them
+                double[] volatilities = new double[vms.length];
+                pool.invoke(new VMRange(vms, seeds, duration, model, resolution, processes, volatilities, 0, vms.length));
+                resolution.calibrate(volatilities);
+                pool.invoke(new VMRange(vms, null, duration, null, resolution, processes, volatilities, 0, vms.length));
+                Msg.info("Adaptive resolution: " + resolution);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        return new Merger(vms, processes);
+    }
+
+    /**
+     * @param vms the VMs (their process is the one of their index, see XVM.getId())
+     * @param model the load model of the VMs
+     * @return the initial load of each VM, drawn from the stationary distribution of the model (see
+     * LoadModel.sampleStationary())
+     */
+    public static double[] generateStationaryLoads(XVM[] vms, LoadModel model) {
+        int nbOfVMs = 0;
+        for (XVM vm : vms)
+            nbOfVMs = Math.max(nbOfVMs, vm.getId() + 1);
+        long[] seeds = seeds(nbOfVMs);
+
+        double[] loads = new double[vms.length];
+        for (int i = 0; i < vms.length; i++)
+            loads[i] = model.sampleStationary(vms[i], new SplittableRandom(seeds[vms[i].getId()]));
+        return loads;
+    }
+
+    /**
+     * The seed of each VM is drawn sequentially, so that it only depends on the global seed and on the VM index
+     */
+    private static long[] seeds(int nbOfVMs) {
+        SplittableRandom root = new SplittableRandom(SimulatorProperties.getSeed());
+        long[] seeds = new long[nbOfVMs];
+        for (int i = 0; i < nbOfVMs; i++)
+            seeds[i] = root.nextLong();
+        return seeds;
+    }
+
+    /**
+     * @return the seed of the VM of the given index, i.e. seeds(index + 1)[index] (the VMs that arrive during the
+     * simulation use their number as index, see ChainedLoadEvent)
+     */
+    static long seed(int index) {
+        SplittableRandom root = new SplittableRandom(SimulatorProperties.getSeed());
+        for (int i = 0; i < index; i++)
+            root.nextLong();
+        return root.nextLong();
+    }
+
+    /**
+     * Generate the load process of the VMs [from, to[. With the adaptive resolution, a first pass generates the
+     * processes and computes their volatility (model != null), and a second pass classifies them (model == null).
+     */
+    private static class VMRange extends RecursiveAction {
+
+        private final XVM[] vms;
+        private final long[] seeds;
+        private final long duration;
+        private final LoadModel model;
+        private final AdaptiveResolution resolution;
+        private final LoadProcess[] processes;
+        private final double[] volatilities;
+        private final int from;
+        private final int to;
+
+        VMRange(XVM[] vms, long[] seeds, long duration, LoadModel model, AdaptiveResolution resolution, LoadProcess[] processes, double[] volatilities, int from, int to) {
+            this.vms = vms;
+            this.seeds = seeds;
+            this.duration = duration;
+            this.model = model;
+            this.resolution = resolution;
+            this.processes = processes;
+            this.volatilities = volatilities;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new VMRange(vms, seeds, duration, model, resolution, processes, volatilities, from, middle),
+                        new VMRange(vms, seeds, duration, model, resolution, processes, volatilities, middle, to));
+                return;
+            }
+
+            if (model == null) {
+                for (int i = from; i < to; i++) {
+                    processes[i] = resolution.classify(vms[i], processes[i], volatilities[i], duration);
+                    processes[i].trimToSize();
+                }
+                return;
+            }
+
+            int expected = (int) Math.min(Integer.MAX_VALUE - 8, 1.2 * duration / SimulatorProperties.getLoadPeriod() + 16);
+            for (int i = from; i < to; i++) {
+                LoadProcess process = new LoadProcess(expected);
+                model.generate(vms[i], new SplittableRandom(seeds[i]), 0, duration, process);
+                if (resolution != null) {
+                    process = resolution.prepare(process);
+                    volatilities[i] = resolution.volatility(vms[i], process, duration);
+                }
+                // The arrays are sized for the expected number of changes, only the actual changes are kept
+                process.trimToSize();
+                processes[i] = process;
+            }
+        }
+    }
+
+    /**
+     * K-way merge of the per-VM processes. Events are materialized on demand, their id is their rank.
+     */
+    private static class Merger implements Iterator<LoadEvent> {
+
+        private final XVM[] vms;
+        private final LoadProcess[] processes;
+        private final int[] cursors;
+        /**
+         * Binary heap of the indexes of the VMs whose process has not been consumed yet, ordered by the time of their
+         * next change, then by index
+         */
+        private final int[] heap;
+        private int size;
+        private long id;
+
+        Merger(XVM[] vms, LoadProcess[] processes) {
+            this.vms = vms;
+            this.processes = processes;
+            this.cursors = new int[vms.length];
+            this.heap = new int[vms.length];
+            this.size = 0;
+            for (int i = 0; i < vms.length; i++) {
+                if (processes[i].size() > 0)
+                    heap[size++] = i;
+            }
+            for (int i = (size >>> 1) - 1; i >= 0; i--)
+                siftDown(i);
+            this.id = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return size > 0;
+        }
+
+        @Override
+        public LoadEvent next() {
+            if (size == 0)
+                throw new NoSuchElementException();
+
+            int vm = heap[0];
+            LoadProcess process = processes[vm];
+            int cursor = cursors[vm]++;
+            LoadEvent evt = new LoadEvent(id++, process.getTime(cursor), vms[vm], process.getLoad(cursor));
+            if (cursors[vm] == process.size()) {
+                // Release the process of the VM as soon as it has been consumed
+                processes[vm] = null;
+                heap[0] = heap[--size];
+            }
+            if (size > 0)
+                siftDown(0);
+            return evt;
+        }
+
+        private void siftDown(int i) {
+            int vm = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && before(heap[child + 1], heap[child]))
+                    child++;
+                if (!before(heap[child], vm))
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = vm;
+        }
+
+        private boolean before(int vm1, int vm2) {
+            int res = Double.compare(processes[vm1].getTime(cursors[vm1]), processes[vm2].getTime(cursors[vm2]));
+            return res < 0 || (res == 0 && vm1 < vm2);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package injector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Event list used while generating the fault and suspend/resume queues.
+ * In addition to the events, it keeps the position of the pending recovery event (i.e. the ''on'' event of a host
+ * or the resume event of a VM) of each target. Postponing a recovery is therefore O(1): the pending event is
+ * replaced by a hole instead of walking the whole list backwards. Holes are removed by toList().
+ *
+ * @param <T> the kind of target (XHost or XVM)
+ * @param <E> the kind of event
+ */
+class PendingEventIndex<T, E extends InjectorEvent> {
+
+    private final ArrayList<E> events;
+
+    /**
+     * Position of the last recovery event of each target
+     */
+    private final Map<T, Integer> pendingRecoveries;
+
+    PendingEventIndex() {
+        this.events = new ArrayList<>();
+        this.pendingRecoveries = new HashMap<>();
+    }
+
+    /**
+     * Append an event that cannot be postponed (i.e. a crash or a suspension)
+     */
+    void add(E evt) {
+        events.add(evt);
+    }
+
+    /**
+     * Append the recovery event of a target
+     */
+    void addRecovery(T target, E evt) {
+        pendingRecoveries.put(target, events.size());
+        events.add(evt);
+    }
+
+    /**
+     * If the target has a recovery event that has not occurred yet at currentTime (i.e. the target is still off or
+     * suspended), the recovery event is removed so that the caller can postpone it.
+     * @return true if a recovery event has been removed
+     */
+    boolean removePendingRecovery(T target, double currentTime) {
+        Integer position = pendingRecoveries.get(target);
+        if (position == null)
+            return false;
+
+        E evt = events.get(position);
+        if (evt == null || evt.getTime() < currentTime)
+            return false;
+
+        events.set(position, null);
+        pendingRecoveries.remove(target);
+        return true;
+    }
+
+    /**
+     * @return the events that have been added and not removed, in insertion order
+     */
+    LinkedList<E> toList() {
+        LinkedList<E> list = new LinkedList<>();
+        for (E evt : events) {
+            if (evt != null)
+                list.add(evt);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,260 @@
+package injector;
+
+import configuration.XHost;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Failure domains of the infrastructure, read from the SimGrid platform file.
+ * Each <cluster> and <cabinet> element is a cluster (i.e. the hosts behind the same aggregation switch), as well as
+ * the <host> elements of each AS. A cluster is then split into racks of rackSize consecutive hosts (the hosts behind
+ * the same top-of-rack switch or PDU), a rackSize of 0 meaning one rack per cluster.
+ *
+ * The index is stored in compressed arrays: the hosts of each rack are contiguous in rackHosts and the racks of each
+ * cluster are contiguous, hence the hosts of a rack or of a cluster are enumerated without scanning the other ones.
+ * Hosts are referenced by their position in the xhosts array given to load(). The hosts of the platform that are not
+ * in xhosts (e.g. the injector node) are ignored.
+ */
+public class RackIndex {
+
+    /**
+     * Host positions, rack after rack
+     */
+    private final int[] rackHosts;
+    /**
+     * The hosts of rack r are rackHosts[rackStart[r]] .. rackHosts[rackStart[r+1]-1]
+     */
+    private final int[] rackStart;
+    /**
+     * The racks of cluster c are clusterStart[c] .. clusterStart[c+1]-1
+     */
+    private final int[] clusterStart;
+    private final String[] clusterNames;
+
+    private RackIndex(int[] rackHosts, int[] rackStart, int[] clusterStart, String[] clusterNames) {
+        this.rackHosts = rackHosts;
+        this.rackStart = rackStart;
+        this.clusterStart = clusterStart;
+        this.clusterNames = clusterNames;
+    }
+
+    /**
+     * @param platform the SimGrid platform file
+     * @param xhosts the hosts that can fail
+     * @param rackSize the number of hosts per rack (0 means one rack per cluster)
+     */
+    public static RackIndex load(File platform, XHost[] xhosts, int rackSize) throws IOException {
+        Map<String, Integer> positions = new HashMap<>(xhosts.length * 2);
+        for (int i = 0; i < xhosts.length; i++)
+            positions.put(xhosts[i].getName(), i);
+
+        Map<String, List<Integer>> clusters = parse(platform, positions);
+
+        int nbOfHosts = 0;
+        int nbOfRacks = 0;
+        for (List<Integer> hosts : clusters.values()) {
+            nbOfHosts += hosts.size();
+            nbOfRacks += rackSize > 0 ? (hosts.size() + rackSize - 1) / rackSize : 1;
+        }
+
+        int[] rackHosts = new int[nbOfHosts];
+        int[] rackStart = new int[nbOfRacks + 1];
+        int[] clusterStart = new int[clusters.size() + 1];
+        String[] clusterNames = clusters.keySet().toArray(new String[clusters.size()]);
+
+        int h = 0;
+        int r = 0;
+        int c = 0;
+        for (List<Integer> hosts : clusters.values()) {
+            clusterStart[c++] = r;
+            for (int i = 0; i < hosts.size(); i++) {
+                if (i == 0 || (rackSize > 0 && i % rackSize == 0))
+                    rackStart[r++] = h;
+                rackHosts[h++] = hosts.get(i);
+            }
+        }
+        rackStart[r] = h;
+        clusterStart[c] = r;
+        return new RackIndex(rackHosts, rackStart, clusterStart, clusterNames);
+    }
+
+    /**
+     * Stream the platform file (the DTD is not loaded) and gather the hosts of each cluster
+     * @return the positions of the hosts of each cluster (clusters without any known host are dropped)
+     */
+    private static Map<String, List<Integer>> parse(File platform, Map<String, Integer> positions) throws IOException {
+        Map<String, List<Integer>> clusters = new LinkedHashMap<>();
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        // The enclosing ASes, for the <host> elements
+        Deque<String> ases = new ArrayDeque<>();
+        try (InputStream in = Files.newInputStream(platform.toPath())) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (name.equals("AS") || name.equals("zone"))
+                            ases.pop();
+                        continue;
+                    }
+                    if (event != XMLStreamConstants.START_ELEMENT)
+                        continue;
+
+                    switch (reader.getLocalName()) {
+                        case "AS":
+                        case "zone":
+                            ases.push(attribute(reader, "id", "AS" + ases.size()));
+                            break;
+                        case "cluster":
+                        case "cabinet":
+                            String id = attribute(reader, "id", reader.getLocalName() + clusters.size());
+                            List<Integer> hosts = cluster(clusters, id);
+                            String prefix = attribute(reader, "prefix", "");
+                            String suffix = attribute(reader, "suffix", "");
+                            for (String range : attribute(reader, "radical", "").split(",")) {
+                                if (range.trim().isEmpty())
+                                    continue;
+                                String[] bounds = range.trim().split("-");
+                                int from = Integer.parseInt(bounds[0].trim());
+                                int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+                                for (int i = from; i <= to; i++)
+                                    add(hosts, positions, prefix + i + suffix);
+                            }
+                            break;
+                        case "host":
+                            add(cluster(clusters, ases.isEmpty() ? "platform" : ases.peek()), positions, attribute(reader, "id", ""));
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("Cannot parse the platform file " + platform + ": " + e.getMessage(), e);
+        }
+
+        Iterator<List<Integer>> it = clusters.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isEmpty())
+                it.remove();
+        }
+        return clusters;
+    }
+
+    private static String attribute(XMLStreamReader reader, String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : defaultValue;
+    }
+
+    private static List<Integer> cluster(Map<String, List<Integer>> clusters, String id) {
+        List<Integer> hosts = clusters.get(id);
+        if (hosts == null) {
+            hosts = new ArrayList<>();
+            clusters.put(id, hosts);
+        }
+        return hosts;
+    }
+
+    private static void add(List<Integer> hosts, Map<String, Integer> positions, String name) {
+        Integer position = positions.get(name);
+        if (position != null)
+            hosts.add(position);
+    }
+
+    public int getNbOfRacks() {
+        return rackStart.length - 1;
+    }
+
+    public int getNbOfClusters() {
+        return clusterStart.length - 1;
+    }
+
+    public String getClusterName(int cluster) {
+        return clusterNames[cluster];
+    }
+
+    /**
+     * @return the cluster of the rack
+     */
+    public int getCluster(int rack) {
+        // clusterStart is strictly increasing since each cluster has at least one rack
+        int c = Arrays.binarySearch(clusterStart, rack);
+        if (c < 0)
+            return -c - 2;
+        return c;
+    }
+
+    /**
+     * @return the name of the rack: the name of its cluster, followed by -rack and the rank of the rack in the cluster
+     * if the cluster has several racks (e.g. my_cluster_1-rack2)
+     */
+    public String getRackName(int rack) {
+        int c = getCluster(rack);
+        if (clusterStart[c + 1] - clusterStart[c] == 1)
+            return clusterNames[c];
+        return clusterNames[c] + "-rack" + (rack - clusterStart[c]);
+    }
+
+    /**
+     * @return the first slot of the rack (see getHost())
+     */
+    public int getRackFrom(int rack) {
+        return rackStart[rack];
+    }
+
+    /**
+     * @return the slot following the last host of the rack (see getHost())
+     */
+    public int getRackTo(int rack) {
+        return rackStart[rack + 1];
+    }
+
+    /**
+     * @return the first slot of the cluster (see getHost())
+     */
+    public int getClusterFrom(int cluster) {
+        return rackStart[clusterStart[cluster]];
+    }
+
+    /**
+     * @return the slot following the last host of the cluster (see getHost())
+     */
+    public int getClusterTo(int cluster) {
+        return rackStart[clusterStart[cluster + 1]];
+    }
+
+    /**
+     * @param slot a position between getRackFrom()/getClusterFrom() and getRackTo()/getClusterTo()
+     * @return the position of the host in xhosts
+     */
+    public int getHost(int slot) {
+        return rackHosts[slot];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hosts in %d racks and %d clusters", rackHosts.length, getNbOfRacks(), getNbOfClusters());
+    }
+}
@@ -0,0 +1,244 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+import org.simgrid.msg.Msg;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Load events read from a CPU utilization trace (see file.events).
+ * Each line of the trace is ''timestamp, vm, cpu%'' (comma, semicolon, tab or blank separated). Timestamps are either
+ * numbers of seconds or ISO-8601 instants (e.g. 2016-03-01T12:00:00Z), they must not decrease. The first timestamp of
+ * the trace corresponds to the beginning of the simulation. cpu% is the utilization of the VM (between 0 and 100), it
+ * is quantized on loadinjector.nbcpuconsumptionslots slots as the generated loads.
+ * Empty lines, lines starting with '#' and a header line are ignored.
+ *
+ * The ids of the trace are mapped onto the VMs according to file.events.mapping:
+ * - order: the i-th distinct id of the trace drives the i-th VM (the records of the ids beyond the number of VMs are
+ * ignored),
+ * - name: the ids are the names of the VMs (e.g. vm-12, the records of the other ids are ignored),
+ * - otherwise the path of a mapping file whose lines are ''id, vm'': the records of the ids that are not listed are
+ * ignored.
+ * A trace yielding no record for the simulated VMs is an error.
+ *
+ * The trace is read line by line (it is never loaded at once) and may be gzipped (.gz suffix).
+ */
+public class TraceLoadEventReader implements Iterator<LoadEvent>, Closeable {
+
+    private final File file;
+    private final BufferedReader reader;
+    private final long duration;
+    private final XVM[] vms;
+
+    /**
+     * The VM of each id of the trace (null if the records of the id are ignored)
+     */
+    private final Map<String, XVM> ids;
+
+    /**
+     * Whether the ids that are not in the map yet are mapped in first-seen order
+     */
+    private final boolean firstSeenOrder;
+    private int nbOfMappedIds;
+
+    private final int nbOfCPUDemandSlots;
+    private final int cpuConsumptionSlot;
+
+    private LoadEvent next;
+    private long id;
+    private long lineNumber;
+    private double origin;
+    private double lastTimestamp;
+    private long ignoredRecords;
+    private boolean closed;
+
+    /**
+     * @param file the trace
+     * @param vms the VMs of the simulation (records are mapped onto them according to file.events.mapping)
+     * @param duration duration of the simulated time in second (the remaining records are ignored)
+     */
+    public TraceLoadEventReader(File file, XVM[] vms, long duration) throws IOException {
+        this(file, vms, duration, SimulatorProperties.getFileEventsMapping());
+    }
+
+    /**
+     * @param file the trace
+     * @param vms the VMs of the simulation
+     * @param duration duration of the simulated time in second (the remaining records are ignored)
+     * @param mapping order, name or the path of a mapping file (see file.events.mapping)
+     * @throws IllegalStateException if the trace is malformed or if it yields no record
+     */
+    public TraceLoadEventReader(File file, XVM[] vms, long duration, String mapping) throws IOException {
+        this.file = file;
+        this.vms = vms;
+        this.ids = new HashMap<>(vms.length * 2);
+        this.firstSeenOrder = mapping.equals("order");
+        if (mapping.equals("name")) {
+            for (XVM vm : vms)
+                ids.put(vm.getName(), vm);
+        } else if (!firstSeenOrder)
+            readMapping(new File(mapping));
+        this.nbOfMappedIds = 0;
+
+        if (file.getName().endsWith(".gz"))
+            this.reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file.toPath()), 1 << 16), StandardCharsets.UTF_8), 1 << 16);
+        else
+            this.reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+        this.duration = duration;
+        this.nbOfCPUDemandSlots = SimulatorProperties.getNbOfCPUConsumptionSlots();
+        this.cpuConsumptionSlot = SimulatorProperties.getVMMAXCPUConsumption() / nbOfCPUDemandSlots;
+
+        this.id = 0;
+        this.lineNumber = 0;
+        this.origin = Double.NaN;
+        this.lastTimestamp = Double.NEGATIVE_INFINITY;
+        this.ignoredRecords = 0;
+        this.closed = false;
+        this.next = readNext();
+        if (next == null)
+            throw new IllegalStateException(String.format("%s: no record for the simulated VMs in the first %d seconds (%d lines read, %d records ignored, see file.events.mapping)",
+                    file, duration, lineNumber, ignoredRecords));
+    }
+
+    /**
+     * Read the ''id, vm'' lines of a mapping file
+     */
+    private void readMapping(File mappingFile) throws IOException {
+        Map<String, XVM> vmsByName = new HashMap<>(vms.length * 2);
+        for (XVM vm : vms)
+            vmsByName.put(vm.getName(), vm);
+
+        List<String> lines = Files.readAllLines(mappingFile.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.charAt(0) == '#')
+                continue;
+            String[] fields = line.split("[,;\\s]+");
+            XVM vm = fields.length < 2 ? null : vmsByName.get(fields[1]);
+            if (vm == null)
+                throw new IllegalStateException(String.format("%s:%d: expected 'id, vm' with a simulated VM but got '%s'", mappingFile, i + 1, line));
+            ids.put(fields[0], vm);
+        }
+    }
+
+    /**
+     * @return the VM driven by the id, null if the records of the id are ignored
+     */
+    private XVM getVM(String traceId) {
+        XVM vm = ids.get(traceId);
+        if (vm == null && firstSeenOrder && !ids.containsKey(traceId)) {
+            vm = nbOfMappedIds < vms.length ? vms[nbOfMappedIds++] : null;
+            ids.put(traceId, vm);
+        }
+        return vm;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public LoadEvent next() {
+        if (next == null)
+            throw new NoSuchElementException();
+        LoadEvent evt = next;
+        next = readNext();
+        return evt;
+    }
+
+    /**
+     * @return the next event of the trace, null at the end of the trace (the file is closed)
+     */
+    private LoadEvent readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#')
+                    continue;
+
+                String[] fields = line.split("[,;\\s]+");
+                if (fields.length < 3)
+                    throw new IllegalStateException(String.format("%s:%d: expected 'timestamp, vm, cpu%%' but got '%s'", file, lineNumber, line));
+
+                double timestamp = parseTimestamp(fields[0]);
+                if (Double.isNaN(timestamp)) {
+                    if (Double.isNaN(origin)) // Header
+                        continue;
+                    throw new IllegalStateException(String.format("%s:%d: invalid timestamp '%s'", file, lineNumber, fields[0]));
+                }
+                if (timestamp < lastTimestamp)
+                    throw new IllegalStateException(String.format("%s:%d: the trace is not sorted by timestamp", file, lineNumber));
+                lastTimestamp = timestamp;
+                if (Double.isNaN(origin))
+                    origin = timestamp;
+
+                double time = timestamp - origin;
+                if (time >= duration)
+                    break;
+
+                XVM vm = getVM(fields[1]);
+                if (vm == null) {
+                    ignoredRecords++;
+                    continue;
+                }
+
+                double cpu;
+                try {
+                    cpu = Double.parseDouble(fields[2]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException(String.format("%s:%d: invalid cpu%% '%s'", file, lineNumber, fields[2]));
+                }
+                return new LoadEvent(id++, time, vm, AbstractLoadModel.quantize(cpu, vm, nbOfCPUDemandSlots, cpuConsumptionSlot));
+            }
+            close();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot read the trace %s (line %d)", file, lineNumber), e);
+        }
+    }
+
+    /**
+     * @return the timestamp in seconds, NaN if it cannot be parsed
+     */
+    private static double parseTimestamp(String field) {
+        try {
+            return Double.parseDouble(field);
+        } catch (NumberFormatException e) {
+            try {
+                Instant instant = Instant.parse(field);
+                return instant.getEpochSecond() + instant.getNano() / 1e9;
+            } catch (DateTimeParseException e2) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (ignoredRecords > 0)
+            Msg.info(String.format("%d records of %s have been ignored (ids that are not mapped onto a VM, see file.events.mapping)", ignoredRecords, file));
+        reader.close();
+    }
+}
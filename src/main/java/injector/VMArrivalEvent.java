@@ -0,0 +1,57 @@
+package injector;
+
+import configuration.VMClasses;
+import configuration.XVM;
+import simulation.SimulatorManager;
+
+/**
+ * Arrival of a new VM. The VM is placed online by the placement policy of the scheduler (see
+ * SimulatorManager.createVM()), then its load evolves according to the load model (see ChainedLoadEvent).
+ * The VMs are identified by their number in the events: the initial VMs are numbered 0 .. vm.number-1, then each
+ * arrival gets the next number. The number of a VM differs from its index (i.e. its slot in the SimulatorManager, see
+ * XVM.getId()) when it takes the slot of a VM that has left.
+ */
+public class VMArrivalEvent implements InjectorEvent {
+
+    private long id;
+    private double time;
+    private int vmNumber;
+    private int vmClassIndex;
+
+    /**
+     * @param vmNumber the number of the new VM
+     * @param vmClassIndex the position of the class of the new VM in VMClasses.CLASSES
+     */
+    public VMArrivalEvent(long id, double time, int vmNumber, int vmClassIndex) {
+        this.id = id;
+        this.time = time;
+        this.vmNumber = vmNumber;
+        this.vmClassIndex = vmClassIndex;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public double getTime() {
+        return this.time;
+    }
+
+    public int getVMNumber() {
+        return this.vmNumber;
+    }
+
+    public int getVMClassIndex() {
+        return this.vmClassIndex;
+    }
+
+    public void play() {
+        XVM vm = SimulatorManager.createVM(this.vmNumber, VMClasses.CLASSES.get(this.vmClassIndex));
+        if (vm != null)
+            ChainedLoadEvent.start(vm, this.vmNumber, this.time, this.time);
+    }
+
+    public String toString() {
+        return this.getTime() + "/vm#" + this.vmNumber + "/arrival/" + VMClasses.CLASSES.get(this.vmClassIndex).getName();
+    }
+}
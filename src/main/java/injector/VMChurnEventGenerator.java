@@ -0,0 +1,105 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.VMClasses;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Lazy generator of VM arrivals and departures (see simulator.vm.arrivalperiod and simulator.vm.lifetime).
+ * New VMs arrive according to a Poisson process (one arrival every arrivalPeriod seconds on average for the whole
+ * infrastructure); their class is drawn uniformly from VMClasses.CLASSES and their number follows the number of the
+ * last VM (see VMArrivalEvent). Each VM, including the initial ones, leaves after an exponential lifetime.
+ * Only the pending departures (one per living VM) are kept in memory.
+ */
+public class VMChurnEventGenerator implements Iterator<InjectorEvent> {
+
+    /**
+     * A pending departure
+     */
+    private static class Departure implements Comparable<Departure> {
+        private final double time;
+        private final int vmNumber;
+
+        Departure(double time, int vmNumber) {
+            this.time = time;
+            this.vmNumber = vmNumber;
+        }
+
+        @Override
+        public int compareTo(Departure o) {
+            int res = Double.compare(time, o.time);
+            return res != 0 ? res : Integer.compare(vmNumber, o.vmNumber);
+        }
+    }
+
+    private final long duration;
+    private final Random rand;
+
+    /**
+     * Rate of the arrivals (0 if VMs do not arrive) and mean lifetime of the VMs (0 if VMs do not leave)
+     */
+    private final double lambda;
+    private final double lifetime;
+
+    private final PriorityQueue<Departure> departures;
+
+    private double nextArrival;
+    private int nextVMNumber;
+    private long id;
+
+    /**
+     * @param nbOfVMs the number of VMs at the beginning of the simulation
+     * @param duration duration of the simulated time in second
+     * @param arrivalPeriod average time between two arrivals in seconds (0 means no arrival)
+     * @param lifetime average lifetime of a VM in seconds (0 means that VMs never leave)
+     */
+    public VMChurnEventGenerator(int nbOfVMs, long duration, int arrivalPeriod, int lifetime) {
+        this.duration = duration;
+        // Shifted seed, so that the draws differ from the ones of the other generators
+        this.rand = new Random(SimulatorProperties.getSeed() + 2);
+        this.lambda = arrivalPeriod > 0 ? 1.0 / arrivalPeriod : 0;
+        this.lifetime = lifetime;
+        this.departures = new PriorityQueue<>();
+
+        this.id = 0;
+        this.nextVMNumber = nbOfVMs;
+        for (int i = 0; i < nbOfVMs; i++)
+            scheduleDeparture(0, i);
+        this.nextArrival = lambda > 0 ? Injector.exponentialDis(rand, lambda) : Double.POSITIVE_INFINITY;
+    }
+
+    private void scheduleDeparture(double arrival, int vmNumber) {
+        if (lifetime <= 0)
+            return;
+        double departure = arrival + Injector.exponentialDis(rand, 1.0 / lifetime);
+        if (departure < duration)
+            departures.add(new Departure(departure, vmNumber));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextArrival < duration || !departures.isEmpty();
+    }
+
+    @Override
+    public InjectorEvent next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Departure departure = departures.peek();
+        if (departure != null && departure.time < nextArrival) {
+            departures.poll();
+            return new VMDepartureEvent(id++, departure.time, departure.vmNumber);
+        }
+
+        int vmNumber = nextVMNumber++;
+        VMArrivalEvent evt = new VMArrivalEvent(id++, nextArrival, vmNumber, rand.nextInt(VMClasses.CLASSES.size()));
+        scheduleDeparture(nextArrival, vmNumber);
+        nextArrival += Injector.exponentialDis(rand, lambda);
+        return evt;
+    }
+}
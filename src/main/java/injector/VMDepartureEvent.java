@@ -0,0 +1,50 @@
+package injector;
+
+import simulation.SimulatorManager;
+
+/**
+ * Departure of a VM: the VM is shut down and removed from the infrastructure. The events that target the VM
+ * afterwards are ignored. The departure of a VM that is migrating is postponed until the end of the migration.
+ */
+public class VMDepartureEvent implements InjectorEvent {
+
+    /**
+     * Delay between two attempts when the VM is migrating (in seconds)
+     */
+    private static final double RETRY_DELAY = 1;
+
+    private long id;
+    private double time;
+    private int vmNumber;
+
+    /**
+     * @param vmNumber the number of the VM that leaves (see VMArrivalEvent, the VM may not exist yet when the event is
+     * generated)
+     */
+    public VMDepartureEvent(long id, double time, int vmNumber) {
+        this.id = id;
+        this.time = time;
+        this.vmNumber = vmNumber;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public double getTime() {
+        return this.time;
+    }
+
+    public int getVMNumber() {
+        return this.vmNumber;
+    }
+
+    public void play() {
+        if (!SimulatorManager.destroyVM(this.vmNumber))
+            SimulatorManager.scheduleEvent(new VMDepartureEvent(this.id, SimulatorManager.getClock() + RETRY_DELAY, this.vmNumber));
+    }
+
+    public String toString() {
+        return this.getTime() + "/vm#" + this.vmNumber + "/departure";
+    }
+}
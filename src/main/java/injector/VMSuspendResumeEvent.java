@@ -31,6 +31,8 @@ public class VMSuspendResumeEvent implements InjectorEvent{
     }
 
     public void play(){
+            if (vm.isDestroyed()) // The VM has left (obsolete event)
+                return;
             if (this.state) {
                 SimulatorManager.resumeVM(vm.getName(), vm.getLocation().getName());
 
@@ -0,0 +1,127 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Lazy counterpart of Injector.generateVMFluctuationQueue().
+ * Suspensions are drawn on demand and the corresponding resume events are kept in a small priority queue until they
+ * are due. As in the eager version, if a VM is suspended while it is still suspended, its pending resume event is
+ * postponed to currentTime + crashDuration.
+ *
+ * @see injector.Injector#generateVMFluctuationQueue(configuration.XVM[], long, int)
+ */
+public class VMSuspendResumeEventGenerator implements Iterator<VMSuspendResumeEvent> {
+
+    private final XVM[] xvms;
+    private final long duration;
+    private final double crashDuration;
+    private final double lambda;
+
+    private final Random randExpDis;
+    private final Random randVMPicker;
+
+    /**
+     * Date of the next suspension to draw
+     */
+    private double nextSuspendTime;
+    private long id;
+
+    /**
+     * The pending resume event of each VM that is currently suspended
+     */
+    private final Map<XVM, VMSuspendResumeEvent> pendingResumes;
+
+    /**
+     * The resume events sorted by time (postponed events are skipped when they reach the head of the queue)
+     */
+    private final PriorityQueue<VMSuspendResumeEvent> resumes;
+
+    /**
+     * The next event to deliver (null if there is no more event)
+     */
+    private VMSuspendResumeEvent nextEvent;
+
+    /**
+     * @param xvms the VMs that may be suspended
+     * @param duration duration of the simulated time in second
+     * @param suspendPeriod the average period between two suspensions of the same VM in second
+     */
+    public VMSuspendResumeEventGenerator(XVM[] xvms, long duration, int suspendPeriod) {
+        this.xvms = xvms;
+        this.duration = duration;
+        this.crashDuration = SimulatorProperties.getCrashDuration();
+        double lambdaPerVM = 1.0 / suspendPeriod;
+        this.lambda = lambdaPerVM * xvms.length;
+        this.randExpDis = new Random(SimulatorProperties.getSeed());
+        this.randVMPicker = new Random(SimulatorProperties.getSeed());
+        this.pendingResumes = new HashMap<>();
+        this.resumes = new PriorityQueue<>(11, new Comparator<VMSuspendResumeEvent>() {
+            @Override
+            public int compare(VMSuspendResumeEvent o1, VMSuspendResumeEvent o2) {
+                int res = Double.compare(o1.getTime(), o2.getTime());
+                return res != 0 ? res : Long.compare(o1.getId(), o2.getId());
+            }
+        });
+        this.id = 0;
+        this.nextSuspendTime = Injector.exponentialDis(randExpDis, lambda);
+        this.nextEvent = computeNextEvent();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextEvent != null;
+    }
+
+    @Override
+    public VMSuspendResumeEvent next() {
+        if (nextEvent == null)
+            throw new NoSuchElementException();
+        VMSuspendResumeEvent evt = nextEvent;
+        nextEvent = computeNextEvent();
+        return evt;
+    }
+
+    private VMSuspendResumeEvent computeNextEvent() {
+        while (true) {
+            // Skip the resume events that have been postponed
+            while (!resumes.isEmpty() && pendingResumes.get(resumes.peek().getVM()) != resumes.peek())
+                resumes.poll();
+
+            VMSuspendResumeEvent resume = resumes.peek();
+            if (resume != null && (nextSuspendTime >= duration || resume.getTime() < nextSuspendTime)) {
+                resumes.poll();
+                pendingResumes.remove(resume.getVM());
+                return resume;
+            }
+
+            if (nextSuspendTime >= duration)
+                return null;
+
+            double currentTime = nextSuspendTime;
+            XVM tempVM = xvms[randVMPicker.nextInt(xvms.length)];
+            nextSuspendTime += Injector.exponentialDis(randExpDis, lambda);
+
+            // If the VM is still suspended, its pending resume event is removed and postponed below
+            VMSuspendResumeEvent suspend = null;
+            if (pendingResumes.remove(tempVM) == null) {
+                // false = suspend, true = resume
+                suspend = new VMSuspendResumeEvent(id++, currentTime, tempVM, false);
+            }
+            VMSuspendResumeEvent resumeEvt = new VMSuspendResumeEvent(id++, currentTime + crashDuration, tempVM, true);
+            pendingResumes.put(tempVM, resumeEvt);
+            resumes.add(resumeEvt);
+
+            if (suspend != null)
+                return suspend;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package scheduling;
 
+import configuration.NativeCalls;
 import configuration.SimulatorProperties;
 import configuration.XHost;
 import configuration.XVM;
 import org.simgrid.msg.*;
+import simulation.SimulationContext;
 import simulation.SimulatorManager;
 import trace.Trace;
 
@@ -41,6 +43,11 @@ public abstract class AbstractScheduler implements Scheduler {
 
     private Collection<XVM> currentMigrations;
 
+    /**
+     * The simulation the scheduler belongs to (see SchedulerBuilder.build())
+     */
+    protected final SimulationContext context;
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // Constructors ////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -49,6 +56,14 @@ public abstract class AbstractScheduler implements Scheduler {
 	 * Constructor initializing fields and creating the source configuration regarding xHosts.
 	 */
 	protected AbstractScheduler() {
+		this(SimulationContext.current());
+	}
+
+    /**
+	 * Constructor initializing fields for a scheduler of the given simulation.
+	 */
+	protected AbstractScheduler(SimulationContext context) {
+		this.context = context;
 		planGraphDepth = 0;
         rpAborted = false;
         currentMigrations = new HashSet<XVM>();
@@ -149,9 +164,9 @@ public abstract class AbstractScheduler implements Scheduler {
 
             // Applying reconfiguration plan
             Msg.info("Starting reconfiguration");
-            double startReconfigurationTime = Msg.getClock();
+            double startReconfigurationTime = SimulatorManager.getClock();
             this.applyReconfigurationPlan();
-            double endReconfigurationTime = Msg.getClock();
+            double endReconfigurationTime = SimulatorManager.getClock();
             reconfigurationTime = ((long) (endReconfigurationTime - startReconfigurationTime) * 1000);
             Msg.info("Reconfiguration time (in ms): " + reconfigurationTime);
             enRes.duration += reconfigurationTime;
@@ -208,9 +223,10 @@ public abstract class AbstractScheduler implements Scheduler {
             args[1] = sourceName;
             args[2] = destName;
             // Asynchronous migration
-            // The process is launched on the source node
+            // The process is launched on the source node (the MSG host is known by the XHost, no native lookup)
             try {
-                new org.simgrid.msg.Process(Host.getByName(sourceName), "Migrate-" + rand.nextDouble(), args) {
+                NativeCalls.skip(NativeCalls.Call.HOST_GET_BY_NAME);
+                new org.simgrid.msg.Process(SimulatorManager.getXHostByName(sourceName).getSGHost(), "Migrate-" + rand.nextDouble(), args) {
                     public void main(String[] args) {
                         XHost destHost = null;
                         XHost sourceHost = null;
@@ -0,0 +1,39 @@
+package scheduling;
+
+import configuration.ResourceVector;
+import configuration.VMClasses;
+import configuration.XHost;
+
+import java.util.Collection;
+
+/**
+ * Default placement of the new VMs: the first running host that has enough free resources (see ResourceVector).
+ */
+public class FirstFitPlacement implements PlacementPolicy {
+
+    @Override
+    public XHost placeVM(VMClasses.VMClass vmClass, double cpuDemand, Collection<XHost> hosts) {
+        return firstFit(vmClass, cpuDemand, hosts);
+    }
+
+    /**
+     * @return the first host of hosts that is on and can host the VM without being overloaded, null if there is none
+     */
+    public static XHost firstFit(VMClasses.VMClass vmClass, double cpuDemand, Collection<XHost> hosts) {
+        double[] demand = demandOf(vmClass, cpuDemand);
+        for (XHost host : hosts) {
+            if (host.isOff() || host.isOnGoingMigration())
+                continue;
+            if (host.canHost(demand))
+                return host;
+        }
+        return null;
+    }
+
+    /**
+     * @return the demand of a new VM (see ResourceVector), a new VM does not use the network yet
+     */
+    public static double[] demandOf(VMClasses.VMClass vmClass, double cpuDemand) {
+        return ResourceVector.of(cpuDemand, vmClass.getMemSize(), 0, 0);
+    }
+}
@@ -42,6 +42,10 @@ public class GeneralProperties extends Properties {
 	@Override
 	public String getProperty(String key){
 		String result = super.getProperty(key);
+
+		// As in SimulatorProperties, a system property (-Dkey=value) overrides the file (see simulation.Batch)
+		if(System.getProperty(key) != null)
+			result = System.getProperty(key);
 		
 		if(result != null)
 			return result.trim();
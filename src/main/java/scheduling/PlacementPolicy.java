@@ -0,0 +1,21 @@
+package scheduling;
+
+import configuration.VMClasses;
+import configuration.XHost;
+
+import java.util.Collection;
+
+/**
+ * Online placement of the VMs that arrive during the simulation (see simulator.vm.arrivalperiod).
+ * A scheduler that implements this interface is used to place the new VMs, otherwise FirstFitPlacement is used.
+ */
+public interface PlacementPolicy {
+
+    /**
+     * @param vmClass the class of the new VM
+     * @param cpuDemand the expected CPU demand of the new VM
+     * @param hosts the hosts that can host VMs
+     * @return the host on which the VM should be started, null if the VM cannot be placed
+     */
+    XHost placeVM(VMClasses.VMClass vmClass, double cpuDemand, Collection<XHost> hosts);
+}
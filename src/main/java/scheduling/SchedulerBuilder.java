@@ -3,10 +3,12 @@ package scheduling;
 import configuration.SimulatorProperties;
 import configuration.XHost;
 import org.simgrid.msg.Msg;
+import simulation.SimulationContext;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
+import java.util.Random;
 
 /**
  * @author Killian Saint Cricq
@@ -28,8 +30,19 @@ public enum SchedulerBuilder {
      * Gets the scheduler class to instantiate later.
      */
     SchedulerBuilder() {
+        resolveSchedulerClass();
+    }
+
+    /**
+     * Resolves the scheduler class given in the current simulator properties (the implementation may change from one
+     * simulation context to another).
+     */
+    private void resolveSchedulerClass() {
+        String implementation = SimulatorProperties.getImplementation();
+        if (schedulerClass != null && schedulerClass.getName().equals(implementation))
+            return;
         try {
-            schedulerClass = Class.forName(SimulatorProperties.getImplementation());
+            schedulerClass = Class.forName(implementation);
         } catch (ClassNotFoundException e) {
             Msg.critical("Scheduler class not found. Check the value simulator.implementation in the simulator properties file.");
             System.err.println(e);
@@ -46,32 +59,59 @@ public enum SchedulerBuilder {
     }
 
     /**
-     * Instantiates the scheduler.
+     * Instantiates the scheduler in the current simulation context.
      * @param xHosts xHosts
      * @return instantiated scheduler
      */
     public Scheduler build(Collection<XHost> xHosts) {
-        Constructor<?> schedulerConstructor;
+        return build(SimulationContext.current(), xHosts);
+    }
+
+    /**
+     * Instantiates the scheduler in the current simulation context.
+     * @param xHosts xHosts
+     * @param id id
+     * @return instantiated scheduler
+     */
+    public Scheduler build(Collection<XHost> xHosts, Integer id) {
+        return build(SimulationContext.current(), xHosts, id);
+    }
+
+    /**
+     * Instantiates the scheduler in the given simulation context.
+     * @param context the simulation the scheduler belongs to
+     * @param xHosts xHosts
+     * @return instantiated scheduler
+     */
+    public Scheduler build(SimulationContext context, Collection<XHost> xHosts) {
+        resolveSchedulerClass();
         try {
+            Constructor<?> schedulerConstructor = getContextConstructor();
+            if (schedulerConstructor != null)
+                return (Scheduler) schedulerConstructor.newInstance(context, xHosts, new Random(SimulatorProperties.getSeed()).nextInt());
+            // Schedulers that do not take the context work on the current one
             schedulerConstructor = schedulerClass.getConstructor(Collection.class);
             return (Scheduler) schedulerConstructor.newInstance(xHosts);
         } catch (Exception e) {
             handleExceptions(e);
-        } 
-
+        }
         return null;
     }
 
     /**
-     * Instantiates the scheduler.
+     * Instantiates the scheduler in the given simulation context.
+     * @param context the simulation the scheduler belongs to
      * @param xHosts xHosts
      * @param id id
      * @return instantiated scheduler
      */
-    public Scheduler build(Collection<XHost> xHosts, Integer id) {
-        Constructor<?> schedulerConstructor;
+    public Scheduler build(SimulationContext context, Collection<XHost> xHosts, Integer id) {
+        resolveSchedulerClass();
         try {
-            schedulerClass = Class.forName(SimulatorProperties.getImplementation());
+            Constructor<?> schedulerConstructor = getContextConstructor();
+            if (schedulerConstructor != null)
+                return (Scheduler) schedulerConstructor.newInstance(context, xHosts, id);
+            // Schedulers that do not take the context work on the current one
             schedulerConstructor = schedulerClass.getConstructor(Collection.class, Integer.class);
             return (Scheduler) schedulerConstructor.newInstance(xHosts, id);
         } catch (Exception e) {
@@ -80,6 +120,31 @@ public enum SchedulerBuilder {
         return null;
     }
 
+    /**
+     * @return the (SimulationContext, Collection, Integer) constructor of the scheduler, null if it has none
+     */
+    private Constructor<?> getContextConstructor() {
+        try {
+            return schedulerClass.getConstructor(SimulationContext.class, Collection.class, Integer.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Instantiates the placement policy of the VMs that arrive during the simulation.
+     * The scheduler is used when it implements PlacementPolicy, otherwise new VMs are placed by FirstFitPlacement.
+     * @param context the simulation the placement policy belongs to
+     * @param xHosts xHosts
+     * @return instantiated placement policy
+     */
+    public PlacementPolicy buildPlacementPolicy(SimulationContext context, Collection<XHost> xHosts) {
+        resolveSchedulerClass();
+        if (!PlacementPolicy.class.isAssignableFrom(schedulerClass))
+            return new FirstFitPlacement();
+        return (PlacementPolicy) build(context, xHosts);
+    }
+
     /**
      * Handles builder methods exceptions. This will stop the program.
      * @param e thrown exception
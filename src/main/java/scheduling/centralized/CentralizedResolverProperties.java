@@ -1,6 +1,7 @@
 package scheduling.centralized;
 
 import scheduling.GeneralProperties;
+import simulation.SimulationContext;
 
 import java.io.File;
 
@@ -14,8 +15,13 @@ public class CentralizedResolverProperties extends GeneralProperties {
     //Default location of the properties file
     public static final String DEFAULT_PROP_FILE = "config" + File.separator + "centralizedResolver.properties";
 
-    //Singleton
-    public final static CentralizedResolverProperties INSTANCE = new CentralizedResolverProperties();
+    /**
+     * @return the properties of the current simulation, read from DEFAULT_PROP_FILE on the first use (see
+     * simulation.SimulationContext)
+     */
+    public static CentralizedResolverProperties current() {
+        return SimulationContext.current().getSchedulerProperties(CentralizedResolverProperties.class, CentralizedResolverProperties::new);
+    }
 
 
     //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -47,7 +53,7 @@ public class CentralizedResolverProperties extends GeneralProperties {
 
 
     public static long getSchedulingPeriodicity(){
-        return INSTANCE.getPropertyAsLong(SCHEDULING_PERIODICITY, DEFAULT_SCHEDULING_PERIODICITY);
+        return current().getPropertyAsLong(SCHEDULING_PERIODICITY, DEFAULT_SCHEDULING_PERIODICITY);
     }
 
 
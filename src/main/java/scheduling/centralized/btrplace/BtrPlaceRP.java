@@ -1,5 +1,6 @@
 package scheduling.centralized.btrplace;
 
+import configuration.ResourceVector;
 import configuration.SimulatorProperties;
 import configuration.XHost;
 import configuration.XVM;
@@ -18,6 +19,7 @@ import org.btrplace.scheduler.choco.DefaultChocoScheduler;
 import org.simgrid.msg.HostFailureException;
 import org.simgrid.msg.Msg;
 import scheduling.AbstractScheduler;
+import simulation.SimulationContext;
 import simulation.SimulatorManager;
 
 import java.io.*;
@@ -62,7 +64,11 @@ public class BtrPlaceRP extends AbstractScheduler {
 
 
     public BtrPlaceRP(Collection<XHost> xHosts, Integer id) {
-        super();
+        this(SimulationContext.current(), xHosts, id);
+    }
+
+    public BtrPlaceRP(SimulationContext context, Collection<XHost> xHosts, Integer id) {
+        super(context);
         this.id = id;
         this.btrSolver = new DefaultChocoScheduler();
 
@@ -116,9 +122,12 @@ public class BtrPlaceRP extends AbstractScheduler {
         this.nodesMap = new HashMap<>();
         this.vmMap = new HashMap<>();
 
-        // Creation of a view for defining CPU & Memory resources
-        ShareableResource rcCPU = new ShareableResource("cpu", SimulatorProperties.DEFAULT_CPU_CAPACITY, 0);
-        ShareableResource rcMem = new ShareableResource("mem", SimulatorProperties.DEFAULT_MEMORY_TOTAL, 0);
+        // Creation of a view for defining each resource (CPU, memory and network in/out, see ResourceVector)
+        ShareableResource[] rcs = new ShareableResource[ResourceVector.SIZE];
+        rcs[ResourceVector.CPU] = new ShareableResource("cpu", SimulatorProperties.DEFAULT_CPU_CAPACITY, 0);
+        rcs[ResourceVector.MEM] = new ShareableResource("mem", SimulatorProperties.DEFAULT_MEMORY_TOTAL, 0);
+        rcs[ResourceVector.NET_IN] = new ShareableResource(ResourceVector.getName(ResourceVector.NET_IN), SimulatorProperties.DEFAULT_NET_CAPACITY, 0);
+        rcs[ResourceVector.NET_OUT] = new ShareableResource(ResourceVector.getName(ResourceVector.NET_OUT), SimulatorProperties.DEFAULT_NET_CAPACITY, 0);
 
         this.constraints = new HashSet<>();
 
@@ -131,46 +140,53 @@ public class BtrPlaceRP extends AbstractScheduler {
             // Add physical node to mapping
             mapping.addOnlineNode(n);
 
-            // Node's resources are explicitly set
-            rcCPU.setCapacity(n, tmpH.getCPUCapacity());
-            rcMem.setCapacity(n, tmpH.getMemSize());
+            // Node's resources are explicitly set (the background network consumption of the host is not available
+            // to the VMs)
+            int[] capacity = new int[ResourceVector.SIZE];
+            for (int r = 0; r < ResourceVector.SIZE; r++)
+                capacity[r] = (int) tmpH.getCapacity()[r];
+            double backgroundNetDemand = tmpH.getNetBW() * tmpH.getBackgroundNetLoad() / 100;
+            capacity[ResourceVector.NET_IN] = (int) Math.max(0, capacity[ResourceVector.NET_IN] - backgroundNetDemand);
+            capacity[ResourceVector.NET_OUT] = (int) Math.max(0, capacity[ResourceVector.NET_OUT] - backgroundNetDemand);
+            for (int r = 0; r < ResourceVector.SIZE; r++)
+                rcs[r].setCapacity(n, capacity[r]);
 
             if (tmpH.isViable()) {
-                // If the host if viable, the model is exactly has the VM demand regarding cpu and memory usage
+                // If the host if viable, the model is exactly has the VM demand regarding each resource
                 // Declare running VMs mapping
                 for (XVM tmpVM : tmpH.getRunnings()) {
                     VM v = this.source.newVM();
                     mapping.addRunningVM(v, n);
                     this.vmMap.put(v.id(), tmpVM.getName());
-                    rcCPU.setConsumption(v, (int) tmpVM.getCPUDemand());
-                    rcMem.setConsumption(v, tmpVM.getMemSize());
+                    for (int r = 0; r < ResourceVector.SIZE; r++)
+                        rcs[r].setConsumption(v, (int) tmpVM.getDemand()[r]);
 
                 }
             } else {
                 // The host is not viable : we create a model based on a fair share of the host resources
 
-                int cpuFairShare = tmpH.getCPUCapacity() / tmpH.getNbVMs();
-                int memFairShare = tmpH.getMemSize() / tmpH.getNbVMs();
-
                 for (XVM tmpVM : tmpH.getRunnings()) {
                     VM v = this.source.newVM();
                     mapping.addRunningVM(v, n);
                     this.vmMap.put(v.id(), tmpVM.getName());
 
                     // if the VM ask for more resource than what the host can provide, we allow only a fair share of the resources
-                    rcCPU.setConsumption(v, Math.min((int) tmpVM.getCPUDemand(), cpuFairShare));
-                    rcMem.setConsumption(v, Math.min(tmpVM.getMemSize(), memFairShare));
-
-                    this.constraints.add(new Preserve(v, "cpu", (int) tmpVM.getCPUDemand()));
-                    this.constraints.add(new Preserve(v, "mem", tmpVM.getMemSize()));
+                    for (int r = 0; r < ResourceVector.SIZE; r++) {
+                        int fairShare = capacity[r] / tmpH.getNbVMs();
+                        rcs[r].setConsumption(v, Math.min((int) tmpVM.getDemand()[r], fairShare));
+                        // No network bandwidth is left to the VMs when the background load saturates the links
+                        if (capacity[r] == 0 && (r == ResourceVector.NET_IN || r == ResourceVector.NET_OUT))
+                            continue;
+                        this.constraints.add(new Preserve(v, ResourceVector.getName(r), (int) tmpVM.getDemand()[r]));
+                    }
                 }
 
             }
 
         }
 
-        this.source.attach(rcCPU);
-        this.source.attach(rcMem);
+        for (ShareableResource rc : rcs)
+            this.source.attach(rc);
 
     }
 
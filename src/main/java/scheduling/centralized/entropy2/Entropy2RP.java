@@ -18,6 +18,7 @@ import entropy.vjob.VJob;
 import org.simgrid.msg.HostFailureException;
 import org.simgrid.msg.Msg;
 import scheduling.AbstractScheduler;
+import simulation.SimulationContext;
 import simulation.SimulatorManager;
 
 import java.io.*;
@@ -38,7 +39,11 @@ public class Entropy2RP extends AbstractScheduler {
     }
 
     public Entropy2RP(Collection<XHost> xhosts, Integer id) {
-        super();
+        this(SimulationContext.current(), xhosts, id);
+    }
+
+    public Entropy2RP(SimulationContext context, Collection<XHost> xhosts, Integer id) {
+        super(context);
         this.source = this.extractConfiguration(xhosts);
         planner =  new ChocoCustomRP(new MockDurationEvaluator(2, 5, 1, 1, 7, 14, 7, 2, 4));//Entropy2.1
         planner.setRepairMode(true); //true by default for ChocoCustomRP/Entropy2.1; false by default for ChocoCustomPowerRP/Entrop2.0
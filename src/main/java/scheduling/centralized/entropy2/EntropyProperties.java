@@ -2,6 +2,7 @@ package scheduling.centralized.entropy2;
 
 import configuration.SimulatorProperties;
 import scheduling.GeneralProperties;
+import simulation.SimulationContext;
 
 import java.io.File;
 
@@ -16,7 +17,7 @@ public class EntropyProperties extends GeneralProperties {
 		double result = 0;
 		
 		try {
-			result = Double.parseDouble(INSTANCE.getProperty(key, defaultValue+""));
+			result = Double.parseDouble(getProperty(key, defaultValue+""));
 		}
 		catch(Exception e) {
 			
@@ -31,8 +32,13 @@ public class EntropyProperties extends GeneralProperties {
 	//Default location of the properties file
 	public static final String DEFAULT_PROP_FILE = "config" + File.separator + "entropy.properties";
 	
-	//Singleton
-	public final static EntropyProperties INSTANCE = new EntropyProperties();
+	/**
+	 * @return the properties of the current simulation, read from DEFAULT_PROP_FILE on the first use (see
+	 * simulation.SimulationContext)
+	 */
+	public static EntropyProperties current() {
+		return SimulationContext.current().getSchedulerProperties(EntropyProperties.class, EntropyProperties::new);
+	}
 	
 	
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -72,7 +78,7 @@ public class EntropyProperties extends GeneralProperties {
 
 	public static int getEntropyPlanTimeout(){
 		return Math.max(1, SimulatorProperties.getNbOfHostingNodes()/4);
-		//return INSTANCE.getPropertyAsInt(ENTROPY_TIME_OUT, DEFAULT_ENTROPY_TIME_OUT);
+		//return current().getPropertyAsInt(ENTROPY_TIME_OUT, DEFAULT_ENTROPY_TIME_OUT);
 	}
 	
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -85,6 +91,6 @@ public class EntropyProperties extends GeneralProperties {
 	//////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	
 	public static void main(String[] args){
-		System.out.println(EntropyProperties.INSTANCE);
+		System.out.println(new EntropyProperties());
 	}
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package scheduling.centralized.ffd;
 
+import configuration.ResourceVector;
 import configuration.SimulatorProperties;
+import configuration.VMClasses;
 import configuration.XHost;
 import configuration.XVM;
 import org.simgrid.msg.*;
 import scheduling.AbstractScheduler;
+import scheduling.FirstFitPlacement;
+import scheduling.PlacementPolicy;
+import simulation.SimulationContext;
 import simulation.SimulatorManager;
 
 import java.io.BufferedWriter;
@@ -13,7 +18,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 
-public abstract class FirstFitDecreased extends AbstractScheduler {
+public abstract class FirstFitDecreased extends AbstractScheduler implements PlacementPolicy {
     private static int iteration = 0;
     protected int nMigrations = 0;
 
@@ -23,9 +28,8 @@ public abstract class FirstFitDecreased extends AbstractScheduler {
 
     protected Queue<Migration> migrations;
 
-    // Store the expected load of each host
-    Map<XHost, Double> predictedCPUDemand = new HashMap<>();
-    Map<XHost, Integer> predictedMemDemand = new HashMap<>();
+    // Store the expected demand of each host, indexed by the id of the hosts (see ResourceVector)
+    double[][] predictedDemand = new double[0][];
 
 
     public FirstFitDecreased(Collection<XHost> hosts) {
@@ -33,11 +37,50 @@ public abstract class FirstFitDecreased extends AbstractScheduler {
     }
 
     public FirstFitDecreased(Collection<XHost> hosts, Integer id) {
+        this(SimulationContext.current(), hosts, id);
+    }
+
+    public FirstFitDecreased(SimulationContext context, Collection<XHost> hosts, Integer id) {
+        super(context);
         hostsToCheck = hosts;
         useLoad = SimulatorProperties.getUseLoad();
         migrations = new ArrayDeque<>();
     }
 
+    /**
+     * New VMs are placed on the first running host that can accept them. Similarly to the reconfiguration plans,
+     * a host that is off is used (and turned on) if no running host fits.
+     */
+    @Override
+    public XHost placeVM(VMClasses.VMClass vmClass, double cpuDemand, Collection<XHost> hosts) {
+        XHost dest = FirstFitPlacement.firstFit(vmClass, cpuDemand, hosts);
+        if (dest != null)
+            return dest;
+
+        double[] demand = FirstFitPlacement.demandOf(vmClass, cpuDemand);
+        for (XHost host : hosts) {
+            if (host.isOff() && host.canHost(demand))
+                return host;
+        }
+        return null;
+    }
+
+    /**
+     * Initialize the expected demand of each hosting host with its current demand
+     */
+    protected void initPredictedDemand() {
+        predictedDemand = new double[SimulatorManager.getSGHostsToArray().length][];
+        for(XHost host: SimulatorManager.getSGHostingHosts())
+            predictedDemand[host.getId()] = host.getDemand().clone();
+    }
+
+    /**
+     * @return whether the VM can be moved to the host according to the expected demand of the host
+     */
+    protected boolean fits(XHost host, XVM vm) {
+        return ResourceVector.fits(predictedDemand[host.getId()], vm.getDemand(), host.getCapacity());
+    }
+
     @Override
     protected void applyReconfigurationPlan() {
         // Log the new configuration
@@ -66,7 +109,7 @@ public abstract class FirstFitDecreased extends AbstractScheduler {
             BufferedWriter writer = new BufferedWriter(new FileWriter(file));
 
             for(XHost host: SimulatorManager.getSGHostingHosts()) {
-                writer.write(host.getName() + "(" + predictedCPUDemand.get(host) + "/" + host.getCPUCapacity() + "):");
+                writer.write(host.getName() + "(" + predictedDemand[host.getId()][ResourceVector.CPU] + "/" + host.getCPUCapacity() + "):");
 
                 for(XVM vm: host.getRunnings()) {
                     writer.write(' ' + vm.getName() + "(" + vm.getLoad() + ")");
@@ -147,8 +190,7 @@ public abstract class FirstFitDecreased extends AbstractScheduler {
 
         // Find the overloaded hosts
         for(XHost host : hostsToCheck) {
-            double demand = host.computeCPUDemand();
-            if(host.getCPUCapacity() < demand || host.getMemSize() < host.getMemDemand())
+            if(!host.isViable())
                 overloaded.add(host);
         }
 
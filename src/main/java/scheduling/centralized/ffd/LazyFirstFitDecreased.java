@@ -1,8 +1,10 @@
 package scheduling.centralized.ffd;
 
+import configuration.ResourceVector;
 import configuration.SimulatorProperties;
 import configuration.XHost;
 import configuration.XVM;
+import simulation.SimulationContext;
 import simulation.SimulatorManager;
 
 import java.util.*;
@@ -17,28 +19,27 @@ public class LazyFirstFitDecreased extends FirstFitDecreased {
         super(hosts, id);
     }
 
+    public LazyFirstFitDecreased(SimulationContext context, Collection<XHost> hosts, Integer id) {
+        super(context, hosts, id);
+    }
+
     @Override
     protected void manageOverloadedHost(List<XHost> overloadedHosts, ComputingResult result) {
         // The VMs are sorted by decreasing size of CPU and RAM capacity
         TreeSet<XVM> toSchedule = new TreeSet<>(new XVMComparator(true, useLoad));
         Map<XVM, XHost> sources = new HashMap<>();
 
-        for(XHost host: SimulatorManager.getSGHostingHosts()) {
-            predictedCPUDemand.put(host, host.getCPUDemand());
-            predictedMemDemand.put(host, host.getMemDemand());
-        }
+        initPredictedDemand();
 
         // Remove enough VMs so the overloaded hosts are no longer overloaded
         for(XHost host : overloadedHosts) {
             Iterator<XVM> vms = host.getRunnings().iterator();
 
-            while((host.getCPUCapacity() < predictedCPUDemand.get(host) ||
-                    host.getMemSize() < host.getMemDemand()) && vms.hasNext()) {
+            while(!ResourceVector.fits(predictedDemand[host.getId()], host.getCapacity()) && vms.hasNext()) {
                 XVM vm = vms.next();
                 toSchedule.add(vm);
                 sources.put(vm, host);
-                predictedCPUDemand.put(host, predictedCPUDemand.get(host) - vm.getCPUDemand());
-                predictedMemDemand.put(host, predictedMemDemand.get(host) - vm.getMemSize());
+                ResourceVector.sub(predictedDemand[host.getId()], vm.getDemand());
             }
         }
 
@@ -47,8 +48,7 @@ public class LazyFirstFitDecreased extends FirstFitDecreased {
 
             // Try find a new host for the VMs (saneHosts is not sorted)
             for(XHost host: SimulatorManager.getSGHostingHosts()) {
-                if(host.getCPUCapacity() >= predictedCPUDemand.get(host) + vm.getCPUDemand() &&
-                        host.getMemSize() >= predictedMemDemand.get(host) + vm.getMemSize()) {
+                if(fits(host, vm)) {
                     dest = host;
                     break;
                 }
@@ -60,8 +60,7 @@ public class LazyFirstFitDecreased extends FirstFitDecreased {
             }
 
             // Schedule the migration
-            predictedCPUDemand.put(dest, predictedCPUDemand.get(dest) + vm.getCPUDemand());
-            predictedMemDemand.put(dest, predictedMemDemand.get(dest) + vm.getMemSize());
+            ResourceVector.add(predictedDemand[dest.getId()], vm.getDemand());
             XHost source = sources.get(vm);
             if(!source.getName().equals(dest.getName())) {
                 migrations.add(new Migration(vm, source, dest));
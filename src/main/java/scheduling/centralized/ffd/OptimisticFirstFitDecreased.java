@@ -1,9 +1,11 @@
 package scheduling.centralized.ffd;
 
+import configuration.ResourceVector;
 import configuration.SimulatorProperties;
 import configuration.XHost;
 import configuration.XVM;
 import org.simgrid.msg.Msg;
+import simulation.SimulationContext;
 import simulation.SimulatorManager;
 
 import java.util.*;
@@ -18,15 +20,16 @@ public class OptimisticFirstFitDecreased extends FirstFitDecreased {
         super(hosts, id);
     }
 
+    public OptimisticFirstFitDecreased(SimulationContext context, Collection<XHost> hosts, Integer id) {
+        super(context, hosts, id);
+    }
+
     @Override
     protected void manageOverloadedHost(List<XHost> overloadedHosts, ComputingResult result) {
         TreeSet<XVM> toSchedule = new TreeSet<>(new XVMComparator(true, useLoad));
         Map<XVM, XHost> sources = new HashMap<>();
 
-        for(XHost host: SimulatorManager.getSGHostingHosts()) {
-            predictedCPUDemand.put(host, host.getCPUDemand());
-            predictedMemDemand.put(host, host.getMemDemand());
-        }
+        initPredictedDemand();
 
         // Remove all VMs from the overloaded hosts
         for(XHost host: overloadedHosts) {
@@ -35,8 +38,8 @@ public class OptimisticFirstFitDecreased extends FirstFitDecreased {
                 sources.put(vm, host);
             }
 
-            predictedCPUDemand.put(host, 0D);
-            predictedMemDemand.put(host, 0);
+            for(XVM vm: host.getRunnings())
+                ResourceVector.sub(predictedDemand[host.getId()], vm.getDemand());
         }
 
         for(XVM vm: toSchedule) {
@@ -44,8 +47,7 @@ public class OptimisticFirstFitDecreased extends FirstFitDecreased {
 
             // Try find a new host for the VMs
             for(XHost host: SimulatorManager.getSGHostingHosts()) {
-                if(host.getCPUCapacity() >= predictedCPUDemand.get(host) + vm.getCPUDemand() &&
-                        host.getMemSize() >= predictedMemDemand.get(host) + vm.getMemSize()) {
+                if(fits(host, vm)) {
                     dest = host;
                     break;
                 }
@@ -56,11 +58,8 @@ public class OptimisticFirstFitDecreased extends FirstFitDecreased {
                 return;
             }
 
-            if(predictedCPUDemand.get(dest) >= dest.getCPUCapacity())
-                System.out.println("!!");
             // Schedule the migration
-            predictedCPUDemand.put(dest, predictedCPUDemand.get(dest) + vm.getCPUDemand());
-            predictedMemDemand.put(dest, predictedMemDemand.get(dest) + vm.getMemSize());
+            ResourceVector.add(predictedDemand[dest.getId()], vm.getDemand());
             XHost source = sources.get(vm);
             if(!source.getName().equals(dest.getName())) {
                 migrations.add(new Migration(vm, source, dest));
@@ -1,6 +1,7 @@
 package scheduling.distributed.dvms2;
 
 import scheduling.GeneralProperties;
+import simulation.SimulationContext;
 
 import java.io.File;
 
@@ -15,8 +16,13 @@ public class DvmsProperties extends GeneralProperties {
     //Default location of the properties file
     public static final String DEFAULT_PROP_FILE = "config" + File.separator + "dvms.properties";
 
-    //Singleton
-    public final static DvmsProperties INSTANCE = new DvmsProperties();
+    /**
+     * @return the properties of the current simulation, read from DEFAULT_PROP_FILE on the first use (see
+     * simulation.SimulationContext)
+     */
+    public static DvmsProperties current() {
+        return SimulationContext.current().getSchedulerProperties(DvmsProperties.class, DvmsProperties::new);
+    }
 
 
     //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -51,12 +57,12 @@ public class DvmsProperties extends GeneralProperties {
     //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     public static boolean isLocalityBasedScheduler() {
-        return INSTANCE.getPropertyAsBoolean(IS_LOCALITY_BASED_SCHEDULER, DEFAULT_IS_LOCALITY_BASED_SCHEDULER);
+        return current().getPropertyAsBoolean(IS_LOCALITY_BASED_SCHEDULER, DEFAULT_IS_LOCALITY_BASED_SCHEDULER);
 
     }
 
     public static int getMinimumPartitionSize(){
-        return INSTANCE.getPropertyAsInt(MINIMUM_PARTITION_SIZE, DEFAULT_MINIMUM_PARTITION_SIZE);
+        return current().getPropertyAsInt(MINIMUM_PARTITION_SIZE, DEFAULT_MINIMUM_PARTITION_SIZE);
     }
 
 }
\ No newline at end of file
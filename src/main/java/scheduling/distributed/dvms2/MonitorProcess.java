@@ -1,7 +1,6 @@
 package scheduling.distributed.dvms2;
 
 import configuration.XHost;
-import configuration.XVM;
 import org.simgrid.msg.Host;
 import org.simgrid.msg.Msg;
 import org.simgrid.msg.Process;
@@ -35,15 +34,10 @@ public class MonitorProcess extends Process {
 
         public void doMonitoring() {
 
-            int cpuConsumption = 0;
+//            LoggingActor.write(new CurrentLoadIs(Msg.getClock(), ref.getId()+"", this.xhost.getCPUDemand()));
 
-            for(XVM vm: this.xhost.getRunnings()){
-                cpuConsumption += vm.getCPUDemand();
-            }
-
-//            LoggingActor.write(new CurrentLoadIs(Msg.getClock(), ref.getId()+"", cpuConsumption));
-
-            if(cpuConsumption > this.xhost.getCPUCapacity()) {
+            // The node is overloaded if any of its resources is overloaded (see ResourceVector)
+            if(!this.xhost.isViable()) {
                 if (!violation_detected){
                     // Monitor is considering that the node is overloaded
                     Msg.info(ref.getName()+" monitoring service: node is overloaded");
@@ -54,7 +48,7 @@ public class MonitorProcess extends Process {
                 // Replace CpuViolationDetected() by a string
                 send(ref, "overloadingDetected");
             }
-            else if(cpuConsumption <= this.xhost.getCPUCapacity()) {
+            else {
                 Trace.hostPushState(Host.currentHost().getName(), "PM", "normal");
             }
 
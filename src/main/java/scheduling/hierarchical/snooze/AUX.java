@@ -2,7 +2,7 @@ package scheduling.hierarchical.snooze;
 
 import configuration.SimulatorProperties;
 import org.simgrid.msg.Host;
-import org.simgrid.msg.Msg;
+import simulation.SimulatorManager;
 
 /**
  * Created by sudholt on 06/07/2014.
@@ -17,17 +17,19 @@ public class AUX {
 
     static final long DefaultComputeInterval = 1;
 
-    static final long HeartbeatInterval = SnoozeProperties.getHeartBeatPeriodicity();
-    static final long HeartbeatTimeout = SnoozeProperties.getHeartBeatTimeout();
+    // The parameters below are read from the properties of the current simulation (see simulation.SimulationContext)
+    static long heartbeatInterval() { return SnoozeProperties.getHeartBeatPeriodicity(); }
+    static long heartbeatTimeout() { return SnoozeProperties.getHeartBeatTimeout(); }
 
     static final double DeadTimeout = 600;
 //    static final long DeadTimeout = SnoozeProperties.getHeartBeatPeriodicity()/3;
     static final double MessageReceptionTimeout = 0.2;
 
-    static final int glLCPoolSize = Math.max(SimulatorProperties.getNbOfHostingNodes()/10, 1);
-    static final int glGMPoolSize = Math.max((SimulatorProperties.getNbOfServiceNodes()-1)/10, 1);
-    static final int gmLCPoolSize =
-            Math.max(SimulatorProperties.getNbOfHostingNodes()/(SimulatorProperties.getNbOfServiceNodes()-1)/10, 1);
+    static int glLCPoolSize() { return Math.max(SimulatorProperties.getNbOfHostingNodes()/10, 1); }
+    static int glGMPoolSize() { return Math.max((SimulatorProperties.getNbOfServiceNodes()-1)/10, 1); }
+    static int gmLCPoolSize() {
+        return Math.max(SimulatorProperties.getNbOfHostingNodes()/(SimulatorProperties.getNbOfServiceNodes()-1)/10, 1);
+    }
 
 //    static final long PoolingTimeout = SimulatorProperties.getDuration(); // Timeout for worker tasks
 
@@ -42,8 +44,8 @@ public class AUX {
     static String lcInbox(String lcHost) { return lcHost + "-lcInbox"; }
 
     static double timeDiff(double oldTime) {
-        return Msg.getClock()-oldTime;
+        return SimulatorManager.getClock()-oldTime;
     }
 
-    static double durationToEnd() { return SimulatorProperties.getDuration() - Msg.getClock() + 0.01; }
+    static double durationToEnd() { return SimulatorProperties.getDuration() - SimulatorManager.getClock() + 0.01; }
 }
@@ -32,9 +32,9 @@ public class GroupLeader extends Process {
 
     @Override
     public void main(String[] strings) {
-        lcAssPool = new ThreadPool(this, RunLCAss.class.getName(), AUX.glLCPoolSize);
-        newGMPool = new ThreadPool(this, RunNewGM.class.getName(), AUX.glGMPoolSize);
-        Logger.debug("noLCWorker: " + AUX.glLCPoolSize + ", noGMWorker: " + AUX.glGMPoolSize);
+        lcAssPool = new ThreadPool(this, RunLCAss.class.getName(), AUX.glLCPoolSize());
+        newGMPool = new ThreadPool(this, RunNewGM.class.getName(), AUX.glGMPoolSize());
+        Logger.debug("noLCWorker: " + AUX.glLCPoolSize() + ", noGMWorker: " + AUX.glGMPoolSize());
 
         int n = 1;
 
@@ -100,9 +100,9 @@ public class GroupLeader extends Process {
             if (!gmInfo.containsKey(m.getOrigin())) return;
             GMInfo gi = gmInfo.get(gm);
             GMSumMsg.GMSum s = (GMSumMsg.GMSum) m.getMessage();
-            GMSum sum = new GMSum(s.getProcCharge(), s.getMemUsed(), s.getNoLCs(), Msg.getClock());
+            GMSum sum = new GMSum(s.getProcCharge(), s.getMemUsed(), s.getNoLCs(), SimulatorManager.getClock());
             Logger.info("[GL.gmCharge)] " + gm + ": " + sum + ", " + m);
-            gmInfo.put(gm, new GMInfo(Msg.getClock(), sum));
+            gmInfo.put(gm, new GMInfo(SimulatorManager.getClock(), sum));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -114,7 +114,7 @@ public class GroupLeader extends Process {
         for (String gm: gmInfo.keySet()) {
             GMInfo gi = gmInfo.get(gm);
             if (gi != null) {
-                if (AUX.timeDiff(gi.timestamp) > AUX.HeartbeatTimeout) deadGMs.add(gm);
+                if (AUX.timeDiff(gi.timestamp) > AUX.heartbeatTimeout()) deadGMs.add(gm);
             }
         }
         for (String gm: deadGMs) {
@@ -216,12 +216,12 @@ public class GroupLeader extends Process {
                         try {
                             if (beatCounter % 4 == 0) {
                                 BeatGLMsg m =
-                                        new BeatGLMsg(Msg.getClock(), AUX.multicast + "-relayGLBeats", glHostname, null);
+                                        new BeatGLMsg(SimulatorManager.getClock(), AUX.multicast + "-relayGLBeats", glHostname, null);
                                 m.send();
                                 Logger.info("[GL.procSendMyBeats] " + m);
                             }
                             gmDead();
-                            sleep(AUX.HeartbeatInterval*1000/4);
+                            sleep(AUX.heartbeatInterval()*1000/4);
                         } catch (HostFailureException e) {
                             thisGLToBeStopped = true;
                             break;
@@ -244,7 +244,7 @@ public class GroupLeader extends Process {
                 if (gmInfo.containsKey(gmHostname))
                     Logger.err("[GL.RunNewGM] GM " + gmHostname + " exists already");
                 // Add GM
-                GMInfo gi = new GMInfo(Msg.getClock(), new GMSum(0, 0, 0, Msg.getClock()));
+                GMInfo gi = new GMInfo(SimulatorManager.getClock(), new GMSum(0, 0, 0, SimulatorManager.getClock()));
                 gmInfo.put(gmHostname, gi);
                 // Acknowledge integration
                 Logger.imp("[GL.RunNewGM] GM added: " + gmHostname + ", " + m);
@@ -168,7 +168,7 @@ public class GroupManager extends Process {
                 m = (NewLCMsg) Task.receive(inbox + "-newLC", AUX.durationToEnd());
                 Logger.debug("[GM.RunNewLC] " + m);
                 String lc = (String) m.getMessage();
-                double   ts  = Msg.getClock();
+                double   ts  = SimulatorManager.getClock();
                 // Init LC charge and heartbeat
                 LCInfo    lci = new LCInfo(new LCCharge(0, 0, ts), ts);
                 lcInfo.put(lc, lci);
@@ -197,7 +197,7 @@ public class GroupManager extends Process {
             // Identify dead LCs
             HashSet<String> deadLCs = new HashSet<String>();
             for (String lcHostname : lcInfo.keySet()) {
-                if (AUX.timeDiff(lcInfo.get(lcHostname).timestamp) > AUX.HeartbeatTimeout) {
+                if (AUX.timeDiff(lcInfo.get(lcHostname).timestamp) > AUX.heartbeatTimeout()) {
                     deadLCs.add(lcHostname);
                     Logger.err("[GM.deadLCs] Identified: " + lcHostname + ", " + lcInfo.get(lcHostname).timestamp);
                 }
@@ -229,8 +229,8 @@ public class GroupManager extends Process {
                 if (joining) {
                     procSendMyChargeBeat();
                     procScheduling();
-                    newLCPool = new ThreadPool(this, RunNewLC.class.getName(), AUX.gmLCPoolSize);
-                    Logger.imp("[GM.glBeats] GM Join finished: " + m + ", LCPool: " + AUX.gmLCPoolSize);
+                    newLCPool = new ThreadPool(this, RunNewLC.class.getName(), AUX.gmLCPoolSize());
+                    Logger.imp("[GM.glBeats] GM Join finished: " + m + ", LCPool: " + AUX.gmLCPoolSize());
                     joining = false;
                     Test.noGMJoins++;
                     Test.gmsJoined.remove(this); // Should be superfluous
@@ -242,9 +242,9 @@ public class GroupManager extends Process {
     }
 
     void glDead() {
-        if (AUX.timeDiff(glTimestamp) > AUX.HeartbeatTimeout && !joining) {
+        if (AUX.timeDiff(glTimestamp) > AUX.heartbeatTimeout() && !joining) {
             glDead = true;
-            Logger.err("[GM.glDead] GL DEAD, promotion: " + glHostname + ", " + glTimestamp + ", " + Msg.getClock());
+            Logger.err("[GM.glDead] GL DEAD, promotion: " + glHostname + ", " + glTimestamp + ", " + SimulatorManager.getClock());
             glHostname = "";
             triggerGLPromotion();
         }
@@ -284,7 +284,7 @@ public class GroupManager extends Process {
                             BeatGMMsg m = new BeatGMMsg(thisGM, AUX.multicast + "-relayGMBeats", host.getName(), null);
                             m.send();
                             Logger.info("[GM.procSendMyChargeBeat] " + m);
-                            sleep(AUX.HeartbeatInterval * 1000);
+                            sleep(AUX.heartbeatInterval() * 1000);
                         }
                     } catch (HostFailureException e) {
                         Logger.exc("[GM.procSendMyChargeBeat] HostFailureException");
@@ -321,7 +321,7 @@ public class GroupManager extends Process {
                             } else {
                                 Process.sleep(70); // This sleep simulates the communications between the GM and the LC to update the monitoring information (i.e. a pull model)
                             }
-                            if ((Msg.getClock() - previousCallScheduleVMs < 1) && (Msg.getClock() > 1)) {
+                            if ((SimulatorManager.getClock() - previousCallScheduleVMs < 1) && (SimulatorManager.getClock() > 1)) {
                                 // Avoid too fast rescheduling: problematic if violation cannot be resolved
                                 Logger.debug("[GM.procScheduling] Too fast rescheduling: sleep(1000)");
                                 sleep(1000);
@@ -334,7 +334,7 @@ public class GroupManager extends Process {
                                     && !scheduling && !glHostname.isEmpty() && !thisGMToBeStopped() && !glDead) {
                                 scheduling = true;
                                 previousDuration = scheduleVMs(); // previousDuration is in ms.
-                                previousCallScheduleVMs = Msg.getClock();
+                                previousCallScheduleVMs = SimulatorManager.getClock();
                                 wait = period - previousDuration;
                                 scheduling = false;
                             }
@@ -385,11 +385,11 @@ public class GroupManager extends Process {
     void summaryInfoToGL() {
         if (lcInfo.isEmpty() && glHostname.isEmpty()) return;
         updateChargeSummary();
-        GMSumMsg.GMSum c = new GMSumMsg.GMSum(procSum, memSum, lcInfo.size(), Msg.getClock());
+        GMSumMsg.GMSum c = new GMSumMsg.GMSum(procSum, memSum, lcInfo.size(), SimulatorManager.getClock());
         if (!glHostname.isEmpty()) {
             GMSumMsg m = new GMSumMsg(c, AUX.glInbox(glHostname)+"-gmPeriodic", host.getName(), null);
             m.send();
-        Logger.info("[GM.summaryInfoToGL] " + m+ ", " + Msg.getClock());
+        Logger.info("[GM.summaryInfoToGL] " + m+ ", " + SimulatorManager.getClock());
         }
     }
 
@@ -420,7 +420,7 @@ public class GroupManager extends Process {
         }
         procSum = proc;
         memSum = mem;
-        Logger.debug("[GM.updateChargeSummary] " + proc + ", " + mem + ", " + Msg.getClock());
+        Logger.debug("[GM.updateChargeSummary] " + proc + ", " + mem + ", " + SimulatorManager.getClock());
     }
 
 
@@ -104,7 +104,7 @@ public class LocalController extends Process {
      * GM dead: rejoin
      */
     void gmDead() throws HostFailureException {
-        if (AUX.timeDiff(gmTimestamp) < AUX.HeartbeatTimeout || joining) return;
+        if (AUX.timeDiff(gmTimestamp) < AUX.heartbeatTimeout() || joining) return;
         Logger.err("[LC.gmDead] GM dead: " + gmHostname + ", " + gmTimestamp);
         gmHostname = "";
         join();
@@ -169,7 +169,7 @@ public class LocalController extends Process {
             int i = 0;
             do {
                 m = (SnoozeMsg) Task.receive(inbox, AUX.durationToEnd());
-//                m = (SnoozeMsg) Task.receive(inbox, AUX.HeartbeatTimeout);
+//                m = (SnoozeMsg) Task.receive(inbox, AUX.heartbeatTimeout());
                 i++;
                 Logger.info("[LC.getGL] Round " + i + ": " + m);
                 gl = (String) m.getOrigin();
@@ -272,7 +272,7 @@ public class LocalController extends Process {
             Logger.info("[LC.tryJoin] Ok GL->GM multicast: " + m);
 
             gmHostname = gm;
-            gmTimestamp = Msg.getClock();
+            gmTimestamp = SimulatorManager.getClock();
 
             Logger.info("[LC.joinFinalize] Finished, GM: " + gm + ", " + gmTimestamp);
             return true;
@@ -293,7 +293,7 @@ public class LocalController extends Process {
         if (!gmHostname.equals(gm)) {
             Logger.err("[LC.handleGMBeats] Multiple GMs: " + host.getName() + ", " + gmHostname + ", " + gm);
         } else {
-            gmTimestamp = Msg.getClock();
+            gmTimestamp = SimulatorManager.getClock();
             Logger.info("[LC.handleGMBeats] " + host.getName() + ", "  + gmHostname + ", TS: " + gmTimestamp);
         }
     }
@@ -311,13 +311,13 @@ public class LocalController extends Process {
                         chargeCounter++;
                         try {
                             if (chargeCounter%4 == 0) {
-                                LCChargeMsg.LCCharge lc = new LCChargeMsg.LCCharge(h.getCPUDemand(), h.getMemDemand(), Msg.getClock());
+                                LCChargeMsg.LCCharge lc = new LCChargeMsg.LCCharge(h.getCPUDemand(), h.getMemDemand(), SimulatorManager.getClock());
                                 LCChargeMsg m = new LCChargeMsg(lc, AUX.gmInbox(gmHostname), h.getName(), null);
                                 m.send();
                                 Logger.info("[LC.procSendLCChargeToGM] Charge sent: " + m);
                             }
                             gmDead();
-                            sleep(AUX.HeartbeatInterval*1000/4);
+                            sleep(AUX.heartbeatInterval()*1000/4);
                         } catch (HostFailureException e) {
                             Logger.exc("[LC.procSendLCChargeToGM] HostFailureException");
                             thisLCToBeStopped = true;
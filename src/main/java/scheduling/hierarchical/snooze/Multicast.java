@@ -40,9 +40,9 @@ public class Multicast extends Process {
 
         Test.multicast = this;
 
-        newLCPool = new ThreadPool(this, RunNewLC.class.getName(), AUX.glLCPoolSize);
-        newLCPool = new ThreadPool(this, RunNewGM.class.getName(), AUX.glGMPoolSize);
-        Logger.debug("[MUL.main] noLCWorkers: " + AUX.glLCPoolSize);
+        newLCPool = new ThreadPool(this, RunNewLC.class.getName(), AUX.glLCPoolSize());
+        newLCPool = new ThreadPool(this, RunNewGM.class.getName(), AUX.glGMPoolSize());
+        Logger.debug("[MUL.main] noLCWorkers: " + AUX.glLCPoolSize());
 
         procRelayGLBeats();
         procRelayGMBeats();
@@ -86,7 +86,7 @@ public class Multicast extends Process {
     void handleGLElec(SnoozeMsg m) {
 //        Logger.debug("[MUL(GLElecMsg)] " + m);
 
-        if (AUX.timeDiff(lastPromotionOrElection) > AUX.HeartbeatTimeout || lastPromotionOrElection == 0
+        if (AUX.timeDiff(lastPromotionOrElection) > AUX.heartbeatTimeout() || lastPromotionOrElection == 0
                 || AUX.GLElectionForEachNewGM) {
            // No recent leaderElection
             leaderElection();
@@ -125,7 +125,7 @@ public class Multicast extends Process {
 
         for (String gm: gmInfo.keySet()) {
             GMInfo gi = gmInfo.get(gm);
-            if (gi == null || AUX.timeDiff(gmInfo.get(gm).timestamp) <= AUX.HeartbeatTimeout
+            if (gi == null || AUX.timeDiff(gmInfo.get(gm).timestamp) <= AUX.heartbeatTimeout()
                     || gi.joining) {
 //                Logger.err("[MUL.gmDead] GM: " + gm + " TS: " + gi.timestamp);
                 continue;
@@ -177,7 +177,7 @@ public class Multicast extends Process {
                 m.send();
             }
             glHostname = newLeader;
-            glTimestamp = Msg.getClock();
+            glTimestamp = SimulatorManager.getClock();
             glDead = false;
             m = new GLElecStopGMMsg(name, AUX.gmInbox(gm), null, null);
             m.send();
@@ -203,7 +203,7 @@ public class Multicast extends Process {
             Test.gl = gl;
             // Deployment on the Multicast node! Where should it be deployed?
             glHostname = gl.getHost().getName();  // optimization
-            glTimestamp = Msg.getClock();
+            glTimestamp = SimulatorManager.getClock();
             glDead = false;
             Logger.err("[MUL.leaderElection] New leader ex-nihilo on: " + glHostname);
         } else {
@@ -224,7 +224,7 @@ public class Multicast extends Process {
             if (!success) {
                 Logger.err("MUL(GLElec)] Leader election failed 10 times");
                 return;
-            } else lastPromotionOrElection = Msg.getClock();
+            } else lastPromotionOrElection = SimulatorManager.getClock();
             Logger.imp("[MUL.leaderElection] Finished: " + glHostname + ", " + m);
         }
     }
@@ -312,7 +312,7 @@ public class Multicast extends Process {
                 }
             }
         }
-        Logger.imp("[MUL.relayGMBeats] GL beat received/relayed: " + gm + ", " + Msg.getClock()
+        Logger.imp("[MUL.relayGMBeats] GL beat received/relayed: " + gm + ", " + SimulatorManager.getClock()
                 + ", #LCs: " + i);
     }
 
@@ -327,10 +327,10 @@ public class Multicast extends Process {
 //                m = (SnoozeMsg) Task.receive(inbox + "-newGM", AUX.PoolingTimeout);
                 Logger.info("[MUL.RunNewGM] " + m);
                 String gm = ((GroupManager) m.getMessage()).host.getName();
-                gmInfo.put(gm, new GMInfo(AUX.gmInbox(gm), Msg.getClock(), true));
+                gmInfo.put(gm, new GMInfo(AUX.gmInbox(gm), SimulatorManager.getClock(), true));
                 Logger.imp("[MUL(RunNewGM)] GM added: " + gm + ", " + m + ", " + lastPromotionOrElection);
                 if (!glHostname.isEmpty() && (lastPromotionOrElection == 0.0
-                        || AUX.timeDiff(lastPromotionOrElection) <= AUX.HeartbeatTimeout)) {
+                        || AUX.timeDiff(lastPromotionOrElection) <= AUX.heartbeatTimeout())) {
                     m = new RBeatGLMsg(glTimestamp, AUX.gmInbox(gm) + "-glBeats", glHostname, null);
                     m.send();
                     Logger.imp("[MUL(RunNewGM)] No promotion: " + m);
@@ -343,7 +343,7 @@ public class Multicast extends Process {
                 }
                 if (!success) Logger.err("[MUL(RunNewGM)] GM Promotion FAILED: " + gm);
                 else {
-                    lastPromotionOrElection = Msg.getClock();
+                    lastPromotionOrElection = SimulatorManager.getClock();
                     Logger.imp("[MUL(RunNewGM)] GM Promotion succeeded: " + gm);
                 }
             } catch (TimeoutException e) {
@@ -369,13 +369,13 @@ public class Multicast extends Process {
                 Logger.info("[MUL.RunNewLC] " + m);
                 if (m.getMessage() == null) {
                     // Add LC
-                    lcInfo.put(m.getOrigin(), new LCInfo(m.getOrigin(), "", Msg.getClock(), true));
+                    lcInfo.put(m.getOrigin(), new LCInfo(m.getOrigin(), "", SimulatorManager.getClock(), true));
                     Logger.info("[MUL.RunNewLC] LC temp. joined: " + m);
                 } else {
                     // End LC join phase
                     String lc = m.getOrigin();
                     String gm = (String) m.getMessage();
-                    lcInfo.put(lc, new LCInfo(lc, gm, Msg.getClock(), false));
+                    lcInfo.put(lc, new LCInfo(lc, gm, SimulatorManager.getClock(), false));
                     m = new NewLCMsg(gm, m.getReplyBox(), null, null);
                     m.send();
                     Logger.imp("[MUL.RunNewLC] LC integrated: " + m);
@@ -433,7 +433,7 @@ public class Multicast extends Process {
                             SnoozeMsg m = (SnoozeMsg) Task.receive(inbox + "-relayGMBeats", AUX.durationToEnd());
                             Logger.info("[MUL.procRelayGMBeats] " + m);
                             String gm = m.getOrigin();
-                            double ts = (double) Msg.getClock();
+                            double ts = (double) SimulatorManager.getClock();
                             if (gmInfo.containsKey(gm)) {
                                 GMInfo gi = gmInfo.get(gm);
                                 gmInfo.put(gm, new GMInfo(gi.replyBox, ts, gi.joining));
@@ -2,6 +2,7 @@ package scheduling.hierarchical.snooze;
 
 import configuration.SimulatorProperties;
 import scheduling.GeneralProperties;
+import simulation.SimulationContext;
 
 import java.io.File;
 
@@ -16,8 +17,13 @@ public class SnoozeProperties extends GeneralProperties {
         //Default location of the properties file
         public static final String DEFAULT_PROP_FILE = "config" + File.separator + "snooze.properties";
 
-        //Singleton
-        public final static SnoozeProperties INSTANCE = new SnoozeProperties();
+        /**
+         * @return the properties of the current simulation, read from DEFAULT_PROP_FILE on the first use (see
+         * simulation.SimulationContext)
+         */
+        public static SnoozeProperties current() {
+            return SimulationContext.current().getSchedulerProperties(SnoozeProperties.class, SnoozeProperties::new);
+        }
 
 
         //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -41,7 +47,6 @@ public class SnoozeProperties extends GeneralProperties {
         //Property default values
         //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-        public final static int DEFAULT_GM_NUMBER = SimulatorProperties.getNbOfServiceNodes();
         public final static long DEFAULT_HEARTBEAT_PERIODICITY = 2;
         public final static boolean DEFAULT_SCHEDULING_PERIODIC = true;
         public final static long DEFAULT_SCHEDULING_PERIODICITY = 30;
@@ -53,7 +58,6 @@ public class SnoozeProperties extends GeneralProperties {
 
         public static boolean DEFAULT_SIMULATE_LOCALCOMPUTATION = false;
         public static boolean DEFAULT_FAULT_MODE = false ;
-        public static long DEFAULT_FAULT_MODE_GLPERIOD = SimulatorProperties.getDuration()/2 ;
         public static long DEFAULT_FAULT_MODE_GMPERIOD = 300 ;
 
     //////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -75,7 +79,7 @@ public class SnoozeProperties extends GeneralProperties {
 
     public static String getAlgVariant() {
         String algVariant = "";
-        algVariant = INSTANCE.getProperty(ALG_VARIANT);
+        algVariant = current().getProperty(ALG_VARIANT);
         if (algVariant.equals(""))
             algVariant = "hierarchical-" +
                     (getSchedulingPeriodic() ? "periodic" + getSchedulingPeriodicity() + "s-" : "reactive-") +
@@ -86,48 +90,50 @@ public class SnoozeProperties extends GeneralProperties {
     }
 
     public static int getGMNumber() {
-            return INSTANCE.getPropertyAsInt(GM_NUMBER, DEFAULT_GM_NUMBER);
+            // One GM per service node by default
+            return current().getPropertyAsInt(GM_NUMBER, SimulatorProperties.getNbOfServiceNodes());
 
         }
 
         public static long getHeartBeatPeriodicity(){
-            return INSTANCE.getPropertyAsLong(HEARTBEAT_PERIODICITY, DEFAULT_HEARTBEAT_PERIODICITY);
+            return current().getPropertyAsLong(HEARTBEAT_PERIODICITY, DEFAULT_HEARTBEAT_PERIODICITY);
         }
 
         public static boolean getSchedulingPeriodic(){
-           return INSTANCE.getPropertyAsBoolean(SCHEDULING_PERIODIC, DEFAULT_SCHEDULING_PERIODIC);
+           return current().getPropertyAsBoolean(SCHEDULING_PERIODIC, DEFAULT_SCHEDULING_PERIODIC);
         }
 
         public static long getSchedulingPeriodicity(){
-            return INSTANCE.getPropertyAsLong(SCHEDULING_PERIODICITY, DEFAULT_SCHEDULING_PERIODICITY);
+            return current().getPropertyAsLong(SCHEDULING_PERIODICITY, DEFAULT_SCHEDULING_PERIODICITY);
         }
 
         public static long getHeartBeatTimeout() {
-         return INSTANCE.getPropertyAsLong(HEARTBEAT_TIMEOUT, DEFAULT_HEARTBEAT_TIMEOUT);
+         return current().getPropertyAsLong(HEARTBEAT_TIMEOUT, DEFAULT_HEARTBEAT_TIMEOUT);
         }
 
         public static int getInfoLevel() {
-            return INSTANCE.getPropertyAsInt(INFO_LEVEL, DEFAULT_INFO_LEVEL);
+            return current().getPropertyAsInt(INFO_LEVEL, DEFAULT_INFO_LEVEL);
         }
 
         public static int getInfoPeriodicity() {
-            return INSTANCE.getPropertyAsInt(INFO_PERIODICITY, DEFAULT_INFO_PERIODICITY);
+            return current().getPropertyAsInt(INFO_PERIODICITY, DEFAULT_INFO_PERIODICITY);
         }
 
     public static boolean shouldISleep() {
-        return INSTANCE.getPropertyAsBoolean(SIMULATE_LOCALCOMPUTATION, DEFAULT_SIMULATE_LOCALCOMPUTATION);
+        return current().getPropertyAsBoolean(SIMULATE_LOCALCOMPUTATION, DEFAULT_SIMULATE_LOCALCOMPUTATION);
     }
 
     public static boolean faultMode() {
-        return INSTANCE.getPropertyAsBoolean(FAULT_MODE, DEFAULT_FAULT_MODE);
+        return current().getPropertyAsBoolean(FAULT_MODE, DEFAULT_FAULT_MODE);
     }
 
     public static long getGLFaultPeriodicity(){
-        return INSTANCE.getPropertyAsLong(FAULT_MODE_GLPERIOD, DEFAULT_FAULT_MODE_GLPERIOD);
+        // Half of the simulation by default
+        return current().getPropertyAsLong(FAULT_MODE_GLPERIOD, SimulatorProperties.getDuration()/2);
     }
 
     public static long getGMFaultPeriodicity(){
-        return INSTANCE.getPropertyAsLong(FAULT_MODE_GMPERIOD, DEFAULT_FAULT_MODE_GMPERIOD);
+        return current().getPropertyAsLong(FAULT_MODE_GMPERIOD, DEFAULT_FAULT_MODE_GMPERIOD);
     }
 
 
@@ -0,0 +1,85 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Run several scenarios back-to-back, e.g. to compare schedulers or workloads with the same platform.
+ * Usage: Batch platform.xml deployment.xml scenario1.properties scenario2.properties ... [--cfg=...]
+ * Each scenario is a properties file that overrides config/simulator.properties (and the properties of the
+ * schedulers, e.g. snooze.hb-periodicity) for one run. The SimGrid kernel can only run once per process, hence each
+ * scenario is simulated by Main in its own JVM (same JVM options and class path), the scenarios being run one after
+ * the other. The events of each scenario are traced in scenario.events.json unless it sets simulator.trace.file.
+ * The arguments starting with -- (e.g. --cfg=tracing:1) are given to each run.
+ */
+public class Batch {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: Batch platform.xml deployment.xml scenario.properties... [--cfg=...]");
+            System.exit(1);
+        }
+
+        List<String> scenarios = new ArrayList<>();
+        List<String> options = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--"))
+                options.add(args[i]);
+            else
+                scenarios.add(args[i]);
+        }
+
+        List<String> failed = new ArrayList<>();
+        for (String scenario : scenarios) {
+            System.out.println("----------------------------------------");
+            System.out.println("Running scenario " + scenario);
+            System.out.println("----------------------------------------");
+            int ret = run(scenario, args[0], args[1], options);
+            System.out.println("Scenario " + scenario + " returned " + ret);
+            // Like run_all.sh, 134 (the kernel aborts when the simulation ends with pending processes) is not a failure
+            if (ret != 0 && ret != 134)
+                failed.add(scenario);
+        }
+
+        System.out.println(String.format("%d scenarios run, %d failed %s", scenarios.size(), failed.size(), failed.isEmpty() ? "" : failed));
+        System.exit(failed.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Simulate a scenario in a new JVM
+     * @return the exit code of the simulation
+     */
+    private static int run(String scenario, String platform, String deployment, List<String> options) throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(scenario)) {
+            properties.load(reader);
+        }
+        if (!properties.containsKey(SimulatorProperties.TRACE_FILE)) {
+            String name = new File(scenario).getName().replaceFirst("\\.properties$", "");
+            properties.setProperty(SimulatorProperties.TRACE_FILE, name + ".events.json");
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        // The options of this JVM (e.g. -Xmx, -Djava.library.path), then the scenario (the last definition wins)
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        for (String key : properties.stringPropertyNames())
+            command.add("-D" + key + "=" + properties.getProperty(key).trim());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.add(platform);
+        command.add(deployment);
+        command.addAll(options);
+
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+}
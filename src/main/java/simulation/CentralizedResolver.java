@@ -16,10 +16,26 @@ import java.util.Collection;
 public class CentralizedResolver extends Process {
 
 
-    static int loopID = 0 ;
-
+    /**
+     * Number of invocations of the scheduler during the simulation
+     */
+    private int loopID = 0 ;
+
+    /**
+     * The simulation of the resolver
+     */
+    private final SimulationContext context;
+
+    /**
+     * Constructor used by Msg.deployApplication(): the resolver belongs to the current context (see Main)
+     */
     CentralizedResolver(Host host, String name, String[] args) throws HostNotFoundException, NativeException  {
+        this(host, name, args, SimulationContext.current());
+    }
+
+    CentralizedResolver(Host host, String name, String[] args, SimulationContext context) throws HostNotFoundException, NativeException  {
 		super(host, name, args);
+		this.context = context;
 	}
 
 	/**
@@ -52,7 +68,7 @@ public class CentralizedResolver extends Process {
 			    /* Compute and apply the plan */
                 Collection<XHost> hostsToCheck = SimulatorManager.getSGHostingHosts();
 
-                scheduler = SchedulerBuilder.getInstance().build(hostsToCheck, ++loopID);
+                scheduler = SchedulerBuilder.getInstance().build(context, hostsToCheck, ++loopID);
                 schedulerResult = scheduler.checkAndReconfigure(hostsToCheck);
                 previousDuration = schedulerResult.duration;
                 if (schedulerResult.state == SchedulerResult.State.NO_RECONFIGURATION_NEEDED) {
@@ -0,0 +1,465 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.VMClasses;
+import configuration.XHost;
+import configuration.XVM;
+import injector.ChainedLoadEvent;
+import injector.EventStore;
+import injector.InjectorEvent;
+import org.simgrid.msg.Msg;
+import trace.Trace;
+import trace.TraceImpl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot of a simulation (see simulator.checkpoint.time and simulator.restore).
+ * The snapshot contains the state of the SimulatorManager (placement, loads, hosts on/off, suspended VMs, counters),
+ * the cursor of the injector, the events submitted during the simulation and the values of the trace variables.
+ * The SimGrid kernel cannot be saved, hence a snapshot is restored by replaying it on a fresh platform: the VMs are
+ * created on their hosts (see SimulatorManager.configureHostsAndVMs()), then the injector applies the rest of the state
+ * at the beginning of the simulation and skips the events that had already been played. The generators of the events
+ * only depend on the seed, so the state of the random generators boils down to the seed and the cursor. The clock of
+ * the restored simulation is shifted by the time of the snapshot (see SimulatorManager.getClock()).
+ * The ongoing migrations cannot be saved either, hence capture() refuses to take a snapshot while a VM is migrating
+ * (the injector postpones the checkpoint, see simulator.checkpoint.time).
+ *
+ * Format: a gzipped stream (header, counters, one record per host and per VM slot, pending events, trace variables)
+ * written with DataOutputStream, i.e. big-endian. The pending events are written as the records of EventStore (time,
+ * kind, target, payload) preceded by their id.
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x564D5043; // "VMPC"
+    private static final int VERSION = 4;
+
+    private static final byte VM_ON = 0;
+    private static final byte VM_OFF = 1;
+    private static final byte VM_SUSPENDED = 2;
+
+    private double time;
+    private long cursor;
+
+    private int nbOfSuspensions;
+    private int nbOfResumes;
+    private int nbOfArrivals;
+    private int nbOfDepartures;
+    private int nbOfRejectedVMs;
+
+    /* Hosts, indexed by id */
+    private boolean[] hostOn;
+    private int[] turnOffNb;
+    private int[] nbOfViolations;
+    private double[] backgroundNetLoad;
+
+    /* VM slots, indexed by id (vmHost is -1 for the free slots) */
+    private int[] vmHost;
+    private int[] vmNumber;
+    private int[] vmClass;
+    private byte[] vmState;
+    private double[] vmLoad;
+    private double[] vmNetLoad;
+    private int[] vmDPIntensity;
+    private int[] vmNbOfLoadChanges;
+    private int[] vmNbOfMigrations;
+    private double[] vmArrival;
+
+    /* Events submitted during the simulation and not played yet (e.g. departures postponed because the VM was migrating) */
+    private long[] pendingIds;
+    private double[] pendingTimes;
+    private byte[] pendingKinds;
+    private int[] pendingTargets;
+    private int[] pendingPayloads;
+
+    private Map<String, Map<String, Double>> traceVariables;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * Capture the state of the current simulation
+     * @param time the time of the checkpoint (the events up to this time have been played)
+     * @param cursor the number of planned events that have been played
+     * @param pendingEvents the events submitted during the simulation that have not been played yet
+     * @throws IllegalStateException if a VM is migrating or if a pending event cannot be saved
+     */
+    public static Checkpoint capture(double time, long cursor, InjectorEvent[] pendingEvents) {
+        SimulationContext context = SimulationContext.current();
+        for (int i = 0; i < context.nbOfVMSlots; i++) {
+            if (context.xvms[i] != null && context.xvms[i].isMigrating())
+                throw new IllegalStateException("the VM " + context.xvms[i].getName() + " is migrating");
+        }
+        // The load changes of the VMs that have arrived are generated again on restore (see Injector)
+        EventStore pending = new EventStore(context.xvms, context.xhosts);
+        List<Long> pendingIds = new ArrayList<Long>(pendingEvents.length);
+        for (InjectorEvent evt : pendingEvents) {
+            if (evt instanceof ChainedLoadEvent)
+                continue;
+            try {
+                pending.add(evt);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("the pending event " + evt + " cannot be saved (" + e.getMessage() + ")");
+            }
+            pendingIds.add(evt.getId());
+        }
+
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.time = time;
+        checkpoint.cursor = cursor;
+        checkpoint.nbOfSuspensions = context.nbOfSuspensions;
+        checkpoint.nbOfResumes = context.nbOfResumes;
+        checkpoint.nbOfArrivals = context.nbOfArrivals;
+        checkpoint.nbOfDepartures = context.nbOfDepartures;
+        checkpoint.nbOfRejectedVMs = context.nbOfRejectedVMs;
+
+        int nbOfHosts = context.xhosts.length;
+        checkpoint.allocateHosts(nbOfHosts);
+        for (int i = 0; i < nbOfHosts; i++) {
+            XHost host = context.xhosts[i];
+            checkpoint.hostOn[i] = context.sgHostsOn.get(i);
+            checkpoint.turnOffNb[i] = host.getTurnOffNb();
+            checkpoint.nbOfViolations[i] = host.getNbOfViolations();
+            checkpoint.backgroundNetLoad[i] = host.getBackgroundNetLoad();
+        }
+
+        int nbOfVMSlots = context.nbOfVMSlots;
+        checkpoint.allocateVMs(nbOfVMSlots);
+        for (int i = 0; i < nbOfVMSlots; i++) {
+            XVM vm = context.xvms[i];
+            if (vm == null) {
+                checkpoint.vmHost[i] = -1;
+                continue;
+            }
+            checkpoint.vmHost[i] = vm.getLocation().getId();
+            checkpoint.vmNumber[i] = context.vmNumbers[i];
+            checkpoint.vmClass[i] = classOf(vm);
+            if (vm.isSuspended() || context.sgVMsToSuspend.get(i))
+                checkpoint.vmState[i] = VM_SUSPENDED;
+            else
+                checkpoint.vmState[i] = context.sgVMsOn.get(i) ? VM_ON : VM_OFF;
+            checkpoint.vmLoad[i] = vm.getLoad();
+            checkpoint.vmNetLoad[i] = vm.getNetLoad();
+            checkpoint.vmDPIntensity[i] = vm.isDPIntensityOverridden() ? vm.getDPIntensity() : -1;
+            checkpoint.vmNbOfLoadChanges[i] = vm.getNbOfLoadChanges();
+            checkpoint.vmNbOfMigrations[i] = vm.getNbOfMigrations();
+            checkpoint.vmArrival[i] = context.vmArrivals[i];
+        }
+
+        checkpoint.allocatePendingEvents(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            checkpoint.pendingIds[i] = pendingIds.get(i);
+            checkpoint.pendingTimes[i] = pending.getTime(i);
+            checkpoint.pendingKinds[i] = pending.getKind(i);
+            checkpoint.pendingTargets[i] = pending.getTargetIndex(i);
+            checkpoint.pendingPayloads[i] = pending.getPayload(i);
+        }
+
+        checkpoint.traceVariables = new HashMap<String, Map<String, Double>>();
+        checkpoint.traceVariables.putAll(TraceImpl.getInstance().getVariableValues());
+        return checkpoint;
+    }
+
+    /**
+     * @return the position of the class of the VM in VMClasses.CLASSES (the VMs only keep the characteristics of
+     * their class, classes with the same characteristics are interchangeable)
+     */
+    private static int classOf(XVM vm) {
+        for (int i = 0; i < VMClasses.CLASSES.size(); i++) {
+            VMClasses.VMClass vmClass = VMClasses.CLASSES.get(i);
+            if (vmClass.getNbOfCPUs() == vm.getCoreNumber() && vmClass.getMemSize() == vm.getMemSize()
+                    && vmClass.getNetBW() == vm.getNetBW())
+                return i;
+        }
+        return -1;
+    }
+
+    private void allocateHosts(int nbOfHosts) {
+        hostOn = new boolean[nbOfHosts];
+        turnOffNb = new int[nbOfHosts];
+        nbOfViolations = new int[nbOfHosts];
+        backgroundNetLoad = new double[nbOfHosts];
+    }
+
+    private void allocateVMs(int nbOfVMSlots) {
+        vmHost = new int[nbOfVMSlots];
+        vmNumber = new int[nbOfVMSlots];
+        vmClass = new int[nbOfVMSlots];
+        vmState = new byte[nbOfVMSlots];
+        vmLoad = new double[nbOfVMSlots];
+        vmNetLoad = new double[nbOfVMSlots];
+        vmDPIntensity = new int[nbOfVMSlots];
+        vmNbOfLoadChanges = new int[nbOfVMSlots];
+        vmNbOfMigrations = new int[nbOfVMSlots];
+        vmArrival = new double[nbOfVMSlots];
+    }
+
+    private void allocatePendingEvents(int nbOfEvents) {
+        pendingIds = new long[nbOfEvents];
+        pendingTimes = new double[nbOfEvents];
+        pendingKinds = new byte[nbOfEvents];
+        pendingTargets = new int[nbOfEvents];
+        pendingPayloads = new int[nbOfEvents];
+    }
+
+    /**
+     * Write the snapshot (the previous content of the file is lost)
+     */
+    public void write(File file) throws IOException {
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(SimulatorProperties.getSeed());
+            out.writeInt(SimulatorProperties.getNbOfHostingNodes());
+            out.writeInt(SimulatorProperties.getNbOfVMs());
+            out.writeDouble(time);
+            out.writeLong(cursor);
+
+            out.writeInt(nbOfSuspensions);
+            out.writeInt(nbOfResumes);
+            out.writeInt(nbOfArrivals);
+            out.writeInt(nbOfDepartures);
+            out.writeInt(nbOfRejectedVMs);
+
+            out.writeInt(hostOn.length);
+            for (int i = 0; i < hostOn.length; i++) {
+                out.writeBoolean(hostOn[i]);
+                out.writeInt(turnOffNb[i]);
+                out.writeInt(nbOfViolations[i]);
+                out.writeDouble(backgroundNetLoad[i]);
+            }
+
+            out.writeInt(vmHost.length);
+            for (int i = 0; i < vmHost.length; i++) {
+                out.writeInt(vmHost[i]);
+                if (vmHost[i] < 0)
+                    continue;
+                out.writeInt(vmNumber[i]);
+                out.writeInt(vmClass[i]);
+                out.writeByte(vmState[i]);
+                out.writeDouble(vmLoad[i]);
+                out.writeDouble(vmNetLoad[i]);
+                out.writeInt(vmDPIntensity[i]);
+                out.writeInt(vmNbOfLoadChanges[i]);
+                out.writeInt(vmNbOfMigrations[i]);
+                out.writeDouble(vmArrival[i]);
+            }
+
+            out.writeInt(pendingIds.length);
+            for (int i = 0; i < pendingIds.length; i++) {
+                out.writeLong(pendingIds[i]);
+                out.writeDouble(pendingTimes[i]);
+                out.writeByte(pendingKinds[i]);
+                out.writeInt(pendingTargets[i]);
+                out.writeInt(pendingPayloads[i]);
+            }
+
+            out.writeInt(traceVariables.size());
+            for (Map.Entry<String, Map<String, Double>> host : traceVariables.entrySet()) {
+                out.writeUTF(host.getKey());
+                out.writeInt(host.getValue().size());
+                for (Map.Entry<String, Double> variable : host.getValue().entrySet()) {
+                    out.writeUTF(variable.getKey());
+                    out.writeDouble(variable.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a snapshot written by write(). The snapshot should have been written with the same seed and the same
+     * infrastructure, otherwise the events to come would not match the restored state.
+     */
+    public static Checkpoint read(File file) throws IOException {
+        Checkpoint checkpoint = new Checkpoint();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a checkpoint");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported checkpoint version " + version);
+            long seed = in.readLong();
+            int nbOfHostingHosts = in.readInt();
+            int nbOfVMs = in.readInt();
+            if (seed != SimulatorProperties.getSeed() || nbOfHostingHosts != SimulatorProperties.getNbOfHostingNodes()
+                    || nbOfVMs != SimulatorProperties.getNbOfVMs())
+                throw new IOException(String.format("The checkpoint has been written with seed %d, %d hosting nodes and %d VMs",
+                        seed, nbOfHostingHosts, nbOfVMs));
+            checkpoint.time = in.readDouble();
+            checkpoint.cursor = in.readLong();
+
+            checkpoint.nbOfSuspensions = in.readInt();
+            checkpoint.nbOfResumes = in.readInt();
+            checkpoint.nbOfArrivals = in.readInt();
+            checkpoint.nbOfDepartures = in.readInt();
+            checkpoint.nbOfRejectedVMs = in.readInt();
+
+            checkpoint.allocateHosts(in.readInt());
+            for (int i = 0; i < checkpoint.hostOn.length; i++) {
+                checkpoint.hostOn[i] = in.readBoolean();
+                checkpoint.turnOffNb[i] = in.readInt();
+                checkpoint.nbOfViolations[i] = in.readInt();
+                checkpoint.backgroundNetLoad[i] = in.readDouble();
+            }
+
+            checkpoint.allocateVMs(in.readInt());
+            for (int i = 0; i < checkpoint.vmHost.length; i++) {
+                checkpoint.vmHost[i] = in.readInt();
+                if (checkpoint.vmHost[i] < 0)
+                    continue;
+                checkpoint.vmNumber[i] = in.readInt();
+                checkpoint.vmClass[i] = in.readInt();
+                checkpoint.vmState[i] = in.readByte();
+                checkpoint.vmLoad[i] = in.readDouble();
+                checkpoint.vmNetLoad[i] = in.readDouble();
+                checkpoint.vmDPIntensity[i] = in.readInt();
+                checkpoint.vmNbOfLoadChanges[i] = in.readInt();
+                checkpoint.vmNbOfMigrations[i] = in.readInt();
+                checkpoint.vmArrival[i] = in.readDouble();
+            }
+
+            checkpoint.allocatePendingEvents(in.readInt());
+            for (int i = 0; i < checkpoint.pendingIds.length; i++) {
+                checkpoint.pendingIds[i] = in.readLong();
+                checkpoint.pendingTimes[i] = in.readDouble();
+                checkpoint.pendingKinds[i] = in.readByte();
+                checkpoint.pendingTargets[i] = in.readInt();
+                checkpoint.pendingPayloads[i] = in.readInt();
+            }
+
+            int nbOfTracedHosts = in.readInt();
+            checkpoint.traceVariables = new HashMap<String, Map<String, Double>>();
+            for (int i = 0; i < nbOfTracedHosts; i++) {
+                String host = in.readUTF();
+                int nbOfVariables = in.readInt();
+                Map<String, Double> variables = new HashMap<String, Double>();
+                for (int j = 0; j < nbOfVariables; j++)
+                    variables.put(in.readUTF(), in.readDouble());
+                checkpoint.traceVariables.put(host, variables);
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return the time of the checkpoint (the events up to this time had been played)
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return the number of planned events that had been played
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return the id of the host of each initial VM (i.e. the first SimulatorProperties.getNbOfVMs() VMs), -1 if the
+     * VM had left (see SimulatorManager.configureHostsAndVMs())
+     */
+    public int[] getInitialPlacement() {
+        int[] placement = new int[SimulatorProperties.getNbOfVMs()];
+        for (int i = 0; i < placement.length; i++)
+            placement[i] = i < vmHost.length && isInitialVM(i) ? vmHost[i] : -1;
+        return placement;
+    }
+
+    /**
+     * @return whether the slot holds an initial VM (the initial VMs keep their slot, which is their number), false
+     * if it holds a VM that has arrived or if it is free
+     */
+    private boolean isInitialVM(int slot) {
+        return vmHost[slot] >= 0 && vmNumber[slot] == slot && slot < SimulatorProperties.getNbOfVMs();
+    }
+
+    /**
+     * @return the events that had been submitted and not played yet, except the load changes of the VMs that have
+     * arrived (apply() should have been invoked, since the events reference the restored hosts and VMs)
+     */
+    public List<InjectorEvent> getPendingEvents() {
+        SimulationContext context = SimulationContext.current();
+        List<InjectorEvent> events = new ArrayList<InjectorEvent>(pendingIds.length);
+        for (int i = 0; i < pendingIds.length; i++)
+            events.add(EventStore.materialize(pendingIds[i], pendingTimes[i], pendingKinds[i], pendingTargets[i],
+                    pendingPayloads[i], context.xvms, context.xhosts));
+        return events;
+    }
+
+    /**
+     * Restore the state of the SimulatorManager (the initial VMs should have been created with getInitialPlacement()).
+     * This method should be invoked by the injector at the beginning of the simulation, since suspending VMs and
+     * turning hosts off are simulated operations.
+     */
+    public void apply() {
+        SimulationContext context = SimulationContext.current();
+        context.timeOffset = time;
+        Msg.info(String.format("Restoring the checkpoint of time %.2f", time));
+
+        // The VMs that have arrived during the simulation, in their slot
+        for (int i = 0; i < vmHost.length; i++) {
+            if (vmHost[i] >= 0 && !isInitialVM(i)) {
+                SimulatorManager.createVM(vmNumber[i], i, VMClasses.CLASSES.get(Math.max(0, vmClass[i])), context.xhosts[vmHost[i]]);
+                context.vmArrivals[i] = vmArrival[i];
+            }
+        }
+
+        for (int i = 0; i < vmHost.length; i++) {
+            XVM vm = SimulatorManager.getXVM(i);
+            if (vm == null)
+                continue;
+            SimulatorManager.updateVM(vm, vmLoad[i]);
+            SimulatorManager.updateVMNetLoad(vm, vmNetLoad[i]);
+            vm.setDPIntensity(vmDPIntensity[i]);
+        }
+        for (int i = 0; i < vmHost.length; i++) {
+            XVM vm = SimulatorManager.getXVM(i);
+            if (vm != null && vmState[i] == VM_SUSPENDED)
+                SimulatorManager.suspendVM(vm.getName(), vm.getLocation().getName());
+        }
+
+        for (int i = 0; i < hostOn.length; i++) {
+            XHost host = context.xhosts[i];
+            SimulatorManager.updateHostNetLoad(host, backgroundNetLoad[i]);
+            if (hostOn[i] && host.isOff())
+                SimulatorManager.turnOn(host);
+            else if (!hostOn[i] && host.isOn())
+                SimulatorManager.turnOff(host);
+        }
+
+        // Counters, once the operations above have been performed
+        for (int i = 0; i < hostOn.length; i++)
+            context.xhosts[i].restoreCounters(turnOffNb[i], nbOfViolations[i]);
+        for (int i = 0; i < vmHost.length; i++) {
+            XVM vm = SimulatorManager.getXVM(i);
+            if (vm != null)
+                vm.restoreCounters(vmNbOfLoadChanges[i], vmNbOfMigrations[i]);
+        }
+        context.nbOfSuspensions = nbOfSuspensions;
+        context.nbOfResumes = nbOfResumes;
+        context.nbOfArrivals = nbOfArrivals;
+        context.nbOfDepartures = nbOfDepartures;
+        context.nbOfRejectedVMs = nbOfRejectedVMs;
+
+        for (Map.Entry<String, Map<String, Double>> host : traceVariables.entrySet()) {
+            for (Map.Entry<String, Double> variable : host.getValue().entrySet())
+                Trace.hostVariableSet(host.getKey(), variable.getKey(), variable.getValue());
+        }
+    }
+}
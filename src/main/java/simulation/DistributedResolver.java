@@ -14,8 +14,21 @@ public class DistributedResolver extends Process {
 
     private String name;
 
+    /**
+     * The simulation of the resolver
+     */
+    private final SimulationContext context;
+
+    /**
+     * Constructor used by Msg.deployApplication(): the resolver belongs to the current context (see Main)
+     */
     DistributedResolver(Host host, String name, String[] args) throws HostNotFoundException, NativeException  {
+        this(host, name, args, SimulationContext.current());
+    }
+
+    DistributedResolver(Host host, String name, String[] args, SimulationContext context) throws HostNotFoundException, NativeException  {
         super(host, name, args);
+        this.context = context;
         this.name = name;
     }
 
@@ -0,0 +1,141 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import injector.RackIndex;
+import org.simgrid.msg.Host;
+import org.simgrid.msg.HostFailureException;
+import org.simgrid.msg.Msg;
+import org.simgrid.msg.MsgException;
+import org.simgrid.msg.Process;
+import trace.Trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process that reads the energy consumed by all the hosts every simulator.energy.period seconds (simulated time).
+ * The readings are kept in arrays indexed by the id of the hosts, and each period ends with one ENERGY record: the
+ * energy consumed by the whole infrastructure during the period (on the injector node), or by each rack during the
+ * period if simulator.energy.perrack is set (racks are read from the platform file, see RackIndex, and each rack is
+ * traced as a container named after its cluster, see Trace.containerDeclare()).
+ * Hence the number of native calls and of trace records depends on the simulated time rather than on the number of
+ * events (the hosts are not traced on each update, see SimulatorManager.traceHostUpdate()).
+ * The last readings are used by SimulatorManager.writeEnergy().
+ */
+public class EnergySampler extends Process {
+
+    private final XHost[] xhosts;
+
+    private final double period;
+
+    /**
+     * The energy consumed by each host at the last reading
+     */
+    private final double[] consumedEnergy;
+
+    /**
+     * The energy consumed by each host between the last two readings
+     */
+    private final double[] deltaEnergy;
+
+    /**
+     * The racks of the hosts, null if the records are not aggregated per rack
+     */
+    private final RackIndex racks;
+
+    private final String[] rackNames;
+
+    /**
+     * @param host the host on which the sampler runs (a service node)
+     * @param name the name of the process
+     * @param xhosts the hosts to read (indexed by their id)
+     * @param period the sampling period (in seconds)
+     */
+    public EnergySampler(Host host, String name, XHost[] xhosts, double period) {
+        super(host, name);
+        this.xhosts = xhosts;
+        this.period = period;
+        this.consumedEnergy = new double[xhosts.length];
+        this.deltaEnergy = new double[xhosts.length];
+
+        if (SimulatorProperties.getEnergyPerRack()) {
+            RackIndex index = null;
+            try {
+                index = RackIndex.load(new File(SimulatorManager.getPlatformFile()), xhosts, SimulatorProperties.getRackSize());
+            } catch (IOException e) {
+                System.err.println("Cannot read the racks from the platform file: " + e.getMessage());
+                System.exit(1);
+            }
+            this.racks = index;
+            // One trace container per rack, named after its cluster (see RackIndex.getRackName())
+            this.rackNames = new String[index.getNbOfRacks()];
+            for (int r = 0; r < rackNames.length; r++) {
+                rackNames[r] = index.getRackName(r);
+                List<String> hosts = new ArrayList<>(index.getRackTo(r) - index.getRackFrom(r));
+                for (int slot = index.getRackFrom(r); slot < index.getRackTo(r); slot++)
+                    hosts.add(xhosts[index.getHost(slot)].getName());
+                Trace.containerDeclare(rackNames[r], hosts);
+            }
+            Msg.info("Energy traced per rack: " + index);
+        } else {
+            this.racks = null;
+            this.rackNames = null;
+        }
+    }
+
+    public void main(String[] args) throws MsgException {
+        try {
+            while (!SimulatorManager.isEndOfInjection()) {
+                waitFor(period);
+                sample();
+                trace();
+            }
+        } catch (HostFailureException e) {
+            // The injector node cannot fail, just stop sampling
+            Msg.info("The energy sampler has been stopped");
+        }
+    }
+
+    /**
+     * Read the energy consumed by each host (one native call per host)
+     */
+    public void sample() {
+        for (int i = 0; i < xhosts.length; i++) {
+            double energy = xhosts[i].getConsumedEnergy();
+            deltaEnergy[i] = energy - consumedEnergy[i];
+            consumedEnergy[i] = energy;
+        }
+    }
+
+    /**
+     * Trace the energy consumed during the last period
+     */
+    void trace() {
+        if (racks == null) {
+            double sum = 0;
+            for (double delta : deltaEnergy)
+                sum += delta;
+            Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "ENERGY", sum);
+            return;
+        }
+        for (int r = 0; r < rackNames.length; r++) {
+            double sum = 0;
+            for (int slot = racks.getRackFrom(r); slot < racks.getRackTo(r); slot++)
+                sum += deltaEnergy[racks.getHost(slot)];
+            Trace.hostVariableSet(rackNames[r], "ENERGY", sum);
+        }
+    }
+
+    /**
+     * @return the energy consumed by all the hosts at the last reading
+     */
+    public double getConsumedEnergy() {
+        double sum = 0;
+        for (double energy : consumedEnergy)
+            sum += energy;
+        return sum;
+    }
+}
@@ -12,8 +12,21 @@ import scheduling.hierarchical.snooze.*;
 public class HierarchicalResolver extends Process {
 
 
+    /**
+     * The simulation of the resolver
+     */
+    private final SimulationContext context;
+
+    /**
+     * Constructor used by Msg.deployApplication(): the resolver belongs to the current context (see Main)
+     */
     HierarchicalResolver(Host host, String name, String[] args) throws HostNotFoundException, NativeException {
+        this(host, name, args, SimulationContext.current());
+    }
+
+    HierarchicalResolver(Host host, String name, String[] args, SimulationContext context) throws HostNotFoundException, NativeException {
         super(host, name, args);
+        this.context = context;
     }
 
     /**
@@ -0,0 +1,103 @@
+package simulation;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of ids (hosts or VMs) that counts its ids in each segment of the id space as they are set and cleared, so
+ * that the size of the views over these segments is O(1) (see IdView).
+ * The segments are delimited by the given boundaries, e.g. the hosting hosts [0, nbOfHostingHosts[ and the service
+ * hosts [nbOfHostingHosts, nbOfHosts[.
+ */
+final class IdSet {
+
+    private final BitSet bits;
+
+    /**
+     * The boundaries of the segments (increasing): segment k is [boundaries[k - 1], boundaries[k][, the first
+     * segment starts at 0 and the last one ends at Integer.MAX_VALUE
+     */
+    private final int[] boundaries;
+
+    /**
+     * The number of ids of each segment
+     */
+    private final int[] counts;
+
+    /**
+     * @param nbOfIds the initial capacity of the set
+     * @param boundaries the boundaries of the segments (increasing)
+     */
+    IdSet(int nbOfIds, int... boundaries) {
+        this.bits = new BitSet(nbOfIds);
+        this.boundaries = boundaries;
+        this.counts = new int[boundaries.length + 1];
+    }
+
+    private int segment(int id) {
+        int k = Arrays.binarySearch(boundaries, id);
+        return k >= 0 ? k + 1 : -k - 1;
+    }
+
+    private int lowerBound(int k) {
+        return k == 0 ? 0 : boundaries[k - 1];
+    }
+
+    private int upperBound(int k) {
+        return k == boundaries.length ? Integer.MAX_VALUE : boundaries[k];
+    }
+
+    boolean get(int id) {
+        return bits.get(id);
+    }
+
+    void set(int id) {
+        if (!bits.get(id)) {
+            bits.set(id);
+            counts[segment(id)]++;
+        }
+    }
+
+    void clear(int id) {
+        if (bits.get(id)) {
+            bits.clear(id);
+            counts[segment(id)]--;
+        }
+    }
+
+    /**
+     * @see BitSet#nextSetBit(int)
+     */
+    int nextSetBit(int id) {
+        return bits.nextSetBit(id);
+    }
+
+    /**
+     * @return the number of ids of the set
+     */
+    int cardinality() {
+        int res = 0;
+        for (int count : counts)
+            res += count;
+        return res;
+    }
+
+    /**
+     * @return the number of ids of the set in [from, to[ (O(1) if from and to are boundaries of the segments, O(n)
+     * otherwise)
+     */
+    int count(int from, int to) {
+        int first = segment(from);
+        int last = segment(to - 1);
+        if (from == lowerBound(first) && to == upperBound(last)) {
+            int res = 0;
+            for (int k = first; k <= last; k++)
+                res += counts[k];
+            return res;
+        }
+        int res = 0;
+        for (int id = bits.nextSetBit(from); id >= 0 && id < to; id = bits.nextSetBit(id + 1))
+            res++;
+        return res;
+    }
+}
@@ -0,0 +1,82 @@
+package simulation;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only live view of the elements (hosts or VMs) whose id belongs to one of the given sets and to [from, to[.
+ * The sets should be disjoint. The view does not copy anything: it follows the changes of the sets, including the
+ * changes performed while it is iterated (hence, contrary to the views of a HashMap, the collection can be changed
+ * while iterating, e.g. when a scheduler turns hosts off).
+ * The elements are returned by increasing id, and the size of the view is maintained by the sets (see IdSet).
+ */
+abstract class IdView<T> extends AbstractCollection<T> {
+
+    private final IdSet[] sets;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param from the first id of the view
+     * @param to the id following the last id of the view
+     * @param sets the membership of the elements
+     */
+    IdView(int from, int to, IdSet... sets) {
+        this.from = from;
+        this.to = to;
+        this.sets = sets;
+    }
+
+    /**
+     * @return the element whose id is id
+     */
+    abstract T get(int id);
+
+    /**
+     * @return the first id of the view greater or equal to id, -1 if there is none
+     */
+    private int nextId(int id) {
+        int res = -1;
+        for (IdSet set : sets) {
+            int next = set.nextSetBit(id);
+            if (next >= 0 && next < to && (res < 0 || next < res))
+                res = next;
+        }
+        return res;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = nextId(from);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public T next() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                T res = get(next);
+                next = nextId(next + 1);
+                return res;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (IdSet set : sets)
+            size += set.count(from, to);
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nextId(from) < 0;
+    }
+}
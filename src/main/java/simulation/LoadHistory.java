@@ -0,0 +1,187 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * The last (time, load) samples of a set of entities indexed by their id (the VMs or the hosts, see
+ * SimulatorManager.getVMLoadHistory() and SimulatorManager.getHostLoadHistory()), e.g. to forecast the load of a VM
+ * in a scheduler.
+ * Each entity has a ring of capacity samples (the oldest sample is overwritten when the ring is full), and the rings
+ * of all the entities are stored in two flat arrays (the ring of the entity id starts at id * capacity). Hence
+ * appending a sample is O(1) and does not allocate anything (the arrays only grow when new entities arrive, see
+ * ensureCapacity()).
+ * A sample taken at the same time as the previous one replaces it (e.g. a VM updated twice in a batch of load events).
+ */
+public class LoadHistory {
+
+    /**
+     * The number of samples per entity
+     */
+    private final int capacity;
+
+    private double[] times;
+    private double[] loads;
+
+    /**
+     * The position in the ring of the next sample of each entity
+     */
+    private int[] next;
+
+    /**
+     * The number of samples of each entity (at most capacity)
+     */
+    private int[] sizes;
+
+    /**
+     * @param nbOfEntities the initial number of entities
+     * @param capacity the number of samples per entity (> 0)
+     */
+    LoadHistory(int nbOfEntities, int capacity) {
+        this.capacity = capacity;
+        this.times = new double[nbOfEntities * capacity];
+        this.loads = new double[nbOfEntities * capacity];
+        this.next = new int[nbOfEntities];
+        this.sizes = new int[nbOfEntities];
+    }
+
+    /**
+     * Make room for the entities 0 .. nbOfEntities - 1 (amortized O(1): the arrays are doubled when they are full)
+     */
+    void ensureCapacity(int nbOfEntities) {
+        if (nbOfEntities <= next.length)
+            return;
+        int length = Math.max(nbOfEntities, 2 * next.length);
+        times = Arrays.copyOf(times, length * capacity);
+        loads = Arrays.copyOf(loads, length * capacity);
+        next = Arrays.copyOf(next, length);
+        sizes = Arrays.copyOf(sizes, length);
+    }
+
+    /**
+     * Drop the samples of an entity (e.g. the slot of a VM that has left is reused by a new VM)
+     */
+    void clear(int id) {
+        if (id < sizes.length) {
+            next[id] = 0;
+            sizes[id] = 0;
+        }
+    }
+
+    /**
+     * Record the load of an entity
+     * @param id the id of the entity
+     * @param time the simulated time (see SimulatorManager.getClock())
+     * @param load the load (e.g. XVM.getLoad() or XHost.getCPUDemand())
+     */
+    void append(int id, double time, double load) {
+        int base = id * capacity;
+        if (sizes[id] > 0) {
+            int last = base + (next[id] + capacity - 1) % capacity;
+            if (times[last] == time) {
+                loads[last] = load;
+                return;
+            }
+        }
+        times[base + next[id]] = time;
+        loads[base + next[id]] = load;
+        next[id] = (next[id] + 1) % capacity;
+        if (sizes[id] < capacity)
+            sizes[id]++;
+    }
+
+    /**
+     * @return the maximum number of samples per entity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of samples of the entity
+     */
+    public int size(int id) {
+        return id < sizes.length ? sizes[id] : 0;
+    }
+
+    /**
+     * @param i the index of the sample, from 0 (the oldest one) to size(id) - 1 (the last one)
+     */
+    private int position(int id, int i) {
+        return id * capacity + (next[id] - sizes[id] + i + capacity) % capacity;
+    }
+
+    /**
+     * @param i the index of the sample, from 0 (the oldest one) to size(id) - 1 (the last one)
+     * @return the time of the sample
+     */
+    public double getTime(int id, int i) {
+        return times[position(id, i)];
+    }
+
+    /**
+     * @param i the index of the sample, from 0 (the oldest one) to size(id) - 1 (the last one)
+     * @return the load of the sample
+     */
+    public double getLoad(int id, int i) {
+        return loads[position(id, i)];
+    }
+
+    /**
+     * @return the last load of the entity (NaN if there is no sample)
+     */
+    public double getLastLoad(int id) {
+        return size(id) > 0 ? getLoad(id, sizes[id] - 1) : Double.NaN;
+    }
+
+    /**
+     * @return the mean of the samples of the entity (NaN if there is no sample)
+     */
+    public double getMean(int id) {
+        int n = size(id);
+        if (n == 0)
+            return Double.NaN;
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += loads[position(id, i)];
+        return sum / n;
+    }
+
+    /**
+     * @return the highest sample of the entity (NaN if there is no sample)
+     */
+    public double getPeak(int id) {
+        int n = size(id);
+        if (n == 0)
+            return Double.NaN;
+        double peak = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++)
+            peak = Math.max(peak, loads[position(id, i)]);
+        return peak;
+    }
+
+    /**
+     * @return the trend of the load of the entity, i.e. the slope of the least squares line of the samples (load per
+     * second), 0 if there are less than two samples
+     */
+    public double getTrend(int id) {
+        int n = size(id);
+        if (n < 2)
+            return 0;
+        double meanTime = 0;
+        double meanLoad = 0;
+        for (int i = 0; i < n; i++) {
+            meanTime += times[position(id, i)];
+            meanLoad += loads[position(id, i)];
+        }
+        meanTime /= n;
+        meanLoad /= n;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dt = times[position(id, i)] - meanTime;
+            covariance += dt * (loads[position(id, i)] - meanLoad);
+            variance += dt * dt;
+        }
+        return variance > 0 ? covariance / variance : 0;
+    }
+}
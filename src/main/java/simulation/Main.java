@@ -70,6 +70,10 @@ public class Main {
         // print logback's internal status
         StatusPrinter.print(lc);
 
+        // The state of this simulation, given to the processes deployed below (see SimulationContext and Batch)
+        SimulationContext context = new SimulationContext(new SimulatorProperties());
+        SimulationContext.activate(context);
+
         // Save the begining time
         SimulatorManager.setBeginTimeOfSimulation(System.currentTimeMillis());
 
@@ -113,13 +117,26 @@ public class Main {
         /* construct the platform and deploy the application */
         Msg.createEnvironment(args[0]);
         Msg.deployApplication(args[1]);
+        SimulatorManager.setPlatformFile(args[0]);
 
         /* Create all VM instances and assign them on the PMs */
         /* The initial deployment is based on a round robin fashion */
         System.out.println("Configure simulation" + new Date().toString());
         SimulatorManager.cleanLog();
+        // Restore the placement of the checkpoint, if any (the rest of the state is restored by the injector)
+        int[] placement = null;
+        if (SimulatorProperties.getRestoreFile() != null) {
+            try {
+                Checkpoint checkpoint = Checkpoint.read(new File(SimulatorProperties.getRestoreFile()));
+                context.setRestoredCheckpoint(checkpoint);
+                placement = checkpoint.getInitialPlacement();
+            } catch (IOException e) {
+                System.err.println("Cannot restore the checkpoint: " + e.getMessage());
+                System.exit(1);
+            }
+        }
         // True means round robin placement.
-        SimulatorManager.configureHostsAndVMs(SimulatorProperties.getNbOfHostingNodes(), SimulatorProperties.getNbOfServiceNodes(), SimulatorProperties.getNbOfVMs(), true);
+        SimulatorManager.configureHostsAndVMs(SimulatorProperties.getNbOfHostingNodes(), SimulatorProperties.getNbOfServiceNodes(), SimulatorProperties.getNbOfVMs(), true, placement);
         SimulatorManager.writeCurrentConfiguration();
 
         String algorithmName = SimulatorProperties.getAlgo();
@@ -158,6 +175,7 @@ public class Main {
         Trace.hostVariableDeclare("NB_VM_TRUE"); //To follow the true number of VMs.
 
         Trace.hostVariableDeclare("ENERGY");
+        Trace.hostVariableDeclare("NET_LOAD"); //Network consumption (MBytes per second)
         Trace.hostVariableDeclare("NB_OFF"); //Nb of hosts turned off
         Trace.hostVariableDeclare("NB_ON"); //Nb of hosts turned on
 
@@ -0,0 +1,300 @@
+package simulation;
+
+import configuration.NativeCalls;
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import configuration.XVM;
+import injector.AdaptiveResolution;
+import injector.EventHeap;
+import injector.Injector;
+import scheduling.GeneralProperties;
+import scheduling.PlacementPolicy;
+import scheduling.distributed.dvms2.dvms.dvms2.LoggingActor;
+import trace.TraceImpl;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+/**
+ * The state of one simulation: its properties (SimulatorProperties and the properties of the schedulers), the hosts
+ * and VMs of the SimulatorManager, the events submitted to the injector, the counters of the native calls and the
+ * trace.
+ * The processes of the simulation get their context through their constructors (Injector, the resolvers, the
+ * schedulers built by SchedulerBuilder); the static facades (SimulatorManager, SimulatorProperties, the scheduler
+ * properties, NativeCalls, Trace) work on the current context, i.e. the one activated by Main.
+ * Please note that the SimGrid kernel is global to the process and can only run once: a simulation has one context,
+ * and several scenarios are run back-to-back by Batch, each one in its own JVM. Several contexts can nevertheless be
+ * activated one after the other in the same JVM as long as the kernel does not run (e.g. in the tests).
+ */
+public class SimulationContext {
+
+    private static SimulationContext current = null;
+
+    /**
+     * @return the context of the current simulation (a context based on the default properties file is created if
+     * none has been activated)
+     */
+    public static SimulationContext current() {
+        if (current == null)
+            current = new SimulationContext(new SimulatorProperties());
+        return current;
+    }
+
+    /**
+     * Make the given context the current one
+     * @param context the context of the next simulation
+     * @return the previous context (null if there was none)
+     */
+    public static SimulationContext activate(SimulationContext context) {
+        SimulationContext previous = current;
+        current = context;
+        LoggingActor.open(SimulatorProperties.getTraceFile());
+        return previous;
+    }
+
+    private final SimulatorProperties properties;
+
+    /* The state of the SimulatorManager (see the corresponding accessors of SimulatorManager) */
+
+    int nbOfSuspensions = 0;
+    int nbOfResumes = 0;
+
+    /**
+     * Stupid variable to monitor the duration of the simulation
+     */
+    double beginTimeOfSimulation = -1;
+    /**
+     * Stupid variable to monitor the duration of the simulation
+     */
+    double endTimeOfSimulation = -1;
+
+    /**
+     * The SimGrid platform file of the simulation
+     */
+    String platformFile = null;
+
+    /**
+     * The ids of the XVMs that are considered as off (i.e. the hosting machine is off or the VM is suspended)
+     * @see configuration.XVM
+     */
+    IdSet sgVMsOff = null;
+
+    /**
+     * The ids of the XVMs that run
+     * @see configuration.XVM
+     */
+    IdSet sgVMsOn = null;
+
+    /**
+     * The ids of the XVMs that should be suspend (right now, it is impossible to suspend VMs that are currently migrated)
+     * This set is used to suspend VMs after the completion of the migration process.
+     * @see configuration.XVM
+     */
+    BitSet sgVMsToSuspend = null;
+
+    /**
+     * The ids of the XHosts that are off
+     * @see configuration.XHost
+     */
+    IdSet sgHostsOff = null;
+    /**
+     * The ids of the Xhosts that are running
+     */
+    IdSet sgHostsOn = null;
+
+    /**
+     * The hosting hosts are xhosts[0 .. nbOfHostingHosts-1], the service hosts are the following ones
+     */
+    int nbOfHostingHosts = 0;
+
+    /**
+     * The hosts and the VMs by name (a VM is removed when it leaves)
+     */
+    HashMap<String,XHost> hostsByName = null;
+    HashMap<String,XVM> vmsByName = null;
+
+    /**
+     * Just a stupid sorted table to have a reference toward each host and vm, indexed by their id
+     * Used by the injector when generating the different event queues.
+     */
+    XHost[] xhosts = null;
+    /**
+     * The VMs by index. The slots of the VMs that have left are set to null and reused by the VMs that arrive (see
+     * SimulatorManager.createVM()), the array only grows when all the slots are used.
+     */
+    XVM[] xvms = null;
+    /**
+     * Number of used slots of xvms (i.e. the highest VM index + 1)
+     */
+    int nbOfVMSlots = 0;
+    /**
+     * The free slots of xvms below nbOfVMSlots. A VM that arrives takes the lowest free slot, hence the slots only
+     * depend on the set of free slots (which is restored from a checkpoint) and not on the order of the departures.
+     */
+    BitSet freeVMSlots = null;
+    /**
+     * The number of the VM of each slot of xvms (the initial VMs are numbered 0 .. nbOfVMs-1 and keep their slot, then
+     * the VMs are numbered in order of arrival, see VMArrivalEvent), and the VMs by number
+     */
+    int[] vmNumbers = null;
+    HashMap<Integer,XVM> vmsByNumber = null;
+    /**
+     * The arrival time of the VM of each slot of xvms (0 for the initial VMs), see ChainedLoadEvent
+     */
+    double[] vmArrivals = null;
+
+    /**
+     * Placement policy of the VMs that arrive during the simulation (built on the first arrival)
+     */
+    PlacementPolicy placementPolicy = null;
+
+    /**
+     * Number of VMs that have arrived and left during the simulation, and of VMs that could not be placed
+     */
+    int nbOfArrivals = 0;
+    int nbOfDepartures = 0;
+    int nbOfRejectedVMs = 0;
+
+    /**
+     * Cluster-wide aggregates (see SimulatorManager.refreshAggregates())
+     */
+    double globalCPUDemand = 0;
+    long globalCPUCapacity = 0;
+    int nbOfUsedHosts = 0;
+    int nbOfNonViableHosts = 0;
+    SimulatorManager.HostContribution[] contributions = new SimulatorManager.HostContribution[0];
+    boolean checkAggregates = false;
+
+    /**
+     * The time of the checkpoint the simulation has been restored from (see SimulatorManager.getClock()) and the
+     * checkpoint itself (null if the simulation starts from the initial placement)
+     */
+    double timeOffset = 0;
+    Checkpoint restoredCheckpoint = null;
+
+    /**
+     * The energy consumed by each host at its previous update (indexed by the id of the hosts), unused when the energy
+     * is sampled periodically
+     */
+    double[] lastEnergy = new double[0];
+
+    /**
+     * Whether the energy is sampled periodically (see EnergySampler) and the sampler process (null until it starts)
+     */
+    boolean periodicEnergy = false;
+    EnergySampler energySampler = null;
+
+    /**
+     * The last loads of the VMs and of the hosts, indexed by their id (null if there is no history)
+     */
+    LoadHistory vmLoadHistory = null;
+    LoadHistory hostLoadHistory = null;
+
+    /* The state of the injector */
+
+    /**
+     * Events submitted during the simulation (see Injector.submit())
+     */
+    private final EventHeap submittedEvents = new EventHeap();
+
+    /**
+     * The injector of the simulation (null until it has been created)
+     */
+    private Injector injector = null;
+
+    /**
+     * The trace of the simulation (created on the first use)
+     */
+    private TraceImpl trace = null;
+
+    /**
+     * The properties of the schedulers by class (see getSchedulerProperties())
+     */
+    private final HashMap<Class<?>, GeneralProperties> schedulerProperties = new HashMap<>();
+
+    /**
+     * The counters of the native calls of the simulation
+     */
+    private final NativeCalls nativeCalls = new NativeCalls();
+
+    /**
+     * The adaptive resolution of the load processes, calibrated on the initial VMs and applied to the arrivals
+     * (created on the first use)
+     */
+    private AdaptiveResolution adaptiveResolution = null;
+
+    /**
+     * @param properties the properties of the simulation
+     */
+    public SimulationContext(SimulatorProperties properties) {
+        this.properties = properties;
+    }
+
+    public SimulatorProperties getProperties() {
+        return properties;
+    }
+
+    public EventHeap getSubmittedEvents() {
+        return submittedEvents;
+    }
+
+    public Injector getInjector() {
+        return injector;
+    }
+
+    public void setInjector(Injector injector) {
+        this.injector = injector;
+    }
+
+    /**
+     * @return the checkpoint the simulation is restored from (null if it starts from the initial placement)
+     */
+    public Checkpoint getRestoredCheckpoint() {
+        return restoredCheckpoint;
+    }
+
+    public void setRestoredCheckpoint(Checkpoint checkpoint) {
+        this.restoredCheckpoint = checkpoint;
+    }
+
+    /**
+     * @return the adaptive resolution of the load processes, null if loadinjector.adaptive is not set
+     */
+    public AdaptiveResolution getAdaptiveResolution() {
+        if (adaptiveResolution == null && SimulatorProperties.getAdaptiveResolution())
+            adaptiveResolution = new AdaptiveResolution();
+        return adaptiveResolution;
+    }
+
+    /**
+     * @param type the class of the properties (e.g. SnoozeProperties)
+     * @param factory creates the properties (read from their default file) on the first use
+     * @return the properties of the given class for this simulation
+     */
+    public <T extends GeneralProperties> T getSchedulerProperties(Class<T> type, Supplier<T> factory) {
+        GeneralProperties properties = schedulerProperties.get(type);
+        if (properties == null) {
+            properties = factory.get();
+            schedulerProperties.put(type, properties);
+        }
+        return type.cast(properties);
+    }
+
+    /**
+     * Replace the properties of a scheduler (e.g. to read them from another file)
+     */
+    public void setSchedulerProperties(GeneralProperties properties) {
+        schedulerProperties.put(properties.getClass(), properties);
+    }
+
+    public NativeCalls getNativeCalls() {
+        return nativeCalls;
+    }
+
+    public TraceImpl getTrace() {
+        if (trace == null)
+            trace = new TraceImpl();
+        return trace;
+    }
+}
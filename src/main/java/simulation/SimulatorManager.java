@@ -15,10 +15,14 @@
 package simulation;
 
 import configuration.*;
+import injector.Injector;
+import injector.InjectorEvent;
 import org.simgrid.msg.Host;
 import org.simgrid.msg.HostNotFoundException;
 import org.simgrid.msg.Msg;
 import org.simgrid.msg.MsgException;
+import scheduling.PlacementPolicy;
+import scheduling.SchedulerBuilder;
 import scheduling.hierarchical.snooze.LocalController;
 import scheduling.hierarchical.snooze.Logger;
 import trace.Trace;
@@ -37,81 +41,33 @@ import java.util.*;
  * To change this template use File | Settings | File Templates.
  */
 public class SimulatorManager {
-    public static int iSuspend = 0;
-    public static int iResume = 0;
-
-    /**
-     * Stupid variable to monitor the duration of the simulation
-     */
-    private static double beginTimeOfSimulation = -1;
-    /**
-     * Stupid variable to monitor the duration of the simulation
-     */
-    private static double endTimeOfSimulation = -1;
-
-    /**
-     * The list of XVMs that are considered as off (i.e. the hosting machine is off)
-     * @see configuration.XVM
-     */
-    private static HashMap<String,XVM> sgVMsOff = null;
-
-    /**
-     * The list of XVMs that run
-     * @see configuration.XVM
-     */
-    private static HashMap<String,XVM> sgVMsOn = null;
-
-    /**
-     * The list of XVMs that should be suspend (right now, it is impossible to suspend VMs that are currently migrated)
-     * This collection is used to suspend VMs after the completion of the migration process.
-     * @see configuration.XVM
-     */
-    public static HashMap<String,XVM> sgVMsToSuspend = null;
-
-    /**
-     * The list of XHosts that are off
-     * @see configuration.XHost
-     */
-    private static HashMap<String,XHost> sgHostsOff= null;
-    /**
-     * The list of Xhosts  that are running
-     */
-    private static HashMap<String,XHost> sgHostsOn= null;
-
-    /**
-     * The list of all XHosts
-     * @see configuration.XHost
-     */
-    private static HashMap<String,XHost> sgHostingHosts= null;
-    /**
-     * The list of Xhosts  that are running
-     */
-    private static HashMap<String, XHost> sgServiceHosts= null;
-    /**
-     * Just a stupid sorted table to have a reference toward each host and vm
-     * Used by the injector when generating the different event queues.
-     */
-    private static XHost[] xhosts = null;
-    private static XVM[] xvms = null;
     /**
-     * Average CPU demand of the infrastructure (just a hack to avoid to compute the CPUDemand each time (computing the CPU demand is O(n)
+     * The contribution of a host to the aggregates (as it was accounted for the last time, see refreshAggregates())
      */
-    // TODO Adrien the currentCPUDemand is currently not correctly assigned (this should be done in the update function)
-    private static double currentCPUDemand = 0;
+    static class HostContribution {
+        private double cpuDemand = 0;
+        private int cpuCapacity = 0;
+        private boolean used = false;
+        private boolean nonViable = false;
+    }
 
     /**
-     * The previous energy consumption
+     * @return the state of the current simulation
      */
-    private static Map<XHost, Double> lastEnergy = new HashMap<>();
+    private static SimulationContext context() {
+        return SimulationContext.current();
+    }
 
     /**
      * When the injection is complete, we turn the endOfInjection boolean to true and kill the running daemon inside each VM
      */
     public static void setEndOfInjection(){
-        endTimeOfSimulation = System.currentTimeMillis();
+        context().endTimeOfSimulation = System.currentTimeMillis();
 
-        Msg.info(sgHostsOn.size()+"/"+ getSGHosts().size()+"are up");
-        Msg.info(sgVMsOn.size()+"/"+getSGVMs().size()+" are up");
+        Msg.info(context().sgHostsOn.cardinality()+"/"+ getSGHosts().size()+"are up");
+        Msg.info(context().sgVMsOn.cardinality()+"/"+getSGVMs().size()+" are up");
+        if (context().nbOfArrivals + context().nbOfDepartures + context().nbOfRejectedVMs > 0)
+            Msg.info(String.format("VM churn: %d arrivals, %d departures, %d VMs could not be placed", context().nbOfArrivals, context().nbOfDepartures, context().nbOfRejectedVMs));
 
         for (XHost host : SimulatorManager.getSGHosts()) {
             Msg.info(host.getName() + " has been turned off "+host.getTurnOffNb()+" times and violated "+host.getNbOfViolations());
@@ -122,51 +78,64 @@ public class SimulatorManager {
             Msg.info(vm.getName() + " load changes: "+vm.getNbOfLoadChanges() + "/ migrated: "+vm.getNbOfMigrations());
             //vm.getDaemon().kill();
         }
-        Msg.info("Duration of the simulation in ms: "+(endTimeOfSimulation - beginTimeOfSimulation));
+        Msg.info("Duration of the simulation in ms: "+(context().endTimeOfSimulation - context().beginTimeOfSimulation));
     }
 
     /**
      * @return whether the injection is completed or not
      */
     public static boolean isEndOfInjection(){
-        return (endTimeOfSimulation != -1);
+        return (context().endTimeOfSimulation != -1);
     }
 
 
     /**
      * @return the collection of XVMs: all VMs, the running and the ones that are considered as dead
      * (i.e. hosted on hosts that have been turned off)
+     * Please note that the collections of VMs and hosts are read-only views sorted by id (they are not copied)
      */
     public static Collection<XVM> getSGVMs(){
-        LinkedList<XVM> tmp = new LinkedList<>(sgVMsOn.values());
-        tmp.addAll(sgVMsOff.values());
-        return tmp;
+        return vmView(context().sgVMsOn, context().sgVMsOff);
     }
 
     /**
      * @return the collection of running XVMs
      */
     public static Collection<XVM> getSGVMsOn(){
-        return sgVMsOn.values();
+        return vmView(context().sgVMsOn);
     }
 
     /**
      * @return the collection of the XVMs considered as dead
      */
     public static Collection<XVM> getSGVMsOff(){
-        return sgVMsOff.values();
+        return vmView(context().sgVMsOff);
+    }
+
+    private static Collection<XVM> vmView(IdSet... sets) {
+        return new IdView<XVM>(0, Integer.MAX_VALUE, sets) {
+            @Override
+            XVM get(int id) {
+                return context().xvms[id];
+            }
+        };
     }
 
+    private static Collection<XHost> hostView(int from, int to, IdSet... sets) {
+        return new IdView<XHost>(from, to, sets) {
+            @Override
+            XHost get(int id) {
+                return context().xhosts[id];
+            }
+        };
+    }
 
     /**
      * @return the collection of XHosts (i.e. the hosts that composed the infrastructure).
-     * Please note that the returned collection is not sorted. If you need a sorted structure, you should call getSGHostsToArray() that returns an simple array
+     * Please note that the returned collection is sorted by id, as getSGHostsToArray() that returns an simple array
      */
     public static Collection<XHost> getSGHosts(){
-        LinkedList<XHost> tmp = new LinkedList<XHost>(sgHostingHosts.values());
-        tmp.addAll(sgServiceHosts.values());
-
-        return tmp;
+        return hostView(0, context().xhosts.length, context().sgHostsOn, context().sgHostsOff);
     }
 
     /**
@@ -174,11 +143,39 @@ public class SimulatorManager {
      * Please note that the returned collection is not sorted. If you need a sorted structure, you should call getSGHosts() that returns an simple array
      */
     public static XHost[] getSGHostsToArray(){
-        return xhosts;
+        return context().xhosts;
     }
 
+    /**
+     * @return a copy of the VMs sorted by index (the slots of the VMs that have left are null). The copy is not
+     * updated when a slot is reused, so that the events generated from it keep targeting the VMs they were generated
+     * for.
+     */
     public static XVM[] getSGVMsToArray() {
-        return xvms;
+        return Arrays.copyOf(context().xvms, context().nbOfVMSlots);
+    }
+
+    /**
+     * @param index the index of the VM (i.e. vm-index)
+     * @return the VM, null if it does not exist (anymore)
+     */
+    public static XVM getXVM(int index) {
+        return index < context().nbOfVMSlots ? context().xvms[index] : null;
+    }
+
+    /**
+     * @return the number of the VM (see VMArrivalEvent), which differs from its index when the VM has taken the slot
+     * of a VM that has left
+     */
+    public static int getVMNumber(XVM vm) {
+        return context().vmNumbers[vm.getId()];
+    }
+
+    /**
+     * @return the time the VM has arrived at (see VMArrivalEvent), 0 for the initial VMs
+     */
+    public static double getVMArrival(XVM vm) {
+        return context().vmArrivals[vm.getId()];
     }
 
     /**
@@ -186,35 +183,32 @@ public class SimulatorManager {
      * Please note that all HostingHosts are returned (without making any distinctions between on and off hosts)
      */
     public static Collection<XHost> getSGHostingHosts(){
-        return sgHostingHosts.values();
+        return hostView(0, context().nbOfHostingHosts, context().sgHostsOn, context().sgHostsOff);
     }
 
     /**
      * @return the collection of XHosts that have been declared as hosting nodes (i.e. that can host VMs) and that are turned on.
      */
     public static Collection<XHost> getSGTurnOnHostingHosts() {
-        LinkedList<XHost> tmp = new LinkedList<XHost>();
-        for (XHost h: sgHostingHosts.values())
-            if (!h.isOff())
-                tmp.add(h);
-
-        return tmp;
+        return hostView(0, context().nbOfHostingHosts, context().sgHostsOn);
     }
 
     public static Collection<XHost> getSGTurnOffHostingHosts() {
-        LinkedList<XHost> tmp = new LinkedList<XHost>();
-        for(XHost h: sgHostingHosts.values())
-            if(h.isOff())
-                tmp.add(h);
-
-        return tmp;
+        return hostView(0, context().nbOfHostingHosts, context().sgHostsOff);
     }
 
     /**
      * @return the collection of XHosts that have been declared as services nodes (i.e. that cannot host VMs)
      */
     public static Collection<XHost> getSGServiceHosts(){
-        return sgServiceHosts.values();
+        return hostView(context().nbOfHostingHosts, context().xhosts.length, context().sgHostsOn, context().sgHostsOff);
+    }
+
+    /**
+     * @return whether the host has been declared as hosting node (i.e. it can host VMs)
+     */
+    public static boolean isHostingHost(XHost host) {
+        return host.getId() >= 0 && host.getId() < context().nbOfHostingHosts && context().xhosts[host.getId()] == host;
     }
 
 
@@ -238,24 +232,32 @@ public class SimulatorManager {
         // Since SG does not make any distinction between Host and Virtual Host (VMs and Hosts belong to the Host SG table)
         // we should retrieve first the real host in a separated table
         // Please remind that node0 does not host VMs (it is a service node) and hence, it is managed separately (getInjectorNodeName())
-        sgHostsOn = new HashMap<String,XHost>();
-        sgHostsOff = new HashMap<String,XHost>();
-        sgHostingHosts = new HashMap<String,XHost>();
-        sgServiceHosts = new HashMap<String,XHost>();
-        xhosts = new XHost[nbOfHostingHosts+nbOfServiceHosts];
+        // The hosting hosts and the service hosts are counted separately (see getSGHostingHosts() and getSGServiceHosts())
+        context().sgHostsOn = new IdSet(nbOfHostingHosts+nbOfServiceHosts, nbOfHostingHosts, nbOfHostingHosts+nbOfServiceHosts);
+        context().sgHostsOff = new IdSet(nbOfHostingHosts+nbOfServiceHosts, nbOfHostingHosts, nbOfHostingHosts+nbOfServiceHosts);
+        context().hostsByName = new HashMap<String,XHost>();
+        context().nbOfHostingHosts = nbOfHostingHosts;
+        context().xhosts = new XHost[nbOfHostingHosts+nbOfServiceHosts];
+        context().lastEnergy = new double[nbOfHostingHosts+nbOfServiceHosts];
+        context().periodicEnergy = SimulatorProperties.getEnergyPeriod() > 0;
+        context().hostLoadHistory = SimulatorProperties.getLoadHistorySize() > 0 ? new LoadHistory(nbOfHostingHosts+nbOfServiceHosts, SimulatorProperties.getLoadHistorySize()) : null;
+        resetAggregates();
 
         XHost xtmp;
 
         // Hosting hosts
         for(int i = 0 ; i < nbOfHostingHosts ; i ++){
             try {
+                NativeCalls.count(NativeCalls.Call.HOST_GET_BY_NAME);
                 Host tmp = Host.getByName("node" + i);
                 // The SimulatorProperties.getCPUCapacity returns the value indicated by nodes.cpucapacity in the simulator.properties file
                 xtmp = new XHost (tmp, SimulatorProperties.getMemoryTotal(), SimulatorProperties.getNbOfCPUs(), SimulatorProperties.getCPUCapacity(), SimulatorProperties.getNetCapacity(), "127.0.0.1");
                 xtmp.turnOn();
-                sgHostsOn.put("node"+i, xtmp);
-                sgHostingHosts.put("node" + i, xtmp);
-                xhosts[i]=xtmp;
+                xtmp.setId(i);
+                context().sgHostsOn.set(i);
+                context().hostsByName.put("node" + i, xtmp);
+                context().xhosts[i]=xtmp;
+                refreshAggregates(xtmp);
             } catch (HostNotFoundException e) {
                 e.printStackTrace();
             }
@@ -264,13 +266,16 @@ public class SimulatorManager {
         //Service hosts
         for(int i = nbOfHostingHosts ; i < nbOfHostingHosts+nbOfServiceHosts ; i ++){
             try {
+                NativeCalls.count(NativeCalls.Call.HOST_GET_BY_NAME);
                 Host tmp = Host.getByName("node" + i);
                 // The SimulatorProperties.getCPUCapacity returns the value indicated by nodes.cpucapacity in the simulator.properties file
                 xtmp = new XHost (tmp, SimulatorProperties.getMemoryTotal(), SimulatorProperties.getNbOfCPUs(), SimulatorProperties.getCPUCapacity(), SimulatorProperties.getNetCapacity(), "127.0.0.1");
                 xtmp.turnOn();
-                sgHostsOn.put("node" + i, xtmp);
-                sgServiceHosts.put("node" + i, xtmp);
-                xhosts[i]=xtmp;
+                xtmp.setId(i);
+                context().sgHostsOn.set(i);
+                context().hostsByName.put("node" + i, xtmp);
+                context().xhosts[i]=xtmp;
+                refreshAggregates(xtmp);
             } catch (HostNotFoundException e) {
                 e.printStackTrace();
             }
@@ -289,6 +294,15 @@ public class SimulatorManager {
      * @param nbOfVMs the number of the VMs to instanciate
      */
     public static void configureHostsAndVMs(int nbOfHostingHosts, int nbOfServiceHosts, int nbOfVMs, boolean balance) {
+        configureHostsAndVMs(nbOfHostingHosts, nbOfServiceHosts, nbOfVMs, balance, null);
+    }
+
+    /**
+     * Create and assign the VMs on the given hosts (see Checkpoint).
+     * The classes of the VMs are drawn as in the default placement, hence a VM gets the same class in both cases.
+     * @param placement the id of the host of each VM, -1 if the VM should not be created (null for the default placement)
+     */
+    public static void configureHostsAndVMs(int nbOfHostingHosts, int nbOfServiceHosts, int nbOfVMs, boolean balance, int[] placement) {
         int nodeIndex = 0;
         int[] nodeMemCons = new int[nbOfHostingHosts];
         int[] nodeCpuCons = new int[nbOfHostingHosts];
@@ -299,12 +313,19 @@ public class SimulatorManager {
         VMClasses.VMClass vmClass;
 
         initHosts(nbOfHostingHosts, nbOfServiceHosts);
-        sgVMsOn = new HashMap<String,XVM>();
-        sgVMsOff = new HashMap<String,XVM>();
-        sgVMsToSuspend = new HashMap<String,XVM>();
+        context().sgVMsOn = new IdSet(nbOfVMs);
+        context().sgVMsOff = new IdSet(nbOfVMs);
+        context().sgVMsToSuspend = new BitSet(nbOfVMs);
+        context().vmsByName = new HashMap<String,XVM>();
 
 
-        xvms = new XVM[nbOfVMs];
+        context().xvms = new XVM[nbOfVMs];
+        context().nbOfVMSlots = nbOfVMs;
+        context().freeVMSlots = new BitSet(nbOfVMs);
+        context().vmNumbers = new int[nbOfVMs];
+        context().vmsByNumber = new HashMap<Integer,XVM>();
+        context().vmArrivals = new double[nbOfVMs];
+        context().vmLoadHistory = SimulatorProperties.getLoadHistorySize() > 0 ? new LoadHistory(nbOfVMs, SimulatorProperties.getLoadHistorySize()) : null;
 
         XVM sgVMTmp;
 
@@ -328,30 +349,45 @@ public class SimulatorManager {
 
             double vmsPerNodeRatio = ((double) nbOfVMs)/nbOfHostingHosts;
 
-            try {
-                while ((nodeMemCons[nodeIndex] + vmClass.getMemSize() > sgHostTmp.getMemSize()
-                        || nodeCpuCons[nodeIndex] + SimulatorProperties.getMeanLoad() > sgHostTmp.getCPUCapacity())
-                        || (balance && nbVMOnNode >= vmsPerNodeRatio)) {
-                    sgHostTmp = sgHostsIterator.next();
-                    nodeMemCons[++nodeIndex] = 0;
-                    nodeCpuCons[nodeIndex] = 0;
-                    nbVMOnNode = 0;
+            if (placement != null) {
+                if (placement[vmIndex] < 0) {
+                    // The VM had left when the checkpoint was written (the slot may be used by a VM that has arrived)
+                    context().freeVMSlots.set(vmIndex);
+                    vmIndex++;
+                    continue;
+                }
+                sgHostTmp = context().xhosts[placement[vmIndex]];
+            } else {
+                try {
+                    while ((nodeMemCons[nodeIndex] + vmClass.getMemSize() > sgHostTmp.getMemSize()
+                            || nodeCpuCons[nodeIndex] + SimulatorProperties.getMeanLoad() > sgHostTmp.getCPUCapacity())
+                            || (balance && nbVMOnNode >= vmsPerNodeRatio)) {
+                        sgHostTmp = sgHostsIterator.next();
+                        nodeMemCons[++nodeIndex] = 0;
+                        nodeCpuCons[nodeIndex] = 0;
+                        nbVMOnNode = 0;
+                    }
+                } catch(NoSuchElementException ex){
+                    System.err.println("There is not enough memory on the physical hosts to start all VMs");
+                    System.err.println(String.format("Number of hosts: %d", nbOfHostingHosts));
+                    System.err.println(String.format("Number of VMs: %d", nbOfVMs));
+                    System.err.println(String.format("VM placed: %d", vmIndex));
+                    System.err.println("(Please fix simulator.properties parameters and you should dive in the SimulatorManager.configureHostsAndVMs() function");
+                    System.exit(1);
                 }
-            } catch(NoSuchElementException ex){
-                System.err.println("There is not enough memory on the physical hosts to start all VMs");
-                System.err.println(String.format("Number of hosts: %d", nbOfHostingHosts));
-                System.err.println(String.format("Number of VMs: %d", nbOfVMs));
-                System.err.println(String.format("VM placed: %d", vmIndex));
-                System.err.println("(Please fix simulator.properties parameters and you should dive in the SimulatorManager.configureHostsAndVMs() function");
-                System.exit(1);
             }
 
             // Creation of the VM
             sgVMTmp = new XVM(sgHostTmp, "vm-" + vmIndex,
                     vmClass.getNbOfCPUs(), vmClass.getMemSize(), vmClass.getNetBW(), null, -1, vmClass.getMigNetBW(), vmClass.getMemIntensity());
-            sgVMsOn.put("vm-"+vmIndex, sgVMTmp);
-
-            xvms[vmIndex] = sgVMTmp;
+            sgVMTmp.setDPIntensityFunction(vmClass.getMemIntensity(), vmClass.getMemIntensityAtFullLoad());
+            sgVMTmp.setId(vmIndex);
+            context().sgVMsOn.set(vmIndex);
+            context().vmsByName.put("vm-"+vmIndex, sgVMTmp);
+            context().vmNumbers[vmIndex] = vmIndex;
+            context().vmsByNumber.put(vmIndex, sgVMTmp);
+
+            context().xvms[vmIndex] = sgVMTmp;
             vmIndex++;
 
             Msg.info(String.format("vm: %s, %d, %d, %s",
@@ -364,6 +400,7 @@ public class SimulatorManager {
 
             // Assign the new VM to the current host.
             sgHostTmp.start(sgVMTmp);     // When the VM starts, its getCPUDemand equals 0
+            refreshAggregates(sgHostTmp);
             nbVMOnNode ++;
             nodeMemCons[nodeIndex] += sgVMTmp.getMemSize();
             nodeCpuCons[nodeIndex] += SimulatorProperties.getMeanLoad();
@@ -413,10 +450,18 @@ public class SimulatorManager {
     /**
      * @return whether the current placement is viable or not (i.e. if every VM gets its expectations).
      * Please note that we are considering only the hosts that are running.
-     * Complexity O(n)
+     * Complexity O(1)
      */
     public static boolean isViable() {
-        for (XHost h: sgHostsOn.values()){
+        return context().nbOfNonViableHosts == 0;
+    }
+
+    /**
+     * Full scan counterpart of isViable() (see simulator.checkaggregates)
+     * Complexity O(n)
+     */
+    public static boolean computeViability() {
+        for (XHost h: hostView(0, context().xhosts.length, context().sgHostsOn)){
             if(!h.isViable())
                 return false;
         }
@@ -426,13 +471,15 @@ public class SimulatorManager {
     /**
      * @return the average expected load at a particular moment (i.e. average load of each node)
      * Please note that we are considering only the hosts hosting VMs and that are up.
+     * Full scan counterpart of getCPUDemand() (see simulator.checkaggregates)
+     * Complexity O(n)
      */
     public static double computeCPUDemand() {
 
         double globalCpuDemand = 0.0;
         int globalCpuCapacity = 0;
 
-        for(XHost h: sgHostingHosts.values()){
+        for(XHost h: getSGHostingHosts()){
             if(h.isOn()) {
                 globalCpuDemand += h.getCPUDemand();
                 globalCpuCapacity += h.getCPUCapacity();
@@ -441,24 +488,118 @@ public class SimulatorManager {
         return 100 * globalCpuDemand / globalCpuCapacity;
     }
 
+    /**
+     * @return the average expected load at a particular moment (see computeCPUDemand())
+     * Complexity O(1)
+     */
     public static double getCPUDemand(){
-        // TODO Adrien, maintain the current CPU Demand in order to avoid O(n)
-        //return currentCPUDemand;
-        return computeCPUDemand();
+        return 100 * context().globalCPUDemand / context().globalCPUCapacity;
     }
+
     /**
      * @return the number of hosts that are active (i.e. that host at least one VM)
-     * Complexity O(n)
+     * Complexity O(1)
      */
     public static int getNbOfUsedHosts() {
+        return context().nbOfUsedHosts;
+    }
+
+    /**
+     * @return the number of VMs that have been suspended since the beginning of the simulation
+     */
+    public static int getNbOfSuspensions() {
+        return context().nbOfSuspensions;
+    }
+
+    /**
+     * @return the number of VMs that have been resumed since the beginning of the simulation
+     */
+    public static int getNbOfResumes() {
+        return context().nbOfResumes;
+    }
+
+    /**
+     * Full scan counterpart of getNbOfUsedHosts() (see simulator.checkaggregates)
+     * Complexity O(n)
+     */
+    public static int computeNbOfUsedHosts() {
         int i=0;
-        for (XHost h: sgHostsOn.values()){
+        for (XHost h: hostView(0, context().xhosts.length, context().sgHostsOn)){
             if(h.getNbVMs()>0)
                 i++;
         }
         return i;
     }
 
+    /**
+     * Reset the cluster-wide aggregates (the hosts are accounted again by refreshAggregates())
+     */
+    private static void resetAggregates() {
+        SimulationContext ctx = context();
+        ctx.globalCPUDemand = 0;
+        ctx.globalCPUCapacity = 0;
+        ctx.nbOfUsedHosts = 0;
+        ctx.nbOfNonViableHosts = 0;
+        ctx.contributions = new HostContribution[ctx.xhosts.length];
+        ctx.checkAggregates = SimulatorProperties.getCheckAggregates();
+    }
+
+    /**
+     * Update the cluster-wide aggregates after a change of the host (load, hosted VMs, on/off).
+     * Please note that the host should be refreshed once the change is complete (and not around it), since the
+     * operations on VMs may block (e.g. a suspension) while other changes are applied.
+     * Complexity O(1), O(n) when simulator.checkaggregates is enabled
+     * @param host the host that has changed
+     */
+    private static void refreshAggregates(XHost host) {
+        SimulationContext ctx = context();
+        HostContribution contribution = ctx.contributions[host.getId()];
+        if (contribution == null) {
+            contribution = new HostContribution();
+            ctx.contributions[host.getId()] = contribution;
+        }
+
+        ctx.globalCPUDemand -= contribution.cpuDemand;
+        ctx.globalCPUCapacity -= contribution.cpuCapacity;
+        if (contribution.used)
+            ctx.nbOfUsedHosts--;
+        if (contribution.nonViable)
+            ctx.nbOfNonViableHosts--;
+
+        boolean on = !host.isOff();
+        boolean hosting = on && isHostingHost(host);
+        contribution.cpuDemand = hosting ? host.getCPUDemand() : 0;
+        contribution.cpuCapacity = hosting ? host.getCPUCapacity() : 0;
+        contribution.used = on && host.getNbVMs() > 0;
+        contribution.nonViable = on && !host.isViable();
+
+        ctx.globalCPUDemand += contribution.cpuDemand;
+        ctx.globalCPUCapacity += contribution.cpuCapacity;
+        if (contribution.used)
+            ctx.nbOfUsedHosts++;
+        if (contribution.nonViable)
+            ctx.nbOfNonViableHosts++;
+
+        if (ctx.checkAggregates)
+            checkAggregates();
+    }
+
+    /**
+     * Debug mode (see simulator.checkaggregates): compare the aggregates with a full scan of the hosts
+     */
+    private static void checkAggregates() {
+        double cpuDemand = computeCPUDemand();
+        int usedHosts = computeNbOfUsedHosts();
+        boolean viable = computeViability();
+        // The global demand is updated incrementally, hence rounding errors may accumulate
+        boolean sameDemand = Math.abs(getCPUDemand() - cpuDemand) <= 1e-6 || Double.compare(getCPUDemand(), cpuDemand) == 0;
+        if (!sameDemand || usedHosts != getNbOfUsedHosts() || viable != isViable()) {
+            System.err.println(String.format("Inconsistent aggregates: load %f instead of %f, %d used hosts instead of %d, viable %b instead of %b",
+                    getCPUDemand(), cpuDemand, getNbOfUsedHosts(), usedHosts, isViable(), viable));
+            System.exit(-1);
+        }
+    }
+
     /**
      * Return the XHost entitled ''name'', if not return null (please note that the search is performed by considering
      * all hosts (i.e. On/Off and Hosting/Service ones)
@@ -466,10 +607,7 @@ public class SimulatorManager {
      * @return the corresponding XHost instance (null if there is no corresponding host in the sgHosts collection)
      */
     public static XHost getXHostByName(String name) {
-        XHost tmp = sgHostingHosts.get(name);
-        if (tmp == null)
-            tmp = sgServiceHosts.get(name);
-        return tmp;
+        return context().hostsByName.get(name);
     }
 
     /**
@@ -479,15 +617,10 @@ public class SimulatorManager {
      * @return the corresponding XVM instance (null if there is no corresponding vm in the sgVMs collection)
      */
     public static XVM getXVMByName(String name) {
-        XVM tmp = sgVMsOn.get(name);
-        if (tmp == null)
-            tmp = sgVMsOff.get(name);
-        if(tmp == null)
-            tmp = sgVMsToSuspend.get(name);
-
+        XVM tmp = context().vmsByName.get(name);
 
         if(tmp == null) {
-            Msg.error("No ");
+            Msg.error("No VM named " + name);
         }
         return tmp;
     }
@@ -501,6 +634,9 @@ public class SimulatorManager {
      */
     public static void updateVM(XVM sgVM, double load) {
 
+        if(sgVM.isDestroyed()) // The VM has left (obsolete event)
+            return;
+
         if(sgVM.isRunning()) {
 
             XHost tmpHost = sgVM.getLocation();
@@ -515,45 +651,316 @@ public class SimulatorManager {
             //  Msg.info("New Load is "+ tmpHost.getCPUDemand());
 
             sgVM.setLoad(load);
+            recordLoad(sgVM);
+            tmpHost.syncCPULoad();
+            refreshAggregates(tmpHost);
+
+            traceHostUpdate(tmpHost, previouslyViable);
 
-            // If the node is off, we change the VM load but we do not consider it for possible violation and do not update
-            // neither the global load of the node nor the global load of the cluster.
-            // Violations are detected only on running node
             if (!tmpHost.isOff()) {
+                //Update global getCPUDemand
+                Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "LOAD", SimulatorManager.getCPUDemand());
+            }
+        } else { // VM is suspended: just update the load for consistency reason (i.e. when the VM will be resumed, we should assign the expected load
+            sgVM.setLoad(load);
+            recordLoad(sgVM);
+        }
+    }
 
+    /**
+     * Batched counterpart of updateVM(): the loads are applied in order, then the viability, the load and the energy
+     * of each host that has been touched are traced once, and the global load is traced once.
+     * Please note that a host that becomes non viable and viable again within the same batch does not count as a
+     * violation.
+     * @param vms the VMs whose load changes (a VM may appear several times, the last load wins)
+     * @param loads the new loads
+     * @param size the number of updates
+     */
+    public static void updateVMs(XVM[] vms, double[] loads, int size) {
+        // Touched hosts and their viability before the batch
+        Map<XHost, Boolean> touchedHosts = new LinkedHashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            XVM sgVM = vms[i];
+            if (sgVM.isDestroyed())
+                continue;
+            if (sgVM.isRunning()) {
+                XHost tmpHost = sgVM.getLocation();
+                if (!touchedHosts.containsKey(tmpHost))
+                    touchedHosts.put(tmpHost, tmpHost.isViable());
+                tmpHost.setCPUDemand(tmpHost.getCPUDemand() - sgVM.getCPUDemand() + loads[i]);
+                sgVM.setLoad(loads[i]);
+                refreshAggregates(tmpHost);
+            } else {
+                sgVM.setLoad(loads[i]);
+            }
+            recordLoad(sgVM);
+        }
 
-                //    Msg.info("Current getCPUDemand "+SimulatorManager.getCPUDemand()+"\n");
+        boolean globalLoadChanged = false;
+        for (Map.Entry<XHost, Boolean> entry : touchedHosts.entrySet()) {
+            // Fluid CPU model: the load daemons of each host are bounded once per batch
+            entry.getKey().syncCPULoad();
+            traceHostUpdate(entry.getKey(), entry.getValue());
+            globalLoadChanged |= !entry.getKey().isOff();
+        }
 
+        if (globalLoadChanged)
+            Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "LOAD", SimulatorManager.getCPUDemand());
+    }
 
-                if (previouslyViable && (!tmpHost.isViable())) {
-                    Msg.info("STARTING VIOLATION ON " + tmpHost.getName() + "\n");
-                    tmpHost.incViolation();
-                    Trace.hostSetState(tmpHost.getName(), "PM", "violation");
+    /**
+     * Trace the state (violation or not), the load and the energy of a host whose load has changed, and append its
+     * load to its history (see getHostLoadHistory())
+     * @param tmpHost the host
+     * @param previouslyViable whether the host was viable before the change
+     */
+    private static void traceHostUpdate(XHost tmpHost, boolean previouslyViable) {
+        if (context().hostLoadHistory != null)
+            context().hostLoadHistory.append(tmpHost.getId(), getClock(), tmpHost.getCPUDemand());
 
-                } else if ((!previouslyViable) && (tmpHost.isViable())) {
-                    Msg.info("ENDING VIOLATION ON " + tmpHost.getName() + "\n");
-                    Trace.hostSetState(tmpHost.getName(), "PM", "normal");
-                }
-                // else Do nothing the state does not change.
 
-                // Update getCPUDemand of the host
-                Trace.hostVariableSet(tmpHost.getName(), "LOAD", tmpHost.getCPUDemand());
+        // If the node is off, we change the VM load but we do not consider it for possible violation and do not update
+        // neither the global load of the node nor the global load of the cluster.
+        // Violations are detected only on running node
+        if (!tmpHost.isOff()) {
 
-                // TODO this is costly O(HOST_NB) - SHOULD BE FIXED
-                //Update global getCPUDemand
-                Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "LOAD", SimulatorManager.getCPUDemand());
+            traceViability(tmpHost, previouslyViable);
 
-            }
+            // Update getCPUDemand of the host
+            Trace.hostVariableSet(tmpHost.getName(), "LOAD", tmpHost.getCPUDemand());
+        }
 
-            double energy = tmpHost.getSGHost().getConsumedEnergy();
-            if (lastEnergy.containsKey(tmpHost))
-                energy -= lastEnergy.get(tmpHost);
+        // The energy is traced by the EnergySampler, if any
+        if (!context().periodicEnergy) {
+            // The consumed energy is read once (native call)
+            double consumedEnergy = tmpHost.getConsumedEnergy();
+            double lastEnergy = context().lastEnergy[tmpHost.getId()];
+            context().lastEnergy[tmpHost.getId()] = consumedEnergy;
+            Trace.hostVariableSet(tmpHost.getName(), "ENERGY", consumedEnergy - lastEnergy);
+        }
+    }
 
-            Trace.hostVariableSet(tmpHost.getName(), "ENERGY", energy);
-            lastEnergy.put(tmpHost, tmpHost.getSGHost().getConsumedEnergy());
-        } else { // VM is suspended: just update the load for consistency reason (i.e. when the VM will be resumed, we should assign the expected load
-            sgVM.setLoad(load);
+    /**
+     * Append the current load of the VM to its history (see getVMLoadHistory())
+     */
+    private static void recordLoad(XVM sgVM) {
+        if (context().vmLoadHistory != null)
+            context().vmLoadHistory.append(sgVM.getId(), getClock(), sgVM.getLoad());
+    }
+
+    /**
+     * @return the last loads of the VMs, indexed by their id (see XVM.getId()), null if simulator.loadhistory.size is 0
+     */
+    public static LoadHistory getVMLoadHistory() {
+        return context().vmLoadHistory;
+    }
+
+    /**
+     * @return the last CPU demands of the hosts, indexed by their id (see XHost.getId()), null if
+     * simulator.loadhistory.size is 0
+     */
+    public static LoadHistory getHostLoadHistory() {
+        return context().hostLoadHistory;
+    }
+
+    /**
+     * Trace the beginning or the end of a violation (a resource of the host is overloaded, see XHost.isViable())
+     * @param tmpHost the host (on)
+     * @param previouslyViable whether the host was viable before the change
+     */
+    private static void traceViability(XHost tmpHost, boolean previouslyViable) {
+        int overloaded = tmpHost.getOverloadedResource();
+        if (previouslyViable && overloaded != -1) {
+            Msg.info("STARTING VIOLATION ON " + tmpHost.getName() + " (" + ResourceVector.getName(overloaded) + ")\n");
+            tmpHost.incViolation();
+            Trace.hostSetState(tmpHost.getName(), "PM", "violation");
+
+        } else if ((!previouslyViable) && overloaded == -1) {
+            Msg.info("ENDING VIOLATION ON " + tmpHost.getName() + "\n");
+            Trace.hostSetState(tmpHost.getName(), "PM", "normal");
+        }
+        // else Do nothing the state does not change.
+    }
+
+    /**
+     * Change the network consumption of a VM (the network is one of the resources of the viability of the hosts)
+     * @param sgVM the VM
+     * @param netLoad the new consumption (percentage of the bandwidth of the VM)
+     */
+    public static void updateVMNetLoad(XVM sgVM, double netLoad) {
+        if (sgVM.isDestroyed())
+            return;
+        XHost host = sgVM.getLocation();
+        boolean previouslyViable = host.isViable();
+        host.setNetLoad(sgVM, netLoad);
+        refreshAggregates(host);
+        if (!host.isOff())
+            traceViability(host, previouslyViable);
+        Trace.hostVariableSet(host.getName(), "NET_LOAD", host.getNetDemand());
+    }
+
+    /**
+     * Change the network consumption of a host that is not due to its VMs
+     * @param host the host
+     * @param netLoad the new consumption (percentage of the bandwidth of the host)
+     */
+    public static void updateHostNetLoad(XHost host, double netLoad) {
+        boolean previouslyViable = host.isViable();
+        host.setBackgroundNetLoad(netLoad);
+        refreshAggregates(host);
+        if (!host.isOff())
+            traceViability(host, previouslyViable);
+        Trace.hostVariableSet(host.getName(), "NET_LOAD", host.getNetDemand());
+    }
+
+    /**
+     * Change the dirty page intensity of a VM
+     * @param sgVM the VM
+     * @param dpIntensity the new intensity (percentage of the migration bandwidth), a negative value means that the
+     *                    intensity depends again on the load of the VM
+     */
+    public static void updateVMDPIntensity(XVM sgVM, int dpIntensity) {
+        if (sgVM.isDestroyed())
+            return;
+        sgVM.setDPIntensity(dpIntensity);
+    }
+
+    /**
+     * Schedule an event during the simulation (see Injector.submit())
+     * @param evt the event to play
+     */
+    public static void scheduleEvent(InjectorEvent evt) {
+        Injector.submit(evt);
+    }
+
+    /**
+     * @return the current time of the simulated scenario, i.e. the SimGrid clock shifted by the time of the checkpoint
+     * the simulation has been restored from (see Checkpoint)
+     */
+    public static double getClock() {
+        return Msg.getClock() + context().timeOffset;
+    }
+
+    /**
+     * Create a VM during the simulation and start it on the host selected by the placement policy (see
+     * SchedulerBuilder.buildPlacementPolicy()). The VM starts with the mean load, like the initial VMs.
+     * The VM takes the lowest free slot (its name is vm-slot).
+     * @param vmNumber the number of the new VM (see VMArrivalEvent)
+     * @param vmClass the class of the new VM
+     * @return the new VM, null if no host can accept it
+     */
+    public static XVM createVM(int vmNumber, VMClasses.VMClass vmClass) {
+        if (context().vmsByNumber.containsKey(vmNumber)) {
+            System.err.println("You are trying to create the VM #" + vmNumber + " that already exists");
+            System.exit(-1);
         }
+
+        if (context().placementPolicy == null)
+            context().placementPolicy = SchedulerBuilder.getInstance().buildPlacementPolicy(context(), getSGHostingHosts());
+        XHost host = context().placementPolicy.placeVM(vmClass, SimulatorProperties.getMeanLoad(), getSGHostingHosts());
+        if (host == null) {
+            Msg.info("No host can accept the VM #" + vmNumber + " (" + vmClass.getName() + "), the VM is rejected");
+            context().nbOfRejectedVMs++;
+            return null;
+        }
+        int vmIndex = context().freeVMSlots.nextSetBit(0);
+        return createVM(vmNumber, vmIndex >= 0 ? vmIndex : context().nbOfVMSlots, vmClass, host);
+    }
+
+    /**
+     * Create a VM in the given slot (which should be free) of the given host (the host is turned on if needed)
+     * @param vmNumber the number of the new VM (see VMArrivalEvent)
+     * @param vmIndex the slot of the new VM (its name is vm-vmIndex)
+     * @return the new VM
+     */
+    static XVM createVM(int vmNumber, int vmIndex, VMClasses.VMClass vmClass, XHost host) {
+        if (host.isOff())
+            turnOn(host);
+
+        XVM sgVM = new XVM(host, "vm-" + vmIndex,
+                vmClass.getNbOfCPUs(), vmClass.getMemSize(), vmClass.getNetBW(), null, -1, vmClass.getMigNetBW(), vmClass.getMemIntensity());
+        sgVM.setDPIntensityFunction(vmClass.getMemIntensity(), vmClass.getMemIntensityAtFullLoad());
+
+        // Amortized O(1): the arrays are doubled when they are full
+        if (vmIndex >= context().xvms.length) {
+            int length = Math.max(vmIndex + 1, 2 * context().xvms.length);
+            context().xvms = Arrays.copyOf(context().xvms, length);
+            context().vmNumbers = Arrays.copyOf(context().vmNumbers, length);
+            context().vmArrivals = Arrays.copyOf(context().vmArrivals, length);
+        }
+        // The slots that are skipped (e.g. when a checkpoint is restored) are free
+        if (vmIndex > context().nbOfVMSlots)
+            context().freeVMSlots.set(context().nbOfVMSlots, vmIndex);
+        context().freeVMSlots.clear(vmIndex);
+        context().xvms[vmIndex] = sgVM;
+        context().nbOfVMSlots = Math.max(context().nbOfVMSlots, vmIndex + 1);
+        context().vmNumbers[vmIndex] = vmNumber;
+        context().vmsByNumber.put(vmNumber, sgVM);
+        context().vmArrivals[vmIndex] = getClock();
+        if (context().vmLoadHistory != null) {
+            context().vmLoadHistory.ensureCapacity(context().xvms.length);
+            // The samples of the previous VM of the slot
+            context().vmLoadHistory.clear(vmIndex);
+        }
+        sgVM.setId(vmIndex);
+        context().sgVMsOn.set(vmIndex);
+        context().vmsByName.put(sgVM.getName(), sgVM);
+
+        Msg.info("vm " + sgVM.getName() + " is " + vmClass.getName() + ", it arrives on " + host.getName());
+        host.start(sgVM);
+        refreshAggregates(host);
+        context().nbOfArrivals++;
+        Trace.hostVariableAdd(SimulatorManager.getInjectorNodeName(), "NB_VM", 1);
+        Trace.hostVariableAdd(SimulatorManager.getInjectorNodeName(), "NB_VM_TRUE", 1);
+
+        updateVM(sgVM, SimulatorProperties.getMeanLoad());
+        return sgVM;
+    }
+
+    /**
+     * Shut a VM down and remove it from the infrastructure. The slot of the VM is released (it will be reused by the
+     * next VM that arrives).
+     * @param vmNumber the number of the VM (see VMArrivalEvent)
+     * @return false if the VM is migrating (the departure should be postponed), true otherwise (including when the
+     * VM does not exist, e.g. it could not be placed)
+     */
+    public static boolean destroyVM(int vmNumber) {
+        XVM sgVM = context().vmsByNumber.get(vmNumber);
+        if (sgVM == null)
+            return true;
+        if (sgVM.isMigrating())
+            return false;
+
+        int vmIndex = sgVM.getId();
+        XHost host = sgVM.getLocation();
+        boolean previouslyViable = host.isViable();
+        // A VM whose suspension has been postponed is not counted in NB_VM_TRUE anymore
+        boolean suspending = context().sgVMsToSuspend.get(vmIndex);
+        context().sgVMsToSuspend.clear(vmIndex);
+        context().sgVMsOn.clear(vmIndex);
+        context().sgVMsOff.clear(vmIndex);
+        context().vmsByName.remove(sgVM.getName());
+        context().vmsByNumber.remove(vmNumber);
+        context().xvms[vmIndex] = null;
+        context().freeVMSlots.set(vmIndex);
+
+        Msg.info("vm " + sgVM.getName() + " leaves " + host.getName());
+        sgVM.destroy(!host.isOff());
+        host.stop(sgVM);
+        refreshAggregates(host);
+        context().nbOfDepartures++;
+
+        if (!sgVM.isSuspended()) {
+            Trace.hostVariableSub(SimulatorManager.getInjectorNodeName(), "NB_VM", 1);
+            if (!suspending)
+                Trace.hostVariableSub(SimulatorManager.getInjectorNodeName(), "NB_VM_TRUE", 1);
+        }
+
+        traceHostUpdate(host, previouslyViable);
+        if (!host.isOff())
+            Trace.hostVariableSet(SimulatorManager.getInjectorNodeName(), "LOAD", SimulatorManager.getCPUDemand());
+        return true;
     }
 
     public static boolean willItBeViableWith(XVM sgVM, int load){
@@ -573,16 +980,17 @@ public class SimulatorManager {
             Msg.info("Turn on node "+name);
             host.turnOn();
             Trace.hostVariableAdd(host.getName(), "NB_ON", 1);
-            sgHostsOff.remove(name);
-            sgHostsOn.put(name, host);
+            context().sgHostsOff.clear(host.getId());
+            context().sgHostsOn.set(host.getId());
+            refreshAggregates(host);
 
             // If your turn on an hosting node, then update the LOAD
-            if(sgHostingHosts.containsKey(name)) {
+            if(isHostingHost(host)) {
 
                 for (XVM vm: host.getRunnings()){
                     Msg.info("TURNING NODE "+name+"ON - ADD VM "+vm.getName());
-                    sgVMsOff.remove(vm.getName());
-                    sgVMsOn.put(vm.getName(), vm);
+                    context().sgVMsOff.clear(vm.getId());
+                    context().sgVMsOn.set(vm.getId());
                 }
 
                 // Update getCPUDemand of the host
@@ -626,13 +1034,13 @@ public class SimulatorManager {
             Msg.info("Turn off "+host.getName());
 
             // if this is an hosting host, then you should deal with VM aspects
-            if(sgHostingHosts.containsKey(host.getName())) {
+            if(isHostingHost(host)) {
                 // First remove all VMs hosted on the node from the global collection
                 // The VMs are still referenced on the node
                 for (XVM vm : host.getRunnings()) {
                     Msg.info("TURNING NODE "+host.getName()+"OFF - REMOVE VM "+vm.getName());
-                    sgVMsOn.remove(vm.getName());
-                    sgVMsOff.put(vm.getName(), vm);
+                    context().sgVMsOn.clear(vm.getId());
+                    context().sgVMsOff.set(vm.getId());
                 }
                 // Update getCPUDemand of the host
                 Trace.hostVariableSet(host.getName(), "LOAD", 0);
@@ -649,8 +1057,9 @@ public class SimulatorManager {
             host.turnOff();
 
             // Finally, remove the node from the collection of running host and add it to the collection of off ones
-            sgHostsOn.remove(host.getName());
-            sgHostsOff.put(host.getName(), host);
+            context().sgHostsOn.clear(host.getId());
+            context().sgHostsOff.set(host.getId());
+            refreshAggregates(host);
 
             //  Msg.info("Nb of remaining processes on " + host.getName() + ": " + (previousCount - org.simgrid.msg.Process.getCount()));
             Trace.hostVariableAdd(host.getName(), "NB_OFF", 1);
@@ -675,27 +1084,65 @@ public class SimulatorManager {
      * Stupid variable to monitor the duration of the simulation
      */
     public static void setBeginTimeOfSimulation(double beginTimeOfSimulation) {
-        SimulatorManager.beginTimeOfSimulation = beginTimeOfSimulation;
+        context().beginTimeOfSimulation = beginTimeOfSimulation;
     }
 
     /**
      * Stupid variable to monitor the duration of the simulation
      */
+    public static void setPlatformFile(String platformFile) {
+        context().platformFile = platformFile;
+    }
+
+    /**
+     * @return the SimGrid platform file of the simulation (file.platform if it is defined)
+     */
+    public static String getPlatformFile() {
+        if (SimulatorProperties.getFilePlatform() != null)
+            return SimulatorProperties.getFilePlatform();
+        return context().platformFile;
+    }
+
     public static void setEndTimeOfSimulation(double endTimeOfSimulation) {
-        SimulatorManager.endTimeOfSimulation = endTimeOfSimulation;
+        context().endTimeOfSimulation = endTimeOfSimulation;
     }
 
     /**
      * Stupid variable to monitor the duration of the simulation
      */
     public static double getSimulationDuration() {
-        return (endTimeOfSimulation != -1) ?  endTimeOfSimulation - beginTimeOfSimulation : endTimeOfSimulation;
+        return (context().endTimeOfSimulation != -1) ?  context().endTimeOfSimulation - context().beginTimeOfSimulation : context().endTimeOfSimulation;
     }
 
+    /**
+     * Start the sampling of the energy on the given host (a service node) if simulator.energy.period is set
+     * @see EnergySampler
+     */
+    public static void startEnergySampler(Host host) {
+        if (!context().periodicEnergy)
+            return;
+        context().energySampler = new EnergySampler(host, "energy-sampler", context().xhosts, SimulatorProperties.getEnergyPeriod());
+        try {
+            context().energySampler.start();
+        } catch (HostNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Append the energy consumed by all the hosts to the given file
+     * @param logPath the log file
+     */
     public static void writeEnergy(String logPath) {
-        Double energy = 0D;
-        for(XHost h: SimulatorManager.getSGHosts())
-            energy += h.getSGHost().getConsumedEnergy();
+        double energy = 0;
+        if(context().energySampler != null) {
+            // Last reading of the sampler
+            context().energySampler.sample();
+            energy = context().energySampler.getConsumedEnergy();
+        } else {
+            for(XHost h: SimulatorManager.getSGHosts())
+                energy += h.getConsumedEnergy();
+        }
 
         try {
             String message = null;
@@ -725,13 +1172,14 @@ public class SimulatorManager {
             XHost host = SimulatorManager.getXHostByName(hostName);
 
             if (vm != null) {
-                double timeStartingSuspension = Msg.getClock();
+                double timeStartingSuspension = getClock();
                 Trace.hostPushState(vmName, "SERVICE", "suspend", String.format("{\"vm_name\": \"%s\", \"on\": \"%s\"}", vmName, hostName));
                 boolean previouslyViable = host.isViable();
                 // 0 if success, 1 should be postponed, -1 if failure, -2 if already suspended
                 int res = host.suspendVM(vm);
+                refreshAggregates(host);
                 Trace.hostPopState(vmName, "SERVICE", String.format("{\"vm_name\": \"%s\", \"state\": %d}", vmName, res));
-                double suspensionDuration = Msg.getClock() - timeStartingSuspension;
+                double suspensionDuration = getClock() - timeStartingSuspension;
 
                 switch (res) {
                     case 0:
@@ -742,17 +1190,19 @@ public class SimulatorManager {
                             Trace.hostSetState(host.getName(), "PM", "normal");
                         }
 
-                        SimulatorManager.iSuspend++;
+                        context().nbOfSuspensions++;
 
                         /* Export that the suspension has finished */
                         Trace.hostSetState(vmName, "suspension", "finished", String.format(Locale.US, "{\"vm_name\": \"%s\", \"on\": \"%s\", \"duration\": %f}", vmName, hostName, suspensionDuration));
                         Trace.hostPopState(vmName, "suspension");
 
-                        if (sgVMsOn.remove(vm.getName()) == null && sgVMsToSuspend.remove(vm.getName())== null){
+                        if (!context().sgVMsOn.get(vm.getId()) && !context().sgVMsToSuspend.get(vm.getId())){
                             System.err.println("You are trying to suspend a VM which is not on... weird");
                             System.exit(-1);
                         }
-                        sgVMsOff.put(vm.getName(), vm);
+                        context().sgVMsOn.clear(vm.getId());
+                        context().sgVMsToSuspend.clear(vm.getId());
+                        context().sgVMsOff.set(vm.getId());
                         Trace.hostVariableSub(SimulatorManager.getInjectorNodeName(), "NB_VM", 1);
                         break;
 
@@ -762,8 +1212,8 @@ public class SimulatorManager {
                         Trace.hostSetState(vmName, "suspension", "postponed", String.format(Locale.US, "{\"vm_name\": \"%s\", \"on\": \"%s\", \"duration\": %f}", vmName, hostName, suspensionDuration));
                         Trace.hostPopState(vmName, "suspension");
 
-                        sgVMsOn.remove(vm.getName());
-                        sgVMsToSuspend.put(vm.getName(), vm);
+                        context().sgVMsOn.clear(vm.getId());
+                        context().sgVMsToSuspend.set(vm.getId());
                         break;
 
                     default:
@@ -791,26 +1241,28 @@ public class SimulatorManager {
             XHost host = SimulatorManager.getXHostByName(hostName);
 
             if (vm != null) {
-                double timeStartingSuspension = Msg.getClock();
+                double timeStartingSuspension = getClock();
                 Trace.hostPushState(vmName, "SERVICE", "resume", String.format("{\"vm_name\": \"%s\", \"on\": \"%s\"}", vmName, hostName));
                 boolean previouslyViable = host.isViable();
                 // 0 if success, -1 if failure, 1 if already running
                 int res = host.resumeVM(vm);
+                refreshAggregates(host);
                 Msg.info(vm.getName() + " resume returned " + res);
                 Trace.hostPopState(vmName, "SERVICE", String.format("{\"vm_name\": \"%s\", \"state\": %d}", vmName, res));
-                double suspensionDuration = Msg.getClock() - timeStartingSuspension;
+                double suspensionDuration = getClock() - timeStartingSuspension;
 
                 switch (res) {
                     case 0:
 //                        Msg.info("End of operation resume of VM " + vmName + " on " + hostName);
 
-                        if (sgVMsOff.remove(vmName) == null)  { // If the VM is not marked off, there is an issue
+                        if (!context().sgVMsOff.get(vm.getId()))  { // If the VM is not marked off, there is an issue
                             System.err.println("Unexpected state from XHost.resume()");
                             System.exit(-1);
                         }
-                        sgVMsOn.put(vm.getName(), vm);
+                        context().sgVMsOff.clear(vm.getId());
+                        context().sgVMsOn.set(vm.getId());
                         Trace.hostVariableAdd(SimulatorManager.getInjectorNodeName(), "NB_VM", 1);
-                        SimulatorManager.iResume++;
+                        context().nbOfResumes++;
 
                         if ((previouslyViable) && (!host.isViable())) {
                             Msg.info("STARTING VIOLATION ON " + host.getName() + "\n");
@@ -823,12 +1275,13 @@ public class SimulatorManager {
                         break;
 
                     case 1:
-                        if(sgVMsToSuspend.remove(vmName) == null) { // If the VM is not marked off, there is an issue
+                        if(!context().sgVMsToSuspend.get(vm.getId())) { // If the VM is not marked off, there is an issue
                             System.err.println("Unexpected state from XHost.resume()");
                             System.exit(-1);
                         }
-                        sgVMsOn.put(vm.getName(), vm);
-                        //SimulatorManager.iResume++;
+                        context().sgVMsToSuspend.clear(vm.getId());
+                        context().sgVMsOn.set(vm.getId());
+                        //context().nbOfResumes++;
 
                         /* Export that the suspension has finished */
                         Trace.hostSetState(vmName, "resume", "cancelled", String.format(Locale.US, "{\"vm_name\": \"%s\", \"on\": \"%s\", \"duration\": %f}", vmName, hostName, suspensionDuration));
@@ -863,17 +1316,19 @@ public class SimulatorManager {
     public static boolean migrateVM(String vmName, String sourceName, String destName) {
 
         boolean completionOk = true;
-        double timeStartingMigration = Msg.getClock();
+        double timeStartingMigration = getClock();
         Trace.hostPushState(vmName, "SERVICE", "migrate", String.format("{\"vm_name\": \"%s\", \"from\": \"%s\", \"to\": \"%s\"}", vmName, sourceName, destName));
 
         XHost sourceHost = SimulatorManager.getXHostByName(sourceName);
         XHost destHost = SimulatorManager.getXHostByName(destName);
 
         int res = sourceHost.migrate(vmName, destHost);
+        refreshAggregates(sourceHost);
+        refreshAggregates(destHost);
         // TODO, we should record the res of the migration operation in order to count for instance how many times a migration crashes ?
         // To this aim, please extend the hostPopState API to add meta data information
         Trace.hostPopState(vmName, "SERVICE", String.format("{\"vm_name\": \"%s\", \"state\": %d}", vmName, res));
-        double migrationDuration = Msg.getClock() - timeStartingMigration;
+        double migrationDuration = getClock() - timeStartingMigration;
 
         if (res == 0) {
             Msg.info("End of migration of VM " + vmName + " from " + sourceName + " to " + destName);
@@ -893,10 +1348,11 @@ public class SimulatorManager {
             Trace.hostPopState(vmName, "migration");
 
             // Patch to handle postponed supsend that may have been requested during the migration.
-            XVM suspendedVm = SimulatorManager.sgVMsToSuspend.remove(vmName);
-            if (suspendedVm != null) { // The VM has been marked to be suspended, so do it
+            XVM suspendedVm = getXVMByName(vmName);
+            if (suspendedVm != null && context().sgVMsToSuspend.get(suspendedVm.getId())) { // The VM has been marked to be suspended, so do it
                 Msg.info("The VM " + vmName + "has been marked to be suspended after migration");
-                SimulatorManager.sgVMsOn.put(vmName, suspendedVm);
+                context().sgVMsToSuspend.clear(suspendedVm.getId());
+                context().sgVMsOn.set(suspendedVm.getId());
                 SimulatorManager.suspendVM(vmName, destName);
             }
 
@@ -2,6 +2,8 @@ package trace;
 
 import scheduling.distributed.dvms2.dvms.dvms2.LoggingActor;
 
+import java.util.List;
+
 /**
  * Created by jonathan on 17/09/14.
  */
@@ -14,6 +16,17 @@ public class Trace {
         TraceImpl.getInstance().simulationDeclare(algorithm, serverCount, serviceNodeCount, vmCount, algorithmDetails);
     }
 
+    /**
+     * Declare a container that is not a SimGrid host (e.g. a rack), whose variables can then be set like the ones of
+     * a host.
+     *
+     * @param container
+     * @param hosts the names of the hosts of the container
+     */
+    public static void containerDeclare(String container, List<String> hosts) {
+        TraceImpl.getInstance().containerDeclare(container, hosts);
+    }
+
     /**
      * Declare a user state that will be associated to a given host.
      */
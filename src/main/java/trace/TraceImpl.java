@@ -3,13 +3,15 @@ package trace;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.simgrid.msg.Host;
-import org.simgrid.msg.Msg;
 import scheduling.distributed.dvms2.dvms.dvms2.LoggingActor;
 import scheduling.distributed.dvms2.dvms.dvms2.LoggingProtocol;
+import simulation.SimulationContext;
+import simulation.SimulatorManager;
 
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -69,7 +71,7 @@ public class TraceImpl {
     HashMap<String, HashMap<String, LinkedList<TState>>> hostStates;
 
     protected double now() {
-        return Msg.getClock();
+        return SimulatorManager.getClock();
     }
 
     void writeJson(double time, String origin, String state, String value, String data, double duration) {
@@ -81,13 +83,11 @@ public class TraceImpl {
      */
     private HashMap<String, HashMap<String, TValue>> hostVariables;
 
-    private static TraceImpl instance;
-
+    /**
+     * @return the trace of the current simulation (see simulation.SimulationContext)
+     */
     public static TraceImpl getInstance() {
-        if(instance == null) {
-            instance = new TraceImpl();
-        }
-        return instance;
+        return SimulationContext.current().getTrace();
     }
 
     public TraceImpl() {
@@ -116,6 +116,20 @@ public class TraceImpl {
 
     }
 
+    /**
+     * @return the current value of each variable of each host (see simulation.Checkpoint)
+     */
+    public HashMap<String, HashMap<String, Double>> getVariableValues() {
+        HashMap<String, HashMap<String, Double>> values = new HashMap<String, HashMap<String, Double>>();
+        for (String host : hostVariables.keySet()) {
+            HashMap<String, Double> hostValues = new HashMap<String, Double>();
+            for (String variable : hostVariables.get(host).keySet())
+                hostValues.put(variable, hostVariables.get(host).get(variable).getValue());
+            values.put(host, hostValues);
+        }
+        return values;
+    }
+
     /**
      * Declare information about the simulation.
      */
@@ -123,9 +137,34 @@ public class TraceImpl {
 
         String simulationDescriptionAsJson = String.format("{\"algorithm\": \"%s\", \"server_count\": %d, \"service_node_count\": %d, \"vm_count\": %d, \"algorithm_details\": %s}", algorithm, serverCount, serviceNodeCount, vmCount, algorithmDetails);
 
-        writeJson(Msg.getClock(), "simulator", "SIMULATION", "START", simulationDescriptionAsJson, 0);
+        writeJson(now(), "simulator", "SIMULATION", "START", simulationDescriptionAsJson, 0);
     }
     
+    /**
+     * Declare a container that is not a SimGrid host (e.g. a rack, see simulation.EnergySampler): it gets the states
+     * and the variables declared for the hosts, and its hosts are recorded in the trace.
+     * @param container the name of the container
+     * @param hosts the names of the hosts of the container
+     */
+    public void containerDeclare(String container, List<String> hosts) {
+        if (!hostStates.containsKey(container)) {
+            HashMap<String, LinkedList<TState>> containerStates = new HashMap<String, LinkedList<TState>>();
+            for (HashMap<String, LinkedList<TState>> states : hostStates.values())
+                for (String state : states.keySet())
+                    containerStates.put(state, new LinkedList<TState>());
+            hostStates.put(container, containerStates);
+        }
+        if (!hostVariables.containsKey(container)) {
+            HashMap<String, TValue> containerVariables = new HashMap<String, TValue>();
+            for (HashMap<String, TValue> variables : hostVariables.values())
+                for (String variable : variables.keySet())
+                    containerVariables.put(variable, new TValue(0, now()));
+            hostVariables.put(container, containerVariables);
+        }
+        String containerAsJson = String.format("{\"hosts\": %s}", new Gson().toJson(hosts));
+        writeJson(now(), container, "CONTAINER", "DECLARE", containerAsJson, 0);
+    }
+
     /**
      * Declare a user state that will be associated to a given host.
      */
@@ -26,13 +26,31 @@ import scheduling.distributed.dvms2.dvms.dvms2.LoggingProtocol._
 
 object LoggingActor {
 
-  val file = new File("events.json")
-  val writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))
+  /* The file of the events of the current simulation (see simulation.SimulationContext.activate()), created on the
+   * first event */
+  private var path = "events.json"
+  private var out: PrintWriter = null
+
+  /**
+   * Write the next events to the given file (the file of the previous simulation, if any, is closed)
+   */
+  def open(file: String) {
+    close()
+    path = file
+  }
 
+  private def writer: PrintWriter = {
+    if (out == null)
+      out = new PrintWriter(new BufferedWriter(new FileWriter(new File(path))))
+    out
+  }
 
   def close(){
-    writer.flush()
-    writer.close()
+    if (out != null) {
+      out.flush()
+      out.close()
+      out = null
+    }
   }
 
   def write(message: LoggingMessage) = message match {
@@ -0,0 +1,72 @@
+package configuration;
+
+import simulation.SimulatorManager;
+
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that with the fluid CPU model the VMs do not run any daemon, and that the load daemons of each host simulate
+ * the CPU demand of its VMs (capped by its number of cores) after each load change, batch of load changes,
+ * suspension, resume and host turned on or off.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class FluidCPUModelTest {
+
+    private static final int NB_OF_HOSTS = 10;
+    private static final int NB_OF_VMS = 80;
+
+    public static void main(String[] args) {
+        initSimGrid(args);
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.setProperty(SimulatorProperties.CPU_MODEL, "fluid");
+        deploy(properties, NB_OF_HOSTS, NB_OF_VMS);
+
+        XVM[] vms = SimulatorManager.getSGVMsToArray();
+        XHost[] hosts = SimulatorManager.getSGHostsToArray();
+        for (XVM vm : vms)
+            check(vm.getDaemon() == null, vm.getName() + " runs a daemon");
+
+        Random random = new Random(1);
+        for (int i = 0; i < 3000; i++) {
+            int k = random.nextInt(100);
+            XVM vm = vms[random.nextInt(vms.length)];
+            if (k < 70) {
+                SimulatorManager.updateVM(vm, random.nextInt(5) * 25);
+            } else if (k < 80) {
+                int size = 1 + random.nextInt(10);
+                XVM[] batch = new XVM[size];
+                double[] loads = new double[size];
+                for (int j = 0; j < size; j++) {
+                    batch[j] = vms[random.nextInt(vms.length)];
+                    loads[j] = random.nextInt(5) * 25;
+                }
+                SimulatorManager.updateVMs(batch, loads, size);
+            } else if (k < 95) {
+                if (vm.getLocation().isOff())
+                    continue;
+                if (vm.isSuspended())
+                    SimulatorManager.resumeVM(vm.getName(), vm.getLocation().getName());
+                else
+                    SimulatorManager.suspendVM(vm.getName(), vm.getLocation().getName());
+            } else {
+                XHost host = hosts[random.nextInt(NB_OF_HOSTS)];
+                if (host.isOn())
+                    SimulatorManager.turnOff(host);
+                else
+                    SimulatorManager.turnOn(host);
+            }
+            for (XHost host : hosts) {
+                double expected = host.isOn() ? Math.min(host.getCPUDemand(), 100 * Math.max(1, host.getNbCores())) : 0;
+                check(Math.abs(host.getSimulatedCPUDemand() - expected) <= 1e-6, String.format("step %d: %s simulates %f instead of %f",
+                        i, host.getName(), host.getSimulatedCPUDemand(), expected));
+            }
+        }
+        done();
+    }
+}
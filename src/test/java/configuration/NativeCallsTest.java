@@ -0,0 +1,71 @@
+package configuration;
+
+import simulation.SimulatorManager;
+
+import static configuration.NativeCalls.Call.DAEMON_RESUME;
+import static configuration.NativeCalls.Call.DAEMON_SUSPEND;
+import static configuration.NativeCalls.Call.GET_CONSUMED_ENERGY;
+import static configuration.NativeCalls.Call.GET_SPEED;
+import static configuration.NativeCalls.Call.SET_BOUND;
+import static configuration.NativeCalls.Call.VM_IS_RUNNING;
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that the load changes only perform the native calls that change the state of SimGrid (the bound of the VM,
+ * the state of its daemon), that the skipped calls are counted, and that the counters are attributed to the event
+ * being played and belong to the current simulation.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class NativeCallsTest {
+
+    private static final String EVENT = "LoadEvent";
+
+    public static void main(String[] args) {
+        initSimGrid(args);
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.setProperty(SimulatorProperties.CPU_MODEL, "daemon");
+        // The energy of the host is read on each load change
+        properties.setProperty(SimulatorProperties.ENERGY_PERIOD, "0");
+        deploy(properties, 10, 40);
+
+        XVM vm = SimulatorManager.getXVM(0);
+        // Outside of the events, the daemon of the VM runs
+        SimulatorManager.updateVM(vm, 30);
+
+        NativeCalls.beginEvent(EVENT, 4);
+        SimulatorManager.updateVM(vm, 60);
+        SimulatorManager.updateVM(vm, 60);
+        SimulatorManager.updateVM(vm, 0);
+        SimulatorManager.updateVM(vm, 0);
+        NativeCalls.endEvent();
+
+        checkCalls(SET_BOUND, 1, 1);
+        checkCalls(GET_SPEED, 0, 2);
+        checkCalls(DAEMON_RESUME, 0, 2);
+        checkCalls(DAEMON_SUSPEND, 1, 1);
+        checkCalls(VM_IS_RUNNING, 4, 0);
+        checkCalls(GET_CONSUMED_ENERGY, 4, 0);
+
+        // The calls outside of the events are not attributed to the last event
+        SimulatorManager.updateVM(vm, 90);
+        checkCalls(SET_BOUND, 1, 1);
+        NativeCalls.report();
+
+        // A new simulation starts with its own counters
+        deploy(new SimulatorProperties(), 10, 40);
+        check(NativeCalls.getNbOfCalls(EVENT, SET_BOUND) == 0 && NativeCalls.getNbOfSkippedCalls(EVENT, SET_BOUND) == 0,
+                "the counters of the previous simulation");
+
+        done();
+    }
+
+    private static void checkCalls(NativeCalls.Call call, long nbOfCalls, long nbOfSkippedCalls) {
+        check(NativeCalls.getNbOfCalls(EVENT, call) == nbOfCalls && NativeCalls.getNbOfSkippedCalls(EVENT, call) == nbOfSkippedCalls,
+                String.format("%s: %d calls and %d skipped calls instead of %d and %d", call, NativeCalls.getNbOfCalls(EVENT, call),
+                        NativeCalls.getNbOfSkippedCalls(EVENT, call), nbOfCalls, nbOfSkippedCalls));
+    }
+}
@@ -0,0 +1,76 @@
+package configuration;
+
+import simulation.SimulatorManager;
+
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that the demand kept by each host for each resource (CPU, memory and network in/out) is the demand of its VMs
+ * plus its background network load, that its overloaded resource is the first one whose demand exceeds its capacity,
+ * and that the viability of the simulation matches a scan of the hosts after each CPU or network load change and host
+ * turned on or off.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class ResourceViabilityTest {
+
+    private static final int NB_OF_HOSTS = 20;
+    private static final int NB_OF_VMS = 120;
+
+    public static void main(String[] args) {
+        initSimGrid(args);
+        deploy(new SimulatorProperties(), NB_OF_HOSTS, NB_OF_VMS);
+
+        XVM[] vms = SimulatorManager.getSGVMsToArray();
+        XHost[] hosts = SimulatorManager.getSGHostsToArray();
+        Random random = new Random(3);
+        int nbOfOverloads = 0;
+        for (int i = 0; i < 5000; i++) {
+            int k = random.nextInt(10);
+            if (k < 4) {
+                SimulatorManager.updateVM(vms[random.nextInt(vms.length)], random.nextInt(5) * 25);
+            } else if (k < 7) {
+                SimulatorManager.updateVMNetLoad(vms[random.nextInt(vms.length)], random.nextInt(101));
+            } else if (k < 8) {
+                SimulatorManager.updateHostNetLoad(hosts[random.nextInt(NB_OF_HOSTS)], random.nextInt(60));
+            } else {
+                XHost host = hosts[random.nextInt(NB_OF_HOSTS)];
+                if (host.isOn())
+                    SimulatorManager.turnOff(host);
+                else
+                    SimulatorManager.turnOn(host);
+            }
+
+            for (XHost host : hosts) {
+                if (checkDemand(host, i) >= 0)
+                    nbOfOverloads++;
+            }
+            check(SimulatorManager.isViable() == SimulatorManager.computeViability(), "step " + i + ": viability");
+        }
+        check(nbOfOverloads > 0, "no overloaded host");
+        done();
+    }
+
+    /**
+     * @return the overloaded resource of the host
+     */
+    private static int checkDemand(XHost host, int step) {
+        double backgroundNetDemand = host.getNetBW() * host.getBackgroundNetLoad() / 100;
+        double[] expected = ResourceVector.of(0, 0, backgroundNetDemand, backgroundNetDemand);
+        for (XVM vm : host.getRunnings())
+            ResourceVector.add(expected, vm.getDemand());
+        for (int r = 0; r < ResourceVector.SIZE; r++) {
+            check(Math.abs(host.getDemand()[r] - expected[r]) <= 1e-6, String.format("step %d: %s demand of %s %f instead of %f",
+                    step, ResourceVector.getName(r), host.getName(), host.getDemand()[r], expected[r]));
+        }
+        int overloaded = host.getOverloadedResource();
+        check(overloaded == ResourceVector.firstOverloaded(expected, host.getCapacity()) && host.isViable() == (overloaded < 0),
+                String.format("step %d: %s overloaded on %d", step, host.getName(), overloaded));
+        return overloaded;
+    }
+}
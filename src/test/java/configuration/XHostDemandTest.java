@@ -0,0 +1,92 @@
+package configuration;
+
+import org.simgrid.msg.Msg;
+import org.simgrid.msg.MsgException;
+import org.simgrid.msg.Process;
+import simulation.SimulatorManager;
+
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that the CPU and memory demands and the hosted VMs kept by each XHost match a scan of its VMs after each load
+ * change, suspension, resume, migration and host turned on or off.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class XHostDemandTest {
+
+    private static final int NB_OF_HOSTS = 20;
+    private static final int NB_OF_VMS = 120;
+
+    public static void main(String[] args) throws MsgException {
+        initSimGrid(args);
+        deploy(new SimulatorProperties(), NB_OF_HOSTS, NB_OF_VMS);
+
+        // The migrations are simulated operations, hence the changes are applied by a process
+        new Process(SimulatorManager.getInjectorNodeName(), "XHostDemandTest") {
+            public void main(String[] processArgs) {
+                run();
+                // The load daemons of the VMs never end
+                done();
+            }
+        }.start();
+        Msg.run();
+    }
+
+    private static void run() {
+        Random random = new Random(1);
+        XVM[] vms = SimulatorManager.getSGVMsToArray();
+        XHost[] hosts = SimulatorManager.getSGHostsToArray();
+        int nbOfMigrations = 0;
+        for (int i = 0; i < 3000; i++) {
+            int k = random.nextInt(100);
+            XVM vm = vms[random.nextInt(vms.length)];
+            XHost source = vm.getLocation();
+            if (k < 60) {
+                SimulatorManager.updateVM(vm, random.nextInt(5) * 25);
+            } else if (k < 75) {
+                if (source.isOff())
+                    continue;
+                if (vm.isSuspended())
+                    SimulatorManager.resumeVM(vm.getName(), source.getName());
+                else
+                    SimulatorManager.suspendVM(vm.getName(), source.getName());
+            } else if (k < 95) {
+                XHost destination = hosts[random.nextInt(NB_OF_HOSTS)];
+                if (source.isOff() || destination.isOff() || destination == source || vm.isSuspended())
+                    continue;
+                if (SimulatorManager.migrateVM(vm.getName(), source.getName(), destination.getName()))
+                    nbOfMigrations++;
+                check(vm.getLocation().getHostedVM(vm.getName()) == vm, vm.getName() + " is not hosted by " + vm.getLocation().getName());
+            } else {
+                XHost host = hosts[random.nextInt(NB_OF_HOSTS)];
+                if (host.isOn())
+                    SimulatorManager.turnOff(host);
+                else
+                    SimulatorManager.turnOn(host);
+            }
+            for (XHost host : hosts)
+                checkDemand(host, i);
+        }
+        check(nbOfMigrations > 0, "no migration");
+    }
+
+    private static void checkDemand(XHost host, int step) {
+        int nbOfVMs = 0;
+        int memDemand = 0;
+        for (XVM vm : host.getRunnings()) {
+            nbOfVMs++;
+            memDemand += vm.getMemSize();
+            check(host.getHostedVM(vm.getName()) == vm && vm.getLocation() == host, "step " + step + ": " + vm.getName() + " on " + host.getName());
+        }
+        check(Math.abs(host.getCPUDemand() - host.computeCPUDemand()) <= 1e-6, String.format("step %d: CPU demand of %s %f instead of %f",
+                step, host.getName(), host.getCPUDemand(), host.computeCPUDemand()));
+        check(host.getMemDemand() == memDemand && host.getNbVMs() == nbOfVMs, String.format("step %d: %s hosts %d VMs (%d MB) instead of %d (%d MB)",
+                step, host.getName(), host.getNbVMs(), host.getMemDemand(), nbOfVMs, memDemand));
+    }
+}
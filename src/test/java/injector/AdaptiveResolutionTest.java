@@ -0,0 +1,88 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+
+/**
+ * Check the steps of the adaptive resolution: the changes that keep the same load are dropped, the volatility
+ * threshold is calibrated by rank, and only the stable VMs are resampled (one change per period, carrying the average
+ * load quantized on the CPU consumption slots).
+ */
+public class AdaptiveResolutionTest {
+
+    private static final long DURATION = 1800;
+    private static final double STABLE_PERIOD = 600;
+
+    public static void main(String[] args) {
+        // vm-0 has 1 core, vm-1 has 2 cores
+        XVM[] vms = createVMs(createHosts(1), 2);
+        int max = SimulatorProperties.getVMMAXCPUConsumption();
+        int slot = max / SimulatorProperties.getNbOfCPUConsumptionSlots();
+
+        AdaptiveResolution resolution = new AdaptiveResolution(0.5, STABLE_PERIOD);
+
+        // No-ops are dropped, the first change is kept
+        LoadProcess process = resolution.prepare(process(0, max, 10, max, 20, 0, 30, 0, 40, max));
+        check(toString(process).equals(toString(process(0, max, 20, 0, 40, max))), "dropped no-ops: " + toString(process));
+
+        // The volatility is the time-weighted standard deviation divided by the maximal load of the VM
+        LoadProcess square = new LoadProcess(0);
+        for (int t = 0; t < DURATION; t += 100)
+            square.add(t, (t / 100) % 2 == 0 ? max : 0);
+        check(resolution.volatility(vms[0], square, DURATION) == 0.5, "volatility of a square signal");
+        check(resolution.volatility(vms[1], square, DURATION) == 0.25, "volatility on 2 cores");
+        check(resolution.volatility(vms[0], process(0, max / 2), DURATION) == 0, "volatility of a constant load");
+        check(resolution.volatility(vms[0], process(DURATION, max), DURATION) == 0, "volatility of a change at the end");
+
+        // Not calibrated (e.g. replay): every VM keeps its changes
+        check(resolution.classify(vms[0], square, 0, DURATION) == square, "not calibrated");
+
+        // Half of the VMs are stable: the threshold is the volatility of the first volatile VM
+        resolution.calibrate(new double[]{0.4, 0.1, 0.3, 0.2});
+        LoadProcess resampled = resolution.classify(vms[0], square, 0.2, DURATION);
+        int average = Math.round(max / 2f / slot) * slot;
+        check(toString(resampled).equals(toString(process(0, average))), "resampled stable VM: " + toString(resampled));
+        check(resolution.classify(vms[0], square, 0.3, DURATION) == square, "the volatile VMs keep their changes");
+        check(resolution.classify(vms[0], process(0, max), 0, DURATION).size() == 1, "a single change is kept");
+
+        // A stable VM whose average load changes from one period to the next
+        LoadProcess steps = process(0, max, 600, max, 900, 0, 1200, 0);
+        resampled = resolution.classify(vms[0], steps, 0, DURATION);
+        check(toString(resampled).equals(toString(process(0, max, 600, average, 1200, 0))), "resampled steps: " + toString(resampled));
+
+        // The arrivals are classified with the calibrated threshold
+        check(toString(resolution.apply(vms[0], square, DURATION)).equals(toString(square)), "a volatile arrival keeps its changes");
+
+        // Extreme ratios
+        AdaptiveResolution allStable = new AdaptiveResolution(1, STABLE_PERIOD);
+        allStable.calibrate(new double[]{0.4, 0.1});
+        check(allStable.classify(vms[0], square, 0.5, DURATION) != square, "ratio 1: every VM is stable");
+        AdaptiveResolution noneStable = new AdaptiveResolution(0, STABLE_PERIOD);
+        noneStable.calibrate(new double[]{0.4, 0.1});
+        check(noneStable.classify(vms[0], square, 0.1, DURATION) == square, "ratio 0: no VM is stable");
+
+        done();
+    }
+
+    /**
+     * @param changes time1, load1, time2, load2...
+     */
+    private static LoadProcess process(double... changes) {
+        LoadProcess res = new LoadProcess(changes.length / 2);
+        for (int i = 0; i < changes.length; i += 2)
+            res.add(changes[i], (int) changes[i + 1]);
+        return res;
+    }
+
+    private static String toString(LoadProcess process) {
+        StringBuilder res = new StringBuilder();
+        for (int i = 0; i < process.size(); i++)
+            res.append(process.getTime(i)).append('/').append(process.getLoad(i)).append(' ');
+        return res.toString();
+    }
+}
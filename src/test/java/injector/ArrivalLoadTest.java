@@ -0,0 +1,61 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.SplittableRandom;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+
+/**
+ * Check that the load process of a VM that arrives during the simulation is drawn from the stream of its number, as
+ * the ones of the initial VMs, and that it starts at its arrival: the time-homogeneous models generate the process of
+ * the initial VMs shifted by the arrival time.
+ */
+public class ArrivalLoadTest {
+
+    private static final String[] MODELS = {"gaussian", "markov", "bursty", "diurnal"};
+
+    private static final long DURATION = 86400;
+    private static final double ARRIVAL = 20000.5;
+
+    public static void main(String[] args) {
+        SplittableRandom root = new SplittableRandom(SimulatorProperties.getSeed());
+        for (int i = 0; i < 1000; i++)
+            check(ParallelLoadGenerator.seed(i) == root.nextLong(), "seed of the VM #" + i);
+
+        XVM[] vms = createVMs(createHosts(4), 50);
+        for (String name : MODELS) {
+            LoadModel model = ParallelLoadGenerator.buildModel(name);
+            for (XVM vm : vms) {
+                long seed = ParallelLoadGenerator.seed(vm.getId());
+                LoadProcess initial = new LoadProcess(16);
+                model.generate(vm, new SplittableRandom(seed), 0, DURATION, initial);
+                LoadProcess arrived = new LoadProcess(16);
+                model.generate(vm, new SplittableRandom(seed), ARRIVAL, DURATION, arrived);
+
+                check(arrived.size() > 0, name + ": no change for " + vm.getName());
+                for (int i = 0; i < arrived.size(); i++) {
+                    check(arrived.getTime(i) > ARRIVAL && arrived.getTime(i) < DURATION, name + ": change at " + arrived.getTime(i));
+                    check(i == 0 || arrived.getTime(i) >= arrived.getTime(i - 1), name + ": changes out of order");
+                }
+                if (name.equals("diurnal"))
+                    continue;
+
+                // The same changes, shifted, up to the end of the simulation
+                int nbOfChanges = 0;
+                while (nbOfChanges < initial.size() && initial.getTime(nbOfChanges) + ARRIVAL < DURATION - 1e-6)
+                    nbOfChanges++;
+                check(Math.abs(arrived.size() - nbOfChanges) <= 1, String.format("%s: %d changes for %s instead of %d", name, arrived.size(), vm.getName(), nbOfChanges));
+                for (int i = 0; i < Math.min(nbOfChanges, arrived.size()); i++) {
+                    check(Math.abs(arrived.getTime(i) - initial.getTime(i) - ARRIVAL) < 1e-6, name + ": shifted change at " + arrived.getTime(i));
+                    check(arrived.getLoad(i) == initial.getLoad(i), name + ": load of the shifted change at " + arrived.getTime(i));
+                }
+            }
+        }
+        done();
+    }
+}
@@ -0,0 +1,66 @@
+package injector;
+
+import simulation.TestSupport.TestEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.expectFailure;
+
+/**
+ * Check that EventHeap delivers the events by time, then by id, then in insertion order, while events are added and
+ * removed in any order.
+ */
+public class EventHeapTest {
+
+    public static void main(String[] args) {
+        EventHeap heap = new EventHeap();
+        check(heap.isEmpty() && heap.peek() == null, "empty heap");
+
+        // Few distinct times and ids, so that many events are tied
+        Random random = new Random(1);
+        List<TestEvent> expected = new ArrayList<>();
+        List<TestEvent> actual = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            TestEvent evt = new TestEvent(random.nextInt(5), random.nextInt(50), i);
+            heap.add(evt);
+            expected.add(evt);
+            // Interleave the removals with the insertions (the heap grows beyond its initial capacity)
+            if (random.nextInt(3) == 0)
+                actual.add(poll(heap, expected));
+        }
+        check(heap.size() == expected.size() && heap.toArray().length == heap.size(), "size");
+        while (!heap.isEmpty())
+            actual.add(poll(heap, expected));
+
+        check(actual.size() == 10000, "all the events are delivered");
+        expectFailure(NoSuchElementException.class, "poll() on an empty heap", heap::poll);
+
+        done();
+    }
+
+    /**
+     * Poll the heap and check that the event is the first of the remaining ones
+     */
+    private static TestEvent poll(EventHeap heap, List<TestEvent> remaining) {
+        TestEvent first = Collections.min(remaining, new Comparator<TestEvent>() {
+            @Override
+            public int compare(TestEvent o1, TestEvent o2) {
+                int res = Double.compare(o1.getTime(), o2.getTime());
+                if (res == 0)
+                    res = Long.compare(o1.getId(), o2.getId());
+                return res != 0 ? res : Integer.compare(o1.getRank(), o2.getRank());
+            }
+        });
+        TestEvent evt = (TestEvent) heap.peek();
+        check(heap.poll() == evt && evt == first, "expected " + first + " but got " + evt);
+        remaining.remove(first);
+        return evt;
+    }
+}
@@ -0,0 +1,85 @@
+package injector;
+
+import configuration.XHost;
+import configuration.XVM;
+import simulation.TestSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createEvents;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.same;
+import static simulation.TestSupport.tempFile;
+
+/**
+ * Check that the events written in an event journal (one by one or from an event store) are replayed identically,
+ * and that a journal is refused on another infrastructure.
+ */
+public class EventJournalTest {
+
+    public static void main(String[] args) throws IOException {
+        XHost[] hosts = createHosts(10);
+        XVM[] vms = createVMs(hosts, 50);
+
+        // More events than a batch of the writer
+        List<InjectorEvent> events = createEvents(vms, hosts, 10000);
+
+        File written = tempFile("journal", ".bin");
+        check(EventJournal.write(written, events.iterator(), vms, hosts) == events.size(), "number of events written");
+        check(replay(written, vms, hosts, events), "round trip of the writer");
+
+        EventStore store = new EventStore(vms, hosts);
+        store.addAll(events.iterator());
+        File dumped = tempFile("journal", ".bin");
+        check(EventJournal.write(dumped, store, vms.length, hosts.length) == events.size(), "number of events dumped");
+        check(Arrays.equals(Files.readAllBytes(written.toPath()), Files.readAllBytes(dumped.toPath())), "the store and the writer write the same journal");
+
+        // The events appended one by one (as in streaming mode) are counted in the header on close(), which may be repeated
+        File appended = tempFile("journal", ".bin");
+        EventJournal.Writer writer = new EventJournal.Writer(appended, vms, hosts);
+        for (InjectorEvent evt : events.subList(0, 100))
+            writer.append(evt);
+        writer.close();
+        writer.close();
+        check(writer.getCount() == 100 && replay(appended, vms, hosts, events.subList(0, 100)), "round trip of the appended events");
+
+        // An empty journal
+        File empty = tempFile("journal", ".bin");
+        EventJournal.write(empty, new ArrayList<InjectorEvent>().iterator(), vms, hosts);
+        check(replay(empty, vms, hosts, new ArrayList<InjectorEvent>()), "empty journal");
+
+        // Another infrastructure, or not a journal
+        expectFailure(written, createVMs(hosts, 51), hosts, "other number of VMs");
+        expectFailure(written, vms, createHosts(11), "other number of hosts");
+        expectFailure(TestSupport.write("journal", ".txt", "0.0/vm-1/50"), vms, hosts, "not a journal");
+
+        done();
+    }
+
+    /**
+     * @return true if the journal contains exactly the expected events
+     */
+    private static boolean replay(File file, XVM[] vms, XHost[] hosts, List<InjectorEvent> expected) throws IOException {
+        try (EventJournal.Reader reader = new EventJournal.Reader(file, vms, hosts)) {
+            if (reader.size() != expected.size())
+                return false;
+            for (InjectorEvent evt : expected) {
+                if (!reader.hasNext() || !same(evt, reader.next()))
+                    return false;
+            }
+            return !reader.hasNext();
+        }
+    }
+
+    private static void expectFailure(File file, XVM[] vms, XHost[] hosts, String message) {
+        TestSupport.expectFailure(IOException.class, message, () -> new EventJournal.Reader(file, vms, hosts).close());
+    }
+}
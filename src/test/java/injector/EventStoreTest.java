@@ -0,0 +1,65 @@
+package injector;
+
+import configuration.XHost;
+import configuration.XVM;
+import simulation.TestSupport;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createEvents;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.same;
+
+/**
+ * Check that every kind of event stored in an EventStore is materialized back identically (same class, id, time,
+ * target and payload), and that the events of the other infrastructures are refused.
+ */
+public class EventStoreTest {
+
+    public static void main(String[] args) {
+        XHost[] hosts = createHosts(10);
+        XVM[] vms = createVMs(hosts, 50);
+
+        // More events than the initial capacity of the store
+        List<InjectorEvent> events = createEvents(vms, hosts, 5000);
+        EventStore store = new EventStore(vms, hosts);
+        store.addAll(events.iterator());
+        check(store.size() == events.size(), "size");
+        int first = -1;
+        for (int i = 0; i < events.size() && first < 0; i++)
+            first = same(events.get(i), store.get(i)) ? -1 : i;
+        check(first < 0, "event " + first);
+
+        Iterator<InjectorEvent> it = store.iterator();
+        boolean identical = true;
+        for (InjectorEvent evt : events)
+            identical &= it.hasNext() && same(evt, it.next());
+        check(identical && !it.hasNext(), "iterator");
+
+        // The raw records
+        LoadEvent load = (LoadEvent) events.get(0);
+        check(store.getKind(0) == EventStore.LOAD && store.getTargetIndex(0) == load.getVm().getId()
+                && store.getPayload(0) == load.getCPULoad() && store.getTime(0) == load.getTime(), "record of a load event");
+
+        // Events of another infrastructure
+        XVM[] others = createVMs(hosts, 50);
+        expectFailure(store, new LoadEvent(0, 1, others[3], 50), "VM of another infrastructure");
+        expectFailure(store, new FaultEvent(0, 1, createHosts(10)[2], false), "host of another infrastructure");
+        expectFailure(store, new TestSupport.TestEvent(0, 1, 0), "unsupported event");
+
+        store.clear();
+        check(store.size() == 0 && !store.iterator().hasNext(), "clear");
+
+        done();
+    }
+
+    private static void expectFailure(EventStore store, InjectorEvent evt, String message) {
+        int size = store.size();
+        TestSupport.expectFailure(IllegalArgumentException.class, message, () -> store.add(evt));
+        check(store.size() == size, message + ": the store is unchanged");
+    }
+}
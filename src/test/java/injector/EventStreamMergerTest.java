@@ -0,0 +1,60 @@
+package injector;
+
+import simulation.TestSupport.TestEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.expectFailure;
+
+/**
+ * Check that EventStreamMerger merges time-ordered sources in time order, events at the same time being delivered in
+ * the order of their sources (as Injector.mergeQueues()).
+ */
+public class EventStreamMergerTest {
+
+    public static void main(String[] args) {
+        // The id is the rank of the source, the rank is the position in the source
+        List<TestEvent> first = source(0, 0, 0, 10, 10, 30);
+        List<TestEvent> second = source(1, 5, 10, 30);
+        List<TestEvent> empty = source(2);
+        List<TestEvent> third = source(3, 0, 30, 40);
+
+        List<String> merged = new ArrayList<>();
+        final Iterator<InjectorEvent> merger = new EventStreamMerger(first.iterator(), second.iterator(), empty.iterator(), third.iterator());
+        while (merger.hasNext())
+            merged.add(merger.next().toString());
+        check(merged.equals(Arrays.asList(
+                "0.0/0/0", "0.0/0/1", "0.0/3/0",
+                "5.0/1/0",
+                "10.0/0/2", "10.0/0/3", "10.0/1/1",
+                "30.0/0/4", "30.0/1/2", "30.0/3/1",
+                "40.0/3/2")), "merged order " + merged);
+
+        check(!new EventStreamMerger().hasNext(), "no source");
+        check(!new EventStreamMerger(empty.iterator()).hasNext(), "empty source");
+        expectFailure(NoSuchElementException.class, "next() on an exhausted merger", merger::next);
+
+        // A single source is returned as is
+        Iterator<InjectorEvent> single = new EventStreamMerger(third.iterator());
+        List<InjectorEvent> events = new ArrayList<>();
+        while (single.hasNext())
+            events.add(single.next());
+        check(events.equals(new ArrayList<InjectorEvent>(third)), "single source");
+
+        done();
+    }
+
+    private static List<TestEvent> source(int rank, double... times) {
+        List<TestEvent> res = new ArrayList<>();
+        for (int i = 0; i < times.length; i++)
+            res.add(new TestEvent(rank, times[i], i));
+        return Collections.unmodifiableList(res);
+    }
+}
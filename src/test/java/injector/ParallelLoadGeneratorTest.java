@@ -0,0 +1,61 @@
+package injector;
+
+import configuration.XVM;
+
+import java.util.Iterator;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+
+/**
+ * Check that the load processes generated by ParallelLoadGenerator do not depend on the number of threads, for each
+ * built-in load model.
+ */
+public class ParallelLoadGeneratorTest {
+
+    private static final String[] MODELS = {"gaussian", "diurnal", "markov", "bursty"};
+
+    public static void main(String[] args) {
+        // More VMs than ParallelLoadGenerator.THRESHOLD, so that the generation is actually split
+        XVM[] vms = createVMs(createHosts(10), 1000);
+        int nbOfThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        for (String name : MODELS) {
+            LoadModel model = ParallelLoadGenerator.buildModel(name);
+            Iterator<LoadEvent> sequential = ParallelLoadGenerator.generate(vms, 86400, model, 1);
+            Iterator<LoadEvent> parallel = ParallelLoadGenerator.generate(vms, 86400, model, nbOfThreads);
+            long count = compare(sequential, parallel);
+            System.out.println(String.format("%s: %d events, 1 vs %d threads", name, Math.abs(count), nbOfThreads));
+            check(count > 0, name + ": the streams differ");
+        }
+        done();
+    }
+
+    /**
+     * @return the number of events if both streams are identical (same times, VMs and loads) and ordered by time then
+     * by VM, minus the position of the first difference otherwise
+     */
+    private static long compare(Iterator<LoadEvent> expected, Iterator<LoadEvent> actual) {
+        long count = 0;
+        LoadEvent previous = null;
+        while (expected.hasNext() && actual.hasNext()) {
+            LoadEvent e = expected.next();
+            LoadEvent a = actual.next();
+            if (Double.doubleToLongBits(e.getTime()) != Double.doubleToLongBits(a.getTime())
+                    || e.getVm() != a.getVm() || e.getCPULoad() != a.getCPULoad()) {
+                System.out.println("First difference: " + e + " / " + a);
+                return -count;
+            }
+            if (previous != null && (previous.getTime() > a.getTime()
+                    || (previous.getTime() == a.getTime() && previous.getVm().getId() >= a.getVm().getId()))) {
+                System.out.println("Unordered events: " + previous + " / " + a);
+                return -count;
+            }
+            previous = a;
+            count++;
+        }
+        return expected.hasNext() || actual.hasNext() ? -count : count;
+    }
+}
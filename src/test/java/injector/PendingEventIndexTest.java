@@ -0,0 +1,45 @@
+package injector;
+
+import simulation.TestSupport.TestEvent;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.done;
+
+/**
+ * Check that PendingEventIndex only removes the recovery events that have not occurred yet, and that toList() keeps
+ * the insertion order of the remaining events.
+ */
+public class PendingEventIndexTest {
+
+    public static void main(String[] args) {
+        PendingEventIndex<String, TestEvent> index = new PendingEventIndex<>();
+        TestEvent offA = new TestEvent(0, 10, 0);
+        TestEvent onA = new TestEvent(1, 100, 1);
+        TestEvent offB = new TestEvent(2, 20, 2);
+        TestEvent onB = new TestEvent(3, 50, 3);
+        index.add(offA);
+        index.addRecovery("a", onA);
+        index.add(offB);
+        index.addRecovery("b", onB);
+
+        check(!index.removePendingRecovery("c", 30), "a target without recovery");
+        check(!index.removePendingRecovery("b", 60), "b has already recovered at 60");
+        check(index.removePendingRecovery("a", 60), "a is still off at 60");
+        check(!index.removePendingRecovery("a", 60), "the recovery of a has already been removed");
+
+        // The caller postpones the recovery of a
+        TestEvent laterOnA = new TestEvent(4, 200, 4);
+        index.addRecovery("a", laterOnA);
+        check(index.toList().equals(Arrays.asList(offA, offB, onB, laterOnA)), "remaining events " + index.toList());
+
+        // A recovery at the current time has not occurred yet
+        check(index.removePendingRecovery("a", 200), "a is still off at 200");
+        List<TestEvent> events = index.toList();
+        check(events.equals(Arrays.asList(offA, offB, onB)), "remaining events " + events);
+
+        done();
+    }
+}
@@ -0,0 +1,86 @@
+package injector;
+
+import configuration.XHost;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.expectFailure;
+import static simulation.TestSupport.write;
+
+/**
+ * Check that RackIndex reads the clusters, cabinets and hosts of the ASes of a platform file, and splits them into
+ * racks (the platform file is written by the test, SimGrid is not needed).
+ */
+public class RackIndexTest {
+
+    public static void main(String[] args) throws IOException {
+        // The position of each host is its number (node0 is not in the platform file, like the injector node)
+        XHost[] xhosts = createHosts(51);
+
+        File platform = write("platform", ".xml",
+                "<?xml version='1.0'?>",
+                "<!DOCTYPE platform SYSTEM \"http://simgrid.gforge.inria.fr/simgrid/simgrid.dtd\">",
+                "<platform version=\"4\">",
+                "<AS id=\"AS0\" routing=\"Full\">",
+                "  <cluster id=\"c1\" prefix=\"node\" suffix=\"\" radical=\"1-10, 20\" speed=\"1Gf\" bw=\"10Gbps\" lat=\"5E-5s\"/>",
+                "  <AS id=\"room\" routing=\"Full\">",
+                "    <cabinet id=\"cab\" prefix=\"node\" suffix=\"\" radical=\"30-33\" speed=\"1Gf\" bw=\"10Gbps\" lat=\"5E-5s\"/>",
+                "    <host id=\"node40\" speed=\"1Gf\"/>",
+                "    <host id=\"node41\" speed=\"1Gf\"/>",
+                "  </AS>",
+                "  <host id=\"node50\" speed=\"1Gf\"/>",
+                "  <cluster id=\"unknown\" prefix=\"other\" suffix=\"\" radical=\"0-3\" speed=\"1Gf\" bw=\"10Gbps\" lat=\"5E-5s\"/>",
+                "</AS>",
+                "</platform>");
+
+        RackIndex index = RackIndex.load(platform, xhosts, 4);
+        check(index.getNbOfClusters() == 4 && index.getNbOfRacks() == 6, "4 clusters and 6 racks: " + index);
+        check(clusters(index).equals("c1 cab room AS0"), "clusters " + clusters(index));
+        check(racks(index).equals("c1-rack0[1, 2, 3, 4] c1-rack1[5, 6, 7, 8] c1-rack2[9, 10, 20] cab[30, 31, 32, 33] room[40, 41] AS0[50]"),
+                "racks " + racks(index));
+        check(index.getCluster(2) == 0 && index.getCluster(3) == 1 && index.getCluster(5) == 3, "cluster of the racks");
+        check(index.getClusterFrom(0) == index.getRackFrom(0) && index.getClusterTo(0) == index.getRackTo(2)
+                && index.getClusterTo(0) - index.getClusterFrom(0) == 11, "hosts of a cluster");
+
+        // One rack per cluster
+        index = RackIndex.load(platform, xhosts, 0);
+        check(racks(index).equals("c1[1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 20] cab[30, 31, 32, 33] room[40, 41] AS0[50]"), "rack size 0: " + racks(index));
+
+        // The hosts that are not in xhosts are ignored
+        index = RackIndex.load(platform, Arrays.copyOf(xhosts, 6), 4);
+        check(racks(index).equals("c1-rack0[1, 2, 3, 4] c1-rack1[5]"), "subset of the hosts: " + racks(index));
+
+        File malformed = write("malformed", ".xml", "<platform><cluster id=\"c\" prefix=\"node\" radical=\"1-x\"/></platform>");
+        expectFailure(IOException.class, "malformed radical", () -> RackIndex.load(malformed, xhosts, 4));
+
+        done();
+    }
+
+    private static String clusters(RackIndex index) {
+        List<String> names = new ArrayList<>();
+        for (int c = 0; c < index.getNbOfClusters(); c++)
+            names.add(index.getClusterName(c));
+        return String.join(" ", names);
+    }
+
+    /**
+     * @return the name and the hosts (positions in xhosts) of each rack
+     */
+    private static String racks(RackIndex index) {
+        List<String> racks = new ArrayList<>();
+        for (int r = 0; r < index.getNbOfRacks(); r++) {
+            List<Integer> hosts = new ArrayList<>();
+            for (int slot = index.getRackFrom(r); slot < index.getRackTo(r); slot++)
+                hosts.add(index.getHost(slot));
+            racks.add(index.getRackName(r) + hosts);
+        }
+        return String.join(" ", racks);
+    }
+}
@@ -0,0 +1,82 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+
+/**
+ * Check that the initial loads drawn by LoadModel.sampleStationary() follow the distribution of the loads generated
+ * by each built-in model after a long run, and that the processes stay in that distribution from t=0 (e.g. a VM that
+ * starts inside a burst remains in it for the rest of the burst).
+ */
+public class StationaryLoadTest {
+
+    private static final String[] MODELS = {"gaussian", "diurnal", "markov", "bursty"};
+
+    /**
+     * A multiple of the period of the diurnal model, so that its sinusoid has the same phase as at t=0
+     */
+    private static final long LONG_RUN = 86400;
+
+    public static void main(String[] args) {
+        XVM[] vms = createVMs(createHosts(10), 5000);
+        // The mean of the diurnal model changes after t=0 (the phase of the sinusoid), hence only the long run
+        double[] times = {600, 1800, LONG_RUN};
+
+        for (String name : MODELS) {
+            LoadModel model = ParallelLoadGenerator.buildModel(name);
+            double[] initial = ParallelLoadGenerator.generateStationaryLoads(vms, model);
+            check(Arrays.equals(initial, ParallelLoadGenerator.generateStationaryLoads(vms, model)), name + ": same seed, same loads");
+
+            // The load of each VM at each time: its initial load, then the last change before
+            double[][] loads = new double[times.length][];
+            for (int t = 0; t < times.length; t++)
+                loads[t] = initial.clone();
+            Iterator<LoadEvent> events = ParallelLoadGenerator.generate(vms, LONG_RUN + 1, model, 4);
+            while (events.hasNext()) {
+                LoadEvent evt = events.next();
+                for (int t = 0; t < times.length; t++) {
+                    if (evt.getTime() <= times[t])
+                        loads[t][evt.getVm().getId()] = evt.getCPULoad();
+                }
+            }
+
+            for (int t = name.equals("diurnal") ? times.length - 1 : 0; t < times.length; t++) {
+                check(Math.abs(mean(vms, loads[t]) - mean(vms, initial)) < 2.5,
+                        String.format("%s: mean load at %.0f %.2f, initial %.2f", name, times[t], mean(vms, loads[t]), mean(vms, initial)));
+                check(Math.abs(saturated(vms, loads[t]) - saturated(vms, initial)) < 0.02,
+                        String.format("%s: VMs at 100%% at %.0f %.3f, initial %.3f", name, times[t], saturated(vms, loads[t]), saturated(vms, initial)));
+            }
+        }
+        done();
+    }
+
+    /**
+     * @return the average load of the VMs, as a percentage of their capacity
+     */
+    private static double mean(XVM[] vms, double[] loads) {
+        double sum = 0;
+        for (XVM vm : vms)
+            sum += 100 * loads[vm.getId()] / (SimulatorProperties.getVMMAXCPUConsumption() * vm.getCoreNumber());
+        return sum / vms.length;
+    }
+
+    /**
+     * @return the ratio of VMs that consume their whole capacity
+     */
+    private static double saturated(XVM[] vms, double[] loads) {
+        int res = 0;
+        for (XVM vm : vms) {
+            if (loads[vm.getId()] == SimulatorProperties.getVMMAXCPUConsumption() * vm.getCoreNumber())
+                res++;
+        }
+        return (double) res / vms.length;
+    }
+}
@@ -0,0 +1,90 @@
+package injector;
+
+import configuration.SimulatorProperties;
+import configuration.XVM;
+import simulation.TestSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static simulation.TestSupport.createHosts;
+import static simulation.TestSupport.createVMs;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.write;
+
+/**
+ * Check the parsing of the CPU utilization traces and the mapping of their ids onto the VMs (see file.events.mapping).
+ */
+public class TraceLoadEventReaderTest {
+
+    public static void main(String[] args) throws IOException {
+        XVM[] vms = createVMs(createHosts(1), 3);
+
+        File trace = write("trace", ".csv",
+                "time, id, cpu",
+                "# comment",
+                "100, web, 50",
+                "",
+                "100; db; 120",
+                "130\tweb\t-3",
+                "160 cache 25",
+                "170, batch, 10",
+                "2000, web, 10");
+
+        // The ids are mapped in first-seen order, batch is the fourth id (ignored), the last record is after the end
+        List<LoadEvent> events = read(trace, vms, "order");
+        check(events.size() == 4, "order: 4 events", events);
+        check(events.get(0).getTime() == 0 && events.get(0).getVm() == vms[0], "order: web drives vm-0 at 0", events);
+        check(events.get(1).getVm() == vms[1] && events.get(1).getCPULoad() == load(100, vms[1]), "order: db drives vm-1 at 100%", events);
+        check(events.get(2).getTime() == 30 && events.get(2).getCPULoad() == 0, "order: negative loads are truncated", events);
+        check(events.get(3).getVm() == vms[2] && events.get(3).getCPULoad() == load(25, vms[2]), "order: cache drives vm-2", events);
+
+        // The ids are the names of the VMs
+        File named = write("named", ".csv",
+                "2016-03-01T12:00:00Z, vm-2, 40",
+                "2016-03-01T12:00:30Z, vm-7, 40",
+                "2016-03-01T12:01:00Z, vm-0, 33.3");
+        events = read(named, vms, "name");
+        check(events.size() == 2 && events.get(0).getVm() == vms[2] && events.get(1).getTime() == 60, "name: ISO-8601 timestamps and unknown VMs", events);
+
+        // Explicit mapping
+        File mapping = write("mapping", ".txt", "# id, vm", "cache, vm-0", "web vm-1");
+        events = read(trace, vms, mapping.getPath());
+        check(events.size() == 3 && events.get(0).getVm() == vms[1] && events.get(2).getVm() == vms[0], "mapping file", events);
+
+        // Quantization on the CPU consumption slots
+        int slot = SimulatorProperties.getVMMAXCPUConsumption() / SimulatorProperties.getNbOfCPUConsumptionSlots();
+        events = read(named, vms, "name");
+        check(events.get(1).getCPULoad() % (slot * (int) vms[0].getCoreNumber()) == 0, "loads are quantized", events);
+
+        // A trace without any usable record is an error
+        expectFailure(trace, vms, "name", "no record of the simulated VMs");
+        expectFailure(write("unsorted", ".csv", "10, a, 1", "5, a, 1"), vms, "order", "unsorted trace");
+        expectFailure(write("malformed", ".csv", "10, a"), vms, "order", "malformed line");
+
+        done();
+    }
+
+    private static int load(double cpu, XVM vm) {
+        int slots = SimulatorProperties.getNbOfCPUConsumptionSlots();
+        return AbstractLoadModel.quantize(cpu, vm, slots, SimulatorProperties.getVMMAXCPUConsumption() / slots);
+    }
+
+    private static List<LoadEvent> read(File trace, XVM[] vms, String mapping) throws IOException {
+        List<LoadEvent> events = new ArrayList<>();
+        TraceLoadEventReader reader = new TraceLoadEventReader(trace, vms, 1800, mapping);
+        while (reader.hasNext())
+            events.add(reader.next());
+        return events;
+    }
+
+    private static void expectFailure(File trace, XVM[] vms, String mapping, String message) {
+        TestSupport.expectFailure(IllegalStateException.class, message, () -> read(trace, vms, mapping));
+    }
+
+    private static void check(boolean condition, String message, List<LoadEvent> events) {
+        TestSupport.check(condition, message + " " + events);
+    }
+}
@@ -0,0 +1,91 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import configuration.XVM;
+
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that the cluster-wide aggregates maintained by the SimulatorManager (global load, number of used hosts,
+ * viability) match their full scan counterparts after each load change, batch of load changes, suspension, resume and
+ * host turned on or off.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class AggregatesTest {
+
+    private static final int NB_OF_HOSTS = 50;
+    private static final int NB_OF_VMS = 400;
+
+    public static void main(String[] args) {
+        initSimGrid(args);
+        deploy(new SimulatorProperties(), NB_OF_HOSTS, NB_OF_VMS);
+        matchScans("initial placement");
+
+        Random random = new Random(1);
+        XVM[] vms = SimulatorManager.getSGVMsToArray();
+        XHost[] hosts = SimulatorManager.getSGHostsToArray();
+        int nbOfNonViableSteps = 0;
+        for (int i = 0; i < 5000; i++) {
+            int k = random.nextInt(100);
+            XVM vm = vms[random.nextInt(vms.length)];
+            String step;
+            if (k < 75) {
+                SimulatorManager.updateVM(vm, random.nextInt(5) * 25);
+                step = "load change of " + vm.getName();
+            } else if (k < 80) {
+                int size = 1 + random.nextInt(10);
+                XVM[] batch = new XVM[size];
+                double[] loads = new double[size];
+                for (int j = 0; j < size; j++) {
+                    batch[j] = vms[random.nextInt(vms.length)];
+                    loads[j] = random.nextInt(5) * 25;
+                }
+                SimulatorManager.updateVMs(batch, loads, size);
+                step = "batch of " + size + " load changes";
+            } else if (k < 90) {
+                // The VMs of the hosts that are off cannot be suspended or resumed
+                if (vm.getLocation().isOff())
+                    continue;
+                if (vm.isSuspended())
+                    SimulatorManager.resumeVM(vm.getName(), vm.getLocation().getName());
+                else
+                    SimulatorManager.suspendVM(vm.getName(), vm.getLocation().getName());
+                step = "suspension or resume of " + vm.getName();
+            } else {
+                XHost host = hosts[random.nextInt(NB_OF_HOSTS)];
+                if (host.isOn())
+                    SimulatorManager.turnOff(host);
+                else
+                    SimulatorManager.turnOn(host);
+                step = "host " + host.getName() + " turned on or off";
+            }
+            if (!matchScans(step))
+                break;
+            if (!SimulatorManager.isViable())
+                nbOfNonViableSteps++;
+        }
+        check(nbOfNonViableSteps > 0, "some steps should not be viable");
+        done();
+    }
+
+    /**
+     * @return whether the aggregates match the full scans after the step
+     */
+    private static boolean matchScans(String step) {
+        double demand = SimulatorManager.computeCPUDemand();
+        boolean ok = Math.abs(SimulatorManager.getCPUDemand() - demand) <= 1e-9 * Math.max(1, demand)
+                && SimulatorManager.getNbOfUsedHosts() == SimulatorManager.computeNbOfUsedHosts()
+                && SimulatorManager.isViable() == SimulatorManager.computeViability();
+        check(ok, String.format("after the %s: load %f (scan %f), %d used hosts (scan %d), viable %b (scan %b)",
+                step, SimulatorManager.getCPUDemand(), demand, SimulatorManager.getNbOfUsedHosts(),
+                SimulatorManager.computeNbOfUsedHosts(), SimulatorManager.isViable(), SimulatorManager.computeViability()));
+        return ok;
+    }
+}
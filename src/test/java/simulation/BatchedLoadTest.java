@@ -0,0 +1,93 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import configuration.XVM;
+import trace.TraceImpl;
+
+import java.util.Map;
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that the load changes applied at once by SimulatorManager.updateVMs() (see loadinjector.quantum) lead to the
+ * same loads, aggregates and traced loads as the same changes applied one by one.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class BatchedLoadTest {
+
+    private static final int NB_OF_HOSTS = 20;
+    private static final int NB_OF_VMS = 120;
+
+    public static void main(String[] args) {
+        initSimGrid(args);
+
+        deploy(new SimulatorProperties(), NB_OF_HOSTS, NB_OF_VMS);
+        String sequential = run(false);
+        String sequentialTrace = tracedLoads();
+
+        deploy(new SimulatorProperties(), NB_OF_HOSTS, NB_OF_VMS);
+        String batched = run(true);
+        check(sequential.equals(batched), "same loads and aggregates\n" + sequential + "\n" + batched);
+        check(!sequentialTrace.isEmpty() && sequentialTrace.equals(tracedLoads()), "same traced loads");
+
+        done();
+    }
+
+    /**
+     * Apply the same random batches of load changes (a VM may appear several times in a batch, some hosts are off)
+     * @return the loads and the aggregates after each batch
+     */
+    private static String run(boolean batched) {
+        Random random = new Random(1);
+        XVM[] vms = SimulatorManager.getSGVMsToArray();
+        XHost[] hosts = SimulatorManager.getSGHostsToArray();
+        StringBuilder res = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            if (i % 20 == 10)
+                SimulatorManager.turnOff(hosts[random.nextInt(NB_OF_HOSTS)]);
+            int size = 1 + random.nextInt(30);
+            XVM[] batch = new XVM[size];
+            double[] loads = new double[size];
+            for (int j = 0; j < size; j++) {
+                batch[j] = vms[random.nextInt(vms.length)];
+                loads[j] = random.nextInt(5) * 25;
+            }
+            if (batched)
+                SimulatorManager.updateVMs(batch, loads, size);
+            else {
+                for (int j = 0; j < size; j++)
+                    SimulatorManager.updateVM(batch[j], loads[j]);
+            }
+            res.append(loads()).append(" load=").append(SimulatorManager.getCPUDemand())
+                    .append(" used=").append(SimulatorManager.getNbOfUsedHosts())
+                    .append(" viable=").append(SimulatorManager.isViable()).append('\n');
+        }
+        check(SimulatorManager.getCPUDemand() == SimulatorManager.computeCPUDemand(), "global load (batched: " + batched + ")");
+        return res.toString();
+    }
+
+    private static String loads() {
+        StringBuilder res = new StringBuilder();
+        for (XHost host : SimulatorManager.getSGHostingHosts())
+            res.append(host.getCPUDemand()).append(',');
+        return res.toString();
+    }
+
+    /**
+     * @return the last load traced for each host and for the injector node (global load)
+     */
+    private static String tracedLoads() {
+        StringBuilder res = new StringBuilder();
+        for (Map.Entry<String, ? extends Map<String, Double>> entry : TraceImpl.getInstance().getVariableValues().entrySet()) {
+            if (entry.getValue().containsKey("LOAD"))
+                res.append(entry.getKey()).append('=').append(entry.getValue().get("LOAD")).append(' ');
+        }
+        return res.toString();
+    }
+}
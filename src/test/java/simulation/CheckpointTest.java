@@ -0,0 +1,108 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.VMClasses;
+import configuration.XHost;
+import configuration.XVM;
+import injector.DPIntensityEvent;
+import injector.FaultEvent;
+import injector.InjectorEvent;
+import injector.NetworkLoadEvent;
+import injector.VMDepartureEvent;
+import injector.VMSuspendResumeEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static simulation.TestSupport.activate;
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.deploy;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.expectFailure;
+import static simulation.TestSupport.initSimGrid;
+import static simulation.TestSupport.state;
+import static simulation.TestSupport.tempFile;
+
+/**
+ * Check that a checkpoint written by Checkpoint.write() and read back restores the same state: placement, loads,
+ * hosts on/off, VMs that have arrived in the slots of the VMs that have left, and every kind of pending event.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default).
+ */
+public class CheckpointTest {
+
+    private static final int NB_OF_HOSTS = 50;
+    private static final int NB_OF_VMS = 400;
+
+    public static void main(String[] args) throws IOException {
+        initSimGrid(args);
+        SimulatorProperties properties = new SimulatorProperties();
+        deploy(properties, NB_OF_HOSTS, NB_OF_VMS);
+
+        // Random loads and faults, then two VMs leave and two VMs arrive in their slots
+        Random random = new Random(1);
+        XVM[] vms = SimulatorManager.getSGVMsToArray();
+        XHost[] hosts = SimulatorManager.getSGHostsToArray();
+        for (int i = 0; i < 3000; i++) {
+            int k = random.nextInt(100);
+            if (k < 90)
+                SimulatorManager.updateVM(vms[random.nextInt(vms.length)], random.nextInt(5) * 25);
+            else if (k < 95)
+                SimulatorManager.turnOff(hosts[random.nextInt(NB_OF_HOSTS)]);
+            else
+                SimulatorManager.turnOn(hosts[random.nextInt(NB_OF_HOSTS)]);
+        }
+        SimulatorManager.destroyVM(7);
+        SimulatorManager.destroyVM(12);
+        SimulatorManager.createVM(NB_OF_VMS, 7, VMClasses.CLASSES.get(1), hosts[3]);
+        SimulatorManager.createVM(NB_OF_VMS + 1, 12, VMClasses.CLASSES.get(2), hosts[4]);
+        XVM arrived = SimulatorManager.getXVM(7);
+
+        InjectorEvent[] pending = {
+                new VMDepartureEvent(9, 1300, NB_OF_VMS),
+                new FaultEvent(10, 1301, hosts[5], false),
+                new VMSuspendResumeEvent(11, 1302, arrived, false),
+                new NetworkLoadEvent(12, 1303, arrived, 40),
+                new NetworkLoadEvent(13, 1304, hosts[6], 80),
+                new DPIntensityEvent(14, 1305, vms[20], 60)
+        };
+        String before = state();
+        File file = tempFile("checkpoint", ".bin");
+        Checkpoint.capture(1234.5, 42, pending).write(file);
+
+        // An event that cannot be saved prevents the checkpoint
+        expectFailure(IllegalStateException.class, "an unsupported pending event is refused", () ->
+                Checkpoint.capture(1234.5, 42, new InjectorEvent[]{new InjectorEvent() {
+                    public long getId() { return 15; }
+                    public double getTime() { return 1306; }
+                    public void play() { }
+                }}));
+
+        // Restore on a fresh context
+        activate(properties);
+        Checkpoint checkpoint = Checkpoint.read(file);
+        SimulatorManager.configureHostsAndVMs(NB_OF_HOSTS, 1, NB_OF_VMS, false, checkpoint.getInitialPlacement());
+        checkpoint.apply();
+
+        check(before.equals(state()), "same state");
+        check(checkpoint.getTime() == 1234.5 && checkpoint.getCursor() == 42, "time and cursor");
+        check(SimulatorManager.getClock() == 1234.5, "the clock is shifted by the time of the checkpoint");
+        check(SimulatorManager.getVMNumber(SimulatorManager.getXVM(7)) == NB_OF_VMS
+                && SimulatorManager.getVMNumber(SimulatorManager.getXVM(12)) == NB_OF_VMS + 1, "arrived VMs in their slots");
+
+        List<InjectorEvent> events = checkpoint.getPendingEvents();
+        check(events.size() == pending.length, "number of pending events");
+        for (int i = 0; i < Math.min(events.size(), pending.length); i++) {
+            InjectorEvent expected = pending[i];
+            InjectorEvent actual = events.get(i);
+            check(actual.getClass() == expected.getClass() && actual.getId() == expected.getId()
+                    && actual.getTime() == expected.getTime() && actual.toString().equals(expected.toString()),
+                    "pending event " + expected + " / " + actual);
+        }
+        check(((VMSuspendResumeEvent) events.get(2)).getVM() == SimulatorManager.getXVM(7), "events reference the restored VMs");
+
+        done();
+    }
+}
@@ -0,0 +1,60 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.XHost;
+import org.simgrid.msg.Host;
+import org.simgrid.msg.MsgException;
+import trace.TraceImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static simulation.TestSupport.activate;
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.done;
+import static simulation.TestSupport.initSimGrid;
+
+/**
+ * Check that the energy sampler traces one container per rack when simulator.energy.perrack is set, the racks being
+ * named after the clusters of the platform file.
+ * Run from the root of the project (config/simulator.properties is read): the first argument is the platform file
+ * (config/cluster_platform.xml by default, i.e. one cluster of 66 nodes).
+ */
+public class EnergySamplerTest {
+
+    public static void main(String[] args) throws MsgException {
+        String platform = initSimGrid(args);
+
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.setProperty(SimulatorProperties.ENERGY_PER_RACK, "true");
+        properties.setProperty(SimulatorProperties.RACK_SIZE, "16");
+        activate(properties);
+        SimulatorManager.setPlatformFile(platform);
+
+        // node0 is the injector node, 40 hosting hosts, hence racks of 16, 16 and 8 hosts
+        XHost[] xhosts = new XHost[40];
+        for (int i = 0; i < xhosts.length; i++) {
+            xhosts[i] = new XHost(Host.getByName("node" + (i + 1)), 32768, 8, 800, 1250, null);
+            xhosts[i].setId(i);
+        }
+
+        EnergySampler sampler = new EnergySampler(Host.getByName("node0"), "energy-sampler", xhosts, 60);
+        sampler.sample();
+        sampler.trace();
+
+        Map<String, Double> expected = new HashMap<>();
+        for (int i = 0; i < xhosts.length; i++) {
+            String rack = "my_cluster_1-rack" + i / 16;
+            Double sum = expected.get(rack);
+            expected.put(rack, (sum == null ? 0 : sum) + xhosts[i].getConsumedEnergy());
+        }
+
+        HashMap<String, HashMap<String, Double>> values = TraceImpl.getInstance().getVariableValues();
+        for (Map.Entry<String, Double> rack : expected.entrySet()) {
+            Map<String, Double> variables = values.get(rack.getKey());
+            check(variables != null && rack.getValue().equals(variables.get("ENERGY")), rack.getKey() + " " + variables);
+        }
+        check(!values.containsKey("rack0") && !values.containsKey("my_cluster_1-rack3"), "unexpected containers " + values.keySet());
+        done();
+    }
+}
@@ -0,0 +1,90 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.done;
+
+/**
+ * Check that IdSet counts its ids in each segment as they are set and cleared, and that the views over several sets
+ * iterate and count their ids like a scan of the same ids in a BitSet.
+ */
+public class IdSetTest {
+
+    private static final int NB_OF_IDS = 300;
+
+    public static void main(String[] args) {
+        // Segments [0, 100[, [100, 250[, [250, +inf[, e.g. the hosting hosts, the service hosts and the free ids
+        IdSet on = new IdSet(NB_OF_IDS, 100, 250);
+        IdSet off = new IdSet(NB_OF_IDS, 100, 250);
+        BitSet expectedOn = new BitSet();
+        BitSet expectedOff = new BitSet();
+
+        check(view(0, Integer.MAX_VALUE, on).isEmpty() && view(0, Integer.MAX_VALUE, on).size() == 0, "empty view");
+
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(NB_OF_IDS);
+            // The same id is set and cleared several times, and is never in both sets
+            switch (random.nextInt(3)) {
+                case 0: on.set(id); off.clear(id); expectedOn.set(id); expectedOff.clear(id); break;
+                case 1: off.set(id); on.clear(id); expectedOff.set(id); expectedOn.clear(id); break;
+                default: on.clear(id); off.clear(id); expectedOn.clear(id); expectedOff.clear(id); break;
+            }
+            if (i % 100 != 0)
+                continue;
+
+            check(on.cardinality() == expectedOn.cardinality(), "cardinality");
+            int[][] ranges = {{0, 100}, {100, 250}, {250, Integer.MAX_VALUE}, {0, 250}, {0, Integer.MAX_VALUE}, {50, 120}, {99, 101}};
+            for (int[] range : ranges) {
+                int from = range[0];
+                int to = range[1];
+                check(on.count(from, to) == count(expectedOn, from, to), "count of [" + from + ", " + to + "[");
+
+                List<Integer> expected = ids(from, to, expectedOn, expectedOff);
+                IdView<Integer> view = view(from, to, on, off);
+                List<Integer> actual = new ArrayList<>();
+                for (Integer element : view)
+                    actual.add(element);
+                check(actual.equals(expected), "ids of [" + from + ", " + to + "[: " + actual + " instead of " + expected);
+                check(view.size() == expected.size() && view.isEmpty() == expected.isEmpty(), "size of [" + from + ", " + to + "[");
+            }
+        }
+        done();
+    }
+
+    /**
+     * @return the view whose elements are their ids
+     */
+    private static IdView<Integer> view(int from, int to, IdSet... sets) {
+        return new IdView<Integer>(from, to, sets) {
+            @Override
+            Integer get(int id) {
+                return id;
+            }
+        };
+    }
+
+    private static int count(BitSet bits, int from, int to) {
+        return bits.get(from, Math.min(to, NB_OF_IDS)).cardinality();
+    }
+
+    /**
+     * @return the ids of [from, to[ that are in one of the sets, in increasing order
+     */
+    private static List<Integer> ids(int from, int to, BitSet... sets) {
+        List<Integer> res = new ArrayList<>();
+        for (int id = from; id < Math.min(to, NB_OF_IDS); id++) {
+            for (BitSet set : sets) {
+                if (set.get(id)) {
+                    res.add(id);
+                    break;
+                }
+            }
+        }
+        return res;
+    }
+}
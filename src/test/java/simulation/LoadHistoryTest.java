@@ -0,0 +1,61 @@
+package simulation;
+
+import static simulation.TestSupport.check;
+import static simulation.TestSupport.done;
+
+/**
+ * Check the rings of LoadHistory (the oldest samples are overwritten, a sample at the same time replaces the previous
+ * one, the rings survive the growth of the arrays) and its statistics (last load, mean, peak, trend).
+ */
+public class LoadHistoryTest {
+
+    public static void main(String[] args) {
+        LoadHistory history = new LoadHistory(2, 4);
+        check(history.getCapacity() == 4, "capacity");
+        check(history.size(0) == 0 && Double.isNaN(history.getLastLoad(0)) && Double.isNaN(history.getMean(0))
+                && Double.isNaN(history.getPeak(0)) && history.getTrend(0) == 0, "no sample");
+        check(history.size(10) == 0, "unknown entity");
+
+        // Entity 0: 6 samples in a ring of 4, the first two are overwritten
+        for (int t = 0; t < 6; t++)
+            history.append(0, 10 * t, 5 * t);
+        check(samples(history, 0).equals("20.0/10.0 30.0/15.0 40.0/20.0 50.0/25.0"), "ring " + samples(history, 0));
+        check(history.getLastLoad(0) == 25 && history.getMean(0) == 17.5 && history.getPeak(0) == 25, "statistics");
+        check(Math.abs(history.getTrend(0) - 0.5) < 1e-12, "trend of a linear load " + history.getTrend(0));
+
+        // A sample at the same time replaces the last one
+        history.append(0, 50, 5);
+        check(samples(history, 0).equals("20.0/10.0 30.0/15.0 40.0/20.0 50.0/5.0"), "replaced sample " + samples(history, 0));
+        check(history.getPeak(0) == 20 && history.getTrend(0) < 0, "statistics after the replacement");
+
+        // A single sample, then a constant load
+        history.append(1, 0, 40);
+        check(history.size(1) == 1 && history.getTrend(1) == 0 && history.getMean(1) == 40, "single sample");
+        history.append(1, 30, 40);
+        check(history.getTrend(1) == 0, "constant load");
+
+        // The rings are kept when new entities arrive
+        history.ensureCapacity(100);
+        history.append(99, 10, 60);
+        check(samples(history, 0).equals("20.0/10.0 30.0/15.0 40.0/20.0 50.0/5.0") && history.size(1) == 2
+                && history.getLastLoad(99) == 60, "growth");
+
+        // The slot of an entity is reused
+        history.clear(0);
+        check(history.size(0) == 0, "clear");
+        history.append(0, 60, 70);
+        check(samples(history, 0).equals("60.0/70.0"), "reused slot " + samples(history, 0));
+
+        done();
+    }
+
+    /**
+     * @return the samples of the entity, from the oldest one to the last one
+     */
+    private static String samples(LoadHistory history, int id) {
+        StringBuilder res = new StringBuilder();
+        for (int i = 0; i < history.size(id); i++)
+            res.append(i > 0 ? " " : "").append(history.getTime(id, i)).append('/').append(history.getLoad(id, i));
+        return res.toString();
+    }
+}
@@ -0,0 +1,260 @@
+package simulation;
+
+import configuration.SimulatorProperties;
+import configuration.VMClasses;
+import configuration.XHost;
+import configuration.XVM;
+import injector.DPIntensityEvent;
+import injector.FaultEvent;
+import injector.InjectorEvent;
+import injector.LoadEvent;
+import injector.NetworkLoadEvent;
+import injector.VMArrivalEvent;
+import injector.VMDepartureEvent;
+import injector.VMSuspendResumeEvent;
+import org.simgrid.msg.Msg;
+import trace.Trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The checks and the fixtures shared by the tests.
+ * Each test is a main that runs its checks, then calls done() to print OK or FAILED and to exit with 0 or 1.
+ * The hosts and the VMs of the fixtures are not bound to SimGrid, so that the tests of the data structures do not
+ * need Msg (config/simulator.properties is still read: run the tests from the root of the project). The tests of the
+ * simulator manager initialize SimGrid (see initSimGrid()) and deploy a simulation (see deploy()).
+ */
+public final class TestSupport {
+
+    private static boolean ok = true;
+
+    private TestSupport() {
+    }
+
+    /**
+     * An action that is expected to throw an exception (see expectFailure())
+     */
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * An event that only records its rank (e.g. its insertion order or its position in a source)
+     */
+    public static class TestEvent implements InjectorEvent {
+        private final long id;
+        private final double time;
+        private final int rank;
+
+        public TestEvent(long id, double time, int rank) {
+            this.id = id;
+            this.time = time;
+            this.rank = rank;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getTime() {
+            return time;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public void play() {
+        }
+
+        @Override
+        public String toString() {
+            return time + "/" + id + "/" + rank;
+        }
+    }
+
+    public static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("FAILED: " + message);
+            ok = false;
+        }
+    }
+
+    /**
+     * Check that the action throws an exception of the given type
+     */
+    public static void expectFailure(Class<? extends Exception> type, String message, Action action) {
+        try {
+            action.run();
+            check(false, message);
+        } catch (Exception e) {
+            if (type.isInstance(e))
+                System.out.println("Expected failure: " + e);
+            else
+                check(false, message + ": " + e);
+        }
+    }
+
+    /**
+     * @return the hosts node0, node1..., the id of each host being its position
+     */
+    public static XHost[] createHosts(int nbOfHosts) {
+        XHost[] hosts = new XHost[nbOfHosts];
+        for (int i = 0; i < nbOfHosts; i++) {
+            hosts[i] = new XHost("node" + i, 32768, 8, 800, 1250);
+            hosts[i].setId(i);
+        }
+        return hosts;
+    }
+
+    /**
+     * @return the VMs vm-0, vm-1... spread over the hosts, with 1 and 2 cores alternately, the id of each VM being its
+     * position
+     */
+    public static XVM[] createVMs(XHost[] hosts, int nbOfVMs) {
+        XVM[] vms = new XVM[nbOfVMs];
+        for (int i = 0; i < nbOfVMs; i++) {
+            vms[i] = new XVM(hosts[i % hosts.length], "vm-" + i, 1 + i % 2, 1024, 125, 125, 10);
+            vms[i].setId(i);
+        }
+        return vms;
+    }
+
+    /**
+     * @return time-ordered events of every kind, the id of each event being its position
+     */
+    public static List<InjectorEvent> createEvents(XVM[] vms, XHost[] hosts, int nbOfEvents) {
+        Random random = new Random(1);
+        List<InjectorEvent> events = new ArrayList<>();
+        double time = 0;
+        for (int id = 0; id < nbOfEvents; id++) {
+            time += random.nextInt(3) * 0.5;
+            XVM vm = vms[random.nextInt(vms.length)];
+            XHost host = hosts[random.nextInt(hosts.length)];
+            switch (id < 10 ? id : random.nextInt(10)) {
+                case 0: events.add(new LoadEvent(id, time, vm, random.nextInt(101))); break;
+                case 1: events.add(new FaultEvent(id, time, host, false)); break;
+                case 2: events.add(new FaultEvent(id, time, host, true)); break;
+                case 3: events.add(new VMSuspendResumeEvent(id, time, vm, false)); break;
+                case 4: events.add(new VMSuspendResumeEvent(id, time, vm, true)); break;
+                case 5: events.add(new NetworkLoadEvent(id, time, vm, random.nextInt(100))); break;
+                case 6: events.add(new NetworkLoadEvent(id, time, host, random.nextInt(100))); break;
+                case 7: events.add(new DPIntensityEvent(id, time, vm, random.nextInt(100))); break;
+                case 8: events.add(new VMArrivalEvent(id, time, vms.length + id, random.nextInt(VMClasses.CLASSES.size()))); break;
+                default: events.add(new VMDepartureEvent(id, time, random.nextInt(vms.length))); break;
+            }
+        }
+        return events;
+    }
+
+    /**
+     * @return true if both events have the same class, id, time, target and payload
+     */
+    public static boolean same(InjectorEvent expected, InjectorEvent actual) {
+        return actual.getClass() == expected.getClass() && actual.getId() == expected.getId()
+                && actual.getTime() == expected.getTime() && target(actual) == target(expected)
+                && actual.toString().equals(expected.toString());
+    }
+
+    /**
+     * @return the VM or the host of the event (null for the arrivals and departures, which reference a VM number)
+     */
+    private static Object target(InjectorEvent evt) {
+        if (evt instanceof LoadEvent)
+            return ((LoadEvent) evt).getVm();
+        if (evt instanceof FaultEvent)
+            return ((FaultEvent) evt).getHost();
+        if (evt instanceof VMSuspendResumeEvent)
+            return ((VMSuspendResumeEvent) evt).getVM();
+        if (evt instanceof NetworkLoadEvent)
+            return ((NetworkLoadEvent) evt).getVM() != null ? ((NetworkLoadEvent) evt).getVM() : ((NetworkLoadEvent) evt).getHost();
+        if (evt instanceof DPIntensityEvent)
+            return ((DPIntensityEvent) evt).getVM();
+        return null;
+    }
+
+    /**
+     * Initialize SimGrid with the platform file given as first argument of the test
+     * @return the platform file (config/cluster_platform.xml by default, i.e. the hosts node0 .. node65)
+     */
+    public static String initSimGrid(String[] args) {
+        String platform = args.length > 0 ? args[0] : "config/cluster_platform.xml";
+        Msg.init(args);
+        Msg.createEnvironment(platform);
+        return platform;
+    }
+
+    /**
+     * Activate a new simulation, with the host variables traced by the simulator manager
+     * @return the context of the simulation
+     */
+    public static SimulationContext activate(SimulatorProperties properties) {
+        SimulationContext context = new SimulationContext(properties);
+        SimulationContext.activate(context);
+        for (String variable : new String[]{"LOAD", "NB_VM", "NB_VM_TRUE", "ENERGY", "NET_LOAD", "NB_OFF", "NB_ON"})
+            Trace.hostVariableDeclare(variable);
+        Trace.hostStateDeclare("PM");
+        return context;
+    }
+
+    /**
+     * Activate a new simulation and deploy its hosts (plus one service node) and its VMs on SimGrid
+     * @return the context of the simulation
+     */
+    public static SimulationContext deploy(SimulatorProperties properties, int nbOfHosts, int nbOfVMs) {
+        properties.setProperty(SimulatorProperties.NB_OF_HOSTINGNODES, Integer.toString(nbOfHosts));
+        properties.setProperty(SimulatorProperties.NB_OF_VMS, Integer.toString(nbOfVMs));
+        SimulationContext context = activate(properties);
+        SimulatorManager.configureHostsAndVMs(nbOfHosts, 1, nbOfVMs, false);
+        return context;
+    }
+
+    /**
+     * @return the placement, the loads, the hosts on/off and the counters of the current simulation
+     */
+    public static String state() {
+        StringBuilder res = new StringBuilder();
+        for (XHost host : SimulatorManager.getSGHostingHosts()) {
+            res.append(host.getName()).append(host.isOn() ? "+" : "-").append(host.getNbOfViolations()).append(':');
+            for (XVM vm : host.getRunnings())
+                res.append(vm.getName()).append('=').append(vm.getLoad()).append(',');
+            res.append(';');
+        }
+        res.append(" load=").append(SimulatorManager.getCPUDemand()).append(" used=").append(SimulatorManager.getNbOfUsedHosts())
+                .append(" suspensions=").append(SimulatorManager.getNbOfSuspensions());
+        return res.toString();
+    }
+
+    /**
+     * @return an empty temporary file, deleted when the test exits
+     */
+    public static File tempFile(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * @return a temporary text file made of the given lines, deleted when the test exits
+     */
+    public static File write(String prefix, String suffix, String... lines) throws IOException {
+        File file = tempFile(prefix, suffix);
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Print the result of the checks and exit
+     */
+    public static void done() {
+        System.out.println(ok ? "OK" : "FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+}